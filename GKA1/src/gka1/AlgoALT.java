@@ -0,0 +1,192 @@
+package gka1;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+
+/**
+ * A* with landmarks (ALT) for repeated shortest path queries on a mostly static
+ * CSR snapshot. The heuristic of a node is the lower bound of its cost to the
+ * end given by {@link GkaLandmarks}. It never overestimates and fulfils the
+ * triangle inequality, so a node is final once it's taken from the queue as in
+ * Dijkstra, but the search heads for the end and settles far fewer nodes.<br>
+ * Queries run on the snapshot of the current tables. New tables, e.g. for a
+ * changed graph, can be set or built in the background by any thread while
+ * queries continue on the old ones, the next query uses the new ones. Queries
+ * themselves share a workspace and must not run on several threads at once.
+ *
+ * @author Huy Tran PC
+ *
+ */
+public class AlgoALT {
+	private volatile GkaLandmarks landmarks;
+	private GkaDijkstraWorkspace workspace;
+
+	// landmarks of the last query
+	private GkaLandmarks lastLandmarks;
+
+	/**
+	 * Constructor for an AlgoALT with given landmark tables.
+	 *
+	 * @param landmarks
+	 *            Landmark tables of the snapshot to work with.
+	 */
+	public AlgoALT(GkaLandmarks landmarks) {
+		this.landmarks = landmarks;
+		this.workspace = new GkaDijkstraWorkspace(landmarks.getCsr().getNodeCount());
+	}
+
+	/**
+	 * Get the landmark tables used by the next query.
+	 *
+	 * @return The landmark tables.
+	 */
+	public GkaLandmarks getLandmarks() {
+		return landmarks;
+	}
+
+	/**
+	 * Replace the landmark tables, together with the snapshot they belong to.
+	 * Node indices of later queries refer to the new snapshot.
+	 *
+	 * @param landmarks
+	 *            The new landmark tables.
+	 */
+	public void setLandmarks(GkaLandmarks landmarks) {
+		if (landmarks == null) {
+			throw new IllegalArgumentException("Landmarks must not be null.");
+		}
+		this.landmarks = landmarks;
+	}
+
+	/**
+	 * Build landmark tables of a new snapshot in the background and use them as
+	 * soon as they're done.
+	 *
+	 * @param csr
+	 *            The new CSR snapshot.
+	 * @param landmarkCount
+	 *            Number of landmarks.
+	 * @param seed
+	 *            Seed of the landmark selection.
+	 * @param executor
+	 *            Executor to build the tables on.
+	 * @return Future of the new tables, completed after they were set.
+	 */
+	public CompletableFuture<GkaLandmarks> rebuild(GkaCsr csr, int landmarkCount, long seed, Executor executor) {
+		return CompletableFuture.supplyAsync(() -> GkaLandmarks.build(csr, landmarkCount, seed), executor)
+				.thenApply(built -> {
+					setLandmarks(built);
+					return built;
+				});
+	}
+
+	/**
+	 * Find the shortest path between 2 given nodes of the current snapshot.
+	 *
+	 * @param startIndex
+	 *            Index of the start node.
+	 * @param endIndex
+	 *            Index of the end node.
+	 * @return Sequence of node indices on the shortest path between start and end
+	 *         nodes, null if end can't be reached.
+	 */
+	public int[] shortestPath(int startIndex, int endIndex) {
+		return search(startIndex, endIndex) < 0 ? null : workspace.getPath(endIndex);
+	}
+
+	/**
+	 * Get the cost of the shortest path between 2 given nodes of the current
+	 * snapshot.
+	 *
+	 * @param startIndex
+	 *            Index of the start node.
+	 * @param endIndex
+	 *            Index of the end node.
+	 * @return The cost of the shortest path, -1 if end can't be reached.
+	 */
+	public double distance(int startIndex, int endIndex) {
+		return search(startIndex, endIndex);
+	}
+
+	/**
+	 * Get the number of nodes settled by the last query.
+	 *
+	 * @return Number of settled nodes.
+	 */
+	public int getSettledCount() {
+		return workspace.getSettledCount();
+	}
+
+	/**
+	 * Get the landmark tables the last query ran on, e.g. to map its node indices
+	 * after the tables were replaced.
+	 *
+	 * @return The landmark tables of the last query, null before the first one.
+	 */
+	public GkaLandmarks getLastLandmarks() {
+		return lastLandmarks;
+	}
+
+	private double search(int startIndex, int endIndex) {
+		// one snapshot of tables for the whole query
+		GkaLandmarks curr = landmarks;
+		GkaCsr csr = curr.getCsr();
+		int nodeNr = csr.getNodeCount();
+		if (startIndex < 0 || startIndex >= nodeNr || endIndex < 0 || endIndex >= nodeNr) {
+			throw new IllegalArgumentException("Node not found in graph.");
+		}
+		if (workspace.getNodeCount() < nodeNr) {
+			workspace = new GkaDijkstraWorkspace(nodeNr);
+		}
+		lastLandmarks = curr;
+
+		int[] offsets = csr.getOffsets();
+		int[] targets = csr.getTargets();
+		int[] weights = csr.getWeights();
+
+		// min priority queue of nodes ordered by cost to start plus lower bound to end
+		GkaIndexedHeap minPQ = workspace.heap;
+		double[] totalCosts = workspace.dists;
+
+		workspace.reset();
+		workspace.reach(startIndex, 0.0, -1);
+		double bound = curr.lowerBound(startIndex, endIndex);
+		if (bound == Double.POSITIVE_INFINITY) {
+			return -1.0;
+		}
+		minPQ.insert(startIndex, bound);
+
+		while (!minPQ.isEmpty()) {
+			// dequeue the node with smallest estimate, its cost is final
+			int node = minPQ.poll();
+			workspace.settledCount++;
+
+			// stop if end is found
+			if (node == endIndex) {
+				return totalCosts[endIndex];
+			}
+
+			for (int arc = offsets[node]; arc < offsets[node + 1]; arc++) {
+				int n = targets[arc];
+				double totalCost = totalCosts[node] + weights[arc];
+
+				if (!workspace.isReached(n)) {
+					workspace.reach(n, totalCost, node);
+
+					// nodes that can't reach the end are never queued
+					bound = curr.lowerBound(n, endIndex);
+					if (bound != Double.POSITIVE_INFINITY) {
+						minPQ.insert(n, totalCost + bound);
+					}
+				} else if (totalCost < totalCosts[n] && minPQ.contains(n)) {
+					// the bound of a node doesn't change
+					double estimate = minPQ.getKey(n) - totalCosts[n] + totalCost;
+					workspace.reach(n, totalCost, node);
+					minPQ.decreaseKey(n, estimate);
+				}
+			}
+		}
+
+		return -1.0;
+	}
+}
@@ -4,13 +4,9 @@ import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.UnsupportedEncodingException;
 import java.util.ArrayList;
-import java.util.HashMap;
-import java.util.Iterator;
-import java.util.LinkedList;
+import java.util.Arrays;
 import java.util.List;
-import java.util.Queue;
 
-import org.graphstream.graph.Edge;
 import org.graphstream.graph.Node;
 
 /**
@@ -20,6 +16,10 @@ import org.graphstream.graph.Node;
  *
  */
 public class AlgoBFS {
+	// frontier thresholds of the direction-optimizing BFS from Beamer et al.
+	static final int ALPHA = 14;
+	static final int BETA = 24;
+
 	public static void main(String[] args) throws UnsupportedEncodingException, FileNotFoundException, IOException {
 		 String filename = "BFStest.gka";
 		 GkaGraph myGraph = GkaUtils.read(filename);
@@ -47,53 +47,211 @@ public class AlgoBFS {
 	 * @return The sequence of nodes during BFS.
 	 */
 	public static List<Node> traverse(GkaGraph graph, String startNodeName, boolean isVisualized) {
+		List<Node> visited = traverse(graph, startNodeName);
+
+		// visualize the result
+		if (isVisualized) {
+			GkaViewer.showTraversal(graph, visited);
+		}
+
+		return visited;
+	}
+
+	/**
+	 * Get the sequence of node in BFS-traversal without visualization.
+	 * 
+	 * @param graph
+	 *            A graph to work with.
+	 * @param startNodeName
+	 *            Name of the start node.
+	 * @return The sequence of nodes during BFS.
+	 */
+	public static List<Node> traverse(GkaGraph graph, String startNodeName) {
 		// check if node exists
-		if (!graph.getNodeNames().contains(startNodeName)) {
+		if (!graph.hasNodeName(startNodeName)) {
 			throw new IllegalArgumentException("Node not found in graph.");
 		}
 
 		// get start node
 		Node start = graph.getNode(graph.createNode(startNodeName));
 
-		// create a list for visited nodes
-		List<Node> visited = new ArrayList<>();
+		// traverse on a CSR snapshot of the graph
+		int[] order = traverse(GkaCsr.of(graph), start.getIndex());
 
-		// create a queue for nodes to visit
-		Queue<Node> toVisit = new LinkedList<>();
+		List<Node> visited = new ArrayList<>(order.length);
+		for (int nodeIndex : order) {
+			visited.add(graph.getNode(nodeIndex));
+		}
+
+		return visited;
+	}
+
+	/**
+	 * Get the sequence of node indices in BFS-traversal of a CSR snapshot.
+	 * 
+	 * @param csr
+	 *            A CSR snapshot to work with.
+	 * @param startIndex
+	 *            Index of the start node.
+	 * @return The sequence of node indices during BFS.
+	 */
+	public static int[] traverse(GkaCsr csr, int startIndex) {
+		if (startIndex < 0 || startIndex >= csr.getNodeCount()) {
+			throw new IllegalArgumentException("Node not found in graph.");
+		}
+
+		int[] offsets = csr.getOffsets();
+		int[] targets = csr.getTargets();
+
+		// track visited nodes, the queue holds them in visiting order
+		boolean[] visited = new boolean[csr.getNodeCount()];
+		int[] queue = new int[csr.getNodeCount()];
+		int head = 0;
+		int tail = 0;
 
 		// enqueue start node
-		toVisit.add(start);
-		visited.add(start);
+		queue[tail++] = startIndex;
+		visited[startIndex] = true;
 
-		while (!toVisit.isEmpty()) {
+		while (head < tail) {
 			// dequeue visiting node
-			Node curr = toVisit.remove();
+			int curr = queue[head++];
 
 			// enqueue unvisited adjacent nodes
-			Iterator<Node> neighbors = curr.getNeighborNodeIterator();
-			while (neighbors.hasNext()) {
-				Node n = neighbors.next();
-				if (!visited.contains(n) && curr.hasEdgeToward(n)) {
-					toVisit.add(n);
-					visited.add(n);
+			for (int arc = offsets[curr]; arc < offsets[curr + 1]; arc++) {
+				int n = targets[arc];
+				if (!visited[n]) {
+					visited[n] = true;
+					queue[tail++] = n;
 				}
 			}
 		}
 
-		// visualize the result
-		if (isVisualized) {
-			graph.display();
-			graph.beautify();
-			clearMarks(graph);
-
-			for (Node node : visited) {
-				sleep();
-				node.setAttribute("ui.class", "marked");
-				sleep();
+		int[] order = new int[tail];
+		System.arraycopy(queue, 0, order, 0, tail);
+		return order;
+	}
+
+	/**
+	 * Compute the BFS tree of a CSR snapshot with the direction-optimizing BFS of
+	 * Beamer et al. Levels are expanded top-down (the frontier checks its outgoing
+	 * arcs) while the frontier is small, and bottom-up (every unvisited node checks
+	 * its incoming arcs for a parent in the frontier, stopping at the first one)
+	 * while the frontier has more than 1 / {@value #ALPHA} of the arcs of the
+	 * unvisited nodes, until it shrinks below 1 / {@value #BETA} of the nodes.
+	 * Visited nodes and the bottom-up frontier are bitsets, so the bottom-up steps
+	 * of low-diameter graphs skip most arcs. Incoming arcs come from
+	 * {@link GkaCsr#transpose()}.
+	 * 
+	 * @param csr
+	 *            A CSR snapshot to work with.
+	 * @param startIndex
+	 *            Index of the start node.
+	 * @return Levels and parents of the nodes.
+	 */
+	public static GkaBfsTree search(GkaCsr csr, int startIndex) {
+		int nodeNr = csr.getNodeCount();
+		if (startIndex < 0 || startIndex >= nodeNr) {
+			throw new IllegalArgumentException("Node not found in graph.");
+		}
+
+		int[] offsets = csr.getOffsets();
+		int[] targets = csr.getTargets();
+
+		int[] levels = new int[nodeNr];
+		int[] parents = new int[nodeNr];
+		Arrays.fill(levels, -1);
+		Arrays.fill(parents, -1);
+		long[] visited = new long[(nodeNr + 63) >>> 6];
+		long[] frontierBits = null;
+
+		// visited nodes in visiting order, the frontier is queue[head] to queue[tail]
+		int[] queue = new int[nodeNr];
+		int head = 0;
+		int tail = 0;
+
+		queue[tail++] = startIndex;
+		visited[startIndex >>> 6] |= 1L << startIndex;
+		levels[startIndex] = 0;
+
+		// arcs of the frontier and of the unvisited nodes
+		long frontierArcs = csr.getOutDegree(startIndex);
+		long unvisitedArcs = csr.getArcCount() - frontierArcs;
+		boolean isBottomUp = false;
+		int level = 0;
+
+		while (head < tail) {
+			int frontierSize = tail - head;
+			if (isBottomUp) {
+				isBottomUp = frontierSize >= nodeNr / BETA;
+			} else {
+				isBottomUp = frontierArcs > unvisitedArcs / ALPHA;
+			}
+			level++;
+			int frontierEnd = tail;
+			frontierArcs = 0;
+
+			if (!isBottomUp) {
+				// top-down: check the outgoing arcs of the frontier
+				for (int i = head; i < frontierEnd; i++) {
+					int curr = queue[i];
+					for (int arc = offsets[curr]; arc < offsets[curr + 1]; arc++) {
+						int n = targets[arc];
+						long bit = 1L << n;
+						if ((visited[n >>> 6] & bit) == 0) {
+							visited[n >>> 6] |= bit;
+							levels[n] = level;
+							parents[n] = curr;
+							queue[tail++] = n;
+							frontierArcs += offsets[n + 1] - offsets[n];
+						}
+					}
+				}
+			} else {
+				// bottom-up: find a parent in the frontier for each unvisited node
+				GkaCsr transposed = csr.transpose();
+				int[] inOffsets = transposed.getOffsets();
+				int[] sources = transposed.getTargets();
+
+				if (frontierBits == null) {
+					frontierBits = new long[visited.length];
+				} else {
+					Arrays.fill(frontierBits, 0L);
+				}
+				for (int i = head; i < frontierEnd; i++) {
+					frontierBits[queue[i] >>> 6] |= 1L << queue[i];
+				}
+
+				for (int w = 0; w < visited.length; w++) {
+					long unvisited = ~visited[w];
+					while (unvisited != 0) {
+						int n = (w << 6) + Long.numberOfTrailingZeros(unvisited);
+						unvisited &= unvisited - 1;
+						if (n >= nodeNr) {
+							break;
+						}
+
+						for (int arc = inOffsets[n]; arc < inOffsets[n + 1]; arc++) {
+							int prev = sources[arc];
+							if ((frontierBits[prev >>> 6] & (1L << prev)) != 0) {
+								// the frontier doesn't change during this level
+								visited[w] |= 1L << n;
+								levels[n] = level;
+								parents[n] = prev;
+								queue[tail++] = n;
+								frontierArcs += offsets[n + 1] - offsets[n];
+								break;
+							}
+						}
+					}
+				}
 			}
+
+			unvisitedArcs -= frontierArcs;
+			head = frontierEnd;
 		}
 
-		return visited;
+		return new GkaBfsTree(startIndex, levels, parents, tail, levels[queue[tail - 1]]);
 	}
 
 	/**
@@ -122,8 +280,33 @@ public class AlgoBFS {
 	 */
 	public static List<Node> shortestPath(GkaGraph graph, String startNodeName, String endNodeName,
 			boolean isVisualized) {
+		List<Node> out = shortestPath(graph, startNodeName, endNodeName);
+
+		// visualize the result
+		if (isVisualized && out != null) {
+			GkaViewer.showPath(graph, out);
+		}
+
+		return out;
+	}
+
+	/**
+	 * Find the shortest path between 2 given nodes in graph without
+	 * visualization.
+	 * 
+	 * @param graph
+	 *            The graph to work with.
+	 * @param startNodeName
+	 *            Name of the start node.
+	 * @param endNodeName
+	 *            Name of the end node.
+	 * @return Sequence of nodes on the shortest path between start and end
+	 *         nodes, only the start node if start and end are the same, null if
+	 *         end can't be reached.
+	 */
+	public static List<Node> shortestPath(GkaGraph graph, String startNodeName, String endNodeName) {
 		// check if nodes exist
-		if (!graph.getNodeNames().contains(startNodeName) || !graph.getNodeNames().contains(endNodeName)) {
+		if (!graph.hasNodeName(startNodeName) || !graph.hasNodeName(endNodeName)) {
 			throw new IllegalArgumentException("Node not found in graph.");
 		}
 
@@ -131,91 +314,89 @@ public class AlgoBFS {
 		Node start = graph.getNode(graph.createNode(startNodeName));
 		Node end = graph.getNode(graph.createNode(endNodeName));
 
-		// create a queue for nodes to visit
-		Queue<Node> toVisit = new LinkedList<>();
+		// search on a CSR snapshot of the graph
+		int[] path = shortestPath(GkaCsr.of(graph), start.getIndex(), end.getIndex());
+
+		// return null if end is not found
+		if (path == null) {
+			return null;
+		}
+
+		List<Node> out = new ArrayList<>(path.length);
+		for (int nodeIndex : path) {
+			out.add(graph.getNode(nodeIndex));
+		}
+
+		return out;
+	}
+
+	/**
+	 * Find the shortest path between 2 given nodes of a CSR snapshot.
+	 * 
+	 * @param csr
+	 *            A CSR snapshot to work with.
+	 * @param startIndex
+	 *            Index of the start node.
+	 * @param endIndex
+	 *            Index of the end node.
+	 * @return Sequence of node indices on the shortest path between start and end
+	 *         nodes, null if end can't be reached.
+	 */
+	public static int[] shortestPath(GkaCsr csr, int startIndex, int endIndex) {
+		int[] offsets = csr.getOffsets();
+		int[] targets = csr.getTargets();
+		int nodeNr = csr.getNodeCount();
+		if (startIndex < 0 || startIndex >= nodeNr || endIndex < 0 || endIndex >= nodeNr) {
+			throw new IllegalArgumentException("Node not found in graph.");
+		}
+
+		// previous node of each visited node, -2 for unvisited nodes
+		int[] prevNodes = new int[nodeNr];
+		Arrays.fill(prevNodes, -2);
 
-		// create a HashMap between each node and its previous node
-		HashMap<Node, Node> prevNodes = new HashMap<>();
+		// create a queue for nodes to visit
+		int[] queue = new int[nodeNr];
+		int head = 0;
+		int tail = 0;
 
 		// enqueue start node
-		toVisit.add(start);
-		prevNodes.put(start, null);
+		queue[tail++] = startIndex;
+		prevNodes[startIndex] = -1;
 
-		while (!toVisit.isEmpty()) {
+		while (head < tail) {
 			// dequeue visiting node
-			Node curr = toVisit.remove();
+			int curr = queue[head++];
 
 			// stop if end node is found
-			if (curr.equals(end)) {
+			if (curr == endIndex) {
 				break;
 			}
 
 			// enqueue unvisited adjacent nodes
-			Iterator<Node> neighbors = curr.getNeighborNodeIterator();
-			while (neighbors.hasNext()) {
-				Node n = neighbors.next();
-				if (!prevNodes.containsKey(n) && curr.hasEdgeToward(n)) {
-					toVisit.add(n);
-					prevNodes.put(n, curr);
+			for (int arc = offsets[curr]; arc < offsets[curr + 1]; arc++) {
+				int n = targets[arc];
+				if (prevNodes[n] == -2) {
+					prevNodes[n] = curr;
+					queue[tail++] = n;
 				}
 			}
 		}
 
 		// return null if end is not found
-		if (prevNodes.get(end) == null) {
+		if (prevNodes[endIndex] == -2) {
 			return null;
 		}
 
-		// trace back the path with HashMap
-		List<Node> out = new LinkedList<>();
-		Node curr = end;
-		while (curr != null) {
-			out.add(0, curr);
-			curr = prevNodes.get(curr);
+		// trace back the path with the previous nodes
+		int length = 0;
+		for (int curr = endIndex; curr != -1; curr = prevNodes[curr]) {
+			length++;
 		}
-
-		// visualize the result
-		if (isVisualized) {
-			graph.display();
-			graph.beautify();
-			clearMarks(graph);
-			out.get(0).addAttribute("ui.class", "special");
-
-			for (int i = 1; i < out.size(); i++) {
-				out.get(i).addAttribute("ui.class", "marked");
-				out.get(i - 1).getEdgeBetween(out.get(i)).addAttribute("ui.class", "marked");
-			}
-
-			out.get(out.size() - 1).addAttribute("ui.class", "special");
+		int[] out = new int[length];
+		for (int curr = endIndex; curr != -1; curr = prevNodes[curr]) {
+			out[--length] = curr;
 		}
 
 		return out;
-
-	}
-
-	/**
-	 * Clear all previous marks on the graph made by visualized methods.
-	 * 
-	 * @param graph
-	 *            A graph to work with.
-	 */
-	protected static void clearMarks(GkaGraph graph) {
-		for (Node node : graph) {
-			node.setAttribute("ui.class", "unmarked");
-		}
-		for (Edge edge : graph.getEachEdge()) {
-			edge.setAttribute("ui.class", "unmarked");
-		}
 	}
-
-	/**
-	 * Pause during traversal between each node.
-	 */
-	protected static void sleep() {
-		try {
-			Thread.sleep(800);
-		} catch (Exception e) {
-		}
-	}
-
 }
@@ -0,0 +1,243 @@
+package gka1;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.graphstream.graph.Node;
+
+/**
+ * Bidirectional BFS for shortest paths between two nodes of a CSR snapshot.
+ * One search grows from the start along outgoing arcs, the other from the end
+ * along incoming arcs ({@link GkaCsr#transpose()}), and each step expands a
+ * whole level of the side with fewer frontier arcs. The searches stop at the
+ * first level where they meet, so a far-apart pair costs roughly two balls of
+ * half the distance instead of one of the full distance.<br>
+ * An instance keeps its arrays between queries. A node counts as visited by a
+ * search only if its mark equals the stamp of the current query, so starting a
+ * query costs O(1) instead of clearing O(nodeCount) entries. An instance must
+ * not be used by several threads at once.
+ *
+ * @author Huy Tran PC
+ *
+ */
+public class AlgoBidirectionalBFS {
+	private final GkaCsr csr;
+	private final GkaCsr transposed;
+
+	// visit marks, parents towards the own root and distance to it of each side
+	private final int[] forwardMarks;
+	private final int[] backwardMarks;
+	private final int[] forwardParents;
+	private final int[] backwardParents;
+	private final int[] forwardDists;
+	private final int[] backwardDists;
+	private final int[] forwardQueue;
+	private final int[] backwardQueue;
+	private int stamp;
+
+	// best node where the searches met during the last expansion, -1 if none
+	private int meetNode;
+
+	/**
+	 * Constructor for an AlgoBidirectionalBFS on a CSR snapshot.
+	 *
+	 * @param csr
+	 *            A CSR snapshot to work with.
+	 */
+	public AlgoBidirectionalBFS(GkaCsr csr) {
+		int nodeNr = csr.getNodeCount();
+		this.csr = csr;
+		this.transposed = csr.transpose();
+		this.forwardMarks = new int[nodeNr];
+		this.backwardMarks = new int[nodeNr];
+		this.forwardParents = new int[nodeNr];
+		this.backwardParents = new int[nodeNr];
+		this.forwardDists = new int[nodeNr];
+		this.backwardDists = new int[nodeNr];
+		this.forwardQueue = new int[nodeNr];
+		this.backwardQueue = new int[nodeNr];
+	}
+
+	/**
+	 * Find the shortest path between 2 given nodes in graph.
+	 *
+	 * @param graph
+	 *            The graph to work with.
+	 * @param startNodeName
+	 *            Name of the start node.
+	 * @param endNodeName
+	 *            Name of the end node.
+	 * @return Sequence of nodes on the shortest path between start and end
+	 *         nodes, null if end can't be reached.
+	 */
+	public static List<Node> shortestPath(GkaGraph graph, String startNodeName, String endNodeName) {
+		GkaCsr csr = GkaCsr.of(graph);
+		int[] path = new AlgoBidirectionalBFS(csr).shortestPath(csr.requireNodeIndex(startNodeName),
+				csr.requireNodeIndex(endNodeName));
+
+		// return null if end is not found
+		if (path == null) {
+			return null;
+		}
+
+		List<Node> out = new ArrayList<>(path.length);
+		for (int nodeIndex : path) {
+			out.add(graph.getNode(nodeIndex));
+		}
+		return out;
+	}
+
+	/**
+	 * Find the shortest path between 2 given nodes of the snapshot.
+	 *
+	 * @param startIndex
+	 *            Index of the start node.
+	 * @param endIndex
+	 *            Index of the end node.
+	 * @return Sequence of node indices on the shortest path between start and end
+	 *         nodes, null if end can't be reached.
+	 */
+	public int[] shortestPath(int startIndex, int endIndex) {
+		int meet = search(startIndex, endIndex);
+		if (meet < 0) {
+			return null;
+		}
+
+		// trace back to the start and forward to the end
+		int[] out = new int[forwardDists[meet] + backwardDists[meet] + 1];
+		int i = forwardDists[meet];
+		for (int curr = meet; i >= 0; curr = forwardParents[curr]) {
+			out[i--] = curr;
+		}
+		i = forwardDists[meet];
+		for (int curr = meet; curr != endIndex;) {
+			curr = backwardParents[curr];
+			out[++i] = curr;
+		}
+		return out;
+	}
+
+	/**
+	 * Get the number of arcs on a shortest path between 2 given nodes of the
+	 * snapshot.
+	 *
+	 * @param startIndex
+	 *            Index of the start node.
+	 * @param endIndex
+	 *            Index of the end node.
+	 * @return Number of arcs of the shortest path, -1 if end can't be reached.
+	 */
+	public int distance(int startIndex, int endIndex) {
+		int meet = search(startIndex, endIndex);
+		return meet < 0 ? -1 : forwardDists[meet] + backwardDists[meet];
+	}
+
+	/**
+	 * Run both searches until they meet.
+	 *
+	 * @return Node on a shortest path seen by both searches, -1 if there is none.
+	 */
+	private int search(int startIndex, int endIndex) {
+		int nodeNr = csr.getNodeCount();
+		if (startIndex < 0 || startIndex >= nodeNr || endIndex < 0 || endIndex >= nodeNr) {
+			throw new IllegalArgumentException("Node not found in graph.");
+		}
+
+		nextStamp();
+		visit(forwardMarks, forwardParents, forwardDists, startIndex, -1, 0);
+		visit(backwardMarks, backwardParents, backwardDists, endIndex, -1, 0);
+		if (startIndex == endIndex) {
+			return startIndex;
+		}
+
+		forwardQueue[0] = startIndex;
+		backwardQueue[0] = endIndex;
+		int forwardHead = 0;
+		int forwardTail = 1;
+		int backwardHead = 0;
+		int backwardTail = 1;
+		long forwardArcs = csr.getOutDegree(startIndex);
+		long backwardArcs = transposed.getOutDegree(endIndex);
+
+		while (forwardHead < forwardTail && backwardHead < backwardTail) {
+			int levelEnd;
+			if (forwardArcs <= backwardArcs) {
+				levelEnd = forwardTail;
+				forwardTail = expand(csr, forwardHead, levelEnd, forwardQueue, forwardMarks, forwardParents,
+						forwardDists, backwardMarks, backwardDists);
+				forwardHead = levelEnd;
+				forwardArcs = frontierArcs(csr, forwardQueue, forwardHead, forwardTail);
+			} else {
+				levelEnd = backwardTail;
+				backwardTail = expand(transposed, backwardHead, levelEnd, backwardQueue, backwardMarks,
+						backwardParents, backwardDists, forwardMarks, forwardDists);
+				backwardHead = levelEnd;
+				backwardArcs = frontierArcs(transposed, backwardQueue, backwardHead, backwardTail);
+			}
+
+			if (meetNode >= 0) {
+				return meetNode;
+			}
+		}
+
+		return -1;
+	}
+
+	/**
+	 * Expand a whole level of one side. Checking the whole level is needed, as
+	 * the first meeting within a level isn't always the shortest one.
+	 *
+	 * @return New tail of the queue.
+	 */
+	private int expand(GkaCsr side, int head, int levelEnd, int[] queue, int[] marks, int[] parents, int[] dists,
+			int[] otherMarks, int[] otherDists) {
+		int[] offsets = side.getOffsets();
+		int[] targets = side.getTargets();
+		int tail = levelEnd;
+		int bestLength = Integer.MAX_VALUE;
+		meetNode = -1;
+
+		for (int i = head; i < levelEnd; i++) {
+			int curr = queue[i];
+			int dist = dists[curr] + 1;
+			for (int arc = offsets[curr]; arc < offsets[curr + 1]; arc++) {
+				int n = targets[arc];
+				if (marks[n] == stamp) {
+					continue;
+				}
+				visit(marks, parents, dists, n, curr, dist);
+				queue[tail++] = n;
+
+				if (otherMarks[n] == stamp && dist + otherDists[n] < bestLength) {
+					bestLength = dist + otherDists[n];
+					meetNode = n;
+				}
+			}
+		}
+		return tail;
+	}
+
+	private void visit(int[] marks, int[] parents, int[] dists, int nodeIndex, int parent, int dist) {
+		marks[nodeIndex] = stamp;
+		parents[nodeIndex] = parent;
+		dists[nodeIndex] = dist;
+	}
+
+	private static long frontierArcs(GkaCsr side, int[] queue, int head, int tail) {
+		long arcs = 0;
+		for (int i = head; i < tail; i++) {
+			arcs += side.getOutDegree(queue[i]);
+		}
+		return arcs;
+	}
+
+	private void nextStamp() {
+		// clear the marks once the stamps wrap around
+		if (++stamp == 0) {
+			Arrays.fill(forwardMarks, 0);
+			Arrays.fill(backwardMarks, 0);
+			stamp = 1;
+		}
+	}
+}
@@ -0,0 +1,214 @@
+package gka1;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.graphstream.graph.Node;
+
+/**
+ * Bidirectional Dijkstra for shortest paths between two nodes of a CSR
+ * snapshot. One search grows from the start along outgoing arcs, the other
+ * from the end along incoming arcs ({@link GkaCsr#transpose()}), and each step
+ * settles a node of the side whose smallest queued cost is lower. Whenever an
+ * arc reaches a node the other side has reached, the cost of the path through
+ * it is a candidate. The searches stop once the smallest queued costs of both
+ * sides add up to at least the best candidate, as no path through unsettled
+ * nodes can be shorter then. A query settles roughly two balls of half the cost
+ * instead of one of the full cost.<br>
+ * An instance keeps one {@link GkaDijkstraWorkspace} per side between queries
+ * and must not be used by several threads at once. Weights must not be
+ * negative.
+ *
+ * @author Huy Tran PC
+ *
+ */
+public class AlgoBidirectionalDijkstra {
+	private final GkaCsr csr;
+	private final GkaCsr transposed;
+	private final GkaDijkstraWorkspace forward;
+	private final GkaDijkstraWorkspace backward;
+
+	// cost of the path found by the last query
+	private double bestCost;
+
+	/**
+	 * Constructor for an AlgoBidirectionalDijkstra on a CSR snapshot.
+	 *
+	 * @param csr
+	 *            A CSR snapshot to work with.
+	 */
+	public AlgoBidirectionalDijkstra(GkaCsr csr) {
+		this.csr = csr;
+		this.transposed = csr.transpose();
+		this.forward = new GkaDijkstraWorkspace(csr.getNodeCount());
+		this.backward = new GkaDijkstraWorkspace(csr.getNodeCount());
+	}
+
+	/**
+	 * Find the shortest path between 2 given nodes in graph.
+	 *
+	 * @param graph
+	 *            The graph to work with.
+	 * @param startNodeName
+	 *            Name of the start node.
+	 * @param endNodeName
+	 *            Name of the end node.
+	 * @return Sequence of nodes on the shortest path between start and end
+	 *         nodes, null if end can't be reached.
+	 */
+	public static List<Node> shortestPath(GkaGraph graph, String startNodeName, String endNodeName) {
+		GkaCsr csr = GkaCsr.of(graph);
+		int[] path = new AlgoBidirectionalDijkstra(csr).shortestPath(csr.requireNodeIndex(startNodeName),
+				csr.requireNodeIndex(endNodeName));
+
+		// return null if end is not found
+		if (path == null) {
+			return null;
+		}
+
+		List<Node> out = new ArrayList<>(path.length);
+		for (int nodeIndex : path) {
+			out.add(graph.getNode(nodeIndex));
+		}
+		return out;
+	}
+
+	/**
+	 * Find the shortest path between 2 given nodes of the snapshot.
+	 *
+	 * @param startIndex
+	 *            Index of the start node.
+	 * @param endIndex
+	 *            Index of the end node.
+	 * @return Sequence of node indices on the shortest path between start and end
+	 *         nodes, null if end can't be reached.
+	 */
+	public int[] shortestPath(int startIndex, int endIndex) {
+		int meet = search(startIndex, endIndex);
+		if (meet < 0) {
+			return null;
+		}
+
+		// path to the meeting node, then along the backward search to the end
+		int[] head = forward.getPath(meet);
+		int length = head.length;
+		for (int curr = backward.getPrevNode(meet); curr != -1; curr = backward.getPrevNode(curr)) {
+			length++;
+		}
+		int[] out = new int[length];
+		System.arraycopy(head, 0, out, 0, head.length);
+		int i = head.length;
+		for (int curr = backward.getPrevNode(meet); curr != -1; curr = backward.getPrevNode(curr)) {
+			out[i++] = curr;
+		}
+		return out;
+	}
+
+	/**
+	 * Get the cost of the shortest path between 2 given nodes of the snapshot.
+	 *
+	 * @param startIndex
+	 *            Index of the start node.
+	 * @param endIndex
+	 *            Index of the end node.
+	 * @return The cost of the shortest path, -1 if end can't be reached.
+	 */
+	public double distance(int startIndex, int endIndex) {
+		return search(startIndex, endIndex) < 0 ? -1.0 : bestCost;
+	}
+
+	/**
+	 * Get the number of nodes settled by both searches of the last query.
+	 *
+	 * @return Number of settled nodes.
+	 */
+	public int getSettledCount() {
+		return forward.getSettledCount() + backward.getSettledCount();
+	}
+
+	/**
+	 * Run both searches until no shorter path can be found.
+	 *
+	 * @return Node on the shortest path reached by both searches, -1 if there is
+	 *         none.
+	 */
+	private int search(int startIndex, int endIndex) {
+		int nodeNr = csr.getNodeCount();
+		if (startIndex < 0 || startIndex >= nodeNr || endIndex < 0 || endIndex >= nodeNr) {
+			throw new IllegalArgumentException("Node not found in graph.");
+		}
+
+		forward.reset();
+		backward.reset();
+		forward.reach(startIndex, 0.0, -1);
+		backward.reach(endIndex, 0.0, -1);
+		forward.heap.insert(startIndex, 0.0);
+		backward.heap.insert(endIndex, 0.0);
+
+		bestCost = Double.POSITIVE_INFINITY;
+		int meet = -1;
+		if (startIndex == endIndex) {
+			bestCost = 0.0;
+			meet = startIndex;
+		}
+
+		while (true) {
+			double forwardMin = minKey(forward.heap);
+			double backwardMin = minKey(backward.heap);
+
+			// stop if no path through unsettled nodes can be shorter
+			if (forwardMin + backwardMin >= bestCost) {
+				return meet;
+			}
+
+			int n = forwardMin <= backwardMin ? settle(csr, forward, backward) : settle(transposed, backward, forward);
+			if (n >= 0) {
+				meet = n;
+			}
+		}
+	}
+
+	/**
+	 * Settle the next node of one side and relax its arcs.
+	 *
+	 * @return Node of a new best path reached by both sides, -1 if none was found.
+	 */
+	private int settle(GkaCsr side, GkaDijkstraWorkspace own, GkaDijkstraWorkspace other) {
+		int[] offsets = side.getOffsets();
+		int[] targets = side.getTargets();
+		int[] weights = side.getWeights();
+		GkaIndexedHeap minPQ = own.heap;
+		double[] totalCosts = own.dists;
+		int meet = -1;
+
+		// dequeue the node with smallest cost to the own root, its cost is final
+		int curr = minPQ.poll();
+		own.settledCount++;
+
+		for (int arc = offsets[curr]; arc < offsets[curr + 1]; arc++) {
+			int n = targets[arc];
+			double totalCost = totalCosts[curr] + weights[arc];
+
+			if (!own.isReached(n)) {
+				own.reach(n, totalCost, curr);
+				minPQ.insert(n, totalCost);
+			} else if (totalCost < totalCosts[n] && minPQ.contains(n)) {
+				own.reach(n, totalCost, curr);
+				minPQ.decreaseKey(n, totalCost);
+			} else {
+				continue;
+			}
+
+			// path through a node the other side has reached
+			if (other.isReached(n) && totalCost + other.dists[n] < bestCost) {
+				bestCost = totalCost + other.dists[n];
+				meet = n;
+			}
+		}
+		return meet;
+	}
+
+	private static double minKey(GkaIndexedHeap heap) {
+		return heap.isEmpty() ? Double.POSITIVE_INFINITY : heap.getKey(heap.peek());
+	}
+}
@@ -0,0 +1,245 @@
+package gka1;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import org.graphstream.graph.Node;
+
+/**
+ * Shortest path queries on a {@link GkaContractionHierarchy}. A forward search
+ * from the start only follows upward arcs, a backward search from the end only
+ * follows downward arcs in reverse, so both climb the hierarchy and meet at
+ * the highest ranked node of the shortest path. A side stops once its smallest
+ * queued cost isn't below the best meeting cost. Shortcuts on the path found
+ * are unpacked into the original arcs, so paths and costs are those of the
+ * snapshot the index was built for.<br>
+ * An instance keeps one {@link GkaDijkstraWorkspace} per side between queries
+ * and must not be used by several threads at once, the index can be shared.
+ *
+ * @author Huy Tran PC
+ *
+ */
+public class AlgoCH {
+	private final GkaContractionHierarchy hierarchy;
+	private final GkaDijkstraWorkspace forward;
+	private final GkaDijkstraWorkspace backward;
+
+	// cost of the path found by the last query
+	private double bestCost;
+
+	/**
+	 * Constructor for an AlgoCH on an index.
+	 *
+	 * @param hierarchy
+	 *            The index to work with.
+	 */
+	public AlgoCH(GkaContractionHierarchy hierarchy) {
+		this.hierarchy = hierarchy;
+		this.forward = new GkaDijkstraWorkspace(hierarchy.getNodeCount());
+		this.backward = new GkaDijkstraWorkspace(hierarchy.getNodeCount());
+	}
+
+	/**
+	 * Find the shortest path between 2 given nodes in graph. The index must have
+	 * been built for the snapshot, which must still match the graph.
+	 *
+	 * @param graph
+	 *            The graph to work with.
+	 * @param csr
+	 *            The CSR snapshot of the graph the index was built for.
+	 * @param startNodeName
+	 *            Name of the start node.
+	 * @param endNodeName
+	 *            Name of the end node.
+	 * @return Sequence of nodes on the shortest path between start and end
+	 *         nodes, null if end can't be reached.
+	 */
+	public List<Node> shortestPath(GkaGraph graph, GkaCsr csr, String startNodeName, String endNodeName) {
+		if (csr.getNodeCount() != hierarchy.getNodeCount() || csr.getNodeCount() != graph.getNodeCount()) {
+			throw new IllegalArgumentException("Index doesn't match graph.");
+		}
+		int[] path = shortestPath(csr.requireNodeIndex(startNodeName), csr.requireNodeIndex(endNodeName));
+
+		// return null if end is not found
+		if (path == null) {
+			return null;
+		}
+
+		List<Node> out = new ArrayList<>(path.length);
+		for (int nodeIndex : path) {
+			out.add(graph.getNode(nodeIndex));
+		}
+		return out;
+	}
+
+	/**
+	 * Find the shortest path between 2 given nodes of the snapshot.
+	 *
+	 * @param startIndex
+	 *            Index of the start node.
+	 * @param endIndex
+	 *            Index of the end node.
+	 * @return Sequence of node indices on the shortest path between start and end
+	 *         nodes, null if end can't be reached.
+	 */
+	public int[] shortestPath(int startIndex, int endIndex) {
+		int meet = search(startIndex, endIndex);
+		if (meet < 0) {
+			return null;
+		}
+
+		// upward path to the meeting node and downward path to the end
+		int[] up = forward.getPath(meet);
+		IntStream.Builder out = IntStream.builder();
+		out.add(startIndex);
+		for (int i = 0; i + 1 < up.length; i++) {
+			unpack(up[i], up[i + 1], out);
+		}
+		for (int curr = meet; curr != endIndex;) {
+			int next = backward.getPrevNode(curr);
+			unpack(curr, next, out);
+			curr = next;
+		}
+		return out.build().toArray();
+	}
+
+	/**
+	 * Get the cost of the shortest path between 2 given nodes of the snapshot.
+	 *
+	 * @param startIndex
+	 *            Index of the start node.
+	 * @param endIndex
+	 *            Index of the end node.
+	 * @return The cost of the shortest path, -1 if end can't be reached.
+	 */
+	public double distance(int startIndex, int endIndex) {
+		return search(startIndex, endIndex) < 0 ? -1.0 : bestCost;
+	}
+
+	/**
+	 * Get the number of nodes settled by both searches of the last query.
+	 *
+	 * @return Number of settled nodes.
+	 */
+	public int getSettledCount() {
+		return forward.getSettledCount() + backward.getSettledCount();
+	}
+
+	/**
+	 * Run both upward searches until no shorter path can be found.
+	 *
+	 * @return Node where the shortest path is seen by both searches, -1 if there
+	 *         is none.
+	 */
+	private int search(int startIndex, int endIndex) {
+		int nodeNr = hierarchy.getNodeCount();
+		if (startIndex < 0 || startIndex >= nodeNr || endIndex < 0 || endIndex >= nodeNr) {
+			throw new IllegalArgumentException("Node not found in graph.");
+		}
+
+		forward.reset();
+		backward.reset();
+		forward.reach(startIndex, 0.0, -1);
+		backward.reach(endIndex, 0.0, -1);
+		forward.heap.insert(startIndex, 0.0);
+		backward.heap.insert(endIndex, 0.0);
+
+		bestCost = Double.POSITIVE_INFINITY;
+		int meet = -1;
+		if (startIndex == endIndex) {
+			bestCost = 0.0;
+			meet = startIndex;
+		}
+
+		while (true) {
+			double forwardMin = minKey(forward.heap);
+			double backwardMin = minKey(backward.heap);
+
+			// stop if neither side can lead to a shorter path
+			if (Math.min(forwardMin, backwardMin) >= bestCost) {
+				return meet;
+			}
+
+			int n;
+			if (forwardMin <= backwardMin) {
+				n = settle(hierarchy.upOffsets, hierarchy.upTargets, hierarchy.upWeights, forward, backward);
+			} else {
+				n = settle(hierarchy.downOffsets, hierarchy.downSources, hierarchy.downWeights, backward, forward);
+			}
+			if (n >= 0) {
+				meet = n;
+			}
+		}
+	}
+
+	/**
+	 * Settle the next node of one side and relax its upward arcs.
+	 *
+	 * @return Node of a new best path reached by both sides, -1 if none was found.
+	 */
+	private int settle(int[] offsets, int[] targets, int[] weights, GkaDijkstraWorkspace own,
+			GkaDijkstraWorkspace other) {
+		GkaIndexedHeap minPQ = own.heap;
+		double[] totalCosts = own.dists;
+		int meet = -1;
+
+		int curr = minPQ.poll();
+		own.settledCount++;
+
+		for (int arc = offsets[curr]; arc < offsets[curr + 1]; arc++) {
+			int n = targets[arc];
+			double totalCost = totalCosts[curr] + weights[arc];
+
+			if (!own.isReached(n)) {
+				own.reach(n, totalCost, curr);
+				minPQ.insert(n, totalCost);
+			} else if (totalCost < totalCosts[n] && minPQ.contains(n)) {
+				own.reach(n, totalCost, curr);
+				minPQ.decreaseKey(n, totalCost);
+			} else {
+				continue;
+			}
+
+			// path through a node the other side has reached
+			if (other.isReached(n) && totalCost + other.dists[n] < bestCost) {
+				bestCost = totalCost + other.dists[n];
+				meet = n;
+			}
+		}
+		return meet;
+	}
+
+	/**
+	 * Append the original nodes after u on the arc from u to w.
+	 */
+	private void unpack(int u, int w, IntStream.Builder out) {
+		// arcs still to unpack, the top is the next one
+		int[] stack = new int[16];
+		int size = 0;
+		stack[size++] = u;
+		stack[size++] = w;
+
+		while (size > 0) {
+			int to = stack[--size];
+			int from = stack[--size];
+			int middle = hierarchy.getMiddle(from, to);
+			if (middle < 0) {
+				out.add(to);
+				continue;
+			}
+			if (size + 4 > stack.length) {
+				stack = Arrays.copyOf(stack, stack.length * 2);
+			}
+			stack[size++] = middle;
+			stack[size++] = to;
+			stack[size++] = from;
+			stack[size++] = middle;
+		}
+	}
+
+	private static double minKey(GkaIndexedHeap heap) {
+		return heap.isEmpty() ? Double.POSITIVE_INFINITY : heap.getKey(heap.peek());
+	}
+}
@@ -0,0 +1,369 @@
+package gka1;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Parallel single-source shortest paths on a CSR snapshot with delta-stepping.
+ * Tentative costs are grouped into buckets of width delta, buckets are settled
+ * in order but the nodes of a bucket are relaxed in parallel by fork-join tasks
+ * over ranges of the bucket:
+ * <ul>
+ * <li>light arcs (weight at most delta) may lead back into the current bucket,
+ * so they're relaxed again for each node that enters it until it stays
+ * empty</li>
+ * <li>heavy arcs always lead to later buckets, so they're relaxed once for all
+ * nodes settled in the bucket</li>
+ * </ul>
+ * Costs are kept in an {@link AtomicLongArray} and lowered with a
+ * compare-and-set loop, so concurrent relaxations need no locks. Buckets are
+ * used cyclically, as all tentative costs lie within the max weight of the
+ * current bucket. Costs are the same as those of Dijkstra, a delta of 1 makes
+ * it a parallel Dijkstra with integer buckets, a delta above the max weight a
+ * parallel Bellman-Ford. Buckets with fewer than {@value #MIN_PARALLEL_FRONTIER}
+ * nodes are relaxed by the calling thread.
+ *
+ * @author Huy Tran PC
+ *
+ */
+public class AlgoDeltaStepping {
+	// frontier size below which a phase isn't split into tasks
+	static final int MIN_PARALLEL_FRONTIER = 1024;
+	// weights sampled to select delta
+	private static final int DELTA_SAMPLE_SIZE = 4096;
+	/**
+	 * Greatest number of buckets of a search. Delta is raised to max weight /
+	 * (MAX_BUCKETS - 2) if it's smaller, so the bucket table takes at most 12 MB.
+	 */
+	public static final int MAX_BUCKETS = 1 << 20;
+	private static final int MIN_TASK_SIZE = 256;
+	private static final int BUFFER_SIZE = 512;
+	private static final long INFINITY = Long.MAX_VALUE;
+
+	/**
+	 * Compute the costs from a node to all nodes of a CSR snapshot in the common
+	 * fork-join pool with a delta selected by {@link #selectDelta(GkaCsr)}.
+	 *
+	 * @param csr
+	 *            A CSR snapshot to work with, weights must not be negative.
+	 * @param startIndex
+	 *            Index of the start node.
+	 * @return Cost of the shortest path to each node, infinity for nodes that
+	 *         can't be reached.
+	 */
+	public static double[] distances(GkaCsr csr, int startIndex) {
+		return distances(csr, startIndex, selectDelta(csr), ForkJoinPool.commonPool());
+	}
+
+	/**
+	 * Compute the costs from a node to all nodes of a CSR snapshot in a fork-join
+	 * pool.
+	 *
+	 * @param csr
+	 *            A CSR snapshot to work with, weights must not be negative.
+	 * @param startIndex
+	 *            Index of the start node.
+	 * @param delta
+	 *            Width of the buckets, at least 1. It's raised if the max weight
+	 *            would need more than {@link #MAX_BUCKETS} buckets.
+	 * @param pool
+	 *            Pool to run the tasks in.
+	 * @return Cost of the shortest path to each node, infinity for nodes that
+	 *         can't be reached.
+	 */
+	public static double[] distances(GkaCsr csr, int startIndex, int delta, ForkJoinPool pool) {
+		if (startIndex < 0 || startIndex >= csr.getNodeCount()) {
+			throw new IllegalArgumentException("Node not found in graph.");
+		}
+		if (delta < 1) {
+			throw new IllegalArgumentException("Delta must be positive.");
+		}
+		if (csr.getMinWeight() < 0) {
+			throw new IllegalArgumentException("Delta-stepping needs non-negative weights.");
+		}
+		return new Search(csr, delta, pool).run(startIndex);
+	}
+
+	/**
+	 * Select a delta from the weights of a CSR snapshot. Smaller buckets mean
+	 * more phases, larger ones more relaxations that are undone later. Delta is
+	 * the weight quantile 1 / d^2 for the average out degree d, so a node's
+	 * light arcs lead back into its bucket only rarely. The weights are
+	 * sampled, so the selection costs O(1) for any number of arcs.
+	 *
+	 * @param csr
+	 *            A CSR snapshot to work with.
+	 * @return The selected delta, at least 1.
+	 */
+	public static int selectDelta(GkaCsr csr) {
+		int arcNr = csr.getArcCount();
+		if (arcNr == 0) {
+			return 1;
+		}
+
+		int[] weights = csr.getWeights();
+		int sampleNr = Math.min(arcNr, DELTA_SAMPLE_SIZE);
+		int[] sample = new int[sampleNr];
+		SplittableRandom rand = new SplittableRandom(arcNr);
+		for (int i = 0; i < sampleNr; i++) {
+			sample[i] = weights[sampleNr == arcNr ? i : rand.nextInt(arcNr)];
+		}
+		Arrays.sort(sample);
+
+		// quantile 1 / d^2
+		double avgDegree = Math.max(1.0, (double) arcNr / Math.max(1, csr.getNodeCount()));
+		int index = (int) Math.min(sampleNr - 1, sampleNr / (avgDegree * avgDegree));
+		return Math.max(1, sample[index]);
+	}
+
+	/**
+	 * State of one search shared by its tasks.
+	 */
+	private static final class Search {
+		private final ForkJoinPool pool;
+		private final int nodeNr;
+		private final int[] offsets;
+		private final int[] targets;
+		private final int[] weights;
+		private final long delta;
+
+		private final AtomicLongArray dists;
+		// cost at which the light arcs of a node were relaxed, resp. it was queued
+		private final long[] relaxedDists;
+		private final long[] queuedDists;
+		private final boolean[] settled;
+
+		// cyclic buckets of queued nodes, entries whose cost changed are skipped
+		private final int[][] buckets;
+		private final int[] bucketSizes;
+		private long queuedNr;
+
+		// nodes whose cost was lowered in the current phase
+		private final int[] changed;
+		private final AtomicInteger changedTail = new AtomicInteger();
+
+		Search(GkaCsr csr, int delta, ForkJoinPool pool) {
+			this.pool = pool;
+			this.nodeNr = csr.getNodeCount();
+			this.offsets = csr.getOffsets();
+			this.targets = csr.getTargets();
+			this.weights = csr.getWeights();
+			// raise delta to keep at most MAX_BUCKETS buckets
+			this.delta = Math.max(delta, (long) csr.getMaxWeight() / (MAX_BUCKETS - 2) + 1);
+			this.dists = new AtomicLongArray(nodeNr);
+			this.relaxedDists = new long[nodeNr];
+			this.queuedDists = new long[nodeNr];
+			this.settled = new boolean[nodeNr];
+			this.changed = new int[Math.max(1, csr.getArcCount())];
+
+			// costs queued at once span fewer buckets than this
+			int bucketNr = (int) (csr.getMaxWeight() / this.delta + 2);
+			this.buckets = new int[bucketNr][];
+			this.bucketSizes = new int[bucketNr];
+		}
+
+		double[] run(int startIndex) {
+			for (int n = 0; n < nodeNr; n++) {
+				dists.set(n, INFINITY);
+			}
+			Arrays.fill(relaxedDists, INFINITY);
+			Arrays.fill(queuedDists, INFINITY);
+			dists.set(startIndex, 0);
+			queue(startIndex, 0);
+
+			int[] frontier = new int[16];
+			int[] settledNodes = new int[16];
+			long bucket = 0;
+			while (queuedNr > 0) {
+				// next non-empty bucket
+				while (bucketSizes[slot(bucket)] == 0) {
+					bucket++;
+				}
+				int settledNr = 0;
+
+				// light arcs until the bucket stays empty
+				while (bucketSizes[slot(bucket)] > 0) {
+					int slot = slot(bucket);
+					int size = bucketSizes[slot];
+					bucketSizes[slot] = 0;
+					queuedNr -= size;
+					if (frontier.length < size) {
+						frontier = new int[Math.max(size, frontier.length * 2)];
+					}
+
+					int frontierNr = 0;
+					int[] entries = buckets[slot];
+					for (int i = 0; i < size; i++) {
+						int n = entries[i];
+						long dist = dists.get(n);
+						if (dist / delta == bucket && relaxedDists[n] != dist) {
+							relaxedDists[n] = dist;
+							frontier[frontierNr++] = n;
+						}
+					}
+					relax(frontier, frontierNr, true);
+
+					if (settledNodes.length < settledNr + frontierNr) {
+						settledNodes = Arrays.copyOf(settledNodes, Math.max(settledNr + frontierNr, settledNodes.length * 2));
+					}
+					System.arraycopy(frontier, 0, settledNodes, settledNr, frontierNr);
+					settledNr += frontierNr;
+				}
+
+				// heavy arcs once per settled node
+				int heavyNr = 0;
+				for (int i = 0; i < settledNr; i++) {
+					int n = settledNodes[i];
+					if (!settled[n]) {
+						settled[n] = true;
+						settledNodes[heavyNr++] = n;
+					}
+				}
+				relax(settledNodes, heavyNr, false);
+				bucket++;
+			}
+
+			double[] out = new double[nodeNr];
+			for (int n = 0; n < nodeNr; n++) {
+				long dist = dists.get(n);
+				out[n] = dist == INFINITY ? Double.POSITIVE_INFINITY : dist;
+			}
+			return out;
+		}
+
+		/**
+		 * Relax the light or heavy arcs of nodes and queue the nodes whose cost was
+		 * lowered.
+		 */
+		private void relax(int[] nodes, int count, boolean isLight) {
+			if (count == 0) {
+				return;
+			}
+			changedTail.set(0);
+			if (count < MIN_PARALLEL_FRONTIER) {
+				new Relax(this, nodes, 0, count, isLight).compute();
+			} else {
+				pool.invoke(new Relax(this, nodes, 0, count, isLight));
+			}
+
+			// each cost of a node is queued once
+			int changedNr = changedTail.get();
+			for (int i = 0; i < changedNr; i++) {
+				int n = changed[i];
+				long dist = dists.get(n);
+				if (queuedDists[n] != dist) {
+					queue(n, dist);
+				}
+			}
+		}
+
+		private void queue(int n, long dist) {
+			queuedDists[n] = dist;
+			int slot = slot(dist / delta);
+			int size = bucketSizes[slot];
+			if (buckets[slot] == null) {
+				buckets[slot] = new int[16];
+			} else if (size == buckets[slot].length) {
+				buckets[slot] = Arrays.copyOf(buckets[slot], size * 2);
+			}
+			buckets[slot][size] = n;
+			bucketSizes[slot] = size + 1;
+			queuedNr++;
+		}
+
+		private int slot(long bucket) {
+			return (int) (bucket % buckets.length);
+		}
+
+		int taskSize(int size) {
+			return Math.max(MIN_TASK_SIZE, size / (pool.getParallelism() * 8));
+		}
+
+		/**
+		 * Append the nodes a task lowered the cost of.
+		 */
+		void flush(int[] buffer, int count) {
+			if (count > 0) {
+				System.arraycopy(buffer, 0, changed, changedTail.getAndAdd(count), count);
+			}
+		}
+	}
+
+	/**
+	 * Relaxation of the light or heavy arcs of nodes[from] to nodes[to].
+	 */
+	private static final class Relax extends RecursiveAction {
+		private static final long serialVersionUID = 1L;
+
+		private final Search search;
+		private final int[] nodes;
+		private final int from;
+		private final int to;
+		private final boolean isLight;
+
+		Relax(Search search, int[] nodes, int from, int to, boolean isLight) {
+			this.search = search;
+			this.nodes = nodes;
+			this.from = from;
+			this.to = to;
+			this.isLight = isLight;
+		}
+
+		@Override
+		protected void compute() {
+			Search s = search;
+			if (to - from > s.taskSize(to - from) && getPool() != null) {
+				int mid = (from + to) >>> 1;
+				invokeAll(new Relax(s, nodes, from, mid, isLight), new Relax(s, nodes, mid, to, isLight));
+				return;
+			}
+
+			int[] offsets = s.offsets;
+			int[] targets = s.targets;
+			int[] weights = s.weights;
+			long delta = s.delta;
+			int[] buffer = new int[BUFFER_SIZE];
+			int count = 0;
+
+			for (int i = from; i < to; i++) {
+				int curr = nodes[i];
+				long dist = s.dists.get(curr);
+				for (int arc = offsets[curr]; arc < offsets[curr + 1]; arc++) {
+					int weight = weights[arc];
+					if ((weight <= delta) != isLight) {
+						continue;
+					}
+					int n = targets[arc];
+					if (lower(s.dists, n, dist + weight)) {
+						buffer[count++] = n;
+						if (count == BUFFER_SIZE) {
+							s.flush(buffer, count);
+							count = 0;
+						}
+					}
+				}
+			}
+			s.flush(buffer, count);
+		}
+
+		/**
+		 * Lower the cost of a node if the new one is smaller.
+		 *
+		 * @return Whether the cost was lowered.
+		 */
+		private static boolean lower(AtomicLongArray dists, int n, long dist) {
+			long old = dists.get(n);
+			while (dist < old) {
+				if (dists.compareAndSet(n, old, dist)) {
+					return true;
+				}
+				old = dists.get(n);
+			}
+			return false;
+		}
+	}
+}
@@ -3,17 +3,9 @@ package gka1;
 import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.UnsupportedEncodingException;
-import java.util.Comparator;
-import java.util.HashMap;
-import java.util.HashSet;
-import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
-import java.util.Map;
-import java.util.PriorityQueue;
-import java.util.Set;
 
-import org.graphstream.graph.Edge;
 import org.graphstream.graph.Node;
 
 /**
@@ -23,6 +15,38 @@ import org.graphstream.graph.Node;
  *
  */
 public class AlgoDijkstra {
+	/**
+	 * Greatest max weight for which {@link Queue#AUTO} uses buckets. A bucket
+	 * search scans one bucket per cost up to the path cost, which beats the heap
+	 * as long as the weights and so the gaps between costs are small.
+	 */
+	public static final int MAX_BUCKET_WEIGHT = 4096;
+	/**
+	 * Greatest max weight for which {@link Queue#BUCKETS} can be used. The queue
+	 * holds one bucket head per weight, i.e. 16 MB at this limit.
+	 */
+	public static final int MAX_BUCKET_RANGE = 1 << 22;
+
+	/**
+	 * Priority queue of a Dijkstra search on a CSR snapshot.
+	 */
+	public enum Queue {
+		/**
+		 * Indexed 4-ary heap, for any weights.
+		 */
+		HEAP,
+		/**
+		 * Dial's buckets, for non-negative integer weights of at most
+		 * {@link AlgoDijkstra#MAX_BUCKET_RANGE}.
+		 */
+		BUCKETS,
+		/**
+		 * Buckets if the weights are non-negative and at most
+		 * {@link AlgoDijkstra#MAX_BUCKET_WEIGHT}, the heap otherwise.
+		 */
+		AUTO
+	}
+
 	/**
 	 * Find the shortest path between 2 nodes using Dijkstra.
 	 * 
@@ -34,134 +58,345 @@ public class AlgoDijkstra {
 	 *            Name of the end node.
 	 * @param isVisualized
 	 *            Whether the graph should be visualized.
-	 * @return Sequence of nodes on the shortest path between start and end
-	 *         nodes.
+	 * @return The cost of the shortest path between start and end nodes, -1 if
+	 *         end can't be reached.
 	 */
 	public static double shortestPath(GkaGraph graph, String startNodeName, String endNodeName,
 			boolean isVisualized) {
+		int[] prevNodes = new int[graph.getNodeCount()];
+		double totalCost = shortestPath(graph, startNodeName, endNodeName, prevNodes);
+
+		// visualize the result
+		if (isVisualized && totalCost >= 0) {
+			// trace back the path with the previous nodes
+			List<Node> out = new LinkedList<>();
+			for (int curr = graph.getNodeIndex(endNodeName); curr != -1; curr = prevNodes[curr]) {
+				out.add(0, graph.getNode(curr));
+			}
+
+			GkaViewer.showPath(graph, out);
+		}
+
+		return totalCost;
+	}
+
+	/**
+	 * Find the shortest path between 2 nodes using Dijkstra without
+	 * visualization.
+	 * 
+	 * @param graph
+	 *            The graph to work with.
+	 * @param startNodeName
+	 *            Name of the start node.
+	 * @param endNodeName
+	 *            Name of the end node.
+	 * @return The cost of the shortest path between start and end nodes, -1 if
+	 *         end can't be reached.
+	 */
+	public static double shortestPath(GkaGraph graph, String startNodeName, String endNodeName) {
+		return shortestPath(graph, startNodeName, endNodeName, new int[graph.getNodeCount()]);
+	}
+
+	private static double shortestPath(GkaGraph graph, String startNodeName, String endNodeName,
+			int[] prevNodes) {
 		// check if nodes exist
-		if (!graph.getNodeNames().contains(startNodeName) || !graph.getNodeNames().contains(endNodeName)) {
+		if (!graph.hasNodeName(startNodeName) || !graph.hasNodeName(endNodeName)) {
 			throw new IllegalArgumentException("Node not found in graph.");
 		}
 
 		// get start and end nodes
-		Node start = graph.getNode(graph.createNode(startNodeName));
-		Node end = graph.getNode(graph.createNode(endNodeName));
+		int startIndex = graph.getNodeIndex(startNodeName);
+		int endIndex = graph.getNodeIndex(endNodeName);
+
+		// search on a CSR snapshot of the graph
+		return shortestPath(GkaCsr.of(graph), startIndex, endIndex, prevNodes);
+	}
 
-		// create a HashMap between each node and the total cost to reach it
-		Map<Node, Double> totalCosts = new HashMap<>();
+	/**
+	 * Find the shortest path between 2 nodes of a CSR snapshot using Dijkstra.
+	 * 
+	 * @param csr
+	 *            A CSR snapshot to work with.
+	 * @param startIndex
+	 *            Index of the start node.
+	 * @param endIndex
+	 *            Index of the end node.
+	 * @param prevNodes
+	 *            Array of length nodeCount to store the previous node of each
+	 *            reached node on its shortest path, -1 for the start node and
+	 *            unreached nodes.
+	 * @return The cost of the shortest path, -1 if end can't be reached.
+	 */
+	public static double shortestPath(GkaCsr csr, int startIndex, int endIndex, int[] prevNodes) {
+		GkaDijkstraWorkspace workspace = new GkaDijkstraWorkspace(csr.getNodeCount());
+		double totalCost = shortestPath(csr, startIndex, endIndex, workspace);
+		workspace.copyPrevNodes(prevNodes);
+		return totalCost;
+	}
 
-		// create a HashMap between each node and its previous node
-		Map<Node, Node> prevNodes = new HashMap<>();
+	/**
+	 * Build the shortest path tree of a node in a graph using Dijkstra.
+	 * 
+	 * @param graph
+	 *            The graph to work with.
+	 * @param startNodeName
+	 *            Name of the start node.
+	 * @param prevNodes
+	 *            Array of length nodeCount to store the previous node of each
+	 *            reached node on its shortest path, -1 for the start node and
+	 *            unreached nodes.
+	 * @return The cost of the shortest path to each node by node index, infinity
+	 *         for nodes that can't be reached.
+	 */
+	public static double[] shortestPathTree(GkaGraph graph, String startNodeName, int[] prevNodes) {
+		if (!graph.hasNodeName(startNodeName)) {
+			throw new IllegalArgumentException("Node not found in graph.");
+		}
 
-		// create comparator for cost to start node
-		Comparator<Node> costToStartComparator = (n1, n2) -> {
-			return (int) (Double.valueOf(n1.getAttribute("cost").toString())
-					- Double.valueOf(n2.getAttribute("cost").toString()));
-		};
+		GkaCsr csr = GkaCsr.of(graph);
+		GkaDijkstraWorkspace workspace = new GkaDijkstraWorkspace(csr.getNodeCount());
+		shortestPathTree(csr, graph.getNodeIndex(startNodeName), workspace);
+		workspace.copyPrevNodes(prevNodes);
+		return workspace.copyDistances(new double[csr.getNodeCount()]);
+	}
 
-		// create a min priority queue ordered by the cost to start node
-		PriorityQueue<Node> minPQ = new PriorityQueue<>(costToStartComparator);
+	/**
+	 * Find the shortest path between 2 nodes of a CSR snapshot using Dijkstra.
+	 * The priority queue is chosen with {@link Queue#AUTO}. The path can be
+	 * traced with {@link GkaDijkstraWorkspace#getPath(int)} afterwards.
+	 * 
+	 * @param csr
+	 *            A CSR snapshot to work with.
+	 * @param startIndex
+	 *            Index of the start node.
+	 * @param endIndex
+	 *            Index of the end node.
+	 * @param workspace
+	 *            Workspace for at least the nodes of the snapshot, it holds the
+	 *            result afterwards.
+	 * @return The cost of the shortest path, -1 if end can't be reached.
+	 */
+	public static double shortestPath(GkaCsr csr, int startIndex, int endIndex, GkaDijkstraWorkspace workspace) {
+		return shortestPath(csr, startIndex, endIndex, workspace, Queue.AUTO);
+	}
 
-		// create a list for visited nodes
-		Set<Node> visited = new HashSet<>();
+	/**
+	 * Find the shortest path between 2 nodes of a CSR snapshot using Dijkstra
+	 * with a given priority queue. The path can be traced with
+	 * {@link GkaDijkstraWorkspace#getPath(int)} afterwards.
+	 * 
+	 * @param csr
+	 *            A CSR snapshot to work with.
+	 * @param startIndex
+	 *            Index of the start node.
+	 * @param endIndex
+	 *            Index of the end node.
+	 * @param workspace
+	 *            Workspace for at least the nodes of the snapshot, it holds the
+	 *            result afterwards.
+	 * @param queue
+	 *            The priority queue to use.
+	 * @return The cost of the shortest path, -1 if end can't be reached.
+	 */
+	public static double shortestPath(GkaCsr csr, int startIndex, int endIndex, GkaDijkstraWorkspace workspace,
+			Queue queue) {
+		checkArguments(csr, startIndex, workspace);
+		checkNode(csr, endIndex);
 
-		// set start node's initial values
-		start.addAttribute("cost", 0.0);
-		prevNodes.put(start, null);
-		totalCosts.put(start, 0.0);
-		minPQ.add(start);
-
-		// set the other nodes' initial values
-		for (Node node : graph) {
-			if (node != start) {
-				node.addAttribute("cost", Double.POSITIVE_INFINITY);
-				totalCosts.put(node, Double.POSITIVE_INFINITY);
+		workspace.reset();
+		workspace.addTarget(endIndex);
+		search(csr, startIndex, workspace, queue);
+		return workspace.isReached(endIndex) ? workspace.dists[endIndex] : -1.0;
+	}
+
+	/**
+	 * Build the shortest path tree of a node in a CSR snapshot, i.e. find the
+	 * costs and paths to all nodes, using Dijkstra. The priority queue is chosen
+	 * with {@link Queue#AUTO}. Costs and previous nodes can be read from the
+	 * workspace afterwards, e.g. with
+	 * {@link GkaDijkstraWorkspace#copyDistances(double[])}. A reused workspace
+	 * makes the search allocation free.
+	 * 
+	 * @param csr
+	 *            A CSR snapshot to work with.
+	 * @param startIndex
+	 *            Index of the start node.
+	 * @param workspace
+	 *            Workspace for at least the nodes of the snapshot, it holds the
+	 *            result afterwards.
+	 */
+	public static void shortestPathTree(GkaCsr csr, int startIndex, GkaDijkstraWorkspace workspace) {
+		checkArguments(csr, startIndex, workspace);
+		workspace.reset();
+		search(csr, startIndex, workspace, Queue.AUTO);
+	}
+
+	/**
+	 * Find the shortest paths from a node to several nodes of a CSR snapshot
+	 * using Dijkstra. The search stops once all end nodes are settled, so the
+	 * workspace holds the part of the shortest path tree that contains them. The
+	 * priority queue is chosen with {@link Queue#AUTO}.
+	 * 
+	 * @param csr
+	 *            A CSR snapshot to work with.
+	 * @param startIndex
+	 *            Index of the start node.
+	 * @param endIndices
+	 *            Indices of the end nodes, duplicates are allowed. Without end
+	 *            nodes nothing is searched.
+	 * @param workspace
+	 *            Workspace for at least the nodes of the snapshot, it holds the
+	 *            result afterwards.
+	 * @return Number of distinct end nodes that can be reached.
+	 */
+	public static int shortestPathTree(GkaCsr csr, int startIndex, int[] endIndices, GkaDijkstraWorkspace workspace) {
+		checkArguments(csr, startIndex, workspace);
+		for (int endIndex : endIndices) {
+			checkNode(csr, endIndex);
+		}
+
+		workspace.reset();
+		if (endIndices.length == 0) {
+			return 0;
+		}
+		for (int endIndex : endIndices) {
+			workspace.addTarget(endIndex);
+		}
+		int targetNr = workspace.targetsLeft;
+		search(csr, startIndex, workspace, Queue.AUTO);
+		return targetNr - workspace.targetsLeft;
+	}
+
+	private static void checkArguments(GkaCsr csr, int startIndex, GkaDijkstraWorkspace workspace) {
+		if (workspace.getNodeCount() < csr.getNodeCount()) {
+			throw new IllegalArgumentException("Workspace too small for graph.");
+		}
+		checkNode(csr, startIndex);
+	}
+
+	private static void checkNode(GkaCsr csr, int nodeIndex) {
+		if (nodeIndex < 0 || nodeIndex >= csr.getNodeCount()) {
+			throw new IllegalArgumentException("Node not found in graph.");
+		}
+	}
+
+	/**
+	 * Run the search on a reset workspace with the given queue until all targets
+	 * of the workspace are settled, without targets until all nodes are.
+	 */
+	private static void search(GkaCsr csr, int startIndex, GkaDijkstraWorkspace workspace, Queue queue) {
+		boolean hasBucketWeights = csr.getMinWeight() >= 0 && csr.getMaxWeight() <= MAX_BUCKET_RANGE;
+		switch (queue) {
+		case BUCKETS:
+			if (!hasBucketWeights) {
+				throw new IllegalArgumentException(
+						"Bucket queue needs non-negative weights of at most " + MAX_BUCKET_RANGE + ".");
 			}
+			bucketSearch(csr, startIndex, workspace);
+			break;
+		case AUTO:
+			if (hasBucketWeights && csr.getMaxWeight() <= MAX_BUCKET_WEIGHT) {
+				bucketSearch(csr, startIndex, workspace);
+			} else {
+				heapSearch(csr, startIndex, workspace);
+			}
+			break;
+		default:
+			heapSearch(csr, startIndex, workspace);
 		}
+	}
+
+	/**
+	 * Dijkstra with an indexed heap. Each node is in the heap at most once and its
+	 * cost is lowered in place, so a search costs O((n + m) log n).
+	 */
+	private static void heapSearch(GkaCsr csr, int startIndex, GkaDijkstraWorkspace workspace) {
+		int[] offsets = csr.getOffsets();
+		int[] targets = csr.getTargets();
+		int[] weights = csr.getWeights();
+
+		// min priority queue of nodes ordered by the cost to start node
+		GkaIndexedHeap minPQ = workspace.heap;
+		double[] totalCosts = workspace.dists;
+
+		// set start node's initial values
+		workspace.reach(startIndex, 0.0, -1);
+		minPQ.insert(startIndex, 0.0);
 
 		while (!minPQ.isEmpty()) {
-			// dequeue the node with smallest cost to start
-			Node curr = minPQ.remove();
+			// dequeue the node with smallest cost to start, its cost is final
+			int curr = minPQ.poll();
+			workspace.settledCount++;
 
-			// stop if end is found
-			if (curr.equals(end)) {
-				break;
+			// stop if the last end is found
+			if (workspace.settleTarget(curr)) {
+				return;
 			}
 
-			// mark it as visited
-			visited.add(curr);
-
-			// iterate through unvisited adjacent nodes
-			Iterator<Node> neighbors = curr.getNeighborNodeIterator();
-			while (neighbors.hasNext()) {
-				Node n = neighbors.next();
-				if (!visited.contains(n) && curr.hasEdgeToward(n)) {
-					// get cost between current node and its neighbor
-					double distance = graph.getShortestDist(curr, n);
+			// iterate through adjacent nodes that aren't final yet
+			for (int arc = offsets[curr]; arc < offsets[curr + 1]; arc++) {
+				int n = targets[arc];
 
-					// get cost between start and its neighbor
-					double totalCost = totalCosts.get(curr) + distance;
+				// get cost between start and its neighbor
+				double totalCost = totalCosts[curr] + weights[arc];
 
+				if (!workspace.isReached(n)) {
+					workspace.reach(n, totalCost, curr);
+					minPQ.insert(n, totalCost);
+				} else if (totalCost < totalCosts[n] && minPQ.contains(n)) {
 					// update total cost and previous node if path is better
-					if (totalCost < totalCosts.get(n)) {
-						// update cost in min priority queue
-						if (minPQ.contains(n)) {
-							minPQ.remove(n);
-						}
-						n.addAttribute("cost", totalCost);
-						minPQ.add(n);
-
-						totalCosts.put(n, totalCost);
-						prevNodes.put(n, curr);
-					}
+					workspace.reach(n, totalCost, curr);
+					minPQ.decreaseKey(n, totalCost);
 				}
 			}
 		}
+	}
 
-		// return null if end is not found
-		if (prevNodes.get(end) == null) {
-			return -1.0;
-		}
+	/**
+	 * Dijkstra with Dial's buckets. Costs are integers and the queue holds C + 1
+	 * buckets for the max weight C. Polls scan each cost up to the cost D of the
+	 * path once, so a search costs O(n + m + D) without any comparisons.
+	 */
+	private static void bucketSearch(GkaCsr csr, int startIndex, GkaDijkstraWorkspace workspace) {
+		int[] offsets = csr.getOffsets();
+		int[] targets = csr.getTargets();
+		int[] weights = csr.getWeights();
 
-		// trace back the path with HashMap
-		List<Node> out = new LinkedList<>();
-		Node curr = end;
-		while (curr != null) {
-			out.add(0, curr);
-			curr = prevNodes.get(curr);
-		}
+		// min priority queue of nodes ordered by the cost to start node
+		GkaBucketQueue minPQ = workspace.getBucketQueue(csr.getMaxWeight());
+		double[] totalCosts = workspace.dists;
 
-		// visualize the result
-		if (isVisualized) {
-			graph.display();
-			graph.beautify();
-			clearMarks(graph);
-			out.get(0).addAttribute("ui.class", "special");
-
-			for (int i = 1; i < out.size(); i++) {
-				out.get(i).addAttribute("ui.class", "marked");
-				out.get(i - 1).getEdgeBetween(out.get(i)).addAttribute("ui.class", "marked");
+		// set start node's initial values
+		workspace.reach(startIndex, 0.0, -1);
+		minPQ.insert(startIndex, 0L);
+
+		while (!minPQ.isEmpty()) {
+			// dequeue the node with smallest cost to start, its cost is final
+			int curr = minPQ.poll();
+			workspace.settledCount++;
+
+			// stop if the last end is found
+			if (workspace.settleTarget(curr)) {
+				return;
 			}
 
-			out.get(out.size() - 1).addAttribute("ui.class", "special");
-		}
+			// iterate through adjacent nodes that aren't final yet
+			long currCost = (long) totalCosts[curr];
+			for (int arc = offsets[curr]; arc < offsets[curr + 1]; arc++) {
+				int n = targets[arc];
 
-		return totalCosts.get(end);
-	}
+				// get cost between start and its neighbor
+				long totalCost = currCost + weights[arc];
 
-	/**
-	 * Clear all previous marks on the graph made by visualized methods.
-	 * 
-	 * @param graph
-	 *            A graph to work with.
-	 */
-	protected static void clearMarks(GkaGraph graph) {
-		for (Node node : graph) {
-			node.setAttribute("ui.class", "unmarked");
-		}
-		for (Edge edge : graph.getEachEdge()) {
-			edge.setAttribute("ui.class", "unmarked");
+				if (!workspace.isReached(n)) {
+					workspace.reach(n, totalCost, curr);
+					minPQ.insert(n, totalCost);
+				} else if (totalCost < totalCosts[n] && minPQ.contains(n)) {
+					// update total cost and previous node if path is better
+					workspace.reach(n, totalCost, curr);
+					minPQ.decreaseKey(n, totalCost);
+				}
+			}
 		}
 	}
-}
\ No newline at end of file
+}
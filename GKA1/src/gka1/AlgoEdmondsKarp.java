@@ -1,14 +1,9 @@
 package gka1;
 
-import java.util.ArrayList;
 import java.util.LinkedList;
-import java.util.List;
 import java.util.Queue;
 
-import org.graphstream.graph.Edge;
 import org.graphstream.graph.Node;
-import org.graphstream.graph.implementations.AbstractEdge;
-import org.graphstream.graph.implementations.AbstractNode;
 
 /**
  * Contain methods to find the maximum flow of a flow network using
@@ -104,56 +99,95 @@ public class AlgoEdmondsKarp {
 	 * @return maximum flow through the graph
 	 */
 	public static int maxFlow(GkaGraph graph, String sourceName, String sinkName) {
+		// check if nodes exist
+		if (!graph.hasNodeName(sourceName) || !graph.hasNodeName(sinkName)) {
+			throw new IllegalArgumentException("Node not found in graph.");
+		}
+
 		// get index of start and end nodes
-		int sourceIndex = graph.getNode(graph.createNode(sourceName)).getIndex();
-		int sinkIndex = graph.getNode(graph.createNode(sinkName)).getIndex();
+		int sourceIndex = graph.createNodeIndex(sourceName);
+		int sinkIndex = graph.createNodeIndex(sinkName);
 
-		// adjacency matrix and number of nodes of the graph
-		int[][] graphMatrix = graphMatrix(graph);
-		int nodeNr = graph.getNodeCount();
+		return maxFlow(GkaCsr.of(graph), sourceIndex, sinkIndex);
+	}
 
-		int maxFlow = 0;
+	/**
+	 * Find a shortest augmenting path from source to sink in a residual graph
+	 * using breath-first-search.
+	 *
+	 * @param network
+	 *            the residual graph
+	 * @param sourceIndex
+	 *            index of start node in the graph
+	 * @param sinkIndex
+	 *            index of end node in the graph
+	 * @param parentArcs
+	 *            array to store the arc used to reach each node on the path
+	 * @return true if an augmenting path is available.
+	 */
+	public static boolean getAugmentingPath(GkaFlowNetwork network, int sourceIndex, int sinkIndex,
+			int[] parentArcs) {
+		int nodeNr = network.getNodeCount();
+		int[] offsets = network.getOffsets();
+		int[] heads = network.getHeads();
+		int[] residuals = network.getResiduals();
 
-		/*
-		 * Adjacency matrix of the residual graph. Its value at position (i,j) indicates
-		 * the remaining capacity of the edge from i to j. Initial values are edge
-		 * capacities.
-		 */
-		int rGraph[][] = new int[nodeNr][nodeNr];
+		// an array to track whether a node is visited
+		boolean[] visited = new boolean[nodeNr];
 
-		for (int u = 0; u < nodeNr; u++) {
-			for (int v = 0; v < nodeNr; v++) {
-				rGraph[u][v] = graphMatrix[u][v];
-			}
+		// create a queue for BFS for an augmenting path
+		int[] queue = new int[nodeNr];
+		int head = 0;
+		int tail = 0;
+		queue[tail++] = sourceIndex;
+		visited[sourceIndex] = true;
 
-		}
-		// This array will be filled when augmenting path to store path
-		int parent[] = new int[nodeNr];
+		while (head < tail && !visited[sinkIndex]) {
+			int u = queue[head++];
 
-		// Augment the flow while there is path from source to sink
-		while (getAugmentingPath(rGraph, sourceIndex, sinkIndex, parent)) {
-			// find minimum residual capacity (bottleneck) of the edges along the path
-			int bottleneck = Integer.MAX_VALUE;
-			for (int v = sinkIndex; v != sourceIndex; v = parent[v]) {
-				int u = parent[v];
-				bottleneck = Math.min(bottleneck, rGraph[u][v]);
+			for (int arc = offsets[u]; arc < offsets[u + 1]; arc++) {
+				int v = heads[arc];
+				// if v isn't visited yet and the remaining capacity of arc u-v > 0
+				if (!visited[v] && residuals[arc] > 0) {
+					queue[tail++] = v;
+					parentArcs[v] = arc;
+					visited[v] = true;
+				}
 			}
+		}
 
-			// update residual capacities of the forward and backward edges along the path
-			for (int v = sinkIndex; v != sourceIndex; v = parent[v]) {
-				int u = parent[v];
+		// return true if the sink could be reached from the source, else false
+		return visited[sinkIndex];
+	}
 
-				// forward edge, remaining capacity = capacity - flow,
-				// flow increases => r.cap. decreases
-				rGraph[u][v] -= bottleneck;
+	/**
+	 * Returns the maximum flow from source to sink in a flow network given as CSR
+	 * snapshot. Arc weights are the capacities.
+	 * 
+	 * @param csr
+	 *            A CSR snapshot to work with
+	 * @param sourceIndex
+	 *            Index of source
+	 * @param sinkIndex
+	 *            Index of sink
+	 * @return maximum flow through the graph
+	 */
+	public static int maxFlow(GkaCsr csr, int sourceIndex, int sinkIndex) {
+		int nodeNr = csr.getNodeCount();
+		if (sourceIndex < 0 || sourceIndex >= nodeNr || sinkIndex < 0 || sinkIndex >= nodeNr) {
+			throw new IllegalArgumentException("Node not found in graph.");
+		}
+		if (sourceIndex == sinkIndex) {
+			throw new IllegalArgumentException("Source and sink must be different nodes.");
+		}
 
-				// backward edge, remaining capacity = flow,
-				// flow increases => r.cap. increases
-				rGraph[v][u] += bottleneck;
-			}
+		GkaFlowNetwork network = new GkaFlowNetwork(csr);
+		int[] parentArcs = new int[nodeNr];
+		int maxFlow = 0;
 
-			// Add path flow to overall flow
-			maxFlow += bottleneck;
+		// Augment the flow while there is path from source to sink
+		while (getAugmentingPath(network, sourceIndex, sinkIndex, parentArcs)) {
+			maxFlow += network.augment(sourceIndex, sinkIndex, parentArcs);
 		}
 
 		// Return the overall flow
@@ -3,14 +3,14 @@ package gka1;
 import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.UnsupportedEncodingException;
-import java.util.HashMap;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
 import java.util.LinkedList;
 import java.util.List;
-import java.util.Map;
 
 import org.graphstream.algorithm.APSP;
 import org.graphstream.algorithm.APSP.APSPInfo;
-import org.graphstream.graph.Edge;
 import org.graphstream.graph.Node;
 
 /**
@@ -73,11 +73,34 @@ public class AlgoFloydWarshall {
 	 * @return The length of the shortest path between two nodes.
 	 */
 	public static double distance(GkaGraph graph, String startNodeName, String endNodeName) {
-		int startIndex = graph.getNode(graph.createNode(startNodeName)).getIndex();
-		int endIndex = graph.getNode(graph.createNode(endNodeName)).getIndex();
+		int startIndex = graph.createNodeIndex(startNodeName);
+		int endIndex = graph.createNodeIndex(endNodeName);
 		return distanceMatrix(graph)[startIndex][endIndex];
 	}
 
+	/**
+	 * Array of shortest distances between each pair of nodes of a CSR snapshot.
+	 * 
+	 * @param csr
+	 *            A CSR snapshot to work with.
+	 * @return a table that contains the shortest distance between two nodes.
+	 */
+	public static double[][] distanceMatrix(GkaCsr csr) {
+		return algorithm(csr).getDistance();
+	}
+
+	/**
+	 * Array of transit node for each pair of nodes of a CSR snapshot.
+	 * 
+	 * @param csr
+	 *            A CSR snapshot to work with.
+	 * @return a table that indicates for each pair of nodes s and t the node with
+	 *         the highest index on the shortest path from s to t.
+	 */
+	public static int[][] transitMatrix(GkaCsr csr) {
+		return algorithm(csr).getTransit();
+	}
+
 	/**
 	 * Find the shortest path between 2 nodes using Floyd-Warshall.
 	 * 
@@ -93,39 +116,52 @@ public class AlgoFloydWarshall {
 	 */
 	public static List<Node> shortestPath(GkaGraph graph, String startNodeName, String endNodeName,
 			boolean isVisualized) {
+		List<Node> out = shortestPath(graph, startNodeName, endNodeName);
+
+		// visualize the result
+		if (isVisualized) {
+			GkaViewer.showPath(graph, out);
+		}
+
+		return out;
+	}
+
+	/**
+	 * Find the shortest path between 2 nodes using Floyd-Warshall without
+	 * visualization.
+	 * 
+	 * @param graph
+	 *            The graph to work with.
+	 * @param startNodeName
+	 *            Name of the start node.
+	 * @param endNodeName
+	 *            Name of the end node.
+	 * @return Sequence of nodes on the shortest path between start and end nodes.
+	 */
+	public static List<Node> shortestPath(GkaGraph graph, String startNodeName, String endNodeName) {
 		// check if nodes exist
-		if (!graph.getNodeNames().contains(startNodeName) || !graph.getNodeNames().contains(endNodeName)) {
+		if (!graph.hasNodeName(startNodeName) || !graph.hasNodeName(endNodeName)) {
 			throw new IllegalArgumentException("Node not found in graph.");
 		}
 
+		// get start and end nodes
+		int startIndex = graph.createNodeIndex(startNodeName);
+		int endIndex = graph.createNodeIndex(endNodeName);
+
 		List<Node> out = new LinkedList<>();
-		for (Node node : extractPath(graph, startNodeName, endNodeName)) {
-			out.add(node);
+		Result result = algorithm(GkaCsr.of(graph));
+		for (int nodeIndex : extractPath(result.getDistance(), result.getTransit(), startIndex, endIndex)) {
+			out.add(graph.getNode(nodeIndex));
 		}
-		Node end = graph.getNode(graph.createNode(endNodeName));
+		Node end = graph.getNode(endIndex);
 		out.add(end);
 
-		// visualize the result
-		if (isVisualized) {
-			graph.display();
-			graph.beautify();
-			clearMarks(graph);
-			out.get(0).addAttribute("ui.class", "special");
-
-			for (int i = 1; i < out.size(); i++) {
-				out.get(i).addAttribute("ui.class", "marked");
-				out.get(i - 1).getEdgeBetween(out.get(i)).addAttribute("ui.class", "marked");
-			}
-
-			out.get(out.size() - 1).addAttribute("ui.class", "special");
-		}
-
 		return out;
 	}
 
 	/**
 	 * Extract the shortest path (from start to the node before end) from transit
-	 * matrix using recursion
+	 * matrix
 	 * 
 	 * @param graph
 	 *            The graph to work with
@@ -133,34 +169,63 @@ public class AlgoFloydWarshall {
 	 *            Name of start node
 	 * @param endNodeName
 	 *            Name of end node
-	 * @return the path as a list of node.
+	 * @return the path as a list of node, empty if start and end are the same or
+	 *         there is no path.
 	 */
 	public static List<Node> extractPath(GkaGraph graph, String startNodeName, String endNodeName) {
-		// get start and end nodes
-		Node start = graph.getNode(graph.createNode(startNodeName));
-		Node end = graph.getNode(graph.createNode(endNodeName));
+		// get index of start and end nodes
+		int startIndex = graph.createNodeIndex(startNodeName);
+		int endIndex = graph.createNodeIndex(endNodeName);
 
-		// get index of start node in the graph
-		int startIndex = start.getIndex();
-		int endIndex = end.getIndex();
+		Result result = algorithm(graph);
 
 		List<Node> path = new LinkedList<>();
+		for (int nodeIndex : extractPath(result.getDistance(), result.getTransit(), startIndex, endIndex)) {
+			path.add(graph.getNode(nodeIndex));
+		}
+
+		return path;
+	}
+
+	/**
+	 * Extract the shortest path (from start to the node before end) from distance
+	 * and transit matrix.
+	 * 
+	 * @param distance
+	 *            Distance matrix computed by the algorithm.
+	 * @param transit
+	 *            Transit matrix computed by the algorithm.
+	 * @param startIndex
+	 *            Index of start node
+	 * @param endIndex
+	 *            Index of end node
+	 * @return the path as an array of node indices, empty if there is no path.
+	 */
+	public static int[] extractPath(double[][] distance, int[][] transit, int startIndex, int endIndex) {
+		if (startIndex == endIndex || distance[startIndex][endIndex] == Double.POSITIVE_INFINITY) {
+			// no path found
+			return new int[0];
+		}
+
+		int[] path = new int[distance.length];
+		int length = 0;
 
-		if (transitMatrix(graph)[startIndex][endIndex] == -1) {
-			if (start.hasEdgeToward(end)) {
-				path.add(start);
+		// split the (start, end) pairs at their transit node until they are edges,
+		// the pair on top of the stack is the next part of the path
+		Deque<int[]> stack = new ArrayDeque<>();
+		stack.push(new int[] { startIndex, endIndex });
+		while (!stack.isEmpty()) {
+			int[] pair = stack.pop();
+			int transitIndex = transit[pair[0]][pair[1]];
+			if (transitIndex == -1) {
+				path[length++] = pair[0];
 			} else {
-				// no path found
-				return new LinkedList<Node>();
+				stack.push(new int[] { transitIndex, pair[1] });
+				stack.push(new int[] { pair[0], transitIndex });
 			}
-		} else {
-			String transitName = graph.getNode(transitMatrix(graph)[startIndex][endIndex]).getAttribute("name");
-
-			path.addAll(extractPath(graph, startNodeName, transitName));
-			path.addAll(extractPath(graph, transitName, endNodeName));
 		}
 
-		return path;
+		return Arrays.copyOf(path, length);
 	}
 
 	/**
@@ -174,7 +239,24 @@ public class AlgoFloydWarshall {
 	 *         two nodes of the graph
 	 */
 	public static Result algorithm(GkaGraph graph) {
-		int nodeNr = graph.getNodeCount();
+		return algorithm(GkaCsr.of(graph));
+	}
+
+	/**
+	 * Implementation of Floyd-Warshall algorithm on a CSR snapshot.
+	 * 
+	 * @param csr
+	 *            A CSR snapshot to work with.
+	 * @return 1. a distance matrix to calculate the shortest distance between any
+	 *         two nodes of the graph <br>
+	 *         2. a transit matrix to help reconstruct the shortest path between any
+	 *         two nodes of the graph
+	 */
+	public static Result algorithm(GkaCsr csr) {
+		int nodeNr = csr.getNodeCount();
+		int[] offsets = csr.getOffsets();
+		int[] targets = csr.getTargets();
+		int[] weights = csr.getWeights();
 
 		Result result = new Result(nodeNr);
 		double[][] distance = result.getDistance();
@@ -182,14 +264,16 @@ public class AlgoFloydWarshall {
 
 		// initiate distance and transit
 		for (int i = 0; i < nodeNr; i++) {
-			for (int j = 0; j < nodeNr; j++) {
-				if (i == j) {
-					distance[i][j] = 0.0;
-				} else {
-					distance[i][j] = graph.getShortestDist(graph.getNode(i), graph.getNode(j));
-				}
+			Arrays.fill(distance[i], Double.POSITIVE_INFINITY);
+			Arrays.fill(transit[i], -1);
+			distance[i][i] = 0.0;
 
-				transit[i][j] = -1;
+			// lowest weight between adjacent nodes (in case there are parallel edges)
+			for (int arc = offsets[i]; arc < offsets[i + 1]; arc++) {
+				int j = targets[arc];
+				if (i != j && weights[arc] < distance[i][j]) {
+					distance[i][j] = weights[arc];
+				}
 			}
 		}
 
@@ -217,19 +301,4 @@ public class AlgoFloydWarshall {
 
 		return result;
 	}
-
-	/**
-	 * Clear all previous marks on the graph made by visualized methods.
-	 * 
-	 * @param graph
-	 *            A graph to work with.
-	 */
-	protected static void clearMarks(GkaGraph graph) {
-		for (Node node : graph) {
-			node.setAttribute("ui.class", "unmarked");
-		}
-		for (Edge edge : graph.getEachEdge()) {
-			edge.setAttribute("ui.class", "unmarked");
-		}
-	}
 }
@@ -132,59 +132,102 @@ public class AlgoFordFulkerson {
 	 */
 	public static int maxFlow(GkaGraph graph, String sourceName, String sinkName) {
 		// check if nodes exist
-		if (!graph.getNodeNames().contains(sourceName) || !graph.getNodeNames().contains(sinkName)) {
+		if (!graph.hasNodeName(sourceName) || !graph.hasNodeName(sinkName)) {
 			throw new IllegalArgumentException("Node not found in graph.");
 		}
 
 		// get index of souce and sink nodes
-		int sourceIndex = graph.getNode(graph.createNode(sourceName)).getIndex();
-		int sinkIndex = graph.getNode(graph.createNode(sinkName)).getIndex();
+		int sourceIndex = graph.createNodeIndex(sourceName);
+		int sinkIndex = graph.createNodeIndex(sinkName);
 
-		// create the adjacency matrix of the graph
-		int[][] graphMatrix = graphMatrix(graph);
-		int nodeNr = graph.getNodeCount();
-		int maxFlow = 0;
+		return maxFlow(GkaCsr.of(graph), sourceIndex, sinkIndex);
+	}
 
-		/*
-		 * create the adjacency matrix of the residual graph. Its value at position
-		 * (i,j) indicates the remaining capacity of the edge from i to j. Initial
-		 * values are edge capacities.
-		 */
-		int rGraph[][] = new int[nodeNr][nodeNr];
+	/**
+	 * Find an augmenting path from source to sink in a residual graph using
+	 * depth-first-search.
+	 *
+	 * @param network
+	 *            The residual graph.
+	 * @param sourceIndex
+	 *            Index of the source node in the network.
+	 * @param sinkIndex
+	 *            Index of the sink node in the network.
+	 * @param parentArcs
+	 *            Array to store the arc used to reach each node on the path.
+	 * @return true if there is an augmenting path from source to sink, otherwise
+	 *         false.
+	 */
+	public static boolean getAugmentingPath(GkaFlowNetwork network, int sourceIndex, int sinkIndex,
+			int[] parentArcs) {
+		int nodeNr = network.getNodeCount();
+		int[] offsets = network.getOffsets();
+		int[] heads = network.getHeads();
+		int[] residuals = network.getResiduals();
 
-		for (int u = 0; u < nodeNr; u++) {
-			for (int v = 0; v < nodeNr; v++) {
-				rGraph[u][v] = graphMatrix[u][v];
+		// create an array for tracking visited nodes
+		boolean[] visited = new boolean[nodeNr];
+
+		// create a stack for DFS and the next arc to look at for each node on it
+		int[] stack = new int[nodeNr];
+		int[] nextArcs = new int[nodeNr];
+		int top = 0;
+		stack[top++] = sourceIndex;
+		nextArcs[sourceIndex] = offsets[sourceIndex];
+		visited[sourceIndex] = true;
+
+		// go deeper through an unvisited neighbor, pop the node when reaching a dead
+		// end
+		while (top > 0 && !visited[sinkIndex]) {
+			int curr = stack[top - 1];
+
+			if (nextArcs[curr] == offsets[curr + 1]) {
+				top--;
+				continue;
 			}
-		}
 
-		// create an array for storing path
-		int parent[] = new int[nodeNr];
-
-		// augment the flow while there is path from source to sink with DFS
-		while (getAugmentingPath(rGraph, sourceIndex, sinkIndex, parent)) {
-			// find minimum residual capacity (bottleneck) of the edges along the path
-			int bottleneck = Integer.MAX_VALUE;
-			for (int v = sinkIndex; v != sourceIndex; v = parent[v]) {
-				int u = parent[v];
-				bottleneck = Math.min(bottleneck, rGraph[u][v]);
+			int arc = nextArcs[curr]++;
+			int v = heads[arc];
+			if (!visited[v] && residuals[arc] > 0) {
+				visited[v] = true;
+				parentArcs[v] = arc;
+				nextArcs[v] = offsets[v];
+				stack[top++] = v;
 			}
+		}
 
-			// update residual capacities of the forward and backward edges along the path
-			for (int v = sinkIndex; v != sourceIndex; v = parent[v]) {
-				int u = parent[v];
+		// return true if the sink could be reached from the source, else false
+		return visited[sinkIndex];
+	}
 
-				// forward edge, remaining capacity = capacity - flow,
-				// flow increases => r.cap. decreases
-				rGraph[u][v] -= bottleneck;
+	/**
+	 * Calculate the maximum flow from source to sink of a flow network given as CSR
+	 * snapshot. Arc weights are the capacities.
+	 * 
+	 * @param csr
+	 *            A CSR snapshot to work with.
+	 * @param sourceIndex
+	 *            Index of the source node.
+	 * @param sinkIndex
+	 *            Index of the sink node.
+	 * @return Maximum flow of the network.
+	 */
+	public static int maxFlow(GkaCsr csr, int sourceIndex, int sinkIndex) {
+		int nodeNr = csr.getNodeCount();
+		if (sourceIndex < 0 || sourceIndex >= nodeNr || sinkIndex < 0 || sinkIndex >= nodeNr) {
+			throw new IllegalArgumentException("Node not found in graph.");
+		}
+		if (sourceIndex == sinkIndex) {
+			throw new IllegalArgumentException("Source and sink must be different nodes.");
+		}
 
-				// backward edge, remaining capacity = flow,
-				// flow increases => r.cap. increases
-				rGraph[v][u] += bottleneck;
-			}
+		GkaFlowNetwork network = new GkaFlowNetwork(csr);
+		int[] parentArcs = new int[nodeNr];
+		int maxFlow = 0;
 
-			// add path flow to overall flow
-			maxFlow += bottleneck;
+		// augment the flow while there is path from source to sink with DFS
+		while (getAugmentingPath(network, sourceIndex, sinkIndex, parentArcs)) {
+			maxFlow += network.augment(sourceIndex, sinkIndex, parentArcs);
 		}
 
 		// return the overall flow
@@ -0,0 +1,175 @@
+package gka1;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Batched BFS from many sources at once (MS-BFS of Then et al.). Up to 64
+ * sources share one pass over the arcs: every node has a word whose bit i tells
+ * whether source i has seen it, and the frontier of all sources is a second
+ * word per node. Expanding a node ORs its frontier bits into each neighbor that
+ * hasn't seen them, so the adjacency of a node is read once per level for the
+ * whole batch instead of once per source. More sources are processed in
+ * batches of 64. A batch stops as soon as all its source/target pairs are
+ * found.
+ *
+ * @author Huy Tran PC
+ *
+ */
+public class AlgoMultiSourceBFS {
+	/**
+	 * Number of sources sharing a pass over the arcs.
+	 */
+	public static final int BATCH_SIZE = 64;
+
+	/**
+	 * Get the hop distances between named nodes of a graph.
+	 *
+	 * @param graph
+	 *            A graph to work with.
+	 * @param sourceNames
+	 *            Names of the source nodes.
+	 * @param targetNames
+	 *            Names of the target nodes.
+	 * @return Distance from source i to target j at [i][j], -1 if the target
+	 *         can't be reached.
+	 */
+	public static int[][] distances(GkaGraph graph, List<String> sourceNames, List<String> targetNames) {
+		GkaCsr csr = GkaCsr.of(graph);
+
+		int[] sources = new int[sourceNames.size()];
+		for (int i = 0; i < sources.length; i++) {
+			sources[i] = csr.requireNodeIndex(sourceNames.get(i));
+		}
+		int[] targets = new int[targetNames.size()];
+		for (int j = 0; j < targets.length; j++) {
+			targets[j] = csr.requireNodeIndex(targetNames.get(j));
+		}
+
+		return distances(csr, sources, targets);
+	}
+
+	/**
+	 * Get the hop distances between nodes of a CSR snapshot.
+	 *
+	 * @param csr
+	 *            A CSR snapshot to work with.
+	 * @param sources
+	 *            Indices of the source nodes.
+	 * @param targets
+	 *            Indices of the target nodes.
+	 * @return Distance from source i to target j at [i][j], -1 if the target
+	 *         can't be reached.
+	 */
+	public static int[][] distances(GkaCsr csr, int[] sources, int[] targets) {
+		int nodeNr = csr.getNodeCount();
+		for (int node : sources) {
+			checkIndex(node, nodeNr);
+		}
+		for (int node : targets) {
+			checkIndex(node, nodeNr);
+		}
+
+		int[][] out = new int[sources.length][targets.length];
+		for (int[] row : out) {
+			Arrays.fill(row, -1);
+		}
+		if (targets.length == 0) {
+			return out;
+		}
+
+		// targets of each node as linked lists, a node may be requested twice
+		int[] firstTargets = new int[nodeNr];
+		int[] nextTargets = new int[targets.length];
+		Arrays.fill(firstTargets, -1);
+		for (int j = targets.length - 1; j >= 0; j--) {
+			nextTargets[j] = firstTargets[targets[j]];
+			firstTargets[targets[j]] = j;
+		}
+
+		long[] seen = new long[nodeNr];
+		long[] visit = new long[nodeNr];
+		long[] visitNext = new long[nodeNr];
+		for (int batchStart = 0; batchStart < sources.length; batchStart += BATCH_SIZE) {
+			int batchSize = Math.min(BATCH_SIZE, sources.length - batchStart);
+			Arrays.fill(seen, 0L);
+			Arrays.fill(visit, 0L);
+			Arrays.fill(visitNext, 0L);
+			search(csr, sources, batchStart, batchSize, firstTargets, nextTargets, seen, visit, visitNext, out);
+		}
+
+		return out;
+	}
+
+	private static void search(GkaCsr csr, int[] sources, int batchStart, int batchSize, int[] firstTargets,
+			int[] nextTargets, long[] seen, long[] visit, long[] visitNext, int[][] out) {
+		int[] offsets = csr.getOffsets();
+		int[] arcTargets = csr.getTargets();
+		int nodeNr = csr.getNodeCount();
+
+		// pairs of the batch still to find
+		long pairsLeft = (long) batchSize * nextTargets.length;
+
+		for (int b = 0; b < batchSize; b++) {
+			int source = sources[batchStart + b];
+			long bit = 1L << b;
+			seen[source] |= bit;
+			visit[source] |= bit;
+			pairsLeft -= record(source, bit, 0, batchStart, firstTargets, nextTargets, out);
+		}
+
+		boolean hasFrontier = true;
+		for (int level = 1; hasFrontier && pairsLeft > 0; level++) {
+			hasFrontier = false;
+
+			for (int curr = 0; curr < nodeNr; curr++) {
+				long frontier = visit[curr];
+				if (frontier == 0) {
+					continue;
+				}
+
+				for (int arc = offsets[curr]; arc < offsets[curr + 1]; arc++) {
+					int n = arcTargets[arc];
+					long found = frontier & ~seen[n];
+					if (found != 0) {
+						seen[n] |= found;
+						visitNext[n] |= found;
+						hasFrontier = true;
+						if (firstTargets[n] >= 0) {
+							pairsLeft -= record(n, found, level, batchStart, firstTargets, nextTargets, out);
+						}
+					}
+				}
+			}
+
+			// the next frontier becomes the current one, the old one is cleared
+			long[] tmp = visit;
+			visit = visitNext;
+			visitNext = tmp;
+			Arrays.fill(visitNext, 0L);
+		}
+	}
+
+	/**
+	 * Store the distance of the sources in bits to the targets at a node.
+	 *
+	 * @return Number of stored pairs.
+	 */
+	private static int record(int node, long bits, int level, int batchStart, int[] firstTargets,
+			int[] nextTargets, int[][] out) {
+		int stored = 0;
+		for (int j = firstTargets[node]; j >= 0; j = nextTargets[j]) {
+			for (long rest = bits; rest != 0; rest &= rest - 1) {
+				out[batchStart + Long.numberOfTrailingZeros(rest)][j] = level;
+				stored++;
+			}
+		}
+		return stored;
+	}
+
+	private static void checkIndex(int nodeIndex, int nodeNr) {
+		if (nodeIndex < 0 || nodeIndex >= nodeNr) {
+			throw new IllegalArgumentException("Node not found in graph.");
+		}
+	}
+}
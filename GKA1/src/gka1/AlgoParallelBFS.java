@@ -0,0 +1,299 @@
+package gka1;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Parallel level-synchronous BFS on a CSR snapshot. Each level is expanded by
+ * fork-join tasks over ranges of the frontier, with the same switch between
+ * top-down and bottom-up steps as {@link AlgoBFS#search(GkaCsr, int)}:
+ * <ul>
+ * <li>top-down: tasks claim unvisited targets by a compare-and-set on their word
+ * of the visited bitset, so every node gets exactly one parent without
+ * locks</li>
+ * <li>bottom-up: tasks own ranges of 64-node words of the visited bitset and
+ * look for a parent in the frontier bitset, so no atomic update is needed</li>
+ * </ul>
+ * Found nodes are collected in a task-local buffer and appended to the next
+ * frontier in blocks. Levels are the same as those of the sequential BFS,
+ * parents may differ between runs but always lie on a shortest path. Frontiers
+ * smaller than {@value #MIN_PARALLEL_FRONTIER} nodes are expanded by the calling
+ * thread.
+ *
+ * @author Huy Tran PC
+ *
+ */
+public class AlgoParallelBFS {
+	// frontier size below which a level isn't split into tasks
+	static final int MIN_PARALLEL_FRONTIER = 1024;
+	// minimum nodes or words per task and size of the task-local buffers
+	private static final int MIN_TASK_SIZE = 256;
+	private static final int BUFFER_SIZE = 512;
+
+	/**
+	 * Compute the BFS tree of a CSR snapshot in the common fork-join pool.
+	 *
+	 * @param csr
+	 *            A CSR snapshot to work with.
+	 * @param startIndex
+	 *            Index of the start node.
+	 * @return Levels and parents of the nodes.
+	 */
+	public static GkaBfsTree search(GkaCsr csr, int startIndex) {
+		return search(csr, startIndex, ForkJoinPool.commonPool());
+	}
+
+	/**
+	 * Compute the BFS tree of a CSR snapshot in a fork-join pool.
+	 *
+	 * @param csr
+	 *            A CSR snapshot to work with.
+	 * @param startIndex
+	 *            Index of the start node.
+	 * @param pool
+	 *            Pool to run the tasks in.
+	 * @return Levels and parents of the nodes.
+	 */
+	public static GkaBfsTree search(GkaCsr csr, int startIndex, ForkJoinPool pool) {
+		if (startIndex < 0 || startIndex >= csr.getNodeCount()) {
+			throw new IllegalArgumentException("Node not found in graph.");
+		}
+		return new Search(csr, pool).run(startIndex);
+	}
+
+	/**
+	 * State of one search shared by its tasks.
+	 */
+	private static final class Search {
+		private final GkaCsr csr;
+		private final ForkJoinPool pool;
+		private final int nodeNr;
+		private final int[] offsets;
+		private final int[] targets;
+
+		private final int[] levels;
+		private final int[] parents;
+		private final AtomicLongArray visited;
+		private long[] frontierBits;
+
+		// visited nodes in visiting order, the next frontier is appended at tail
+		private final int[] queue;
+		private final AtomicInteger tail = new AtomicInteger();
+		private final AtomicLong frontierArcs = new AtomicLong();
+		private int level;
+
+		Search(GkaCsr csr, ForkJoinPool pool) {
+			this.csr = csr;
+			this.pool = pool;
+			this.nodeNr = csr.getNodeCount();
+			this.offsets = csr.getOffsets();
+			this.targets = csr.getTargets();
+			this.levels = new int[nodeNr];
+			this.parents = new int[nodeNr];
+			this.visited = new AtomicLongArray((nodeNr + 63) >>> 6);
+			this.queue = new int[nodeNr];
+		}
+
+		GkaBfsTree run(int startIndex) {
+			Arrays.fill(levels, -1);
+			Arrays.fill(parents, -1);
+
+			queue[tail.getAndIncrement()] = startIndex;
+			visited.set(startIndex >>> 6, 1L << startIndex);
+			levels[startIndex] = 0;
+
+			long lastFrontierArcs = csr.getOutDegree(startIndex);
+			long unvisitedArcs = csr.getArcCount() - lastFrontierArcs;
+			boolean isBottomUp = false;
+			int head = 0;
+
+			while (head < tail.get()) {
+				int frontierEnd = tail.get();
+				int frontierSize = frontierEnd - head;
+				if (isBottomUp) {
+					isBottomUp = frontierSize >= nodeNr / AlgoBFS.BETA;
+				} else {
+					isBottomUp = lastFrontierArcs > unvisitedArcs / AlgoBFS.ALPHA;
+				}
+				level++;
+				frontierArcs.set(0);
+
+				if (!isBottomUp) {
+					if (frontierSize < MIN_PARALLEL_FRONTIER) {
+						new TopDown(this, head, frontierEnd).compute();
+					} else {
+						pool.invoke(new TopDown(this, head, frontierEnd));
+					}
+				} else {
+					if (frontierBits == null) {
+						frontierBits = new long[visited.length()];
+					} else {
+						Arrays.fill(frontierBits, 0L);
+					}
+					for (int i = head; i < frontierEnd; i++) {
+						frontierBits[queue[i] >>> 6] |= 1L << queue[i];
+					}
+					pool.invoke(new BottomUp(this, 0, visited.length()));
+				}
+
+				lastFrontierArcs = frontierArcs.get();
+				unvisitedArcs -= lastFrontierArcs;
+				head = frontierEnd;
+			}
+
+			int reached = tail.get();
+			return new GkaBfsTree(startIndex, levels, parents, reached, levels[queue[reached - 1]]);
+		}
+
+		int taskSize(int size) {
+			return Math.max(MIN_TASK_SIZE, size / (pool.getParallelism() * 8));
+		}
+
+		/**
+		 * Append the found nodes of a task to the next frontier.
+		 */
+		void flush(int[] buffer, int count, long arcs) {
+			if (count > 0) {
+				System.arraycopy(buffer, 0, queue, tail.getAndAdd(count), count);
+			}
+			frontierArcs.addAndGet(arcs);
+		}
+	}
+
+	/**
+	 * Top-down expansion of the frontier nodes queue[from] to queue[to].
+	 */
+	private static final class TopDown extends RecursiveAction {
+		private static final long serialVersionUID = 1L;
+
+		private final Search search;
+		private final int from;
+		private final int to;
+
+		TopDown(Search search, int from, int to) {
+			this.search = search;
+			this.from = from;
+			this.to = to;
+		}
+
+		@Override
+		protected void compute() {
+			Search s = search;
+			if (to - from > s.taskSize(to - from) && getPool() != null) {
+				int mid = (from + to) >>> 1;
+				invokeAll(new TopDown(s, from, mid), new TopDown(s, mid, to));
+				return;
+			}
+
+			int[] offsets = s.offsets;
+			int[] targets = s.targets;
+			int[] buffer = new int[BUFFER_SIZE];
+			int count = 0;
+			long arcs = 0;
+
+			for (int i = from; i < to; i++) {
+				int curr = s.queue[i];
+				for (int arc = offsets[curr]; arc < offsets[curr + 1]; arc++) {
+					int n = targets[arc];
+					if (!claim(s.visited, n)) {
+						continue;
+					}
+
+					// only the claiming task writes the node
+					s.levels[n] = s.level;
+					s.parents[n] = curr;
+					arcs += offsets[n + 1] - offsets[n];
+					buffer[count++] = n;
+					if (count == BUFFER_SIZE) {
+						s.flush(buffer, count, 0);
+						count = 0;
+					}
+				}
+			}
+			s.flush(buffer, count, arcs);
+		}
+
+		private static boolean claim(AtomicLongArray visited, int n) {
+			int w = n >>> 6;
+			long bit = 1L << n;
+			long old = visited.get(w);
+			while ((old & bit) == 0) {
+				if (visited.compareAndSet(w, old, old | bit)) {
+					return true;
+				}
+				old = visited.get(w);
+			}
+			return false;
+		}
+	}
+
+	/**
+	 * Bottom-up step of the unvisited nodes in the visited words from to to.
+	 */
+	private static final class BottomUp extends RecursiveAction {
+		private static final long serialVersionUID = 1L;
+
+		private final Search search;
+		private final int from;
+		private final int to;
+
+		BottomUp(Search search, int from, int to) {
+			this.search = search;
+			this.from = from;
+			this.to = to;
+		}
+
+		@Override
+		protected void compute() {
+			Search s = search;
+			if (to - from > s.taskSize(to - from)) {
+				int mid = (from + to) >>> 1;
+				invokeAll(new BottomUp(s, from, mid), new BottomUp(s, mid, to));
+				return;
+			}
+
+			GkaCsr transposed = s.csr.transpose();
+			int[] inOffsets = transposed.getOffsets();
+			int[] sources = transposed.getTargets();
+			long[] frontierBits = s.frontierBits;
+			int[] buffer = new int[BUFFER_SIZE];
+			int count = 0;
+			long arcs = 0;
+
+			for (int w = from; w < to; w++) {
+				// the word is owned by this task
+				long word = s.visited.get(w);
+				long unvisited = ~word;
+				while (unvisited != 0) {
+					int n = (w << 6) + Long.numberOfTrailingZeros(unvisited);
+					unvisited &= unvisited - 1;
+					if (n >= s.nodeNr) {
+						break;
+					}
+
+					for (int arc = inOffsets[n]; arc < inOffsets[n + 1]; arc++) {
+						int prev = sources[arc];
+						if ((frontierBits[prev >>> 6] & (1L << prev)) != 0) {
+							word |= 1L << n;
+							s.levels[n] = s.level;
+							s.parents[n] = prev;
+							arcs += s.offsets[n + 1] - s.offsets[n];
+							buffer[count++] = n;
+							if (count == BUFFER_SIZE) {
+								s.flush(buffer, count, 0);
+								count = 0;
+							}
+							break;
+						}
+					}
+				}
+				s.visited.set(w, word);
+			}
+			s.flush(buffer, count, arcs);
+		}
+	}
+}
@@ -0,0 +1,333 @@
+package gka1;
+
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+import org.graphstream.graph.Node;
+
+/**
+ * Lazy BFS and DFS traversals. The iterators and streams expand a node only
+ * when it is returned, so short-circuiting operations like limit, anyMatch or
+ * findFirst stop the traversal as soon as they have their answer and the cost
+ * is that of the visited part of the graph. A depth bound keeps nodes deeper
+ * than maxDepth out of the traversal (and unexpanded).<br>
+ * BFS returns the nodes by level, like {@link AlgoBFS#traverse(GkaCsr, int)}.
+ * DFS returns the nodes in preorder, following the arcs of a node in order;
+ * its depth is the depth in the DFS tree. Nodes are returned once, visited
+ * nodes are kept in a bitset and the queue or stack grows on demand.
+ *
+ * @author Huy Tran PC
+ *
+ */
+public class AlgoTraversal {
+	/**
+	 * Depth bound that doesn't limit the traversal.
+	 */
+	public static final int UNBOUNDED = Integer.MAX_VALUE;
+
+	private static final int INITIAL_CAPACITY = 16;
+
+	/**
+	 * Get a lazy BFS of the node indices of a CSR snapshot.
+	 *
+	 * @param csr
+	 *            A CSR snapshot to work with.
+	 * @param startIndex
+	 *            Index of the start node.
+	 * @param maxDepth
+	 *            Highest level to visit, {@link #UNBOUNDED} for all.
+	 * @return Iterator over the node indices in BFS order.
+	 */
+	public static PrimitiveIterator.OfInt bfs(GkaCsr csr, int startIndex, int maxDepth) {
+		return new BfsIterator(new CsrArcs(csr), startIndex, maxDepth);
+	}
+
+	/**
+	 * Get a lazy DFS of the node indices of a CSR snapshot.
+	 *
+	 * @param csr
+	 *            A CSR snapshot to work with.
+	 * @param startIndex
+	 *            Index of the start node.
+	 * @param maxDepth
+	 *            Highest depth to visit, {@link #UNBOUNDED} for all.
+	 * @return Iterator over the node indices in DFS preorder.
+	 */
+	public static PrimitiveIterator.OfInt dfs(GkaCsr csr, int startIndex, int maxDepth) {
+		return new DfsIterator(new CsrArcs(csr), startIndex, maxDepth);
+	}
+
+	/**
+	 * Get a lazy BFS of the node indices of a CSR snapshot as stream.
+	 *
+	 * @param csr
+	 *            A CSR snapshot to work with.
+	 * @param startIndex
+	 *            Index of the start node.
+	 * @return Sequential stream of the node indices in BFS order.
+	 */
+	public static IntStream bfsStream(GkaCsr csr, int startIndex) {
+		return stream(bfs(csr, startIndex, UNBOUNDED));
+	}
+
+	/**
+	 * Get a lazy DFS of the node indices of a CSR snapshot as stream.
+	 *
+	 * @param csr
+	 *            A CSR snapshot to work with.
+	 * @param startIndex
+	 *            Index of the start node.
+	 * @return Sequential stream of the node indices in DFS preorder.
+	 */
+	public static IntStream dfsStream(GkaCsr csr, int startIndex) {
+		return stream(dfs(csr, startIndex, UNBOUNDED));
+	}
+
+	/**
+	 * Get a lazy BFS of the nodes of a graph. It follows the leaving edges of the
+	 * graph directly, so no snapshot is built.
+	 *
+	 * @param graph
+	 *            A graph to work with.
+	 * @param startNodeName
+	 *            Name of the start node.
+	 * @param maxDepth
+	 *            Highest level to visit, {@link #UNBOUNDED} for all.
+	 * @return Sequential stream of the nodes in BFS order.
+	 */
+	public static Stream<Node> bfs(GkaGraph graph, String startNodeName, int maxDepth) {
+		int startIndex = requireNodeIndex(graph, startNodeName);
+		return stream(new BfsIterator(new GraphArcs(graph), startIndex, maxDepth)).mapToObj(graph::getNode);
+	}
+
+	/**
+	 * Get a lazy DFS of the nodes of a graph. It follows the leaving edges of the
+	 * graph directly, so no snapshot is built.
+	 *
+	 * @param graph
+	 *            A graph to work with.
+	 * @param startNodeName
+	 *            Name of the start node.
+	 * @param maxDepth
+	 *            Highest depth to visit, {@link #UNBOUNDED} for all.
+	 * @return Sequential stream of the nodes in DFS preorder.
+	 */
+	public static Stream<Node> dfs(GkaGraph graph, String startNodeName, int maxDepth) {
+		int startIndex = requireNodeIndex(graph, startNodeName);
+		return stream(new DfsIterator(new GraphArcs(graph), startIndex, maxDepth)).mapToObj(graph::getNode);
+	}
+
+	private static int requireNodeIndex(GkaGraph graph, String nodeName) {
+		if (!graph.hasNodeName(nodeName)) {
+			throw new IllegalArgumentException("Node not found in graph.");
+		}
+		return graph.getNodeIndex(nodeName);
+	}
+
+	private static IntStream stream(PrimitiveIterator.OfInt iterator) {
+		return StreamSupport.intStream(Spliterators.spliteratorUnknownSize(iterator,
+				Spliterator.ORDERED | Spliterator.DISTINCT | Spliterator.NONNULL), false);
+	}
+
+	/**
+	 * Outgoing arcs of the nodes, numbered from 0 to (degree - 1) per node.
+	 */
+	private interface Arcs {
+		int getNodeCount();
+
+		int getDegree(int nodeIndex);
+
+		int getTarget(int nodeIndex, int arc);
+	}
+
+	private static final class CsrArcs implements Arcs {
+		private final int nodeNr;
+		private final int[] offsets;
+		private final int[] targets;
+
+		CsrArcs(GkaCsr csr) {
+			this.nodeNr = csr.getNodeCount();
+			this.offsets = csr.getOffsets();
+			this.targets = csr.getTargets();
+		}
+
+		@Override
+		public int getNodeCount() {
+			return nodeNr;
+		}
+
+		@Override
+		public int getDegree(int nodeIndex) {
+			return offsets[nodeIndex + 1] - offsets[nodeIndex];
+		}
+
+		@Override
+		public int getTarget(int nodeIndex, int arc) {
+			return targets[offsets[nodeIndex] + arc];
+		}
+	}
+
+	private static final class GraphArcs implements Arcs {
+		private final GkaGraph graph;
+
+		GraphArcs(GkaGraph graph) {
+			this.graph = graph;
+		}
+
+		@Override
+		public int getNodeCount() {
+			return graph.getNodeCount();
+		}
+
+		@Override
+		public int getDegree(int nodeIndex) {
+			return graph.getNode(nodeIndex).getOutDegree();
+		}
+
+		@Override
+		public int getTarget(int nodeIndex, int arc) {
+			Node node = graph.getNode(nodeIndex);
+			return node.getLeavingEdge(arc).getOpposite(node).getIndex();
+		}
+	}
+
+	/**
+	 * Base of the iterators with the visited bitset.
+	 */
+	private abstract static class Traversal implements PrimitiveIterator.OfInt {
+		final Arcs arcs;
+		final int maxDepth;
+		private final long[] visited;
+
+		Traversal(Arcs arcs, int startIndex, int maxDepth) {
+			if (startIndex < 0 || startIndex >= arcs.getNodeCount()) {
+				throw new IllegalArgumentException("Node not found in graph.");
+			}
+			if (maxDepth < 0) {
+				throw new IllegalArgumentException("Depth must not be negative.");
+			}
+			this.arcs = arcs;
+			this.maxDepth = maxDepth;
+			this.visited = new long[(arcs.getNodeCount() + 63) >>> 6];
+		}
+
+		/**
+		 * Mark a node as visited.
+		 *
+		 * @return Whether the node wasn't visited before.
+		 */
+		boolean visit(int nodeIndex) {
+			long bit = 1L << nodeIndex;
+			if ((visited[nodeIndex >>> 6] & bit) != 0) {
+				return false;
+			}
+			visited[nodeIndex >>> 6] |= bit;
+			return true;
+		}
+	}
+
+	private static final class BfsIterator extends Traversal {
+		private int[] queue = new int[INITIAL_CAPACITY];
+		private int head;
+		private int tail;
+		// level of queue[head], the level ends before queue[levelEnd]
+		private int depth;
+		private int levelEnd;
+
+		BfsIterator(Arcs arcs, int startIndex, int maxDepth) {
+			super(arcs, startIndex, maxDepth);
+			visit(startIndex);
+			queue[tail++] = startIndex;
+			levelEnd = tail;
+		}
+
+		@Override
+		public boolean hasNext() {
+			return head < tail;
+		}
+
+		@Override
+		public int nextInt() {
+			if (head == tail) {
+				throw new NoSuchElementException();
+			}
+			if (head == levelEnd) {
+				depth++;
+				levelEnd = tail;
+			}
+
+			// expand the returned node
+			int curr = queue[head++];
+			if (depth < maxDepth) {
+				int degree = arcs.getDegree(curr);
+				for (int arc = 0; arc < degree; arc++) {
+					int n = arcs.getTarget(curr, arc);
+					if (visit(n)) {
+						if (tail == queue.length) {
+							queue = Arrays.copyOf(queue, tail * 2);
+						}
+						queue[tail++] = n;
+					}
+				}
+			}
+			return curr;
+		}
+	}
+
+	private static final class DfsIterator extends Traversal {
+		// path from the start node and the next arc of each of its nodes
+		private int[] stackNodes = new int[INITIAL_CAPACITY];
+		private int[] stackArcs = new int[INITIAL_CAPACITY];
+		private int size;
+		private int next;
+
+		DfsIterator(Arcs arcs, int startIndex, int maxDepth) {
+			super(arcs, startIndex, maxDepth);
+			visit(startIndex);
+			next = startIndex;
+		}
+
+		@Override
+		public boolean hasNext() {
+			return next >= 0;
+		}
+
+		@Override
+		public int nextInt() {
+			if (next < 0) {
+				throw new NoSuchElementException();
+			}
+
+			// the returned node is at depth size
+			int curr = next;
+			if (size == stackNodes.length) {
+				stackNodes = Arrays.copyOf(stackNodes, size * 2);
+				stackArcs = Arrays.copyOf(stackArcs, size * 2);
+			}
+			stackNodes[size] = curr;
+			stackArcs[size] = 0;
+			size++;
+
+			// find the next unvisited node, going back if a node has none left
+			next = -1;
+			while (size > 0 && next < 0) {
+				int top = stackNodes[size - 1];
+				if (size > maxDepth || stackArcs[size - 1] == arcs.getDegree(top)) {
+					size--;
+					continue;
+				}
+				int n = arcs.getTarget(top, stackArcs[size - 1]++);
+				if (visit(n)) {
+					next = n;
+				}
+			}
+			return curr;
+		}
+	}
+}
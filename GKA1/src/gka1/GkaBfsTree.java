@@ -0,0 +1,131 @@
+package gka1;
+
+/**
+ * Result of a BFS on a CSR snapshot: the level (number of arcs from the start
+ * node) and the parent on a shortest path of every node as primitive arrays.
+ * Unreached nodes have level and parent -1, the start node has level 0 and
+ * parent -1.<br>
+ * The arrays returned by the getters are the internal ones and must not be
+ * modified.
+ *
+ * @author Huy Tran PC
+ *
+ */
+public final class GkaBfsTree {
+	private final int startIndex;
+	private final int[] levels;
+	private final int[] parents;
+	private final int reachedCount;
+	private final int depth;
+
+	/**
+	 * Constructor for a GkaBfsTree. The arrays are taken over without copying.
+	 *
+	 * @param startIndex
+	 *            Index of the start node.
+	 * @param levels
+	 *            Level of each node.
+	 * @param parents
+	 *            Parent of each node.
+	 * @param reachedCount
+	 *            Number of reached nodes including the start node.
+	 * @param depth
+	 *            Highest level of a reached node.
+	 */
+	GkaBfsTree(int startIndex, int[] levels, int[] parents, int reachedCount, int depth) {
+		this.startIndex = startIndex;
+		this.levels = levels;
+		this.parents = parents;
+		this.reachedCount = reachedCount;
+		this.depth = depth;
+	}
+
+	/**
+	 * Get the index of the start node.
+	 *
+	 * @return Index of the start node.
+	 */
+	public int getStartIndex() {
+		return startIndex;
+	}
+
+	/**
+	 * Get the level of each node.
+	 *
+	 * @return Levels array.
+	 */
+	public int[] getLevels() {
+		return levels;
+	}
+
+	/**
+	 * Get the parent of each node.
+	 *
+	 * @return Parents array.
+	 */
+	public int[] getParents() {
+		return parents;
+	}
+
+	/**
+	 * Get the level of a node.
+	 *
+	 * @param nodeIndex
+	 *            Index of the node.
+	 * @return Number of arcs on a shortest path from the start node, -1 if the
+	 *         node isn't reached.
+	 */
+	public int getLevel(int nodeIndex) {
+		return levels[nodeIndex];
+	}
+
+	/**
+	 * Get the parent of a node.
+	 *
+	 * @param nodeIndex
+	 *            Index of the node.
+	 * @return Previous node on a shortest path from the start node, -1 for the
+	 *         start node and unreached nodes.
+	 */
+	public int getParent(int nodeIndex) {
+		return parents[nodeIndex];
+	}
+
+	/**
+	 * Get the number of reached nodes.
+	 *
+	 * @return Number of reached nodes including the start node.
+	 */
+	public int getReachedCount() {
+		return reachedCount;
+	}
+
+	/**
+	 * Get the depth of the tree.
+	 *
+	 * @return Highest level of a reached node.
+	 */
+	public int getDepth() {
+		return depth;
+	}
+
+	/**
+	 * Trace the shortest path from the start node to a node.
+	 *
+	 * @param endIndex
+	 *            Index of the end node.
+	 * @return Sequence of node indices from start to end node, null if end isn't
+	 *         reached.
+	 */
+	public int[] getPath(int endIndex) {
+		if (levels[endIndex] < 0) {
+			return null;
+		}
+
+		int[] out = new int[levels[endIndex] + 1];
+		for (int curr = endIndex, i = out.length - 1; i >= 0; curr = parents[curr], i--) {
+			out[i] = curr;
+		}
+		return out;
+	}
+}
@@ -0,0 +1,352 @@
+package gka1;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.Writer;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Compact binary format for graphs. It holds the same information as a GKA
+ * file read into a graph: node names in index order, edges in index order with
+ * direction, optional name and optional weight. So converting a GKA file to
+ * binary and back gives the same content {@link GkaUtils#save(GkaGraph, Path)}
+ * writes for the graph of the GKA file.<br>
+ * Layout, all integers are unsigned LEB128 varints unless noted:
+ * <ul>
+ * <li>magic "GKAB" (4 bytes), version (1 byte), reserved (1 byte)</li>
+ * <li>number of nodes, number of edges</li>
+ * <li>string table: length in bytes and UTF-8 bytes of each node name</li>
+ * <li>flags column: 1 byte per edge, bit 0 directed, bit 1 weighted, bit 2
+ * named</li>
+ * <li>adjacency column: per edge the zigzag encoded difference of node 1 to
+ * node 1 of the previous edge and of node 2 to node 1</li>
+ * <li>weight column: zigzag encoded weight of each weighted edge</li>
+ * <li>name column: length in bytes and UTF-8 bytes of each edge name</li>
+ * </ul>
+ * Loading maps the file once and decodes it into the primitive columns of a
+ * {@link GkaEdgeList}, only the name strings are allocated.
+ *
+ * @author Huy Tran PC
+ *
+ */
+public final class GkaBinary {
+	/**
+	 * Current version of the format.
+	 */
+	public static final int VERSION = 1;
+
+	private static final byte[] MAGIC = { 'G', 'K', 'A', 'B' };
+	private static final int NAMED = 4;
+	private static final int BUFFER_SIZE = 1 << 16;
+
+	private GkaBinary() {
+	}
+
+	/**
+	 * Save a graph in binary format.
+	 *
+	 * @param graph
+	 *            The graph to save.
+	 * @param path
+	 *            Path of the binary file.
+	 * @throws IOException
+	 *             if an I/O exception occurs
+	 */
+	public static void write(GkaGraph graph, Path path) throws IOException {
+		write(GkaEdgeList.of(graph), path);
+	}
+
+	/**
+	 * Save an edge list in binary format.
+	 *
+	 * @param list
+	 *            The edge list to save.
+	 * @param path
+	 *            Path of the binary file.
+	 * @throws IOException
+	 *             if an I/O exception occurs
+	 */
+	public static void write(GkaEdgeList list, Path path) throws IOException {
+		try (OutputStream out = Files.newOutputStream(path)) {
+			write(list, out);
+		}
+	}
+
+	/**
+	 * Write an edge list in binary format to a stream. The stream is flushed but
+	 * not closed.
+	 *
+	 * @param list
+	 *            The edge list to write.
+	 * @param out
+	 *            Stream to write to.
+	 * @throws IOException
+	 *             if an I/O exception occurs
+	 */
+	public static void write(GkaEdgeList list, OutputStream out) throws IOException {
+		BufferedOutputStream bos = new BufferedOutputStream(out, BUFFER_SIZE);
+		int edgeNr = list.edgeCount;
+
+		// header
+		bos.write(MAGIC);
+		bos.write(VERSION);
+		bos.write(0);
+		writeVarint(bos, list.nodeCount);
+		writeVarint(bos, edgeNr);
+
+		// string table
+		for (int i = 0; i < list.nodeCount; i++) {
+			writeString(bos, list.nodeNames[i]);
+		}
+
+		// flags column
+		for (int e = 0; e < edgeNr; e++) {
+			bos.write(list.flags[e] | (list.getEdgeName(e) != null ? NAMED : 0));
+		}
+
+		// adjacency column
+		int previousSource = 0;
+		for (int e = 0; e < edgeNr; e++) {
+			int source = list.sources[e];
+			writeVarint(bos, zigzag(source - previousSource));
+			writeVarint(bos, zigzag(list.targets[e] - source));
+			previousSource = source;
+		}
+
+		// weight column
+		for (int e = 0; e < edgeNr; e++) {
+			if ((list.flags[e] & GkaEdgeList.WEIGHTED) != 0) {
+				writeVarint(bos, zigzag(list.weights[e]));
+			}
+		}
+
+		// name column
+		for (int e = 0; e < edgeNr; e++) {
+			String edgeName = list.getEdgeName(e);
+			if (edgeName != null) {
+				writeString(bos, edgeName);
+			}
+		}
+
+		bos.flush();
+	}
+
+	/**
+	 * Load a binary file into an edge list.
+	 *
+	 * @param path
+	 *            Path of the binary file.
+	 * @return The nodes and edges of the file.
+	 * @throws IOException
+	 *             if an I/O exception occurs or the file isn't in binary format
+	 */
+	public static GkaEdgeList read(Path path) throws IOException {
+		try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+			long size = channel.size();
+			if (size > Integer.MAX_VALUE) {
+				throw new IOException("Binary file too large for a single mapping: " + size + " bytes.");
+			}
+			return read(channel.map(FileChannel.MapMode.READ_ONLY, 0, size));
+		}
+	}
+
+	/**
+	 * Decode the binary format from the remaining bytes of a buffer.
+	 *
+	 * @param buffer
+	 *            Buffer with the content of a binary file.
+	 * @return The nodes and edges of the content.
+	 * @throws IOException
+	 *             if the content isn't in binary format
+	 */
+	public static GkaEdgeList read(ByteBuffer buffer) throws IOException {
+		try {
+			// header
+			for (byte b : MAGIC) {
+				if (buffer.get() != b) {
+					throw new IOException("Not a GKA binary file.");
+				}
+			}
+			int version = buffer.get() & 0xFF;
+			if (version != VERSION) {
+				throw new IOException("Unsupported GKA binary version: " + version);
+			}
+			buffer.get();
+			int nodeNr = readVarint(buffer);
+			int edgeNr = readVarint(buffer);
+
+			// each node takes at least 1 byte, each edge at least 3
+			if (nodeNr < 0 || edgeNr < 0 || nodeNr > buffer.remaining() || edgeNr > buffer.remaining() / 3) {
+				throw new IOException("Invalid number of nodes or edges in GKA binary file.");
+			}
+
+			GkaEdgeList list = new GkaEdgeList(nodeNr, edgeNr);
+			byte[][] scratch = { new byte[64] };
+
+			// string table, names are unique so the dictionary is built on demand
+			for (int i = 0; i < nodeNr; i++) {
+				list.nodeNames[i] = readString(buffer, scratch);
+			}
+			list.nodeCount = nodeNr;
+
+			// flags column
+			buffer.get(list.flags, 0, edgeNr);
+			boolean hasEdgeNames = false;
+			for (int e = 0; e < edgeNr; e++) {
+				hasEdgeNames |= (list.flags[e] & NAMED) != 0;
+			}
+
+			// adjacency column
+			int source = 0;
+			for (int e = 0; e < edgeNr; e++) {
+				source += unzigzag(readVarint(buffer));
+				int target = source + unzigzag(readVarint(buffer));
+				if (source < 0 || source >= nodeNr || target < 0 || target >= nodeNr) {
+					throw new IOException("Invalid node index in edge " + e + ".");
+				}
+				list.sources[e] = source;
+				list.targets[e] = target;
+			}
+
+			// weight column
+			for (int e = 0; e < edgeNr; e++) {
+				list.weights[e] = (list.flags[e] & GkaEdgeList.WEIGHTED) != 0 ? unzigzag(readVarint(buffer))
+						: GkaCsr.DEFAULT_WEIGHT;
+			}
+
+			// name column
+			if (hasEdgeNames) {
+				list.edgeNames = new String[list.sources.length];
+				for (int e = 0; e < edgeNr; e++) {
+					if ((list.flags[e] & NAMED) != 0) {
+						list.edgeNames[e] = readString(buffer, scratch);
+					}
+				}
+			}
+
+			// the named bit is only part of the file
+			for (int e = 0; e < edgeNr; e++) {
+				list.flags[e] &= GkaEdgeList.DIRECTED | GkaEdgeList.WEIGHTED;
+			}
+			list.edgeCount = edgeNr;
+
+			return list;
+		} catch (BufferUnderflowException e) {
+			throw new IOException("Truncated GKA binary file.", e);
+		}
+	}
+
+	/**
+	 * Load a binary file into a GkaGraph with sequential ids.
+	 *
+	 * @param path
+	 *            Path of the binary file.
+	 * @return A GkaGraph object.
+	 * @throws IOException
+	 *             if an I/O exception occurs or the file isn't in binary format
+	 */
+	public static GkaGraph readGraph(Path path) throws IOException {
+		return read(path).toGraph();
+	}
+
+	/**
+	 * Load a binary file into a CSR snapshot.
+	 *
+	 * @param path
+	 *            Path of the binary file.
+	 * @return A CSR snapshot.
+	 * @throws IOException
+	 *             if an I/O exception occurs or the file isn't in binary format
+	 */
+	public static GkaCsr readCsr(Path path) throws IOException {
+		return read(path).toCsr();
+	}
+
+	/**
+	 * Convert a GKA file into a binary file.
+	 *
+	 * @param gkaPath
+	 *            Path of the GKA file.
+	 * @param binaryPath
+	 *            Path of the new binary file.
+	 * @throws IOException
+	 *             if an I/O exception occurs
+	 */
+	public static void fromGka(Path gkaPath, Path binaryPath) throws IOException {
+		write(GkaParallelLoader.load(gkaPath), binaryPath);
+	}
+
+	/**
+	 * Convert a binary file into a GKA file.
+	 *
+	 * @param binaryPath
+	 *            Path of the binary file.
+	 * @param gkaPath
+	 *            Path of the new GKA file.
+	 * @throws IOException
+	 *             if an I/O exception occurs or the file isn't in binary format
+	 */
+	public static void toGka(Path binaryPath, Path gkaPath) throws IOException {
+		GkaEdgeList list = read(binaryPath);
+		try (Writer writer = Files.newBufferedWriter(gkaPath, StandardCharsets.UTF_8)) {
+			list.write(writer);
+		}
+	}
+
+	private static int zigzag(int value) {
+		return (value << 1) ^ (value >> 31);
+	}
+
+	private static int unzigzag(int value) {
+		return (value >>> 1) ^ -(value & 1);
+	}
+
+	private static void writeVarint(OutputStream out, int value) throws IOException {
+		while ((value & ~0x7F) != 0) {
+			out.write((value & 0x7F) | 0x80);
+			value >>>= 7;
+		}
+		out.write(value);
+	}
+
+	private static int readVarint(ByteBuffer buffer) throws IOException {
+		int value = 0;
+		for (int shift = 0; shift < 35; shift += 7) {
+			byte b = buffer.get();
+			value |= (b & 0x7F) << shift;
+			if (b >= 0) {
+				return value;
+			}
+		}
+		throw new IOException("Malformed varint in GKA binary file.");
+	}
+
+	private static void writeString(OutputStream out, String str) throws IOException {
+		byte[] bytes = str.getBytes(StandardCharsets.UTF_8);
+		writeVarint(out, bytes.length);
+		out.write(bytes);
+	}
+
+	/**
+	 * Read a string through a reusable byte array, scratch[0] is replaced when it
+	 * is too small.
+	 */
+	private static String readString(ByteBuffer buffer, byte[][] scratch) throws IOException {
+		int length = readVarint(buffer);
+		if (length < 0 || length > buffer.remaining()) {
+			throw new IOException("Invalid string length in GKA binary file.");
+		}
+		if (length > scratch[0].length) {
+			scratch[0] = new byte[Math.max(length, scratch[0].length * 2)];
+		}
+		buffer.get(scratch[0], 0, length);
+		return new String(scratch[0], 0, length, StandardCharsets.UTF_8);
+	}
+}
@@ -0,0 +1,214 @@
+package gka1;
+
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+
+/**
+ * Monotone bucket queue of the ids 0 to (capacity - 1) with integer keys
+ * (Dial's algorithm). Dijkstra with non-negative integer arc weights up to C
+ * only ever holds keys from the last polled key d to d + C, so C + 1 buckets
+ * used cyclically suffice: the id with key k is in bucket k mod (C + 1). Each
+ * bucket is a doubly linked list through the ids, so insert and decreaseKey are
+ * O(1) and poll scans at most C + 1 buckets.<br>
+ * The id arrays are allocated by the constructor, the buckets on the first
+ * {@link #reset(int)} and whenever a larger range is needed.
+ *
+ * @author Huy Tran PC
+ *
+ */
+public final class GkaBucketQueue {
+	private static final int NONE = -1;
+	// bucket of ids that aren't in the queue
+	private static final int ABSENT = -1;
+
+	private final int[] next;
+	private final int[] prev;
+	private final int[] buckets;
+	private final long[] keys;
+	private int[] heads = new int[0];
+	private int bucketNr;
+	private int size;
+
+	// key of the current bucket, no key in the queue is smaller
+	private long minKey;
+	private boolean hasMinKey;
+
+	/**
+	 * Constructor for an empty GkaBucketQueue.
+	 *
+	 * @param capacity
+	 *            Number of ids, ids range from 0 to (capacity - 1).
+	 */
+	public GkaBucketQueue(int capacity) {
+		this.next = new int[capacity];
+		this.prev = new int[capacity];
+		this.buckets = new int[capacity];
+		this.keys = new long[capacity];
+		Arrays.fill(buckets, ABSENT);
+	}
+
+	/**
+	 * Empty the queue and prepare it for keys that are at most maxKeyRange
+	 * greater than the smallest key in the queue.
+	 *
+	 * @param maxKeyRange
+	 *            Largest difference of keys in the queue, i.e. the maximum arc
+	 *            weight.
+	 */
+	public void reset(int maxKeyRange) {
+		if (maxKeyRange < 0 || maxKeyRange == Integer.MAX_VALUE) {
+			throw new IllegalArgumentException("Invalid key range.");
+		}
+
+		// remove the ids left by a search that stopped early
+		for (int b = 0; b < bucketNr && size > 0; b++) {
+			for (int id = heads[b]; id != NONE; id = next[id]) {
+				buckets[id] = ABSENT;
+				size--;
+			}
+		}
+
+		bucketNr = maxKeyRange + 1;
+		if (heads.length < bucketNr) {
+			heads = new int[bucketNr];
+		}
+		Arrays.fill(heads, 0, bucketNr, NONE);
+		size = 0;
+		hasMinKey = false;
+	}
+
+	/**
+	 * Get the number of ids in the queue.
+	 *
+	 * @return Number of ids.
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * Check if the queue is empty.
+	 *
+	 * @return Whether there is no id in the queue.
+	 */
+	public boolean isEmpty() {
+		return size == 0;
+	}
+
+	/**
+	 * Check if an id is in the queue.
+	 *
+	 * @param id
+	 *            The id.
+	 * @return Whether the id is in the queue.
+	 */
+	public boolean contains(int id) {
+		return buckets[id] != ABSENT;
+	}
+
+	/**
+	 * Insert an id that isn't in the queue.
+	 *
+	 * @param id
+	 *            The id.
+	 * @param key
+	 *            Key of the id, from the last polled key to that plus the key
+	 *            range.
+	 */
+	public void insert(int id, long key) {
+		if (buckets[id] != ABSENT) {
+			throw new IllegalArgumentException("Id already in queue.");
+		}
+		// the first key after a reset sets the current bucket
+		if (!hasMinKey) {
+			minKey = key;
+			hasMinKey = true;
+		} else if (key < minKey || key - minKey >= bucketNr) {
+			throw new IllegalArgumentException("Key out of range.");
+		}
+		link(id, key);
+		size++;
+	}
+
+	/**
+	 * Lower the key of an id in the queue.
+	 *
+	 * @param id
+	 *            An id in the queue.
+	 * @param key
+	 *            New key, not greater than the current one and not smaller than
+	 *            the last polled key.
+	 */
+	public void decreaseKey(int id, long key) {
+		if (buckets[id] == ABSENT) {
+			throw new NoSuchElementException("Id not in queue.");
+		}
+		if (key > keys[id] || key < minKey) {
+			throw new IllegalArgumentException("Key out of range.");
+		}
+		unlink(id);
+		link(id, key);
+	}
+
+	/**
+	 * Remove an id with the smallest key.
+	 *
+	 * @return Id with the smallest key.
+	 */
+	public int poll() {
+		if (size == 0) {
+			throw new NoSuchElementException("Queue is empty.");
+		}
+
+		// the next non-empty bucket holds the smallest key
+		int b = (int) (minKey % bucketNr);
+		while (heads[b] == NONE) {
+			b = b + 1 == bucketNr ? 0 : b + 1;
+			minKey++;
+		}
+
+		int id = heads[b];
+		unlink(id);
+		buckets[id] = ABSENT;
+		size--;
+		return id;
+	}
+
+	/**
+	 * Get the key of an id in the queue.
+	 *
+	 * @param id
+	 *            An id in the queue.
+	 * @return Key of the id.
+	 */
+	public long getKey(int id) {
+		if (buckets[id] == ABSENT) {
+			throw new NoSuchElementException("Id not in queue.");
+		}
+		return keys[id];
+	}
+
+	private void link(int id, long key) {
+		int b = (int) (key % bucketNr);
+		keys[id] = key;
+		buckets[id] = b;
+		prev[id] = NONE;
+		next[id] = heads[b];
+		if (heads[b] != NONE) {
+			prev[heads[b]] = id;
+		}
+		heads[b] = id;
+	}
+
+	private void unlink(int id) {
+		int b = buckets[id];
+		if (prev[id] != NONE) {
+			next[prev[id]] = next[id];
+		} else {
+			heads[b] = next[id];
+		}
+		if (next[id] != NONE) {
+			prev[next[id]] = prev[id];
+		}
+	}
+}
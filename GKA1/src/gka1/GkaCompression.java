@@ -0,0 +1,285 @@
+package gka1;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Transparent gzip support for GKA files. Input is recognized as gzip by the
+ * extension ".gz" or by the gzip magic bytes and is decompressed on a separate
+ * thread that reads ahead into a bounded queue of blocks, so decompression and
+ * parsing overlap. Output is compressed if the file name ends with ".gz".
+ *
+ * @author Huy Tran PC
+ *
+ */
+public final class GkaCompression {
+	/**
+	 * File extension of gzip-compressed files.
+	 */
+	public static final String GZIP_EXTENSION = ".gz";
+
+	private static final int GZIP_MAGIC1 = 0x1f;
+	private static final int GZIP_MAGIC2 = 0x8b;
+	private static final int BUFFER_SIZE = 1 << 16;
+
+	// blocks decompressed in advance
+	private static final int READ_AHEAD_BLOCKS = 4;
+
+	private GkaCompression() {
+	}
+
+	/**
+	 * Open a file for reading, decompressing it if it's gzip-compressed.
+	 *
+	 * @param path
+	 *            Path of the file.
+	 * @return Stream of the uncompressed content.
+	 * @throws IOException
+	 *             if an I/O exception occurs
+	 */
+	public static InputStream openInput(Path path) throws IOException {
+		InputStream in = Files.newInputStream(path);
+		try {
+			return decompress(in, isGzipName(path));
+		} catch (IOException | RuntimeException e) {
+			in.close();
+			throw e;
+		}
+	}
+
+	/**
+	 * Wrap a stream so that gzip-compressed content is decompressed. Uncompressed
+	 * content is passed through.
+	 *
+	 * @param in
+	 *            Stream of compressed or uncompressed content.
+	 * @return Stream of the uncompressed content.
+	 * @throws IOException
+	 *             if an I/O exception occurs
+	 */
+	public static InputStream decompress(InputStream in) throws IOException {
+		return decompress(in, false);
+	}
+
+	private static InputStream decompress(InputStream in, boolean isGzip) throws IOException {
+		BufferedInputStream bis = new BufferedInputStream(in, BUFFER_SIZE);
+		if (!isGzip) {
+			// peek at the magic bytes
+			bis.mark(2);
+			isGzip = bis.read() == GZIP_MAGIC1 && bis.read() == GZIP_MAGIC2;
+			bis.reset();
+		}
+		if (!isGzip) {
+			return bis;
+		}
+		return new ReadAheadInputStream(new GZIPInputStream(bis, BUFFER_SIZE));
+	}
+
+	/**
+	 * Open a file for writing, compressing it if its name ends with ".gz". An
+	 * existing file is overwritten.
+	 *
+	 * @param path
+	 *            Path of the file.
+	 * @return Stream to write the uncompressed content to.
+	 * @throws IOException
+	 *             if an I/O exception occurs
+	 */
+	public static OutputStream openOutput(Path path) throws IOException {
+		OutputStream out = Files.newOutputStream(path);
+		if (!isGzipName(path)) {
+			return out;
+		}
+		try {
+			return new GZIPOutputStream(out, BUFFER_SIZE);
+		} catch (IOException | RuntimeException e) {
+			out.close();
+			throw e;
+		}
+	}
+
+	/**
+	 * Check if a file is gzip-compressed, by its name or its first bytes.
+	 *
+	 * @param path
+	 *            Path of the file.
+	 * @return true if the file is gzip-compressed.
+	 * @throws IOException
+	 *             if an I/O exception occurs
+	 */
+	public static boolean isGzip(Path path) throws IOException {
+		if (isGzipName(path)) {
+			return true;
+		}
+		try (InputStream in = Files.newInputStream(path)) {
+			return in.read() == GZIP_MAGIC1 && in.read() == GZIP_MAGIC2;
+		}
+	}
+
+	private static boolean isGzipName(Path path) {
+		Path fileName = path.getFileName();
+		return fileName != null && fileName.toString().endsWith(GZIP_EXTENSION);
+	}
+
+	/**
+	 * Stream that reads its source on a daemon thread. Blocks are recycled between
+	 * the two threads, so at most READ_AHEAD_BLOCKS + 1 blocks exist.
+	 */
+	private static final class ReadAheadInputStream extends InputStream {
+		private final InputStream source;
+		private final BlockingQueue<Block> filled = new ArrayBlockingQueue<>(READ_AHEAD_BLOCKS + 1);
+		private final BlockingQueue<Block> free = new ArrayBlockingQueue<>(READ_AHEAD_BLOCKS + 1);
+		private final Thread thread;
+
+		private Block current;
+		private int pos;
+		private boolean eof;
+		private boolean closed;
+
+		ReadAheadInputStream(InputStream source) {
+			this.source = source;
+			for (int i = 0; i < READ_AHEAD_BLOCKS + 1; i++) {
+				free.add(new Block());
+			}
+
+			thread = new Thread(this::readAhead, "gka-read-ahead");
+			thread.setDaemon(true);
+			thread.start();
+		}
+
+		/**
+		 * Loop of the reading thread.
+		 */
+		private void readAhead() {
+			try {
+				while (true) {
+					Block block = free.take();
+					block.length = 0;
+					block.error = null;
+
+					try {
+						// fill the block as far as possible
+						int read = 0;
+						while (block.length < block.data.length
+								&& (read = source.read(block.data, block.length, block.data.length - block.length)) >= 0) {
+							block.length += read;
+						}
+						if (read < 0 && block.length == 0) {
+							block.length = -1;
+						}
+					} catch (Throwable e) {
+						// any failure ends the stream, the consumer must not wait forever
+						block.error = e instanceof IOException ? (IOException) e
+								: new IOException("Reading ahead failed.", e);
+					}
+
+					filled.put(block);
+					if (block.length < 0 || block.error != null) {
+						return;
+					}
+				}
+			} catch (InterruptedException e) {
+				// closed by the consumer
+			} finally {
+				try {
+					source.close();
+				} catch (IOException e) {
+					// nothing left to report to
+				}
+			}
+		}
+
+		/**
+		 * Make sure there's an unread byte in the current block.
+		 *
+		 * @return false at the end of the stream.
+		 */
+		private boolean ensureAvailable() throws IOException {
+			if (closed) {
+				throw new IOException("Stream closed.");
+			}
+			while (!eof && (current == null || pos == current.length)) {
+				if (current != null) {
+					free.add(current);
+					current = null;
+				}
+				try {
+					current = filled.take();
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+					throw new InterruptedIOException("Interrupted while waiting for input.");
+				}
+				pos = 0;
+				if (current.error != null) {
+					eof = true;
+					throw current.error;
+				}
+				if (current.length < 0) {
+					eof = true;
+				}
+			}
+			return !eof;
+		}
+
+		@Override
+		public int read() throws IOException {
+			if (!ensureAvailable()) {
+				return -1;
+			}
+			return current.data[pos++] & 0xFF;
+		}
+
+		@Override
+		public int read(byte[] b, int off, int len) throws IOException {
+			if (len == 0) {
+				return 0;
+			}
+			if (!ensureAvailable()) {
+				return -1;
+			}
+			len = Math.min(len, current.length - pos);
+			System.arraycopy(current.data, pos, b, off, len);
+			pos += len;
+			return len;
+		}
+
+		@Override
+		public int available() {
+			return current != null && current.length > pos ? current.length - pos : 0;
+		}
+
+		@Override
+		public void close() throws IOException {
+			if (closed) {
+				return;
+			}
+			closed = true;
+
+			// stop the reading thread, it closes the source
+			thread.interrupt();
+			try {
+				thread.join();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		}
+	}
+
+	/**
+	 * Block of read-ahead data, length -1 marks the end of the stream.
+	 */
+	private static final class Block {
+		final byte[] data = new byte[BUFFER_SIZE];
+		int length;
+		IOException error;
+	}
+}
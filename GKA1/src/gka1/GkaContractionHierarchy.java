@@ -0,0 +1,795 @@
+package gka1;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.IntConsumer;
+
+/**
+ * Contraction Hierarchies index of a CSR snapshot. Nodes are contracted in
+ * order of importance: contracting a node removes it and adds a shortcut u -> w
+ * for each pair of arcs u -> v -> w unless a witness search finds a path from u
+ * to w that avoids v and isn't longer. A shortcut remembers the contracted node
+ * v, so it can be unpacked into the arcs it stands for. The rank of a node is
+ * its position in the order, shortest paths of the snapshot then exist as an
+ * upward part followed by a downward part.<br>
+ * The importance of a node is its edge difference (shortcuts added minus arcs
+ * removed) plus the number of contracted neighbours, which spreads contraction
+ * over the graph. Each round contracts all nodes that are less important than
+ * their remaining neighbours, such nodes are independent. Priorities and
+ * shortcuts of a round are computed in parallel on a fork-join pool. A witness
+ * through another node of the round must be strictly shorter: such a witness
+ * is never part of a shortest path, so every shortest path keeps a shortcut or
+ * a witness without round nodes once the round is applied.<br>
+ * The index keeps the arcs to higher ranked nodes of each node in an upward CSR
+ * and the arcs from higher ranked nodes in a downward CSR, with the contracted
+ * node of each shortcut and -1 for original arcs. It's immutable and can be
+ * shared by several threads, see {@link AlgoCH} for queries.<br>
+ * Binary layout of a saved index, integers are big-endian: magic "GKAC" (4
+ * bytes), version (1 byte), reserved (1 byte), number of nodes and arcs of the
+ * snapshot, its content hash (8 bytes), ranks, then for the upward and the
+ * downward CSR the number of arcs, offsets, nodes, weights and contracted
+ * nodes.
+ *
+ * @author Huy Tran PC
+ *
+ */
+public final class GkaContractionHierarchy {
+	/**
+	 * Current version of the file format.
+	 */
+	public static final int VERSION = 2;
+
+	// nodes a witness search settles before it gives up and a shortcut is added,
+	// priorities are only estimates and use a smaller limit
+	static final int WITNESS_SETTLE_LIMIT = 500;
+	static final int PRIORITY_SETTLE_LIMIT = 20;
+
+	private static final byte[] MAGIC = { 'G', 'K', 'A', 'C' };
+	private static final int BUFFER_SIZE = 1 << 16;
+	private static final int MIN_TASK_SIZE = 64;
+
+	private final int arcCount;
+	// content hash of the snapshot, see GkaCsr#getContentHash()
+	private final long csrHash;
+	final int[] ranks;
+
+	// arcs u -> w with rank[u] < rank[w], stored at u
+	final int[] upOffsets;
+	final int[] upTargets;
+	final int[] upWeights;
+	final int[] upMiddles;
+
+	// arcs u -> w with rank[u] > rank[w], stored at w with u as node
+	final int[] downOffsets;
+	final int[] downSources;
+	final int[] downWeights;
+	final int[] downMiddles;
+
+	private GkaContractionHierarchy(int arcCount, long csrHash, int[] ranks, int[] upOffsets, int[] upTargets,
+			int[] upWeights, int[] upMiddles, int[] downOffsets, int[] downSources, int[] downWeights,
+			int[] downMiddles) {
+		this.arcCount = arcCount;
+		this.csrHash = csrHash;
+		this.ranks = ranks;
+		this.upOffsets = upOffsets;
+		this.upTargets = upTargets;
+		this.upWeights = upWeights;
+		this.upMiddles = upMiddles;
+		this.downOffsets = downOffsets;
+		this.downSources = downSources;
+		this.downWeights = downWeights;
+		this.downMiddles = downMiddles;
+	}
+
+	/**
+	 * Build the index of a CSR snapshot in the common fork-join pool.
+	 *
+	 * @param csr
+	 *            A CSR snapshot to work with, weights must not be negative.
+	 * @return The index of the snapshot.
+	 */
+	public static GkaContractionHierarchy build(GkaCsr csr) {
+		return build(csr, ForkJoinPool.commonPool());
+	}
+
+	/**
+	 * Build the index of a CSR snapshot in a fork-join pool.
+	 *
+	 * @param csr
+	 *            A CSR snapshot to work with, weights must not be negative.
+	 * @param pool
+	 *            Pool to run the tasks in.
+	 * @return The index of the snapshot.
+	 */
+	public static GkaContractionHierarchy build(GkaCsr csr, ForkJoinPool pool) {
+		if (csr.getMinWeight() < 0) {
+			throw new IllegalArgumentException("Contraction needs non-negative weights.");
+		}
+		return new Builder(csr, pool).run();
+	}
+
+	/**
+	 * Load the index of a CSR snapshot.
+	 *
+	 * @param path
+	 *            Path of the index file.
+	 * @param csr
+	 *            The snapshot the index was built for.
+	 * @return The index.
+	 * @throws IOException
+	 *             if an I/O exception occurs, the file isn't an index file or
+	 *             was built for another snapshot
+	 */
+	public static GkaContractionHierarchy load(Path path, GkaCsr csr) throws IOException {
+		try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+			long size = channel.size();
+			if (size > Integer.MAX_VALUE) {
+				throw new IOException("Index file too large for a single mapping: " + size + " bytes.");
+			}
+			return read(channel.map(FileChannel.MapMode.READ_ONLY, 0, size), csr);
+		}
+	}
+
+	private static GkaContractionHierarchy read(ByteBuffer buffer, GkaCsr csr) throws IOException {
+		try {
+			// header
+			for (byte b : MAGIC) {
+				if (buffer.get() != b) {
+					throw new IOException("Not a GKA contraction hierarchy file.");
+				}
+			}
+			int version = buffer.get() & 0xFF;
+			if (version != VERSION) {
+				throw new IOException("Unsupported GKA contraction hierarchy version: " + version);
+			}
+			buffer.get();
+			int nodeNr = buffer.getInt();
+			int arcNr = buffer.getInt();
+			long hash = buffer.getLong();
+			if (nodeNr != csr.getNodeCount() || arcNr != csr.getArcCount() || hash != csr.getContentHash()) {
+				throw new IOException("Contraction hierarchy file doesn't match graph.");
+			}
+			if ((long) nodeNr > buffer.remaining() / 4) {
+				throw new IOException("Truncated GKA contraction hierarchy file.");
+			}
+
+			IntBuffer ints = buffer.asIntBuffer();
+			int[] ranks = new int[nodeNr];
+			ints.get(ranks);
+			boolean[] seen = new boolean[nodeNr];
+			for (int rank : ranks) {
+				if (rank < 0 || rank >= nodeNr || seen[rank]) {
+					throw new IOException("Invalid rank in GKA contraction hierarchy file.");
+				}
+				seen[rank] = true;
+			}
+
+			int[][] up = readCsr(ints, nodeNr);
+			int[][] down = readCsr(ints, nodeNr);
+			return new GkaContractionHierarchy(arcNr, hash, ranks, up[0], up[1], up[2], up[3], down[0], down[1],
+					down[2], down[3]);
+		} catch (BufferUnderflowException e) {
+			throw new IOException("Truncated GKA contraction hierarchy file.", e);
+		}
+	}
+
+	/**
+	 * Read offsets, nodes, weights and contracted nodes of one CSR.
+	 */
+	private static int[][] readCsr(IntBuffer ints, int nodeNr) throws IOException {
+		int arcNr = ints.get();
+		if (arcNr < 0 || (long) arcNr * 3 + nodeNr + 1 > ints.remaining()) {
+			throw new IOException("Invalid number of arcs in GKA contraction hierarchy file.");
+		}
+		int[] offsets = new int[nodeNr + 1];
+		int[] nodes = new int[arcNr];
+		int[] weights = new int[arcNr];
+		int[] middles = new int[arcNr];
+		ints.get(offsets);
+		ints.get(nodes);
+		ints.get(weights);
+		ints.get(middles);
+
+		if (offsets[0] != 0 || offsets[nodeNr] != arcNr) {
+			throw new IOException("Invalid offsets in GKA contraction hierarchy file.");
+		}
+		for (int n = 0; n < nodeNr; n++) {
+			if (offsets[n] > offsets[n + 1]) {
+				throw new IOException("Invalid offsets in GKA contraction hierarchy file.");
+			}
+		}
+		for (int arc = 0; arc < arcNr; arc++) {
+			if (nodes[arc] < 0 || nodes[arc] >= nodeNr || middles[arc] < -1 || middles[arc] >= nodeNr) {
+				throw new IOException("Invalid arc in GKA contraction hierarchy file.");
+			}
+		}
+		return new int[][] { offsets, nodes, weights, middles };
+	}
+
+	/**
+	 * Save the index.
+	 *
+	 * @param path
+	 *            Path of the index file.
+	 * @throws IOException
+	 *             if an I/O exception occurs
+	 */
+	public void save(Path path) throws IOException {
+		try (OutputStream out = Files.newOutputStream(path)) {
+			DataOutputStream dos = new DataOutputStream(new BufferedOutputStream(out, BUFFER_SIZE));
+
+			// header
+			dos.write(MAGIC);
+			dos.write(VERSION);
+			dos.write(0);
+			dos.writeInt(ranks.length);
+			dos.writeInt(arcCount);
+			dos.writeLong(csrHash);
+
+			writeInts(dos, ranks);
+			dos.writeInt(upTargets.length);
+			writeInts(dos, upOffsets);
+			writeInts(dos, upTargets);
+			writeInts(dos, upWeights);
+			writeInts(dos, upMiddles);
+			dos.writeInt(downSources.length);
+			writeInts(dos, downOffsets);
+			writeInts(dos, downSources);
+			writeInts(dos, downWeights);
+			writeInts(dos, downMiddles);
+			dos.flush();
+		}
+	}
+
+	private static void writeInts(DataOutputStream dos, int[] values) throws IOException {
+		for (int value : values) {
+			dos.writeInt(value);
+		}
+	}
+
+	/**
+	 * Get the number of nodes.
+	 *
+	 * @return Number of nodes.
+	 */
+	public int getNodeCount() {
+		return ranks.length;
+	}
+
+	/**
+	 * Get the position of a node in the contraction order.
+	 *
+	 * @param nodeIndex
+	 *            Index of the node.
+	 * @return Rank of the node, from 0 for the first contracted node.
+	 */
+	public int getRank(int nodeIndex) {
+		return ranks[nodeIndex];
+	}
+
+	/**
+	 * Get the number of upward and downward arcs, shortcuts included.
+	 *
+	 * @return Number of arcs of the index.
+	 */
+	public int getArcCount() {
+		return upTargets.length + downSources.length;
+	}
+
+	/**
+	 * Get the number of shortcuts.
+	 *
+	 * @return Number of arcs that stand for a path of several arcs.
+	 */
+	public int getShortcutCount() {
+		int shortcutNr = 0;
+		for (int middle : upMiddles) {
+			shortcutNr += middle >= 0 ? 1 : 0;
+		}
+		for (int middle : downMiddles) {
+			shortcutNr += middle >= 0 ? 1 : 0;
+		}
+		return shortcutNr;
+	}
+
+	/**
+	 * Get the upward arc from u to w.
+	 *
+	 * @return Index of the arc in the upward CSR, -1 if there is none.
+	 */
+	int findUpArc(int u, int w) {
+		for (int arc = upOffsets[u]; arc < upOffsets[u + 1]; arc++) {
+			if (upTargets[arc] == w) {
+				return arc;
+			}
+		}
+		return -1;
+	}
+
+	/**
+	 * Get the downward arc from u to w.
+	 *
+	 * @return Index of the arc in the downward CSR, -1 if there is none.
+	 */
+	int findDownArc(int u, int w) {
+		for (int arc = downOffsets[w]; arc < downOffsets[w + 1]; arc++) {
+			if (downSources[arc] == u) {
+				return arc;
+			}
+		}
+		return -1;
+	}
+
+	/**
+	 * Get the contracted node of the arc from u to w.
+	 *
+	 * @return The contracted node, -1 for an original arc.
+	 */
+	int getMiddle(int u, int w) {
+		return ranks[u] < ranks[w] ? upMiddles[findUpArc(u, w)] : downMiddles[findDownArc(u, w)];
+	}
+
+	/**
+	 * State of one preprocessing run.
+	 */
+	private static final class Builder {
+		private static final byte ACTIVE = 0;
+		private static final byte IN_ROUND = 1;
+		private static final byte CONTRACTED = 2;
+
+		private final ForkJoinPool pool;
+		private final int nodeNr;
+		private final int arcNr;
+		private final long csrHash;
+
+		// remaining graph, arcs are (node, weight, middle) triples
+		private final int[][] outArcs;
+		private final int[][] inArcs;
+		private final int[] outSizes;
+		private final int[] inSizes;
+
+		private final byte[] states;
+		private final int[] priorities;
+		private final int[] contractedNeighbours;
+		// last contracted neighbour counted for each node
+		private final int[] lastContracted;
+		private final int[] ranks;
+		private final ThreadLocal<Witness> witnesses;
+
+		Builder(GkaCsr csr, ForkJoinPool pool) {
+			this.pool = pool;
+			this.nodeNr = csr.getNodeCount();
+			this.arcNr = csr.getArcCount();
+			this.csrHash = csr.getContentHash();
+			this.outArcs = new int[nodeNr][];
+			this.inArcs = new int[nodeNr][];
+			this.outSizes = new int[nodeNr];
+			this.inSizes = new int[nodeNr];
+			this.states = new byte[nodeNr];
+			this.priorities = new int[nodeNr];
+			this.contractedNeighbours = new int[nodeNr];
+			this.lastContracted = new int[nodeNr];
+			Arrays.fill(lastContracted, -1);
+			this.ranks = new int[nodeNr];
+			this.witnesses = ThreadLocal.withInitial(() -> new Witness(nodeNr));
+
+			int[] offsets = csr.getOffsets();
+			int[] targets = csr.getTargets();
+			int[] weights = csr.getWeights();
+			for (int n = 0; n < nodeNr; n++) {
+				outArcs[n] = new int[3 * Math.max(1, offsets[n + 1] - offsets[n])];
+				inArcs[n] = new int[3];
+			}
+			for (int u = 0; u < nodeNr; u++) {
+				for (int arc = offsets[u]; arc < offsets[u + 1]; arc++) {
+					// loops are never on a shortest path
+					if (targets[arc] != u) {
+						addArc(u, targets[arc], weights[arc], -1);
+					}
+				}
+			}
+		}
+
+		GkaContractionHierarchy run() {
+			int[] remaining = new int[nodeNr];
+			for (int n = 0; n < nodeNr; n++) {
+				remaining[n] = n;
+			}
+			int remainingNr = nodeNr;
+			int nextRank = 0;
+			forEach(remaining, nodeNr, v -> priorities[v] = priority(v));
+
+			int[] selected = new int[nodeNr];
+			int[][] shortcuts = new int[nodeNr][];
+			int[] touched = new int[nodeNr];
+			boolean[] isTouched = new boolean[nodeNr];
+
+			while (remainingNr > 0) {
+				// nodes less important than all remaining neighbours
+				int selectedNr = 0;
+				for (int i = 0; i < remainingNr; i++) {
+					int v = remaining[i];
+					if (isLocalMinimum(v)) {
+						selected[selectedNr++] = v;
+					}
+				}
+				for (int i = 0; i < selectedNr; i++) {
+					states[selected[i]] = IN_ROUND;
+				}
+
+				// shortcuts of the round
+				int[] round = Arrays.copyOf(selected, selectedNr);
+				forEachIndex(selectedNr,
+						i -> shortcuts[i] = witnesses.get().shortcuts(this, round[i], WITNESS_SETTLE_LIMIT));
+
+				// apply the round
+				int touchedNr = 0;
+				for (int i = 0; i < selectedNr; i++) {
+					int v = round[i];
+					states[v] = CONTRACTED;
+					ranks[v] = nextRank++;
+					int[] found = shortcuts[i];
+					for (int j = 0; j < found.length; j += 3) {
+						addArc(found[j], found[j + 1], found[j + 2], v);
+					}
+					shortcuts[i] = null;
+
+					touchedNr = collectActive(v, outArcs[v], outSizes[v], touched, touchedNr, isTouched);
+					touchedNr = collectActive(v, inArcs[v], inSizes[v], touched, touchedNr, isTouched);
+				}
+				for (int i = 0; i < touchedNr; i++) {
+					int n = touched[i];
+					isTouched[n] = false;
+
+					// the contracted nodes keep their arcs to n for the index
+					outSizes[n] = removeContracted(outArcs[n], outSizes[n]);
+					inSizes[n] = removeContracted(inArcs[n], inSizes[n]);
+				}
+
+				// neighbours of the round changed their priority
+				forEach(touched, touchedNr, v -> priorities[v] = priority(v));
+
+				int kept = 0;
+				for (int i = 0; i < remainingNr; i++) {
+					if (states[remaining[i]] == ACTIVE) {
+						remaining[kept++] = remaining[i];
+					}
+				}
+				remainingNr = kept;
+			}
+
+			return toIndex();
+		}
+
+		/**
+		 * Drop the arcs to contracted nodes from an arc list.
+		 *
+		 * @return New size of the list.
+		 */
+		private int removeContracted(int[] arcs, int size) {
+			int kept = 0;
+			for (int j = 0; j < size; j += 3) {
+				if (states[arcs[j]] != CONTRACTED) {
+					arcs[kept] = arcs[j];
+					arcs[kept + 1] = arcs[j + 1];
+					arcs[kept + 2] = arcs[j + 2];
+					kept += 3;
+				}
+			}
+			return kept;
+		}
+
+		/**
+		 * Count v as contracted neighbour of the active nodes of one of its arc
+		 * lists and append those that aren't marked yet.
+		 *
+		 * @return New number of collected nodes.
+		 */
+		private int collectActive(int v, int[] arcs, int size, int[] out, int outNr, boolean[] isMarked) {
+			for (int j = 0; j < size; j += 3) {
+				int n = arcs[j];
+				if (states[n] != ACTIVE) {
+					continue;
+				}
+				if (lastContracted[n] != v) {
+					lastContracted[n] = v;
+					contractedNeighbours[n]++;
+				}
+				if (!isMarked[n]) {
+					isMarked[n] = true;
+					out[outNr++] = n;
+				}
+			}
+			return outNr;
+		}
+
+		/**
+		 * Check if a node is less important than its remaining neighbours, ties are
+		 * broken by the node index.
+		 */
+		private boolean isLocalMinimum(int v) {
+			long key = ((long) priorities[v] << 32) | v;
+			for (int side = 0; side < 2; side++) {
+				int[] arcs = side == 0 ? outArcs[v] : inArcs[v];
+				int size = side == 0 ? outSizes[v] : inSizes[v];
+				for (int j = 0; j < size; j += 3) {
+					int n = arcs[j];
+					if (states[n] != CONTRACTED && ((long) priorities[n] << 32 | n) < key) {
+						return false;
+					}
+				}
+			}
+			return true;
+		}
+
+		/**
+		 * Edge difference plus contracted neighbours of a node.
+		 */
+		private int priority(int v) {
+			int shortcutNr = witnesses.get().shortcuts(this, v, PRIORITY_SETTLE_LIMIT).length / 3;
+			int removedNr = 0;
+			for (int j = 0; j < outSizes[v]; j += 3) {
+				removedNr += states[outArcs[v][j]] == ACTIVE ? 1 : 0;
+			}
+			for (int j = 0; j < inSizes[v]; j += 3) {
+				removedNr += states[inArcs[v][j]] == ACTIVE ? 1 : 0;
+			}
+			return shortcutNr - removedNr + contractedNeighbours[v];
+		}
+
+		/**
+		 * Add an arc u -> w or lower the weight of the existing one.
+		 */
+		private void addArc(int u, int w, int weight, int middle) {
+			int j = find(outArcs[u], outSizes[u], w);
+			if (j >= 0) {
+				if (weight < outArcs[u][j + 1]) {
+					outArcs[u][j + 1] = weight;
+					outArcs[u][j + 2] = middle;
+					int k = find(inArcs[w], inSizes[w], u);
+					inArcs[w][k + 1] = weight;
+					inArcs[w][k + 2] = middle;
+				}
+				return;
+			}
+			outArcs[u] = append(outArcs[u], outSizes[u], w, weight, middle);
+			outSizes[u] += 3;
+			inArcs[w] = append(inArcs[w], inSizes[w], u, weight, middle);
+			inSizes[w] += 3;
+		}
+
+		private static int find(int[] arcs, int size, int n) {
+			for (int j = 0; j < size; j += 3) {
+				if (arcs[j] == n) {
+					return j;
+				}
+			}
+			return -1;
+		}
+
+		private static int[] append(int[] arcs, int size, int n, int weight, int middle) {
+			if (size + 3 > arcs.length) {
+				arcs = Arrays.copyOf(arcs, Math.max(size + 3, arcs.length * 2));
+			}
+			arcs[size] = n;
+			arcs[size + 1] = weight;
+			arcs[size + 2] = middle;
+			return arcs;
+		}
+
+		/**
+		 * Split the arcs of the remaining graph into the upward and downward CSR.
+		 */
+		private GkaContractionHierarchy toIndex() {
+			// each arc is read at its lower ranked node, whose lists were frozen
+			int[] upOffsets = new int[nodeNr + 1];
+			int[] downOffsets = new int[nodeNr + 1];
+			for (int v = 0; v < nodeNr; v++) {
+				upOffsets[v + 1] = upOffsets[v] + countHigher(v, outArcs[v], outSizes[v]);
+				downOffsets[v + 1] = downOffsets[v] + countHigher(v, inArcs[v], inSizes[v]);
+			}
+
+			int[] upTargets = new int[upOffsets[nodeNr]];
+			int[] upWeights = new int[upTargets.length];
+			int[] upMiddles = new int[upTargets.length];
+			int[] downSources = new int[downOffsets[nodeNr]];
+			int[] downWeights = new int[downSources.length];
+			int[] downMiddles = new int[downSources.length];
+			for (int v = 0; v < nodeNr; v++) {
+				copyHigher(v, outArcs[v], outSizes[v], upOffsets[v], upTargets, upWeights, upMiddles);
+				copyHigher(v, inArcs[v], inSizes[v], downOffsets[v], downSources, downWeights, downMiddles);
+			}
+
+			return new GkaContractionHierarchy(arcNr, csrHash, ranks, upOffsets, upTargets, upWeights, upMiddles,
+					downOffsets, downSources, downWeights, downMiddles);
+		}
+
+		private int countHigher(int v, int[] arcs, int size) {
+			int count = 0;
+			for (int j = 0; j < size; j += 3) {
+				count += ranks[arcs[j]] > ranks[v] ? 1 : 0;
+			}
+			return count;
+		}
+
+		private void copyHigher(int v, int[] arcs, int size, int arc, int[] nodes, int[] weights, int[] middles) {
+			for (int j = 0; j < size; j += 3) {
+				if (ranks[arcs[j]] > ranks[v]) {
+					nodes[arc] = arcs[j];
+					weights[arc] = arcs[j + 1];
+					middles[arc] = arcs[j + 2];
+					arc++;
+				}
+			}
+		}
+
+		private void forEach(int[] nodes, int count, IntConsumer action) {
+			forEachIndex(count, i -> action.accept(nodes[i]));
+		}
+
+		private void forEachIndex(int count, IntConsumer action) {
+			pool.invoke(new RangeTask(0, count, action));
+		}
+	}
+
+	/**
+	 * Fork-join task over a range of indices.
+	 */
+	private static final class RangeTask extends RecursiveAction {
+		private static final long serialVersionUID = 1L;
+		private final int from;
+		private final int to;
+		private final IntConsumer action;
+
+		RangeTask(int from, int to, IntConsumer action) {
+			this.from = from;
+			this.to = to;
+			this.action = action;
+		}
+
+		@Override
+		protected void compute() {
+			if (to - from <= MIN_TASK_SIZE) {
+				for (int i = from; i < to; i++) {
+					action.accept(i);
+				}
+				return;
+			}
+			int mid = (from + to) >>> 1;
+			invokeAll(new RangeTask(from, mid, action), new RangeTask(mid, to, action));
+		}
+	}
+
+	/**
+	 * Witness searches of one thread.
+	 */
+	private static final class Witness {
+		private final GkaIndexedHeap heap;
+		private final long[] dists;
+		// whether the shortest path found passes a node of the round
+		private final boolean[] viaRound;
+		private final int[] stamps;
+		private int stamp;
+
+		Witness(int nodeNr) {
+			this.heap = new GkaIndexedHeap(nodeNr);
+			this.dists = new long[nodeNr];
+			this.viaRound = new boolean[nodeNr];
+			this.stamps = new int[nodeNr];
+		}
+
+		/**
+		 * Find the shortcuts needed to contract a node.
+		 *
+		 * @param settleLimit
+		 *            Nodes a witness search settles before it gives up.
+		 * @return (u, w, weight) triples of the shortcuts.
+		 */
+		int[] shortcuts(Builder graph, int v, int settleLimit) {
+			int[] out = new int[0];
+			int outSize = 0;
+			int[] inArcs = graph.inArcs[v];
+			int[] outArcs = graph.outArcs[v];
+
+			// greatest weight out of v
+			long maxOut = -1;
+			for (int j = 0; j < graph.outSizes[v]; j += 3) {
+				if (graph.states[outArcs[j]] == Builder.ACTIVE) {
+					maxOut = Math.max(maxOut, outArcs[j + 1]);
+				}
+			}
+			if (maxOut < 0) {
+				return out;
+			}
+
+			for (int i = 0; i < graph.inSizes[v]; i += 3) {
+				int u = inArcs[i];
+				if (graph.states[u] != Builder.ACTIVE) {
+					continue;
+				}
+				long inWeight = inArcs[i + 1];
+				search(graph, u, v, inWeight + maxOut, settleLimit);
+
+				for (int j = 0; j < graph.outSizes[v]; j += 3) {
+					int w = outArcs[j];
+					if (w == u || graph.states[w] != Builder.ACTIVE) {
+						continue;
+					}
+					long viaWeight = inWeight + outArcs[j + 1];
+					boolean hasWitness = stamps[w] == stamp
+							&& (dists[w] < viaWeight || dists[w] == viaWeight && !viaRound[w]);
+					if (!hasWitness) {
+						if (viaWeight > Integer.MAX_VALUE) {
+							throw new IllegalArgumentException("Shortcut weight too large.");
+						}
+						if (outSize + 3 > out.length) {
+							out = Arrays.copyOf(out, Math.max(6, out.length * 2));
+						}
+						out[outSize++] = u;
+						out[outSize++] = w;
+						out[outSize++] = (int) viaWeight;
+					}
+				}
+			}
+			return Arrays.copyOf(out, outSize);
+		}
+
+		/**
+		 * Dijkstra from u that avoids v and stops at a cost or after a number of
+		 * settled nodes. Of equal paths the one without round nodes is preferred.
+		 */
+		private void search(Builder graph, int u, int v, long maxCost, int settleLimit) {
+			heap.clear();
+			if (++stamp == 0) {
+				Arrays.fill(stamps, 0);
+				stamp = 1;
+			}
+			stamps[u] = stamp;
+			dists[u] = 0;
+			viaRound[u] = false;
+			heap.insert(u, 0);
+
+			for (int settled = 0; !heap.isEmpty() && settled < settleLimit; settled++) {
+				int curr = heap.poll();
+				long dist = dists[curr];
+				if (dist > maxCost) {
+					return;
+				}
+				int[] arcs = graph.outArcs[curr];
+				for (int j = 0; j < graph.outSizes[curr]; j += 3) {
+					int n = arcs[j];
+					byte state = graph.states[n];
+					if (n == v || state == Builder.CONTRACTED) {
+						continue;
+					}
+					long nDist = dist + arcs[j + 1];
+					boolean nViaRound = viaRound[curr] || state == Builder.IN_ROUND;
+					if (stamps[n] != stamp) {
+						stamps[n] = stamp;
+						dists[n] = nDist;
+						viaRound[n] = nViaRound;
+						heap.insert(n, nDist);
+					} else if (nDist < dists[n] && heap.contains(n)) {
+						dists[n] = nDist;
+						viaRound[n] = nViaRound;
+						heap.decreaseKey(n, nDist);
+					} else if (nDist == dists[n] && viaRound[n] && !nViaRound && heap.contains(n)) {
+						viaRound[n] = false;
+					}
+				}
+			}
+		}
+	}
+}
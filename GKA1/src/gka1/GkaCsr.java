@@ -0,0 +1,414 @@
+package gka1;
+
+import java.util.HashMap;
+
+import org.graphstream.graph.Edge;
+import org.graphstream.graph.Node;
+
+/**
+ * Immutable compressed sparse row (CSR) snapshot of a graph. Nodes are
+ * identified by dense indices from 0 to (nodeCount - 1), the outgoing arcs of
+ * node u are stored at positions offsets[u] (inclusive) to offsets[u + 1]
+ * (exclusive) of the arc arrays. A directed edge becomes one arc, an undirected
+ * edge becomes one arc in each direction (a loop only one).<br>
+ * The arrays returned by the getters are the internal ones and must not be
+ * modified.
+ *
+ * @author Huy Tran PC
+ *
+ */
+public final class GkaCsr {
+	/**
+	 * Weight of an arc whose edge has no weight attribute.
+	 */
+	public static final int DEFAULT_WEIGHT = 1;
+
+	private final String[] nodeNames;
+	private final int[] offsets;
+	private final int[] targets;
+	private final int[] weights;
+	private final int[] edgeIndices;
+	private final int edgeCount;
+	private final int minWeight;
+	private final int maxWeight;
+
+	// hash map with node names as keys and node indices as values, built on demand
+	private volatile HashMap<String, Integer> nodeNameToIndexMap;
+
+	// snapshot with reversed arcs, built on demand
+	private volatile GkaCsr transposed;
+	// hash of the arcs, computed on first use
+	private volatile Long contentHash;
+
+	/**
+	 * Constructor for a GkaCsr. The arrays are taken over without copying.
+	 *
+	 * @param nodeNames
+	 *            Name of each node.
+	 * @param offsets
+	 *            Start of the arcs of each node, length is nodeCount + 1.
+	 * @param targets
+	 *            Target node of each arc.
+	 * @param weights
+	 *            Weight of each arc.
+	 * @param edgeIndices
+	 *            Index of the edge each arc was created from.
+	 * @param edgeCount
+	 *            Number of edges the arcs were created from.
+	 */
+	GkaCsr(String[] nodeNames, int[] offsets, int[] targets, int[] weights, int[] edgeIndices, int edgeCount) {
+		this.nodeNames = nodeNames;
+		this.offsets = offsets;
+		this.targets = targets;
+		this.weights = weights;
+		this.edgeIndices = edgeIndices;
+		this.edgeCount = edgeCount;
+
+		// weight range, 0 for a snapshot without arcs
+		int min = weights.length == 0 ? 0 : Integer.MAX_VALUE;
+		int max = weights.length == 0 ? 0 : Integer.MIN_VALUE;
+		for (int w : weights) {
+			min = Math.min(min, w);
+			max = Math.max(max, w);
+		}
+		this.minWeight = min;
+		this.maxWeight = max;
+	}
+
+	/**
+	 * Freeze a graph into a CSR snapshot. Node indices are the indices of the
+	 * nodes in the graph, arcs of a node keep the order of the edges in the graph.
+	 * Later changes of the graph are not reflected by the snapshot.
+	 *
+	 * @param graph
+	 *            The graph to work with.
+	 * @return A CSR snapshot of the graph.
+	 */
+	public static GkaCsr of(GkaGraph graph) {
+		int nodeNr = graph.getNodeCount();
+		int edgeNr = graph.getEdgeCount();
+
+		// collect node names
+		String[] nodeNames = new String[nodeNr];
+		for (Node node : graph) {
+			Object name = node.getAttribute("name");
+			nodeNames[node.getIndex()] = name != null ? name.toString() : node.getId();
+		}
+
+		// collect the end points of all edges and count the arcs of each node
+		int[] edgeSources = new int[edgeNr];
+		int[] edgeTargets = new int[edgeNr];
+		int[] edgeWeights = new int[edgeNr];
+		boolean[] edgeDirected = new boolean[edgeNr];
+		int[] offsets = new int[nodeNr + 1];
+
+		for (int e = 0; e < edgeNr; e++) {
+			Edge edge = graph.getEdge(e);
+			int u = edge.getNode0().getIndex();
+			int v = edge.getNode1().getIndex();
+			edgeSources[e] = u;
+			edgeTargets[e] = v;
+			edgeWeights[e] = weightOf(edge);
+			edgeDirected[e] = edge.isDirected();
+
+			offsets[u + 1]++;
+			if (!edgeDirected[e] && u != v) {
+				offsets[v + 1]++;
+			}
+		}
+
+		return build(nodeNames, offsets, edgeNr, edgeSources, edgeTargets, edgeDirected, edgeWeights);
+	}
+
+	/**
+	 * Fill the arc arrays from edge columns whose arc counts per node are already
+	 * stored in offsets[u + 1].
+	 */
+	static GkaCsr build(String[] nodeNames, int[] offsets, int edgeNr, int[] edgeSources, int[] edgeTargets,
+			boolean[] edgeDirected, int[] edgeWeights) {
+		int nodeNr = nodeNames.length;
+
+		// turn the counts into start positions
+		for (int u = 0; u < nodeNr; u++) {
+			offsets[u + 1] += offsets[u];
+		}
+
+		int arcNr = offsets[nodeNr];
+		int[] targets = new int[arcNr];
+		int[] weights = new int[arcNr];
+		int[] edgeIndices = new int[arcNr];
+		int[] next = new int[nodeNr];
+		System.arraycopy(offsets, 0, next, 0, nodeNr);
+
+		for (int e = 0; e < edgeNr; e++) {
+			int u = edgeSources[e];
+			int v = edgeTargets[e];
+
+			int arc = next[u]++;
+			targets[arc] = v;
+			weights[arc] = edgeWeights[e];
+			edgeIndices[arc] = e;
+
+			if (!edgeDirected[e] && u != v) {
+				arc = next[v]++;
+				targets[arc] = u;
+				weights[arc] = edgeWeights[e];
+				edgeIndices[arc] = e;
+			}
+		}
+
+		GkaCsr csr = new GkaCsr(nodeNames, offsets, targets, weights, edgeIndices, edgeNr);
+
+		// arcs of undirected edges come in pairs, so the reversed arcs are the same
+		boolean hasDirectedEdge = false;
+		for (int e = 0; e < edgeNr && !hasDirectedEdge; e++) {
+			hasDirectedEdge = edgeDirected[e];
+		}
+		if (!hasDirectedEdge) {
+			csr.transposed = csr;
+		}
+		return csr;
+	}
+
+	/**
+	 * Get the snapshot with all arcs reversed, i.e. the arcs of node v are its
+	 * incoming arcs. Node indices, weights and edge indices stay the same. The
+	 * result is built on first use and cached, a snapshot of undirected edges
+	 * only is its own transpose.
+	 *
+	 * @return The transposed snapshot.
+	 */
+	public GkaCsr transpose() {
+		GkaCsr t = transposed;
+		if (t == null) {
+			int nodeNr = nodeNames.length;
+			int arcNr = targets.length;
+
+			// count the incoming arcs of each node
+			int[] tOffsets = new int[nodeNr + 1];
+			for (int arc = 0; arc < arcNr; arc++) {
+				tOffsets[targets[arc] + 1]++;
+			}
+			for (int v = 0; v < nodeNr; v++) {
+				tOffsets[v + 1] += tOffsets[v];
+			}
+
+			int[] tTargets = new int[arcNr];
+			int[] tWeights = new int[arcNr];
+			int[] tEdgeIndices = new int[arcNr];
+			int[] next = new int[nodeNr];
+			System.arraycopy(tOffsets, 0, next, 0, nodeNr);
+
+			for (int u = 0; u < nodeNr; u++) {
+				for (int arc = offsets[u]; arc < offsets[u + 1]; arc++) {
+					int tArc = next[targets[arc]]++;
+					tTargets[tArc] = u;
+					tWeights[tArc] = weights[arc];
+					tEdgeIndices[tArc] = edgeIndices[arc];
+				}
+			}
+
+			t = new GkaCsr(nodeNames, tOffsets, tTargets, tWeights, tEdgeIndices, edgeCount);
+			t.transposed = this;
+			transposed = t;
+		}
+		return t;
+	}
+
+	/**
+	 * Get the weight of an edge as a primitive.
+	 *
+	 * @param edge
+	 *            An edge.
+	 * @return The weight of the edge or {@link #DEFAULT_WEIGHT} if it has none.
+	 */
+	static int weightOf(Edge edge) {
+		Object weight = edge.getAttribute("weight");
+		if (weight == null) {
+			return DEFAULT_WEIGHT;
+		}
+		if (weight instanceof Number) {
+			return ((Number) weight).intValue();
+		}
+		return Integer.parseInt(weight.toString());
+	}
+
+	/**
+	 * Get the number of nodes.
+	 *
+	 * @return Number of nodes.
+	 */
+	public int getNodeCount() {
+		return nodeNames.length;
+	}
+
+	/**
+	 * Get the number of edges the snapshot was created from.
+	 *
+	 * @return Number of edges.
+	 */
+	public int getEdgeCount() {
+		return edgeCount;
+	}
+
+	/**
+	 * Get the number of arcs.
+	 *
+	 * @return Number of arcs.
+	 */
+	public int getArcCount() {
+		return targets.length;
+	}
+
+	/**
+	 * Get the start of the arcs of each node, length is nodeCount + 1.
+	 *
+	 * @return Offsets array.
+	 */
+	public int[] getOffsets() {
+		return offsets;
+	}
+
+	/**
+	 * Get the target node of each arc.
+	 *
+	 * @return Targets array.
+	 */
+	public int[] getTargets() {
+		return targets;
+	}
+
+	/**
+	 * Get the weight of each arc.
+	 *
+	 * @return Weights array.
+	 */
+	public int[] getWeights() {
+		return weights;
+	}
+
+	/**
+	 * Get the smallest arc weight.
+	 *
+	 * @return Smallest weight, 0 if there are no arcs.
+	 */
+	public int getMinWeight() {
+		return minWeight;
+	}
+
+	/**
+	 * Get the greatest arc weight.
+	 *
+	 * @return Greatest weight, 0 if there are no arcs.
+	 */
+	public int getMaxWeight() {
+		return maxWeight;
+	}
+
+	/**
+	 * Get a 64-bit hash of the offsets, targets and weights, e.g. to tell whether
+	 * an index saved for a snapshot still belongs to it. Node names and edge
+	 * indices aren't part of it.
+	 *
+	 * @return Hash of the arcs.
+	 */
+	public long getContentHash() {
+		Long hash = contentHash;
+		if (hash == null) {
+			long h = mix(offsets.length) ^ mix(targets.length + 1L);
+			for (int offset : offsets) {
+				h = step(h, offset);
+			}
+			for (int target : targets) {
+				h = step(h, target);
+			}
+			for (int weight : weights) {
+				h = step(h, weight);
+			}
+			hash = mix(h);
+			contentHash = hash;
+		}
+		return hash;
+	}
+
+	private static long step(long h, int value) {
+		h = (h ^ (value & 0xFFFFFFFFL)) * 0x9E3779B97F4A7C15L;
+		return h ^ (h >>> 29);
+	}
+
+	/**
+	 * Finalizer of SplitMix64.
+	 */
+	private static long mix(long h) {
+		h = (h ^ (h >>> 30)) * 0xBF58476D1CE4E5B9L;
+		h = (h ^ (h >>> 27)) * 0x94D049BB133111EBL;
+		return h ^ (h >>> 31);
+	}
+
+	/**
+	 * Get the index of the edge each arc was created from.
+	 *
+	 * @return Edge indices array.
+	 */
+	public int[] getEdgeIndices() {
+		return edgeIndices;
+	}
+
+	/**
+	 * Get the number of outgoing arcs of a node.
+	 *
+	 * @param nodeIndex
+	 *            Index of the node.
+	 * @return Out degree of the node.
+	 */
+	public int getOutDegree(int nodeIndex) {
+		return offsets[nodeIndex + 1] - offsets[nodeIndex];
+	}
+
+	/**
+	 * Get the name of a node.
+	 *
+	 * @param nodeIndex
+	 *            Index of the node.
+	 * @return Name of the node.
+	 */
+	public String getNodeName(int nodeIndex) {
+		return nodeNames[nodeIndex];
+	}
+
+	/**
+	 * Get the index of a node by its name.
+	 *
+	 * @param nodeName
+	 *            Name of the node.
+	 * @return Index of the node or -1 if there is no node with that name.
+	 */
+	public int getNodeIndex(String nodeName) {
+		HashMap<String, Integer> map = nodeNameToIndexMap;
+		if (map == null) {
+			map = new HashMap<>(nodeNames.length * 2);
+			for (int i = 0; i < nodeNames.length; i++) {
+				map.putIfAbsent(nodeNames[i], i);
+			}
+			nodeNameToIndexMap = map;
+		}
+
+		Integer index = map.get(nodeName);
+		return index != null ? index : -1;
+	}
+
+	/**
+	 * Get the index of a node by its name and fail if it doesn't exist.
+	 *
+	 * @param nodeName
+	 *            Name of the node.
+	 * @return Index of the node.
+	 */
+	int requireNodeIndex(String nodeName) {
+		int index = getNodeIndex(nodeName);
+		if (index < 0) {
+			throw new IllegalArgumentException("Node not found in graph.");
+		}
+		return index;
+	}
+}
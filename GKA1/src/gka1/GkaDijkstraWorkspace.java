@@ -0,0 +1,217 @@
+package gka1;
+
+import java.util.Arrays;
+
+/**
+ * Reusable state of Dijkstra searches on graphs with up to a given number of
+ * nodes: the distance and previous node of each node and an indexed heap. All
+ * arrays are allocated once. A node belongs to the last search only if its
+ * stamp equals the stamp of that search, so a new search starts in O(1)
+ * instead of refilling O(nodeCount) entries. The end nodes a search stops at
+ * are stamped the same way. The bucket queue and the end stamps are only
+ * allocated by the first search that uses them, after that searches allocate
+ * nothing.<br>
+ * A workspace holds the result of its last search until the next one starts.
+ * It must not be used by several threads at once.
+ *
+ * @author Huy Tran PC
+ *
+ */
+public final class GkaDijkstraWorkspace {
+	private final int nodeCount;
+	final double[] dists;
+	final int[] prevNodes;
+	final GkaIndexedHeap heap;
+	private GkaBucketQueue buckets;
+	private final int[] stamps;
+	private int stamp;
+	// end nodes of the current search and how many aren't settled yet
+	private int[] targetStamps;
+	int targetsLeft;
+	int settledCount;
+
+	/**
+	 * Constructor for a GkaDijkstraWorkspace.
+	 *
+	 * @param nodeCount
+	 *            Maximum number of nodes of the searched graphs.
+	 */
+	public GkaDijkstraWorkspace(int nodeCount) {
+		this.nodeCount = nodeCount;
+		this.dists = new double[nodeCount];
+		this.prevNodes = new int[nodeCount];
+		this.heap = new GkaIndexedHeap(nodeCount);
+		this.stamps = new int[nodeCount];
+	}
+
+	/**
+	 * Get the number of nodes the workspace was created for.
+	 *
+	 * @return Maximum number of nodes.
+	 */
+	public int getNodeCount() {
+		return nodeCount;
+	}
+
+	/**
+	 * Forget the last search.
+	 */
+	void reset() {
+		heap.clear();
+		settledCount = 0;
+		targetsLeft = 0;
+
+		// clear the stamps once they wrap around
+		if (++stamp == 0) {
+			Arrays.fill(stamps, 0);
+			if (targetStamps != null) {
+				Arrays.fill(targetStamps, 0);
+			}
+			stamp = 1;
+		}
+	}
+
+	/**
+	 * Add an end node to the current search, it stops once all are settled.
+	 */
+	void addTarget(int nodeIndex) {
+		if (targetStamps == null) {
+			targetStamps = new int[nodeCount];
+		}
+		if (targetStamps[nodeIndex] != stamp) {
+			targetStamps[nodeIndex] = stamp;
+			targetsLeft++;
+		}
+	}
+
+	/**
+	 * Count a settled node against the end nodes of the current search.
+	 *
+	 * @return Whether it was the last end node to settle.
+	 */
+	boolean settleTarget(int nodeIndex) {
+		return targetStamps != null && targetStamps[nodeIndex] == stamp && --targetsLeft == 0;
+	}
+
+	/**
+	 * Get the empty bucket queue for a search with the given max weight.
+	 */
+	GkaBucketQueue getBucketQueue(int maxWeight) {
+		if (buckets == null) {
+			buckets = new GkaBucketQueue(nodeCount);
+		}
+		buckets.reset(maxWeight);
+		return buckets;
+	}
+
+	/**
+	 * Check if a node was reached by the current search.
+	 */
+	boolean isReached(int nodeIndex) {
+		return stamps[nodeIndex] == stamp;
+	}
+
+	/**
+	 * Set the distance and previous node of a node reached by the current search.
+	 */
+	void reach(int nodeIndex, double dist, int prevNode) {
+		stamps[nodeIndex] = stamp;
+		dists[nodeIndex] = dist;
+		prevNodes[nodeIndex] = prevNode;
+	}
+
+	/**
+	 * Get the number of nodes the last search took from its queue, i.e. whose
+	 * distance became final.
+	 *
+	 * @return Number of settled nodes.
+	 */
+	public int getSettledCount() {
+		return settledCount;
+	}
+
+	/**
+	 * Get the distance of a node found by the last search. It's final for settled
+	 * nodes, an upper bound for nodes that were still queued when the search
+	 * stopped.
+	 *
+	 * @param nodeIndex
+	 *            Index of the node.
+	 * @return Distance from the start node, infinity if the node wasn't reached.
+	 */
+	public double getDistance(int nodeIndex) {
+		return isReached(nodeIndex) ? dists[nodeIndex] : Double.POSITIVE_INFINITY;
+	}
+
+	/**
+	 * Get the previous node of a node on the path found by the last search.
+	 *
+	 * @param nodeIndex
+	 *            Index of the node.
+	 * @return Index of the previous node, -1 for the start node and nodes that
+	 *         weren't reached.
+	 */
+	public int getPrevNode(int nodeIndex) {
+		return isReached(nodeIndex) ? prevNodes[nodeIndex] : -1;
+	}
+
+	/**
+	 * Copy the distances found by the last search into an array, see
+	 * {@link #getDistance(int)}.
+	 *
+	 * @param out
+	 *            Array to fill, the distance of each node index below its length
+	 *            is set, entries beyond the workspace's nodes to infinity.
+	 * @return The given array.
+	 */
+	public double[] copyDistances(double[] out) {
+		int length = Math.min(out.length, nodeCount);
+		for (int n = 0; n < length; n++) {
+			out[n] = getDistance(n);
+		}
+		Arrays.fill(out, length, out.length, Double.POSITIVE_INFINITY);
+		return out;
+	}
+
+	/**
+	 * Copy the previous nodes found by the last search into an array, see
+	 * {@link #getPrevNode(int)}. Together they form the shortest path tree.
+	 *
+	 * @param out
+	 *            Array to fill, the previous node of each node index below its
+	 *            length is set, entries beyond the workspace's nodes to -1.
+	 * @return The given array.
+	 */
+	public int[] copyPrevNodes(int[] out) {
+		int length = Math.min(out.length, nodeCount);
+		for (int n = 0; n < length; n++) {
+			out[n] = getPrevNode(n);
+		}
+		Arrays.fill(out, length, out.length, -1);
+		return out;
+	}
+
+	/**
+	 * Trace the path found by the last search from its start node to a node.
+	 *
+	 * @param endIndex
+	 *            Index of the end node.
+	 * @return Sequence of node indices from start to end node, null if end wasn't
+	 *         reached.
+	 */
+	public int[] getPath(int endIndex) {
+		if (!isReached(endIndex)) {
+			return null;
+		}
+
+		int length = 0;
+		for (int curr = endIndex; curr != -1; curr = prevNodes[curr]) {
+			length++;
+		}
+		int[] out = new int[length];
+		for (int curr = endIndex; curr != -1; curr = prevNodes[curr]) {
+			out[--length] = curr;
+		}
+		return out;
+	}
+}
@@ -0,0 +1,434 @@
+package gka1;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+
+/**
+ * Reader and writer for the DIMACS formats of shortest path (.gr) and maximum
+ * flow (.max) benchmark instances. A file has comment lines "c ...", one
+ * problem line "p sp n m" or "p max n m", m arc lines "a u v w" with nodes 1 to
+ * n and, for maximum flow, the designator lines "n id s" and "n id t" of source
+ * and sink.<br>
+ * Reading parses the bytes directly into the columns of a {@link GkaEdgeList}
+ * without a string per line, the node with DIMACS id i gets index (i - 1) and
+ * the name "i". Each arc becomes a directed weighted edge, its weight is the
+ * length or capacity. Files ending with ".gz" or starting with the gzip magic
+ * bytes are decompressed.<br>
+ * Writing numbers the nodes of an edge list by index + 1. As DIMACS only knows
+ * arcs, an undirected edge is written as two opposite arcs and an edge without
+ * weight gets the weight {@link GkaCsr#DEFAULT_WEIGHT}, names are lost.
+ *
+ * @author Huy Tran PC
+ *
+ */
+public final class GkaDimacs {
+	/**
+	 * Problem name of shortest path instances.
+	 */
+	public static final String SHORTEST_PATH = "sp";
+	/**
+	 * Problem name of maximum flow instances.
+	 */
+	public static final String MAX_FLOW = "max";
+
+	private static final int BUFFER_SIZE = 1 << 16;
+	// initial edge capacity, the problem line isn't trusted for more
+	private static final int MAX_INITIAL_CAPACITY = 1 << 24;
+
+	private final String problem;
+	private final GkaEdgeList edgeList;
+	private final int sourceIndex;
+	private final int sinkIndex;
+
+	private GkaDimacs(String problem, GkaEdgeList edgeList, int sourceIndex, int sinkIndex) {
+		this.problem = problem;
+		this.edgeList = edgeList;
+		this.sourceIndex = sourceIndex;
+		this.sinkIndex = sinkIndex;
+	}
+
+	/**
+	 * Load a DIMACS file.
+	 *
+	 * @param path
+	 *            Path of the DIMACS file, gzip-compressed or not.
+	 * @return The instance of the file.
+	 * @throws IOException
+	 *             if an I/O exception occurs or the file isn't a valid instance
+	 */
+	public static GkaDimacs read(Path path) throws IOException {
+		try (InputStream in = GkaCompression.openInput(path)) {
+			return read(in);
+		}
+	}
+
+	/**
+	 * Load a DIMACS instance from a stream. The stream isn't closed.
+	 *
+	 * @param in
+	 *            Stream with the uncompressed content.
+	 * @return The instance of the stream.
+	 * @throws IOException
+	 *             if an I/O exception occurs or the content isn't a valid
+	 *             instance
+	 */
+	public static GkaDimacs read(InputStream in) throws IOException {
+		Parser parser = new Parser(in);
+		String problem = null;
+		GkaEdgeList list = null;
+		int nodeNr = 0;
+		long arcNr = 0;
+		int sourceIndex = -1;
+		int sinkIndex = -1;
+
+		for (int c = parser.skipBlanks(); c >= 0; c = parser.skipBlanks()) {
+			switch (c) {
+			case 'c':
+				break;
+			case 'p':
+				if (problem != null) {
+					throw parser.error("Second problem line.");
+				}
+				problem = parser.word();
+				if (!problem.equals(SHORTEST_PATH) && !problem.equals(MAX_FLOW)) {
+					throw parser.error("Unsupported problem \"" + problem + "\".");
+				}
+				long n = parser.number();
+				arcNr = parser.number();
+				if (n < 0 || n > Integer.MAX_VALUE - 8 || arcNr < 0 || arcNr > Integer.MAX_VALUE - 8) {
+					throw parser.error("Invalid number of nodes or arcs.");
+				}
+				nodeNr = (int) n;
+
+				list = new GkaEdgeList(nodeNr, (int) Math.min(arcNr, MAX_INITIAL_CAPACITY));
+				for (int i = 0; i < nodeNr; i++) {
+					list.nodeNames[i] = String.valueOf(i + 1);
+				}
+				list.nodeCount = nodeNr;
+				break;
+			case 'n':
+				if (!MAX_FLOW.equals(problem)) {
+					throw parser.error("Node designator outside of a maximum flow problem.");
+				}
+				int nodeIndex = parser.nodeIndex(nodeNr);
+				String designator = parser.word();
+				if (designator.equals("s")) {
+					sourceIndex = nodeIndex;
+				} else if (designator.equals("t")) {
+					sinkIndex = nodeIndex;
+				} else {
+					throw parser.error("Unknown node designator \"" + designator + "\".");
+				}
+				break;
+			case 'a':
+				if (problem == null) {
+					throw parser.error("Arc before problem line.");
+				}
+				int source = parser.nodeIndex(nodeNr);
+				int target = parser.nodeIndex(nodeNr);
+				long weight = parser.number();
+				if (weight < Integer.MIN_VALUE || weight > Integer.MAX_VALUE) {
+					throw parser.error("Arc weight out of range.");
+				}
+				list.addEdge(source, target, true, null, true, (int) weight);
+				break;
+			default:
+				throw parser.error("Unknown line type '" + (char) c + "'.");
+			}
+			parser.skipLine();
+		}
+
+		if (problem == null) {
+			throw new IOException("Missing DIMACS problem line.");
+		}
+		if (list.edgeCount != arcNr) {
+			throw new IOException("Expected " + arcNr + " arcs but found " + list.edgeCount + ".");
+		}
+		if (problem.equals(MAX_FLOW) && (sourceIndex < 0 || sinkIndex < 0)) {
+			throw new IOException("Missing source or sink of maximum flow problem.");
+		}
+		return new GkaDimacs(problem, list, sourceIndex, sinkIndex);
+	}
+
+	/**
+	 * Load a DIMACS file into a GkaGraph with sequential ids.
+	 *
+	 * @param path
+	 *            Path of the DIMACS file.
+	 * @return A GkaGraph object.
+	 * @throws IOException
+	 *             if an I/O exception occurs or the file isn't a valid instance
+	 */
+	public static GkaGraph readGraph(Path path) throws IOException {
+		return read(path).getEdgeList().toGraph();
+	}
+
+	/**
+	 * Load a DIMACS file into a CSR snapshot.
+	 *
+	 * @param path
+	 *            Path of the DIMACS file.
+	 * @return A CSR snapshot.
+	 * @throws IOException
+	 *             if an I/O exception occurs or the file isn't a valid instance
+	 */
+	public static GkaCsr readCsr(Path path) throws IOException {
+		return read(path).getEdgeList().toCsr();
+	}
+
+	/**
+	 * Save a shortest path instance.
+	 *
+	 * @param list
+	 *            The edges to save.
+	 * @param path
+	 *            Path of the DIMACS file, gzip-compressed if its name ends with
+	 *            ".gz".
+	 * @throws IOException
+	 *             if an I/O exception occurs
+	 */
+	public static void writeShortestPath(GkaEdgeList list, Path path) throws IOException {
+		try (Writer writer = newWriter(path)) {
+			write(SHORTEST_PATH, list, -1, -1, writer);
+		}
+	}
+
+	/**
+	 * Save a maximum flow instance.
+	 *
+	 * @param list
+	 *            The edges to save, weights are capacities.
+	 * @param sourceIndex
+	 *            Index of the source.
+	 * @param sinkIndex
+	 *            Index of the sink.
+	 * @param path
+	 *            Path of the DIMACS file, gzip-compressed if its name ends with
+	 *            ".gz".
+	 * @throws IOException
+	 *             if an I/O exception occurs
+	 */
+	public static void writeMaxFlow(GkaEdgeList list, int sourceIndex, int sinkIndex, Path path) throws IOException {
+		try (Writer writer = newWriter(path)) {
+			write(MAX_FLOW, list, sourceIndex, sinkIndex, writer);
+		}
+	}
+
+	/**
+	 * Write an instance to a writer. The writer isn't flushed or closed.
+	 *
+	 * @param problem
+	 *            {@link #SHORTEST_PATH} or {@link #MAX_FLOW}.
+	 * @param list
+	 *            The edges to write.
+	 * @param sourceIndex
+	 *            Index of the source, ignored for shortest path.
+	 * @param sinkIndex
+	 *            Index of the sink, ignored for shortest path.
+	 * @param writer
+	 *            Writer to write to, it should be buffered.
+	 * @throws IOException
+	 *             if an I/O exception occurs
+	 */
+	public static void write(String problem, GkaEdgeList list, int sourceIndex, int sinkIndex, Writer writer)
+			throws IOException {
+		boolean isMaxFlow = problem.equals(MAX_FLOW);
+		if (!isMaxFlow && !problem.equals(SHORTEST_PATH)) {
+			throw new IllegalArgumentException("Unsupported problem \"" + problem + "\".");
+		}
+		if (isMaxFlow && (sourceIndex < 0 || sourceIndex >= list.nodeCount || sinkIndex < 0
+				|| sinkIndex >= list.nodeCount)) {
+			throw new IllegalArgumentException("Node not found in graph.");
+		}
+
+		long arcNr = list.edgeCount;
+		for (int e = 0; e < list.edgeCount; e++) {
+			if ((list.flags[e] & GkaEdgeList.DIRECTED) == 0) {
+				arcNr++;
+			}
+		}
+
+		writer.write("p " + problem + " " + list.nodeCount + " " + arcNr + "\n");
+		if (isMaxFlow) {
+			writer.write("n " + (sourceIndex + 1) + " s\n");
+			writer.write("n " + (sinkIndex + 1) + " t\n");
+		}
+		for (int e = 0; e < list.edgeCount; e++) {
+			writeArc(writer, list.sources[e], list.targets[e], list.weights[e]);
+			if ((list.flags[e] & GkaEdgeList.DIRECTED) == 0) {
+				writeArc(writer, list.targets[e], list.sources[e], list.weights[e]);
+			}
+		}
+	}
+
+	private static void writeArc(Writer writer, int source, int target, int weight) throws IOException {
+		writer.write("a ");
+		writer.write(Integer.toString(source + 1));
+		writer.write(' ');
+		writer.write(Integer.toString(target + 1));
+		writer.write(' ');
+		writer.write(Integer.toString(weight));
+		writer.write('\n');
+	}
+
+	private static Writer newWriter(Path path) throws IOException {
+		return new BufferedWriter(new OutputStreamWriter(GkaCompression.openOutput(path), StandardCharsets.US_ASCII),
+				BUFFER_SIZE);
+	}
+
+	/**
+	 * Getter for the problem.
+	 *
+	 * @return {@link #SHORTEST_PATH} or {@link #MAX_FLOW}.
+	 */
+	public String getProblem() {
+		return problem;
+	}
+
+	/**
+	 * Getter for the arcs.
+	 *
+	 * @return The nodes and arcs of the instance.
+	 */
+	public GkaEdgeList getEdgeList() {
+		return edgeList;
+	}
+
+	/**
+	 * Getter for the source of a maximum flow problem.
+	 *
+	 * @return Index of the source or -1 for a shortest path problem.
+	 */
+	public int getSourceIndex() {
+		return sourceIndex;
+	}
+
+	/**
+	 * Getter for the sink of a maximum flow problem.
+	 *
+	 * @return Index of the sink or -1 for a shortest path problem.
+	 */
+	public int getSinkIndex() {
+		return sinkIndex;
+	}
+
+	/**
+	 * Byte-wise tokenizer of DIMACS lines.
+	 */
+	private static final class Parser {
+		private final InputStream in;
+		private final byte[] buf = new byte[BUFFER_SIZE];
+		private int pos;
+		private int limit;
+		private long lineNr = 1;
+
+		Parser(InputStream in) {
+			this.in = in;
+		}
+
+		private int peek() throws IOException {
+			if (pos == limit) {
+				limit = in.read(buf, 0, buf.length);
+				pos = 0;
+				if (limit <= 0) {
+					limit = 0;
+					return -1;
+				}
+			}
+			return buf[pos] & 0xFF;
+		}
+
+		/**
+		 * Skip blanks and empty lines and consume the first character of the next
+		 * line.
+		 */
+		int skipBlanks() throws IOException {
+			int c;
+			while ((c = peek()) == ' ' || c == '\t' || c == '\r' || c == '\n') {
+				if (c == '\n') {
+					lineNr++;
+				}
+				pos++;
+			}
+			if (c >= 0) {
+				pos++;
+			}
+			return c;
+		}
+
+		/**
+		 * Skip the rest of the line including the line break.
+		 */
+		void skipLine() throws IOException {
+			int c;
+			while ((c = peek()) >= 0) {
+				pos++;
+				if (c == '\n') {
+					lineNr++;
+					return;
+				}
+			}
+		}
+
+		private int skipSpaces() throws IOException {
+			int c;
+			while ((c = peek()) == ' ' || c == '\t') {
+				pos++;
+			}
+			return c;
+		}
+
+		String word() throws IOException {
+			StringBuilder word = new StringBuilder();
+			int c = skipSpaces();
+			while (c > ' ') {
+				word.append((char) c);
+				pos++;
+				c = peek();
+			}
+			if (word.length() == 0) {
+				throw error("Missing word.");
+			}
+			return word.toString();
+		}
+
+		long number() throws IOException {
+			int c = skipSpaces();
+			boolean isNegative = c == '-';
+			if (isNegative) {
+				pos++;
+				c = peek();
+			}
+			if (c < '0' || c > '9') {
+				throw error("Missing number.");
+			}
+			long value = 0;
+			do {
+				value = value * 10 + (c - '0');
+				if (value > Integer.MAX_VALUE + 1L) {
+					throw error("Number out of range.");
+				}
+				pos++;
+				c = peek();
+			} while (c >= '0' && c <= '9');
+			return isNegative ? -value : value;
+		}
+
+		int nodeIndex(int nodeNr) throws IOException {
+			long id = number();
+			if (id < 1 || id > nodeNr) {
+				throw error("Node " + id + " out of range.");
+			}
+			return (int) id - 1;
+		}
+
+		IOException error(String message) {
+			return new IOException("DIMACS line " + lineNr + ": " + message);
+		}
+	}
+}
@@ -0,0 +1,433 @@
+package gka1;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.HashMap;
+
+import org.graphstream.graph.Edge;
+import org.graphstream.graph.Node;
+
+/**
+ * Growable list of edges in primitive columns together with a dictionary of
+ * node names. It's the common intermediate form of loaders and generators,
+ * from which a GkaGraph or a CSR snapshot is built in one go. Nodes are indexed
+ * in order of their first appearance, like in a GkaGraph filled with
+ * createEdge.
+ *
+ * @author Huy Tran PC
+ *
+ */
+public final class GkaEdgeList implements GkaRecordHandler, GkaEdgeSink {
+	static final byte DIRECTED = 1;
+	static final byte WEIGHTED = 2;
+
+	// node dictionary, the hash map is built on demand
+	String[] nodeNames;
+	int nodeCount;
+	private HashMap<String, Integer> nodeNameToIndexMap;
+
+	// indices of the nodes of the graph passed in as GkaEdgeSink
+	private int[] sinkNodeIndices;
+
+	// edge columns
+	int[] sources;
+	int[] targets;
+	int[] weights;
+	byte[] flags;
+	String[] edgeNames;
+	int edgeCount;
+
+	/**
+	 * Constructor for an empty GkaEdgeList.
+	 */
+	public GkaEdgeList() {
+		this(16, 16);
+	}
+
+	/**
+	 * Constructor for an empty GkaEdgeList with initial capacities.
+	 *
+	 * @param initialNodeCapacity
+	 *            Expected number of nodes.
+	 * @param initialEdgeCapacity
+	 *            Expected number of edges.
+	 */
+	public GkaEdgeList(int initialNodeCapacity, int initialEdgeCapacity) {
+		initialNodeCapacity = Math.max(initialNodeCapacity, 1);
+		initialEdgeCapacity = Math.max(initialEdgeCapacity, 1);
+		this.nodeNames = new String[initialNodeCapacity];
+		this.sources = new int[initialEdgeCapacity];
+		this.targets = new int[initialEdgeCapacity];
+		this.weights = new int[initialEdgeCapacity];
+		this.flags = new byte[initialEdgeCapacity];
+	}
+
+	/**
+	 * Copy the nodes and edges of a graph. Node and edge indices of the list are
+	 * the ones of the graph.
+	 *
+	 * @param graph
+	 *            The graph to work with.
+	 * @return A GkaEdgeList object.
+	 */
+	public static GkaEdgeList of(GkaGraph graph) {
+		int nodeNr = graph.getNodeCount();
+		int edgeNr = graph.getEdgeCount();
+		GkaEdgeList list = new GkaEdgeList(nodeNr, edgeNr);
+
+		for (int i = 0; i < nodeNr; i++) {
+			Node node = graph.getNode(i);
+			Object name = node.getAttribute("name");
+			list.addNode(name != null ? name.toString() : node.getId());
+		}
+		for (int e = 0; e < edgeNr; e++) {
+			Edge edge = graph.getEdge(e);
+			Object name = edge.getAttribute("name");
+			list.addEdge(edge.getNode0().getIndex(), edge.getNode1().getIndex(), edge.isDirected(),
+					name != null ? name.toString() : null, edge.hasAttribute("weight"), GkaCsr.weightOf(edge));
+		}
+
+		return list;
+	}
+
+	/**
+	 * Add a node with a given name. If the name exists, the method just retrieves
+	 * the index of the node.
+	 *
+	 * @param nodeName
+	 *            Name of the node.
+	 * @return Index of the node.
+	 */
+	public int addNode(String nodeName) {
+		HashMap<String, Integer> map = nodeNameToIndexMap();
+		Integer nodeIndex = map.get(nodeName);
+		if (nodeIndex != null) {
+			return nodeIndex;
+		}
+
+		if (nodeCount == nodeNames.length) {
+			nodeNames = Arrays.copyOf(nodeNames, nodeCount * 2);
+		}
+		nodeNames[nodeCount] = nodeName;
+		map.put(nodeName, nodeCount);
+		return nodeCount++;
+	}
+
+	private HashMap<String, Integer> nodeNameToIndexMap() {
+		if (nodeNameToIndexMap == null) {
+			nodeNameToIndexMap = new HashMap<>(Math.max(16, nodeNames.length * 4 / 3 + 1));
+			for (int i = 0; i < nodeCount; i++) {
+				nodeNameToIndexMap.putIfAbsent(nodeNames[i], i);
+			}
+		}
+		return nodeNameToIndexMap;
+	}
+
+	/**
+	 * Add an edge between two existing nodes.
+	 *
+	 * @param nodeIndex1
+	 *            Index of node 1.
+	 * @param nodeIndex2
+	 *            Index of node 2.
+	 * @param isDirected
+	 *            Whether the edge is directed.
+	 * @param edgeName
+	 *            Name of the edge, may be null.
+	 * @param hasWeight
+	 *            Whether the edge has a weight.
+	 * @param edgeWeight
+	 *            Weight of the edge, ignored if it has none.
+	 */
+	public void addEdge(int nodeIndex1, int nodeIndex2, boolean isDirected, String edgeName, boolean hasWeight,
+			int edgeWeight) {
+		if (edgeCount == sources.length) {
+			int capacity = edgeCount * 2;
+			sources = Arrays.copyOf(sources, capacity);
+			targets = Arrays.copyOf(targets, capacity);
+			weights = Arrays.copyOf(weights, capacity);
+			flags = Arrays.copyOf(flags, capacity);
+			if (edgeNames != null) {
+				edgeNames = Arrays.copyOf(edgeNames, capacity);
+			}
+		}
+
+		sources[edgeCount] = nodeIndex1;
+		targets[edgeCount] = nodeIndex2;
+		weights[edgeCount] = hasWeight ? edgeWeight : GkaCsr.DEFAULT_WEIGHT;
+		flags[edgeCount] = (byte) ((isDirected ? DIRECTED : 0) | (hasWeight ? WEIGHTED : 0));
+		if (edgeName != null) {
+			if (edgeNames == null) {
+				edgeNames = new String[sources.length];
+			}
+			edgeNames[edgeCount] = edgeName;
+		}
+		edgeCount++;
+	}
+
+	/**
+	 * Add a single node record of a GKA file, so a list can be filled by
+	 * {@link GkaUtils#read(java.io.Reader, GkaRecordHandler)}.
+	 *
+	 * @param nodeName
+	 *            Name of the node.
+	 * @return Always true.
+	 */
+	@Override
+	public boolean node(String nodeName) {
+		addNode(nodeName);
+		return true;
+	}
+
+	/**
+	 * Add an edge record of a GKA file, so a list can be filled by
+	 * {@link GkaUtils#read(java.io.Reader, GkaRecordHandler)}.
+	 *
+	 * @param nodeName1
+	 *            Name of node 1.
+	 * @param nodeName2
+	 *            Name of node 2.
+	 * @param isDirected
+	 *            Whether the edge is directed.
+	 * @param edgeName
+	 *            Name of the edge, may be null.
+	 * @param hasWeight
+	 *            Whether the edge has a weight.
+	 * @param edgeWeight
+	 *            Weight of the edge, ignored if it has none.
+	 * @return Always true.
+	 */
+	@Override
+	public boolean edge(String nodeName1, String nodeName2, boolean isDirected, String edgeName, boolean hasWeight,
+			int edgeWeight) {
+		int nodeIndex1 = addNode(nodeName1);
+		addEdge(nodeIndex1, addNode(nodeName2), isDirected, edgeName, hasWeight, edgeWeight);
+		return true;
+	}
+
+	/**
+	 * Add the nodes "0" to "(nodeNum - 1)" of a generated graph.
+	 *
+	 * @param nodeNum
+	 *            Number of nodes.
+	 */
+	@Override
+	public void begin(int nodeNum) {
+		sinkNodeIndices = new int[nodeNum];
+		for (int i = 0; i < nodeNum; i++) {
+			sinkNodeIndices[i] = addNode(String.valueOf(i));
+		}
+	}
+
+	/**
+	 * Add an edge of a generated graph.
+	 *
+	 * @param nodeIndex1
+	 *            Index of node 1 in the generated graph.
+	 * @param nodeIndex2
+	 *            Index of node 2 in the generated graph.
+	 * @param isDirected
+	 *            Whether the edge is directed.
+	 * @param hasWeight
+	 *            Whether the edge has a weight.
+	 * @param edgeWeight
+	 *            Weight of the edge, ignored if it has none.
+	 */
+	@Override
+	public void edge(int nodeIndex1, int nodeIndex2, boolean isDirected, boolean hasWeight, int edgeWeight) {
+		addEdge(sinkNodeIndices[nodeIndex1], sinkNodeIndices[nodeIndex2], isDirected, null, hasWeight, edgeWeight);
+	}
+
+	/**
+	 * Finish a generated graph.
+	 */
+	@Override
+	public void end() {
+		sinkNodeIndices = null;
+	}
+
+	/**
+	 * Get the number of nodes.
+	 *
+	 * @return Number of nodes.
+	 */
+	public int getNodeCount() {
+		return nodeCount;
+	}
+
+	/**
+	 * Get the number of edges.
+	 *
+	 * @return Number of edges.
+	 */
+	public int getEdgeCount() {
+		return edgeCount;
+	}
+
+	/**
+	 * Get the name of a node.
+	 *
+	 * @param nodeIndex
+	 *            Index of the node.
+	 * @return Name of the node.
+	 */
+	public String getNodeName(int nodeIndex) {
+		return nodeNames[nodeIndex];
+	}
+
+	/**
+	 * Get the index of a node by its name.
+	 *
+	 * @param nodeName
+	 *            Name of the node.
+	 * @return Index of the node or -1 if there is no node with that name.
+	 */
+	public int getNodeIndex(String nodeName) {
+		Integer nodeIndex = nodeNameToIndexMap().get(nodeName);
+		return nodeIndex != null ? nodeIndex : -1;
+	}
+
+	/**
+	 * Get node 1 of an edge.
+	 *
+	 * @param edgeIndex
+	 *            Index of the edge.
+	 * @return Index of node 1.
+	 */
+	public int getSource(int edgeIndex) {
+		return sources[edgeIndex];
+	}
+
+	/**
+	 * Get node 2 of an edge.
+	 *
+	 * @param edgeIndex
+	 *            Index of the edge.
+	 * @return Index of node 2.
+	 */
+	public int getTarget(int edgeIndex) {
+		return targets[edgeIndex];
+	}
+
+	/**
+	 * Check if an edge is directed.
+	 *
+	 * @param edgeIndex
+	 *            Index of the edge.
+	 * @return true if the edge is directed.
+	 */
+	public boolean isDirected(int edgeIndex) {
+		return (flags[edgeIndex] & DIRECTED) != 0;
+	}
+
+	/**
+	 * Check if an edge has a weight.
+	 *
+	 * @param edgeIndex
+	 *            Index of the edge.
+	 * @return true if the edge has a weight.
+	 */
+	public boolean hasWeight(int edgeIndex) {
+		return (flags[edgeIndex] & WEIGHTED) != 0;
+	}
+
+	/**
+	 * Get the weight of an edge.
+	 *
+	 * @param edgeIndex
+	 *            Index of the edge.
+	 * @return Weight of the edge or {@link GkaCsr#DEFAULT_WEIGHT} if it has none.
+	 */
+	public int getWeight(int edgeIndex) {
+		return weights[edgeIndex];
+	}
+
+	/**
+	 * Get the name of an edge.
+	 *
+	 * @param edgeIndex
+	 *            Index of the edge.
+	 * @return Name of the edge or null if it has none.
+	 */
+	public String getEdgeName(int edgeIndex) {
+		return edgeNames != null ? edgeNames[edgeIndex] : null;
+	}
+
+	/**
+	 * Write the list in GKA format like {@link GkaUtils#write(GkaGraph, java.io.Writer)}
+	 * does for the graph built from it: first all edges, then all single nodes.
+	 *
+	 * @param out
+	 *            Destination of the lines, e.g. a buffered Writer.
+	 * @throws IOException
+	 *             if an I/O exception occurs
+	 */
+	public void write(Appendable out) throws IOException {
+		boolean[] hasEdge = new boolean[nodeCount];
+
+		for (int e = 0; e < edgeCount; e++) {
+			hasEdge[sources[e]] = true;
+			hasEdge[targets[e]] = true;
+
+			out.append(nodeNames[sources[e]]);
+			out.append(isDirected(e) ? " -> " : " -- ");
+			out.append(nodeNames[targets[e]]);
+			String edgeName = getEdgeName(e);
+			if (edgeName != null) {
+				out.append(" (").append(edgeName).append(')');
+			}
+			if (hasWeight(e)) {
+				out.append(" : ").append(Integer.toString(weights[e]));
+			}
+			out.append(";\n");
+		}
+
+		for (int i = 0; i < nodeCount; i++) {
+			if (!hasEdge[i]) {
+				out.append(nodeNames[i]).append(";\n");
+			}
+		}
+	}
+
+	/**
+	 * Build a GkaGraph with sequential ids. Node and edge indices of the graph are
+	 * the ones of the list.
+	 *
+	 * @return A GkaGraph object.
+	 */
+	public GkaGraph toGraph() {
+		GkaGraph graph = new GkaGraph(GkaGraph.createStringId(), GkaGraph.IdMode.SEQUENTIAL, nodeCount,
+				edgeCount);
+
+		for (int i = 0; i < nodeCount; i++) {
+			graph.createNodeIndex(nodeNames[i]);
+		}
+		for (int e = 0; e < edgeCount; e++) {
+			graph.createEdge(sources[e], targets[e], isDirected(e), getEdgeName(e),
+					hasWeight(e) ? Integer.valueOf(weights[e]) : null);
+		}
+
+		return graph;
+	}
+
+	/**
+	 * Build a CSR snapshot. Node indices are the ones of the list.
+	 *
+	 * @return A CSR snapshot.
+	 */
+	public GkaCsr toCsr() {
+		boolean[] directed = new boolean[edgeCount];
+		int[] offsets = new int[nodeCount + 1];
+
+		for (int e = 0; e < edgeCount; e++) {
+			directed[e] = isDirected(e);
+			offsets[sources[e] + 1]++;
+			if (!directed[e] && sources[e] != targets[e]) {
+				offsets[targets[e] + 1]++;
+			}
+		}
+
+		return GkaCsr.build(Arrays.copyOf(nodeNames, nodeCount), offsets, edgeCount, sources, targets, directed,
+				weights);
+	}
+}
@@ -0,0 +1,42 @@
+package gka1;
+
+/**
+ * Receiver of generated graphs whose nodes are identified by dense indices.
+ * Generators call {@link #begin(int)} once, then {@link #edge} for each edge and
+ * finally {@link #end()}. The node with index i is named "i". Implemented by
+ * {@link GkaEdgeList} to build a GkaGraph or a CSR snapshot and by
+ * {@link GkaWriter} to stream a .gka file.
+ *
+ * @author Huy Tran PC
+ *
+ */
+public interface GkaEdgeSink {
+	/**
+	 * Start a graph.
+	 *
+	 * @param nodeNum
+	 *            Number of nodes, with indices 0 to (nodeNum - 1).
+	 */
+	void begin(int nodeNum);
+
+	/**
+	 * Add an edge.
+	 *
+	 * @param nodeIndex1
+	 *            Index of node 1.
+	 * @param nodeIndex2
+	 *            Index of node 2.
+	 * @param isDirected
+	 *            Whether the edge is directed.
+	 * @param hasWeight
+	 *            Whether the edge has a weight.
+	 * @param edgeWeight
+	 *            Weight of the edge, ignored if it has none.
+	 */
+	void edge(int nodeIndex1, int nodeIndex2, boolean isDirected, boolean hasWeight, int edgeWeight);
+
+	/**
+	 * Finish the graph.
+	 */
+	void end();
+}
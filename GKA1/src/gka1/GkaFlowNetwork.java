@@ -0,0 +1,164 @@
+package gka1;
+
+import java.util.Arrays;
+
+/**
+ * Residual graph of a flow network in CSR layout. Every arc of the snapshot it
+ * is created from becomes a forward arc with the arc weight as capacity and a
+ * backward arc with capacity 0. The forward and backward arc of a pair are
+ * mates of each other.<br>
+ * Like the adjacency matrix of {@link AlgoFordFulkerson#graphMatrix(GkaGraph)},
+ * only the first of several parallel arcs from one node to another is used.
+ *
+ * @author Huy Tran PC
+ *
+ */
+public final class GkaFlowNetwork {
+	private final int[] offsets;
+	private final int[] heads;
+	private final int[] mates;
+	private final int[] capacities;
+	private final int[] residuals;
+
+	/**
+	 * Constructor for a GkaFlowNetwork.
+	 *
+	 * @param csr
+	 *            A CSR snapshot whose arc weights are the capacities.
+	 */
+	public GkaFlowNetwork(GkaCsr csr) {
+		int nodeNr = csr.getNodeCount();
+		int[] csrOffsets = csr.getOffsets();
+		int[] csrTargets = csr.getTargets();
+		int[] csrWeights = csr.getWeights();
+
+		// mark the arcs that are used, loops and parallel arcs are skipped
+		boolean[] used = new boolean[csrTargets.length];
+		int[] lastSource = new int[nodeNr];
+		Arrays.fill(lastSource, -1);
+
+		// count forward and backward arcs of each node
+		this.offsets = new int[nodeNr + 1];
+		for (int u = 0; u < nodeNr; u++) {
+			for (int arc = csrOffsets[u]; arc < csrOffsets[u + 1]; arc++) {
+				int v = csrTargets[arc];
+				if (u != v && lastSource[v] != u) {
+					lastSource[v] = u;
+					used[arc] = true;
+					offsets[u + 1]++;
+					offsets[v + 1]++;
+				}
+			}
+		}
+		for (int u = 0; u < nodeNr; u++) {
+			offsets[u + 1] += offsets[u];
+		}
+
+		int arcNr = offsets[nodeNr];
+		this.heads = new int[arcNr];
+		this.mates = new int[arcNr];
+		this.capacities = new int[arcNr];
+		this.residuals = new int[arcNr];
+
+		int[] next = new int[nodeNr];
+		System.arraycopy(offsets, 0, next, 0, nodeNr);
+		for (int u = 0; u < nodeNr; u++) {
+			for (int arc = csrOffsets[u]; arc < csrOffsets[u + 1]; arc++) {
+				int v = csrTargets[arc];
+				if (used[arc]) {
+					int forward = next[u]++;
+					int backward = next[v]++;
+					heads[forward] = v;
+					heads[backward] = u;
+					mates[forward] = backward;
+					mates[backward] = forward;
+					capacities[forward] = Math.max(csrWeights[arc], 0);
+				}
+			}
+		}
+
+		reset();
+	}
+
+	/**
+	 * Remove all flow, so that the remaining capacity of each arc is its
+	 * capacity.
+	 */
+	public void reset() {
+		System.arraycopy(capacities, 0, residuals, 0, capacities.length);
+	}
+
+	/**
+	 * Get the number of nodes.
+	 *
+	 * @return Number of nodes.
+	 */
+	public int getNodeCount() {
+		return offsets.length - 1;
+	}
+
+	/**
+	 * Get the start of the arcs of each node, length is nodeCount + 1.
+	 *
+	 * @return Offsets array.
+	 */
+	public int[] getOffsets() {
+		return offsets;
+	}
+
+	/**
+	 * Get the node each arc points to.
+	 *
+	 * @return Heads array.
+	 */
+	public int[] getHeads() {
+		return heads;
+	}
+
+	/**
+	 * Get the index of the opposite arc of each arc.
+	 *
+	 * @return Mates array.
+	 */
+	public int[] getMates() {
+		return mates;
+	}
+
+	/**
+	 * Get the remaining capacity of each arc. Algorithms update it while
+	 * augmenting.
+	 *
+	 * @return Residual capacities array.
+	 */
+	public int[] getResiduals() {
+		return residuals;
+	}
+
+	/**
+	 * Augment the flow along a path given by the arc used to reach each node.
+	 *
+	 * @param sourceIndex
+	 *            Index of the source node.
+	 * @param sinkIndex
+	 *            Index of the sink node.
+	 * @param parentArcs
+	 *            Arc used to reach each node on the path.
+	 * @return The bottleneck of the path, which is added to the flow.
+	 */
+	int augment(int sourceIndex, int sinkIndex, int[] parentArcs) {
+		// find minimum residual capacity (bottleneck) of the arcs along the path
+		int bottleneck = Integer.MAX_VALUE;
+		for (int v = sinkIndex; v != sourceIndex; v = heads[mates[parentArcs[v]]]) {
+			bottleneck = Math.min(bottleneck, residuals[parentArcs[v]]);
+		}
+
+		// forward arc: flow increases => r.cap. decreases,
+		// backward arc: flow increases => r.cap. increases
+		for (int v = sinkIndex; v != sourceIndex; v = heads[mates[parentArcs[v]]]) {
+			residuals[parentArcs[v]] -= bottleneck;
+			residuals[mates[parentArcs[v]]] += bottleneck;
+		}
+
+		return bottleneck;
+	}
+}
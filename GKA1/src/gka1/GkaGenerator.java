@@ -0,0 +1,725 @@
+package gka1;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Generator of large random graphs. Uniform random graphs and flow networks
+ * are built without rejection sampling: every possible
+ * edge of a simple graph has a rank, the generator draws distinct ranks with a
+ * partial Fisher-Yates shuffle of the rank space and turns them into node pairs
+ * with a closed formula. So a graph with m edges costs O(m) time and memory,
+ * even near the maximum density. The result is a {@link GkaEdgeList} with node
+ * names "0" to "(nodeNum - 1)".<br>
+ * For more than {@value #STRATUM_EDGES} edges the rank space is split into
+ * equal strata, each gets its share of the edges (sizes differ by at most one)
+ * and its own {@link SplittableRandom} split off the seed. This stratified
+ * sampling deviates slightly from a uniform choice of all edges at once but lets
+ * the strata be sampled in parallel. The strata don't depend on the number of
+ * threads, so a seed gives the same graph for any number of threads.<br>
+ * Structured families (road-like grids, R-MAT, Barabasi-Albert and layered flow
+ * networks) are emitted edge by edge to a {@link GkaEdgeSink}, i.e. into a
+ * {@link GkaEdgeList} for a GkaGraph or a CSR snapshot, or into a
+ * {@link GkaWriter} for a .gka file.
+ *
+ * @author Huy Tran PC
+ *
+ */
+public final class GkaGenerator {
+	/**
+	 * Number of edges per stratum of the rank space.
+	 */
+	public static final int STRATUM_EDGES = 1 << 20;
+
+	private GkaGenerator() {
+	}
+
+	/**
+	 * Generate a random simple graph on a single thread, see
+	 * {@link #randomGraph(int, int, boolean, boolean, int, int, long, int)}.
+	 *
+	 * @param nodeNum
+	 *            Number of nodes.
+	 * @param edgeNum
+	 *            Number of edges.
+	 * @param isDirected
+	 *            Whether graph is directed.
+	 * @param hasEdgeName
+	 *            Whether edge names should be added.
+	 * @param edgeWeightMin
+	 *            The minimum weight of an edge.
+	 * @param edgeWeightMax
+	 *            The maximum weight of an edge.
+	 * @param seed
+	 *            Seed for random generator.
+	 * @return A GkaEdgeList object.
+	 */
+	public static GkaEdgeList randomGraph(int nodeNum, int edgeNum, boolean isDirected, boolean hasEdgeName,
+			int edgeWeightMin, int edgeWeightMax, long seed) {
+		return randomGraph(nodeNum, edgeNum, isDirected, hasEdgeName, edgeWeightMin, edgeWeightMax, seed, 1);
+	}
+
+	/**
+	 * Generate a random simple graph with exactly the given number of nodes and
+	 * edges: no loops and no two edges between the same nodes (in the same
+	 * direction for directed graphs). Edge names "e0", "e1", ... are optional.
+	 * Edge weights are drawn uniformly from a range, there are no weights if
+	 * edgeWeightMin is greater than edgeWeightMax.
+	 *
+	 * @param nodeNum
+	 *            Number of nodes.
+	 * @param edgeNum
+	 *            Number of edges.
+	 * @param isDirected
+	 *            Whether graph is directed.
+	 * @param hasEdgeName
+	 *            Whether edge names should be added.
+	 * @param edgeWeightMin
+	 *            The minimum weight of an edge.
+	 * @param edgeWeightMax
+	 *            The maximum weight of an edge.
+	 * @param seed
+	 *            Seed for random generator.
+	 * @param threadNr
+	 *            Number of threads.
+	 * @return A GkaEdgeList object.
+	 */
+	public static GkaEdgeList randomGraph(int nodeNum, int edgeNum, boolean isDirected, boolean hasEdgeName,
+			int edgeWeightMin, int edgeWeightMax, long seed, int threadNr) {
+		if (nodeNum < 0 || edgeNum < 0) {
+			throw new IllegalArgumentException("Number of nodes and edges must be positive.");
+		}
+
+		// maximum number of edges for a graph to be simple
+		long n = nodeNum;
+		long rankNr = isDirected ? n * (n - 1) : n * (n - 1) / 2;
+		if (edgeNum > rankNr) {
+			throw new IllegalArgumentException("Too many edges. No multi-edge is allowed in a simple graph.");
+		}
+
+		GkaEdgeList list = createList(nodeNum, edgeNum, hasEdgeName);
+		boolean hasEdgeWeight = edgeWeightMin <= edgeWeightMax;
+		byte flags = (byte) ((isDirected ? GkaEdgeList.DIRECTED : 0) | (hasEdgeWeight ? GkaEdgeList.WEIGHTED : 0));
+
+		sample(rankNr, edgeNum, 0, new SplittableRandom(seed), threadNr, (e, rank, rand) -> {
+			int u;
+			int v;
+			if (isDirected) {
+				// rank = u * (n - 1) + (v without u)
+				u = (int) (rank / (n - 1));
+				v = (int) (rank % (n - 1));
+				if (v >= u) {
+					v++;
+				}
+			} else {
+				// rank = v * (v - 1) / 2 + u with u < v, random order of the two nodes
+				long k = triangularRoot(rank);
+				int small = (int) (rank - k * (k - 1) / 2);
+				boolean swap = rand.nextBoolean();
+				u = swap ? (int) k : small;
+				v = swap ? small : (int) k;
+			}
+
+			list.sources[e] = u;
+			list.targets[e] = v;
+			list.flags[e] = flags;
+			list.weights[e] = hasEdgeWeight ? randomWeight(rand, edgeWeightMin, edgeWeightMax)
+					: GkaCsr.DEFAULT_WEIGHT;
+			if (hasEdgeName) {
+				list.edgeNames[e] = "e" + e;
+			}
+		});
+
+		return list;
+	}
+
+	/**
+	 * Generate a random flow network on a single thread, see
+	 * {@link #randomNetwork(int, int, int, int, long, int)}.
+	 *
+	 * @param nodeNum
+	 *            Number of nodes.
+	 * @param edgeNum
+	 *            Number of edges.
+	 * @param edgeWeightMin
+	 *            The minimum weight of an edge.
+	 * @param edgeWeightMax
+	 *            The maximum weight of an edge.
+	 * @param seed
+	 *            Seed for random generator.
+	 * @return A GkaEdgeList object that model a flow network.
+	 */
+	public static GkaEdgeList randomNetwork(int nodeNum, int edgeNum, int edgeWeightMin, int edgeWeightMax,
+			long seed) {
+		return randomNetwork(nodeNum, edgeNum, edgeWeightMin, edgeWeightMax, seed, 1);
+	}
+
+	/**
+	 * Generate a random flow network with exactly the given number of nodes and
+	 * edges, with the rules of
+	 * {@link GkaUtils#generateNetwork(int, int, int, int, Integer)}: source and
+	 * sink are the nodes with index 0 and (nodeNum - 1), all edges are directed,
+	 * no edge goes from the sink or to the source, no two nodes are connected
+	 * twice and every node can be reached from the source.<br>
+	 * The first (nodeNum - 1) edges form a random recursive tree from the source,
+	 * the remaining edges are drawn from the other node pairs.
+	 *
+	 * @param nodeNum
+	 *            Number of nodes.
+	 * @param edgeNum
+	 *            Number of edges.
+	 * @param edgeWeightMin
+	 *            The minimum weight of an edge.
+	 * @param edgeWeightMax
+	 *            The maximum weight of an edge.
+	 * @param seed
+	 *            Seed for random generator.
+	 * @param threadNr
+	 *            Number of threads.
+	 * @return A GkaEdgeList object that model a flow network.
+	 */
+	public static GkaEdgeList randomNetwork(int nodeNum, int edgeNum, int edgeWeightMin, int edgeWeightMax, long seed,
+			int threadNr) {
+		if (nodeNum < 0 || edgeNum < 0) {
+			throw new IllegalArgumentException("Number of nodes and edges must be positive.");
+		}
+
+		// edgeNum >= nodeNum - 1, so that the graph could be connected
+		if (edgeNum < nodeNum - 1) {
+			throw new IllegalArgumentException(
+					"Cannot create network, because the to be created graph is not connected.");
+		}
+
+		// need at least 2 nodes to make a network (source and sink)
+		if (nodeNum < 2) {
+			throw new IllegalArgumentException("At least two nodes are needed to creat a network.");
+		}
+
+		// maximum number of edges for a graph to be simple
+		long n = nodeNum;
+		if (edgeNum > n * (n - 1) / 2) {
+			throw new IllegalArgumentException("Too many edges. No multi-edge is allowed in a network.");
+		}
+
+		checkWeights(edgeWeightMin, edgeWeightMax);
+
+		GkaEdgeList list = createList(nodeNum, edgeNum, false);
+		byte flags = GkaEdgeList.DIRECTED | GkaEdgeList.WEIGHTED;
+		SplittableRandom rand = new SplittableRandom(seed);
+
+		// random recursive tree, the parent of node v is one of the nodes before it
+		int[] parents = new int[nodeNum];
+		for (int v = 1; v < nodeNum; v++) {
+			int e = v - 1;
+			parents[v] = rand.nextInt(v);
+			list.sources[e] = parents[v];
+			list.targets[e] = v;
+			list.flags[e] = flags;
+			list.weights[e] = randomWeight(rand, edgeWeightMin, edgeWeightMax);
+		}
+
+		// each block v of pairs (u, v) with u < v holds v - 1 pairs that aren't tree
+		// edges, so pair ranks without the tree are v' * (v' - 1) / 2 + offset with
+		// v' = v - 1
+		long rankNr = n * (n - 1) / 2 - (n - 1);
+		sample(rankNr, edgeNum - (nodeNum - 1), nodeNum - 1, rand, threadNr, (e, rank, r) -> {
+			long k = triangularRoot(rank);
+			int v = (int) k + 1;
+			int u = (int) (rank - k * (k - 1) / 2);
+			if (u >= parents[v]) {
+				u++;
+			}
+
+			// nothing leaves the sink or enters the source
+			boolean forward = u == 0 || v == nodeNum - 1 || r.nextBoolean();
+			list.sources[e] = forward ? u : v;
+			list.targets[e] = forward ? v : u;
+			list.flags[e] = flags;
+			list.weights[e] = randomWeight(r, edgeWeightMin, edgeWeightMax);
+		});
+
+		return list;
+	}
+
+	/**
+	 * Generate a road-like grid: nodes are the crossings of a width x height grid
+	 * with index y * width + x, undirected streets connect horizontal and vertical
+	 * neighbors. Each street is left out with a given probability, which makes
+	 * routes less regular but may disconnect the grid.
+	 *
+	 * @param width
+	 *            Number of crossings per row.
+	 * @param height
+	 *            Number of rows.
+	 * @param removeProbability
+	 *            Probability of a street to be left out, from 0 inclusive to 1
+	 *            exclusive.
+	 * @param edgeWeightMin
+	 *            The minimum length of a street.
+	 * @param edgeWeightMax
+	 *            The maximum length of a street.
+	 * @param seed
+	 *            Seed for random generator.
+	 * @param sink
+	 *            Receiver of the graph.
+	 */
+	public static void grid(int width, int height, double removeProbability, int edgeWeightMin, int edgeWeightMax,
+			long seed, GkaEdgeSink sink) {
+		if (width < 1 || height < 1 || (long) width * height > Integer.MAX_VALUE) {
+			throw new IllegalArgumentException("Invalid grid size.");
+		}
+		if (!(removeProbability >= 0 && removeProbability < 1)) {
+			throw new IllegalArgumentException("Probability must be at least 0 and less than 1.");
+		}
+		checkWeights(edgeWeightMin, edgeWeightMax);
+
+		SplittableRandom rand = new SplittableRandom(seed);
+		sink.begin(width * height);
+		for (int y = 0; y < height; y++) {
+			for (int x = 0; x < width; x++) {
+				int i = y * width + x;
+				if (x + 1 < width && rand.nextDouble() >= removeProbability) {
+					sink.edge(i, i + 1, false, true, randomWeight(rand, edgeWeightMin, edgeWeightMax));
+				}
+				if (y + 1 < height && rand.nextDouble() >= removeProbability) {
+					sink.edge(i, i + width, false, true, randomWeight(rand, edgeWeightMin, edgeWeightMax));
+				}
+			}
+		}
+		sink.end();
+	}
+
+	/**
+	 * Generate an R-MAT graph with the Graph500 parameters a = 0.57, b = c = 0.19,
+	 * see {@link #rmat(int, int, double, double, double, boolean, int, int, long, GkaEdgeSink)}.
+	 *
+	 * @param scale
+	 *            The graph has 2^scale nodes.
+	 * @param edgeNum
+	 *            Number of edges.
+	 * @param isDirected
+	 *            Whether graph is directed.
+	 * @param edgeWeightMin
+	 *            The minimum weight of an edge.
+	 * @param edgeWeightMax
+	 *            The maximum weight of an edge.
+	 * @param seed
+	 *            Seed for random generator.
+	 * @param sink
+	 *            Receiver of the graph.
+	 */
+	public static void rmat(int scale, int edgeNum, boolean isDirected, int edgeWeightMin, int edgeWeightMax,
+			long seed, GkaEdgeSink sink) {
+		rmat(scale, edgeNum, 0.57, 0.19, 0.19, isDirected, edgeWeightMin, edgeWeightMax, seed, sink);
+	}
+
+	/**
+	 * Generate an R-MAT (recursive matrix, a stochastic Kronecker graph) graph
+	 * with a power-law degree distribution. Each edge picks one quadrant of the
+	 * adjacency matrix per bit of the node indices with probabilities a (top
+	 * left), b (top right), c (bottom left) and 1 - a - b - c. Like in the
+	 * original model, loops and multi-edges are kept. There are no weights if
+	 * edgeWeightMin is greater than edgeWeightMax.
+	 *
+	 * @param scale
+	 *            The graph has 2^scale nodes.
+	 * @param edgeNum
+	 *            Number of edges.
+	 * @param a
+	 *            Probability of the top left quadrant.
+	 * @param b
+	 *            Probability of the top right quadrant.
+	 * @param c
+	 *            Probability of the bottom left quadrant.
+	 * @param isDirected
+	 *            Whether graph is directed.
+	 * @param edgeWeightMin
+	 *            The minimum weight of an edge.
+	 * @param edgeWeightMax
+	 *            The maximum weight of an edge.
+	 * @param seed
+	 *            Seed for random generator.
+	 * @param sink
+	 *            Receiver of the graph.
+	 */
+	public static void rmat(int scale, int edgeNum, double a, double b, double c, boolean isDirected,
+			int edgeWeightMin, int edgeWeightMax, long seed, GkaEdgeSink sink) {
+		if (scale < 0 || scale > 30 || edgeNum < 0) {
+			throw new IllegalArgumentException("Scale must be from 0 to 30, number of edges must be positive.");
+		}
+		if (a < 0 || b < 0 || c < 0 || a + b + c > 1) {
+			throw new IllegalArgumentException("Invalid quadrant probabilities.");
+		}
+
+		SplittableRandom rand = new SplittableRandom(seed);
+		boolean hasEdgeWeight = edgeWeightMin <= edgeWeightMax;
+		double ab = a + b;
+		double abc = a + b + c;
+
+		sink.begin(1 << scale);
+		for (int e = 0; e < edgeNum; e++) {
+			int u = 0;
+			int v = 0;
+			for (int bit = 1 << scale >>> 1; bit != 0; bit >>>= 1) {
+				double r = rand.nextDouble();
+				if (r >= abc) {
+					u |= bit;
+					v |= bit;
+				} else if (r >= ab) {
+					u |= bit;
+				} else if (r >= a) {
+					v |= bit;
+				}
+			}
+			sink.edge(u, v, isDirected, hasEdgeWeight,
+					hasEdgeWeight ? randomWeight(rand, edgeWeightMin, edgeWeightMax) : GkaCsr.DEFAULT_WEIGHT);
+		}
+		sink.end();
+	}
+
+	/**
+	 * Generate a Barabasi-Albert graph by preferential attachment. Node m is
+	 * connected to the nodes 0 to (m - 1), every later node to m distinct earlier
+	 * nodes chosen with probability proportional to their degree. Edges are
+	 * undirected, there are no weights if edgeWeightMin is greater than
+	 * edgeWeightMax.
+	 *
+	 * @param nodeNum
+	 *            Number of nodes.
+	 * @param m
+	 *            Number of edges of each new node.
+	 * @param edgeWeightMin
+	 *            The minimum weight of an edge.
+	 * @param edgeWeightMax
+	 *            The maximum weight of an edge.
+	 * @param seed
+	 *            Seed for random generator.
+	 * @param sink
+	 *            Receiver of the graph.
+	 */
+	public static void barabasiAlbert(int nodeNum, int m, int edgeWeightMin, int edgeWeightMax, long seed,
+			GkaEdgeSink sink) {
+		if (m < 1 || nodeNum <= m) {
+			throw new IllegalArgumentException("Need at least one edge per node and more nodes than that.");
+		}
+		long endpointNum = 2L * m * (nodeNum - m);
+		if (endpointNum > Integer.MAX_VALUE - 8) {
+			throw new IllegalArgumentException("Too many edges.");
+		}
+
+		SplittableRandom rand = new SplittableRandom(seed);
+		boolean hasEdgeWeight = edgeWeightMin <= edgeWeightMax;
+
+		// every node appears once per incident edge, so a uniform pick from the
+		// endpoints is proportional to the degree
+		int[] endpoints = new int[(int) endpointNum];
+		int count = 0;
+		int[] targets = new int[m];
+
+		sink.begin(nodeNum);
+		for (int v = m; v < nodeNum; v++) {
+			for (int i = 0; i < m; i++) {
+				if (v == m) {
+					targets[i] = i;
+				} else {
+					// distinct targets, m is small compared to the number of candidates
+					int target;
+					do {
+						target = endpoints[rand.nextInt(count)];
+					} while (contains(targets, i, target));
+					targets[i] = target;
+				}
+			}
+
+			for (int i = 0; i < m; i++) {
+				sink.edge(v, targets[i], false, hasEdgeWeight,
+						hasEdgeWeight ? randomWeight(rand, edgeWeightMin, edgeWeightMax) : GkaCsr.DEFAULT_WEIGHT);
+				endpoints[count++] = v;
+				endpoints[count++] = targets[i];
+			}
+		}
+		sink.end();
+	}
+
+	/**
+	 * Generate a layered flow network: the source (index 0) feeds every node of
+	 * the first layer, every node of a layer has edges to fanOut distinct nodes of
+	 * the next layer, always including the node at the same position, and every
+	 * node of the last layer feeds the sink (last index). Node j of layer l has
+	 * index 1 + l * layerWidth + j. All edges are directed with a capacity.
+	 *
+	 * @param layerNum
+	 *            Number of layers.
+	 * @param layerWidth
+	 *            Number of nodes per layer.
+	 * @param fanOut
+	 *            Number of edges from a node to the next layer.
+	 * @param edgeWeightMin
+	 *            The minimum capacity of an edge.
+	 * @param edgeWeightMax
+	 *            The maximum capacity of an edge.
+	 * @param seed
+	 *            Seed for random generator.
+	 * @param sink
+	 *            Receiver of the graph.
+	 */
+	public static void layeredNetwork(int layerNum, int layerWidth, int fanOut, int edgeWeightMin,
+			int edgeWeightMax, long seed, GkaEdgeSink sink) {
+		if (layerNum < 1 || layerWidth < 1 || (long) layerNum * layerWidth > Integer.MAX_VALUE - 2) {
+			throw new IllegalArgumentException("Invalid number of layers or layer width.");
+		}
+		if (fanOut < 1 || fanOut > layerWidth) {
+			throw new IllegalArgumentException("Fan-out must be from 1 to the layer width.");
+		}
+		checkWeights(edgeWeightMin, edgeWeightMax);
+
+		SplittableRandom rand = new SplittableRandom(seed);
+		int sinkIndex = 1 + layerNum * layerWidth;
+
+		// the other nodes of the next layer, shuffled partially for each node
+		int[] others = new int[layerWidth - 1];
+		for (int i = 0; i < others.length; i++) {
+			others[i] = i;
+		}
+
+		sink.begin(sinkIndex + 1);
+		for (int j = 0; j < layerWidth; j++) {
+			sink.edge(0, 1 + j, true, true, randomWeight(rand, edgeWeightMin, edgeWeightMax));
+		}
+		for (int l = 0; l + 1 < layerNum; l++) {
+			int layerStart = 1 + l * layerWidth;
+			int nextLayerStart = layerStart + layerWidth;
+
+			for (int j = 0; j < layerWidth; j++) {
+				sink.edge(layerStart + j, nextLayerStart + j, true, true,
+						randomWeight(rand, edgeWeightMin, edgeWeightMax));
+
+				for (int i = 0; i < fanOut - 1; i++) {
+					int k = i + rand.nextInt(others.length - i);
+					int other = others[k];
+					others[k] = others[i];
+					others[i] = other;
+
+					int target = other < j ? other : other + 1;
+					sink.edge(layerStart + j, nextLayerStart + target, true, true,
+							randomWeight(rand, edgeWeightMin, edgeWeightMax));
+				}
+			}
+		}
+		for (int j = 0; j < layerWidth; j++) {
+			sink.edge(1 + (layerNum - 1) * layerWidth + j, sinkIndex, true, true,
+					randomWeight(rand, edgeWeightMin, edgeWeightMax));
+		}
+		sink.end();
+	}
+
+	private static boolean contains(int[] values, int length, int value) {
+		for (int i = 0; i < length; i++) {
+			if (values[i] == value) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private static void checkWeights(int edgeWeightMin, int edgeWeightMax) {
+		if (edgeWeightMin > edgeWeightMax) {
+			throw new IllegalArgumentException("Minimum edge weight must be less than or equal maximum edge weight.");
+		}
+	}
+
+	/**
+	 * Create a list with nodes "0" to "(nodeNum - 1)" and room for the edges.
+	 */
+	private static GkaEdgeList createList(int nodeNum, int edgeNum, boolean hasEdgeName) {
+		GkaEdgeList list = new GkaEdgeList(nodeNum, edgeNum);
+		for (int i = 0; i < nodeNum; i++) {
+			list.nodeNames[i] = String.valueOf(i);
+		}
+		list.nodeCount = nodeNum;
+		if (hasEdgeName) {
+			list.edgeNames = new String[list.sources.length];
+		}
+		list.edgeCount = edgeNum;
+		return list;
+	}
+
+	private static int randomWeight(SplittableRandom rand, int edgeWeightMin, int edgeWeightMax) {
+		return rand.nextInt(edgeWeightMax - edgeWeightMin + 1) + edgeWeightMin;
+	}
+
+	/**
+	 * Get k with k * (k - 1) / 2 <= rank < k * (k + 1) / 2.
+	 */
+	static long triangularRoot(long rank) {
+		long k = (long) ((1 + Math.sqrt(1 + 8.0 * rank)) / 2);
+		// correct rounding errors of the square root
+		while (k * (k - 1) / 2 > rank) {
+			k--;
+		}
+		while (k * (k + 1) / 2 <= rank) {
+			k++;
+		}
+		return k;
+	}
+
+	/**
+	 * Receiver of sampled ranks, called once per edge index.
+	 */
+	private interface RankSink {
+		void accept(int edgeIndex, long rank, SplittableRandom rand);
+	}
+
+	/**
+	 * Draw sampleNr distinct ranks from [0, rankNr) stratum by stratum and pass
+	 * them to a sink with the edge indices from edgeOffset on.
+	 */
+	private static void sample(long rankNr, int sampleNr, int edgeOffset, SplittableRandom rand, int threadNr,
+			RankSink sink) {
+		if (threadNr < 1) {
+			throw new IllegalArgumentException("Number of threads must be positive.");
+		}
+
+		int strataNr = Math.max(1, (sampleNr + STRATUM_EDGES - 1) / STRATUM_EDGES);
+		List<Callable<Void>> tasks = new ArrayList<>(strataNr);
+
+		for (int k = 0; k < strataNr; k++) {
+			long rankStart = rankNr / strataNr * k + Math.min(k, rankNr % strataNr);
+			long rankSize = rankNr / strataNr + (k < rankNr % strataNr ? 1 : 0);
+			int sampleStart = sampleNr / strataNr * k + Math.min(k, sampleNr % strataNr);
+			int sampleSize = sampleNr / strataNr + (k < sampleNr % strataNr ? 1 : 0);
+			SplittableRandom stratumRand = rand.split();
+
+			tasks.add(() -> {
+				sampleRange(rankStart, rankSize, sampleSize, edgeOffset + sampleStart, stratumRand, sink);
+				return null;
+			});
+		}
+
+		run(tasks, threadNr);
+	}
+
+	/**
+	 * Partial Fisher-Yates shuffle of [start, start + size) that stops after count
+	 * steps. Only the displaced entries of the virtual array are stored.
+	 */
+	private static void sampleRange(long start, long size, int count, int edgeIndex, SplittableRandom rand,
+			RankSink sink) {
+		LongLongMap swaps = new LongLongMap(count);
+		for (long i = 0; i < count; i++) {
+			long j = i + rand.nextLong(size - i);
+			long value = swaps.get(j, j);
+			swaps.put(j, swaps.get(i, i));
+			sink.accept(edgeIndex++, start + value, rand);
+		}
+	}
+
+	private static void run(List<Callable<Void>> tasks, int threadNr) {
+		try {
+			if (threadNr == 1 || tasks.size() == 1) {
+				for (Callable<Void> task : tasks) {
+					task.call();
+				}
+				return;
+			}
+
+			ExecutorService executor = Executors.newFixedThreadPool(Math.min(threadNr, tasks.size()));
+			try {
+				for (Future<Void> future : executor.invokeAll(tasks)) {
+					future.get();
+				}
+			} finally {
+				executor.shutdownNow();
+			}
+		} catch (ExecutionException e) {
+			if (e.getCause() instanceof RuntimeException) {
+				throw (RuntimeException) e.getCause();
+			}
+			if (e.getCause() instanceof Error) {
+				throw (Error) e.getCause();
+			}
+			throw new IllegalStateException(e.getCause());
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("Generation interrupted.", e);
+		} catch (RuntimeException e) {
+			throw e;
+		} catch (Exception e) {
+			// the tasks don't throw checked exceptions
+			throw new IllegalStateException(e);
+		}
+	}
+
+	/**
+	 * Open addressing hash map from non-negative long keys to long values.
+	 */
+	private static final class LongLongMap {
+		private static final long FREE = -1L;
+
+		private long[] keys;
+		private long[] values;
+		private int size;
+
+		LongLongMap(int expectedSize) {
+			int capacity = 16;
+			while (capacity < expectedSize * 2L && capacity < (1 << 30)) {
+				capacity <<= 1;
+			}
+			keys = new long[capacity];
+			values = new long[capacity];
+			Arrays.fill(keys, FREE);
+		}
+
+		long get(long key, long defaultValue) {
+			int slot = slot(key);
+			return keys[slot] == FREE ? defaultValue : values[slot];
+		}
+
+		void put(long key, long value) {
+			int slot = slot(key);
+			values[slot] = value;
+			if (keys[slot] == FREE) {
+				keys[slot] = key;
+				if (++size * 2 > keys.length) {
+					grow();
+				}
+			}
+		}
+
+		private int slot(long key) {
+			int mask = keys.length - 1;
+			// finalizer of MurmurHash3 to spread neighboring keys
+			long h = key;
+			h ^= h >>> 33;
+			h *= 0xff51afd7ed558ccdL;
+			h ^= h >>> 33;
+			int slot = (int) h & mask;
+			while (keys[slot] != FREE && keys[slot] != key) {
+				slot = (slot + 1) & mask;
+			}
+			return slot;
+		}
+
+		private void grow() {
+			long[] oldKeys = keys;
+			long[] oldValues = values;
+			keys = new long[oldKeys.length * 2];
+			values = new long[oldValues.length * 2];
+			Arrays.fill(keys, FREE);
+			for (int i = 0; i < oldKeys.length; i++) {
+				if (oldKeys[i] != FREE) {
+					int slot = slot(oldKeys[i]);
+					keys[slot] = oldKeys[i];
+					values[slot] = oldValues[i];
+				}
+			}
+		}
+	}
+}
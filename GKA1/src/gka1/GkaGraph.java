@@ -1,5 +1,7 @@
 package gka1;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
@@ -8,6 +10,7 @@ import java.util.UUID;
 import org.graphstream.graph.Edge;
 import org.graphstream.graph.Node;
 import org.graphstream.graph.implementations.MultiGraph;
+import org.graphstream.stream.ElementSink;
 
 /**
  * GkaGraph has useful methods for working with graph's attributes.
@@ -16,18 +19,78 @@ import org.graphstream.graph.implementations.MultiGraph;
  *
  */
 public class GkaGraph extends MultiGraph {
-	// hash map with node names as keys and node ids as values
-	private HashMap<String, String> nodeNameToIdMap;
+	/**
+	 * How ids of nodes and edges are created.
+	 */
+	public enum IdMode {
+		/**
+		 * Random UUID strings, unique across graphs.
+		 */
+		UUID,
+		/**
+		 * Decimal strings of sequential counters, starting with 0 for both nodes
+		 * and edges. Much cheaper to create, store and hash.
+		 */
+		SEQUENTIAL
+	}
+
+	// hash map with node names as keys and node indices as values, rebuilt on
+	// next use once nodes were removed, as removals move other nodes' indices
+	private HashMap<String, Integer> nodeNameToIndexMap;
+	private boolean isNodeMapStale;
+
+	// how ids of nodes and edges are created
+	private final IdMode idMode;
+
+	// next ids in SEQUENTIAL mode
+	private int nextNodeId;
+	private int nextEdgeId;
+
+	// lowest weight between adjacent nodes, built on first use
+	private GkaWeightIndex weightIndex;
+	// whether createEdge adds the current edge to the weight index itself
+	private boolean isCreatingEdge;
 
 	/**
-	 * Constructor for a GkaGraph.
+	 * Constructor for a GkaGraph with UUID ids.
 	 * 
 	 * @param id
 	 *            Id of the graph.
 	 */
 	public GkaGraph(String id) {
-		super(id);
-		this.nodeNameToIdMap = new HashMap<String, String>();
+		this(id, IdMode.UUID);
+	}
+
+	/**
+	 * Constructor for a GkaGraph.
+	 * 
+	 * @param id
+	 *            Id of the graph.
+	 * @param idMode
+	 *            How ids of nodes and edges are created.
+	 */
+	public GkaGraph(String id, IdMode idMode) {
+		this(id, idMode, DEFAULT_NODE_CAPACITY, DEFAULT_EDGE_CAPACITY);
+	}
+
+	/**
+	 * Constructor for a GkaGraph with initial capacities, useful when the size of
+	 * the graph is known in advance.
+	 * 
+	 * @param id
+	 *            Id of the graph.
+	 * @param idMode
+	 *            How ids of nodes and edges are created.
+	 * @param initialNodeCapacity
+	 *            Expected number of nodes.
+	 * @param initialEdgeCapacity
+	 *            Expected number of edges.
+	 */
+	public GkaGraph(String id, IdMode idMode, int initialNodeCapacity, int initialEdgeCapacity) {
+		super(id, true, false, initialNodeCapacity, initialEdgeCapacity);
+		this.idMode = idMode;
+		this.nodeNameToIndexMap = new HashMap<String, Integer>(Math.max(16, initialNodeCapacity * 4 / 3 + 1));
+		this.addElementSink(new IndexSink());
 	}
 
 	/**
@@ -39,19 +102,82 @@ public class GkaGraph extends MultiGraph {
 	 * @return Id of that node.
 	 */
 	public String createNode(String nodeName) {
-		String nodeId;
+		return this.getNode(createNodeIndex(nodeName)).getId();
+	}
+
+	/**
+	 * Create a new node with a given name. If name exists in the hash map, the
+	 * method just retrieves the index of the created node. Node indices are dense
+	 * as long as no node is removed.
+	 * 
+	 * @param nodeName
+	 *            Name of a node.
+	 * @return Index of that node.
+	 */
+	public int createNodeIndex(String nodeName) {
+		Integer nodeIndex = getNodeNameToIndexMap().get(nodeName);
 
-		if (!nodeNameToIdMap.containsKey(nodeName)) {
-			nodeId = createStringId();
-			this.addNode(nodeId);
-			Node node1 = this.getNode(nodeId);
+		if (nodeIndex == null) {
+			Node node1 = this.addNode(nextNodeId());
 			node1.addAttribute("name", nodeName);
-			nodeNameToIdMap.put(nodeName, nodeId);
-		} else {
-			nodeId = nodeNameToIdMap.get(nodeName);
+			nodeIndex = node1.getIndex();
+			nodeNameToIndexMap.put(nodeName, nodeIndex);
 		}
 
-		return nodeId;
+		return nodeIndex;
+	}
+
+	/**
+	 * Get the index of a node by its name.
+	 * 
+	 * @param nodeName
+	 *            Name of a node.
+	 * @return Index of that node or -1 if there is no node with that name.
+	 */
+	public int getNodeIndex(String nodeName) {
+		Integer nodeIndex = getNodeNameToIndexMap().get(nodeName);
+		return nodeIndex != null ? nodeIndex : -1;
+	}
+
+	/**
+	 * Check if a node with a given name exists.
+	 * 
+	 * @param nodeName
+	 *            Name of a node.
+	 * @return true if the node exists.
+	 */
+	public boolean hasNodeName(String nodeName) {
+		return getNodeNameToIndexMap().containsKey(nodeName);
+	}
+
+	private HashMap<String, Integer> getNodeNameToIndexMap() {
+		if (isNodeMapStale) {
+			nodeNameToIndexMap.clear();
+			for (Node node : this.getEachNode()) {
+				if (node.hasAttribute("name")) {
+					nodeNameToIndexMap.putIfAbsent(node.getAttribute("name").toString(), node.getIndex());
+				}
+			}
+			isNodeMapStale = false;
+		}
+		return nodeNameToIndexMap;
+	}
+
+	/**
+	 * Get the id mode of the graph.
+	 * 
+	 * @return How ids of nodes and edges are created.
+	 */
+	public IdMode getIdMode() {
+		return idMode;
+	}
+
+	private String nextNodeId() {
+		return idMode == IdMode.SEQUENTIAL ? Integer.toString(nextNodeId++) : createStringId();
+	}
+
+	private String nextEdgeId() {
+		return idMode == IdMode.SEQUENTIAL ? Integer.toString(nextEdgeId++) : createStringId();
 	}
 
 	/**
@@ -69,58 +195,95 @@ public class GkaGraph extends MultiGraph {
 	 *            Weight of the edge.
 	 */
 	public void createEdge(String nodeName1, String nodeName2, String isDirected, String edgeName, String edgeWeight) {
+		if (nodeName2 != null && !isDirected.equals("--") && !isDirected.equals("->")) {
+			// create only node 1 for an unknown direction
+			this.createNodeIndex(nodeName1);
+			return;
+		}
+
+		createEdge(nodeName1, nodeName2, "->".equals(isDirected), edgeName,
+				edgeWeight != null ? Integer.valueOf(edgeWeight) : null);
+	}
+
+	/**
+	 * Create an edge without parsing its direction and weight. If there's no node
+	 * 2, a single node is created.
+	 * 
+	 * @param nodeName1
+	 *            Name of node 1.
+	 * @param nodeName2
+	 *            Name of node 2.
+	 * @param isDirected
+	 *            Whether the edge is directed.
+	 * @param edgeName
+	 *            Name of the edge, may be null.
+	 * @param edgeWeight
+	 *            Weight of the edge, may be null.
+	 */
+	public void createEdge(String nodeName1, String nodeName2, boolean isDirected, String edgeName,
+			Integer edgeWeight) {
 		// create or get node 1
-		String nodeId1 = this.createNode(nodeName1);
+		int nodeIndex1 = this.createNodeIndex(nodeName1);
 
 		if (nodeName2 != null) {
-			// create or get node 2
-			String nodeId2 = this.createNode(nodeName2);
-
-			// create edge
-			String edgeId = GkaGraph.createStringId();
+			// create or get node 2 and the edge
+			createEdge(nodeIndex1, this.createNodeIndex(nodeName2), isDirected, edgeName, edgeWeight);
+		}
+	}
 
-			if (isDirected.equals("--")) {
-				this.addEdge(edgeId, nodeId1, nodeId2, false);
-			} else if (isDirected.equals("->")) {
-				this.addEdge(edgeId, nodeId1, nodeId2, true);
-			}
+	/**
+	 * Create an edge between two existing nodes given by their indices.
+	 * 
+	 * @param nodeIndex1
+	 *            Index of node 1.
+	 * @param nodeIndex2
+	 *            Index of node 2.
+	 * @param isDirected
+	 *            Whether the edge is directed.
+	 * @param edgeName
+	 *            Name of the edge, may be null.
+	 * @param edgeWeight
+	 *            Weight of the edge, may be null.
+	 */
+	public void createEdge(int nodeIndex1, int nodeIndex2, boolean isDirected, String edgeName, Integer edgeWeight) {
+		// create edge
+		isCreatingEdge = true;
+		Edge edge;
+		try {
+			edge = this.addEdge(nextEdgeId(), nodeIndex1, nodeIndex2, isDirected);
+		} finally {
+			isCreatingEdge = false;
+		}
 
-			// add edge's attributes
-			Edge edge = this.getEdge(edgeId);
+		// add edge's attributes
+		if (edgeName != null) {
+			edge.addAttribute("name", edgeName);
+		}
 
-			if (edgeName != null) {
-				edge.addAttribute("name", edgeName);
-			}
+		int weight = GkaCsr.DEFAULT_WEIGHT;
+		if (edgeWeight != null) {
+			weight = edgeWeight;
+			edge.addAttribute("weight", edgeWeight);
+		}
 
-			if (edgeWeight != null) {
-				edge.addAttribute("weight", Integer.valueOf(edgeWeight));
+		// keep the weight index up to date
+		if (weightIndex != null) {
+			weightIndex.add(nodeIndex1, nodeIndex2, weight);
+			if (!isDirected) {
+				weightIndex.add(nodeIndex2, nodeIndex1, weight);
 			}
 		}
 	}
 
 	/**
 	 * Add labels to nodes and edges.
+	 * 
+	 * @deprecated Visualization lives in {@link GkaViewer}, use
+	 *             {@link GkaViewer#addLabels(GkaGraph)}.
 	 */
+	@Deprecated
 	public void addLabels() {
-		// add labels to nodes
-		for (Node node : this) {
-			node.addAttribute("label", node.getAttribute("name").toString());
-		}
-
-		// add labels to edges
-		for (Edge edge : this.getEachEdge()) {
-			ArrayList<String> edgeProps = new ArrayList<>();
-
-			if (edge.hasAttribute("name")) {
-				edgeProps.add(edge.getAttribute("name"));
-			}
-
-			if (edge.hasAttribute("weight")) {
-				edgeProps.add(edge.getAttribute("weight").toString());
-			}
-
-			edge.addAttribute("label", String.join(" : ", edgeProps));
-		}
+		GkaViewer.addLabels(this);
 	}
 
 	/**
@@ -131,33 +294,46 @@ public class GkaGraph extends MultiGraph {
 	 *         properties.
 	 */
 	public String getEdgesString() {
-		String str = "";
+		StringBuilder sb = new StringBuilder();
+		try {
+			writeEdges(sb);
+		} catch (IOException e) {
+			// a StringBuilder doesn't throw
+			throw new UncheckedIOException(e);
+		}
+		return sb.toString();
+	}
 
+	/**
+	 * Write all edges with properties in GKA format, one line per edge in the
+	 * order of the edge indices.
+	 * 
+	 * @param out
+	 *            Destination of the lines, e.g. a buffered Writer.
+	 * @throws IOException
+	 *             if an I/O exception occurs
+	 */
+	public void writeEdges(Appendable out) throws IOException {
 		for (Edge edge : this.getEachEdge()) {
 			// add name of node 1
-			str += edge.getNode0().getAttribute("name");
+			out.append(String.valueOf(edge.getNode0().getAttribute("name", Object.class)));
 
 			// add direction
-			if (edge.isDirected()) {
-				str += " -> " + edge.getNode1().getAttribute("name");
-			} else {
-				str += " -- " + edge.getNode1().getAttribute("name");
-			}
+			out.append(edge.isDirected() ? " -> " : " -- ");
+			out.append(String.valueOf(edge.getNode1().getAttribute("name", Object.class)));
 
 			// add name of edge
 			if (edge.hasAttribute("name")) {
-				str += " (" + edge.getAttribute("name") + ")";
+				out.append(" (").append(String.valueOf(edge.getAttribute("name", Object.class))).append(')');
 			}
 
 			// add weight of edge
 			if (edge.hasAttribute("weight")) {
-				str += " : " + edge.getAttribute("weight");
+				out.append(" : ").append(String.valueOf(edge.getAttribute("weight", Object.class)));
 			}
 
-			str += ";\n";
+			out.append(";\n");
 		}
-
-		return str;
 	}
 
 	/**
@@ -166,15 +342,31 @@ public class GkaGraph extends MultiGraph {
 	 * @return String presentation in GKA format of all single nodes.
 	 */
 	public String getSingleNodesString() {
-		String str = "";
+		StringBuilder sb = new StringBuilder();
+		try {
+			writeSingleNodes(sb);
+		} catch (IOException e) {
+			// a StringBuilder doesn't throw
+			throw new UncheckedIOException(e);
+		}
+		return sb.toString();
+	}
 
+	/**
+	 * Write all single nodes in GKA format, one line per node in the order of the
+	 * node indices.
+	 * 
+	 * @param out
+	 *            Destination of the lines, e.g. a buffered Writer.
+	 * @throws IOException
+	 *             if an I/O exception occurs
+	 */
+	public void writeSingleNodes(Appendable out) throws IOException {
 		for (Node node : this.getEachNode()) {
 			if (node.getDegree() == 0) {
-				str += node.getAttribute("name") + ";\n";
+				out.append(String.valueOf(node.getAttribute("name", Object.class))).append(";\n");
 			}
 		}
-
-		return str;
 	}
 
 	/**
@@ -225,23 +417,97 @@ public class GkaGraph extends MultiGraph {
 	 * @return The lowest weight between 2 adjacent nodes.
 	 */
 	public double getShortestDist(Node sourceNode, Node targetNode) {
-		double min = Double.POSITIVE_INFINITY;
-		for (Edge edge : sourceNode.getEachEdge()) {
- 			if (sourceNode.hasEdgeToward(targetNode) && sourceNode.getEdgeToward(targetNode).equals(edge)) {				
- 				if (Double.valueOf(edge.getAttribute("weight").toString()) < min) {
- 					min = Double.valueOf(edge.getAttribute("weight").toString());
- 				}
- 			}
- 		}
-		
-		return min;
+		return getShortestDist(sourceNode.getIndex(), targetNode.getIndex());
+	}
+
+	/**
+	 * Get the lowest weight on edges from one node to another in constant time.
+	 * Edges without weight count as {@link GkaCsr#DEFAULT_WEIGHT}.
+	 * 
+	 * @param sourceIndex
+	 *            Index of the source node.
+	 * @param targetIndex
+	 *            Index of the target node.
+	 * @return The lowest weight between 2 adjacent nodes, infinity if they are
+	 *         not adjacent.
+	 */
+	public double getShortestDist(int sourceIndex, int targetIndex) {
+		return getWeightIndex().getDistance(sourceIndex, targetIndex);
+	}
+
+	/**
+	 * Get the index of the lowest weight between adjacent nodes. It's built from
+	 * the edges on first use and kept up to date by the createEdge methods. Any
+	 * other added or removed edge or node drops it, so it's built again on next
+	 * use. Weights changed on existing edges need a
+	 * {@link #rebuildWeightIndex()}.
+	 * 
+	 * @return The weight index of the graph.
+	 */
+	public GkaWeightIndex getWeightIndex() {
+		if (weightIndex == null) {
+			weightIndex = GkaWeightIndex.of(GkaCsr.of(this));
+		}
+		return weightIndex;
+	}
+
+	/**
+	 * Rebuild the weight index from the current edges.
+	 */
+	public void rebuildWeightIndex() {
+		weightIndex = null;
+		getWeightIndex();
+	}
+
+	/**
+	 * Keeps the name lookup and the weight index in sync with changes by the
+	 * inherited methods. Events arrive before the graph changes, so the map is
+	 * only marked stale and the index dropped.
+	 */
+	private final class IndexSink implements ElementSink {
+		@Override
+		public void nodeAdded(String sourceId, long timeId, String nodeId) {
+		}
+
+		@Override
+		public void nodeRemoved(String sourceId, long timeId, String nodeId) {
+			isNodeMapStale = true;
+			weightIndex = null;
+		}
+
+		@Override
+		public void edgeAdded(String sourceId, long timeId, String edgeId, String fromNodeId, String toNodeId,
+				boolean directed) {
+			if (!isCreatingEdge) {
+				weightIndex = null;
+			}
+		}
+
+		@Override
+		public void edgeRemoved(String sourceId, long timeId, String edgeId) {
+			weightIndex = null;
+		}
+
+		@Override
+		public void graphCleared(String sourceId, long timeId) {
+			isNodeMapStale = true;
+			weightIndex = null;
+		}
+
+		@Override
+		public void stepBegins(String sourceId, long timeId, double step) {
+		}
 	}
 
 	/**
 	 * Beautify the graph with default stylesheet.
+	 * 
+	 * @deprecated Visualization lives in {@link GkaViewer}, use
+	 *             {@link GkaViewer#beautify(GkaGraph)}.
 	 */
+	@Deprecated
 	public void beautify() {
-		beautify("defaultStylesheet");
+		GkaViewer.beautify(this);
 	}
 
 	/**
@@ -249,17 +515,11 @@ public class GkaGraph extends MultiGraph {
 	 * 
 	 * @param stylesheetName
 	 *            Name of the stylesheet.
+	 * @deprecated Visualization lives in {@link GkaViewer}, use
+	 *             {@link GkaViewer#beautify(GkaGraph, String)}.
 	 */
+	@Deprecated
 	public void beautify(String stylesheetName) {
-		// set stylesheet
-		String stylesheetPath = System.getProperty("user.dir") + "/stylesheet/" + stylesheetName;
-		this.addAttribute("ui.stylesheet", "url('file:///" + stylesheetPath + "')");
-
-		// improve viewing quality
-		this.addAttribute("ui.quality");
-		this.addAttribute("ui.antialias");
-
-		// add labels to nodes and edges
-		this.addLabels();
+		GkaViewer.beautify(this, stylesheetName);
 	}
 }
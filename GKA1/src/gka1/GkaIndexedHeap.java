@@ -0,0 +1,234 @@
+package gka1;
+
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+
+/**
+ * Indexed d-ary min heap of the ids 0 to (capacity - 1) with double keys. The
+ * position of each id in the heap is kept, so contains, getKey and decreaseKey
+ * cost O(1) resp. O(log n) instead of a linear search, and an id is in the heap
+ * at most once. The heap has arity {@value #ARITY}, which makes it shallower
+ * than a binary heap, so a sift-down needs fewer levels and swaps.<br>
+ * All arrays are allocated by the constructor, the operations allocate nothing.
+ *
+ * @author Huy Tran PC
+ *
+ */
+public final class GkaIndexedHeap {
+	/**
+	 * Number of children of a heap node.
+	 */
+	public static final int ARITY = 4;
+
+	// ids in heap order, position of each id (-1 if absent) and key of each id
+	private final int[] heap;
+	private final int[] positions;
+	private final double[] keys;
+	private int size;
+
+	/**
+	 * Constructor for an empty GkaIndexedHeap.
+	 *
+	 * @param capacity
+	 *            Number of ids, ids range from 0 to (capacity - 1).
+	 */
+	public GkaIndexedHeap(int capacity) {
+		this.heap = new int[capacity];
+		this.positions = new int[capacity];
+		this.keys = new double[capacity];
+		Arrays.fill(positions, -1);
+	}
+
+	/**
+	 * Get the number of ids in the heap.
+	 *
+	 * @return Number of ids.
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * Check if the heap is empty.
+	 *
+	 * @return Whether there is no id in the heap.
+	 */
+	public boolean isEmpty() {
+		return size == 0;
+	}
+
+	/**
+	 * Check if an id is in the heap.
+	 *
+	 * @param id
+	 *            The id.
+	 * @return Whether the id is in the heap.
+	 */
+	public boolean contains(int id) {
+		return positions[id] >= 0;
+	}
+
+	/**
+	 * Get the key of an id in the heap.
+	 *
+	 * @param id
+	 *            An id in the heap.
+	 * @return Key of the id.
+	 */
+	public double getKey(int id) {
+		if (positions[id] < 0) {
+			throw new NoSuchElementException("Id not in heap.");
+		}
+		return keys[id];
+	}
+
+	/**
+	 * Insert an id that isn't in the heap.
+	 *
+	 * @param id
+	 *            The id.
+	 * @param key
+	 *            Key of the id.
+	 */
+	public void insert(int id, double key) {
+		if (positions[id] >= 0) {
+			throw new IllegalArgumentException("Id already in heap.");
+		}
+		keys[id] = key;
+		positions[id] = size;
+		heap[size] = id;
+		siftUp(size++);
+	}
+
+	/**
+	 * Lower the key of an id in the heap.
+	 *
+	 * @param id
+	 *            An id in the heap.
+	 * @param key
+	 *            New key, not greater than the current one.
+	 */
+	public void decreaseKey(int id, double key) {
+		int position = positions[id];
+		if (position < 0) {
+			throw new NoSuchElementException("Id not in heap.");
+		}
+		if (key > keys[id]) {
+			throw new IllegalArgumentException("Key must not increase.");
+		}
+		keys[id] = key;
+		siftUp(position);
+	}
+
+	/**
+	 * Insert an id or lower its key if it's in the heap with a greater key.
+	 *
+	 * @param id
+	 *            The id.
+	 * @param key
+	 *            Key of the id.
+	 */
+	public void insertOrDecrease(int id, double key) {
+		int position = positions[id];
+		if (position < 0) {
+			insert(id, key);
+		} else if (key < keys[id]) {
+			keys[id] = key;
+			siftUp(position);
+		}
+	}
+
+	/**
+	 * Get the id with the smallest key without removing it.
+	 *
+	 * @return Id with the smallest key.
+	 */
+	public int peek() {
+		if (size == 0) {
+			throw new NoSuchElementException("Heap is empty.");
+		}
+		return heap[0];
+	}
+
+	/**
+	 * Remove the id with the smallest key.
+	 *
+	 * @return Id with the smallest key.
+	 */
+	public int poll() {
+		if (size == 0) {
+			throw new NoSuchElementException("Heap is empty.");
+		}
+
+		int top = heap[0];
+		positions[top] = -1;
+		size--;
+		if (size > 0) {
+			int last = heap[size];
+			heap[0] = last;
+			positions[last] = 0;
+			siftDown(0);
+		}
+		return top;
+	}
+
+	/**
+	 * Remove all ids, in O(size) instead of O(capacity).
+	 */
+	public void clear() {
+		for (int i = 0; i < size; i++) {
+			positions[heap[i]] = -1;
+		}
+		size = 0;
+	}
+
+	private void siftUp(int position) {
+		int id = heap[position];
+		double key = keys[id];
+		while (position > 0) {
+			int parentPosition = (position - 1) / ARITY;
+			int parent = heap[parentPosition];
+			if (keys[parent] <= key) {
+				break;
+			}
+			heap[position] = parent;
+			positions[parent] = position;
+			position = parentPosition;
+		}
+		heap[position] = id;
+		positions[id] = position;
+	}
+
+	private void siftDown(int position) {
+		int id = heap[position];
+		double key = keys[id];
+		while (true) {
+			int firstChild = position * ARITY + 1;
+			if (firstChild >= size) {
+				break;
+			}
+
+			// smallest child
+			int minPosition = firstChild;
+			double minKey = keys[heap[firstChild]];
+			int lastChild = Math.min(firstChild + ARITY, size);
+			for (int child = firstChild + 1; child < lastChild; child++) {
+				double childKey = keys[heap[child]];
+				if (childKey < minKey) {
+					minKey = childKey;
+					minPosition = child;
+				}
+			}
+
+			if (minKey >= key) {
+				break;
+			}
+			int minId = heap[minPosition];
+			heap[position] = minId;
+			positions[minId] = position;
+			position = minPosition;
+		}
+		heap[position] = id;
+		positions[id] = position;
+	}
+}
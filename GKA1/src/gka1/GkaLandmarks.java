@@ -0,0 +1,377 @@
+package gka1;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+/**
+ * Landmark distance tables of a CSR snapshot for A* with landmarks (ALT). For a
+ * landmark L the triangle inequality gives the lower bounds d(L, t) - d(L, v)
+ * and d(v, L) - d(t, L) of the cost d(v, t), the heuristic of a node is the
+ * greatest bound over all landmarks. Landmarks are picked greedily, each is the
+ * node farthest from the ones picked before, so they lie at the border of the
+ * graph where the bounds are tight.<br>
+ * The costs from and to each landmark are kept in int arrays with the
+ * landmarks of a node next to each other, {@link #UNREACHABLE} marks missing
+ * paths. A node that reaches a landmark the end can't reach, or is missed by a
+ * landmark the end is reached by, can't reach the end at all. Tables are
+ * immutable and can be shared by several threads.<br>
+ * Binary layout of saved tables, integers are big-endian: magic "GKAL" (4
+ * bytes), version (1 byte), undirected flag (1 byte), number of nodes, arcs and
+ * landmarks, the content hash of the snapshot (8 bytes), the landmark indices,
+ * the costs from the landmarks and, unless the snapshot is undirected, the
+ * costs to them.
+ *
+ * @author Huy Tran PC
+ *
+ */
+public final class GkaLandmarks {
+	/**
+	 * Current version of the file format.
+	 */
+	public static final int VERSION = 2;
+	/**
+	 * Table entry of a node that has no path from resp. to a landmark.
+	 */
+	public static final int UNREACHABLE = Integer.MAX_VALUE;
+
+	private static final byte[] MAGIC = { 'G', 'K', 'A', 'L' };
+	private static final int BUFFER_SIZE = 1 << 16;
+
+	private final GkaCsr csr;
+	private final int[] landmarks;
+	// cost from resp. to landmark i of node v at v * landmarkCount + i
+	final int[] fromDists;
+	final int[] toDists;
+
+	private GkaLandmarks(GkaCsr csr, int[] landmarks, int[] fromDists, int[] toDists) {
+		this.csr = csr;
+		this.landmarks = landmarks;
+		this.fromDists = fromDists;
+		this.toDists = toDists;
+	}
+
+	/**
+	 * Pick landmarks of a CSR snapshot and compute their distance tables. Each
+	 * landmark costs a Dijkstra search on the snapshot and, for directed
+	 * snapshots, one on its transpose.
+	 *
+	 * @param csr
+	 *            A CSR snapshot with at least one node to work with, weights
+	 *            must not be negative.
+	 * @param landmarkCount
+	 *            Number of landmarks, at most the number of nodes are used.
+	 * @param seed
+	 *            Seed of the random node the first landmark is farthest from.
+	 * @return The landmark tables of the snapshot.
+	 */
+	public static GkaLandmarks build(GkaCsr csr, int landmarkCount, long seed) {
+		int nodeNr = csr.getNodeCount();
+		int k = Math.min(landmarkCount, nodeNr);
+		if (landmarkCount < 1) {
+			throw new IllegalArgumentException("At least one landmark needed.");
+		}
+		if (nodeNr == 0) {
+			throw new IllegalArgumentException("Landmarks need a graph with nodes.");
+		}
+		if ((long) nodeNr * k > Integer.MAX_VALUE - 8) {
+			throw new IllegalArgumentException("Too many landmarks for graph.");
+		}
+		if (csr.getMinWeight() < 0) {
+			throw new IllegalArgumentException("Landmarks need non-negative weights.");
+		}
+
+		GkaCsr transposed = csr.transpose();
+		boolean isUndirected = transposed == csr;
+		int[] landmarks = new int[k];
+		int[] fromDists = new int[nodeNr * k];
+		int[] toDists = isUndirected ? fromDists : new int[nodeNr * k];
+		GkaDijkstraWorkspace workspace = new GkaDijkstraWorkspace(nodeNr);
+
+		// smallest cost from the picked landmarks, -1 for unreached nodes
+		double[] minDists = new double[nodeNr];
+		Arrays.fill(minDists, -1);
+
+		// the first landmark is the node farthest from a random one
+		AlgoDijkstra.shortestPathTree(csr, new SplittableRandom(seed).nextInt(nodeNr), workspace);
+		int next = farthest(workspace, nodeNr);
+
+		for (int i = 0; i < k; i++) {
+			landmarks[i] = next;
+			AlgoDijkstra.shortestPathTree(csr, next, workspace);
+			fill(workspace, fromDists, i, k, nodeNr);
+			for (int n = 0; n < nodeNr; n++) {
+				double dist = workspace.getDistance(n);
+				if (dist != Double.POSITIVE_INFINITY && (minDists[n] < 0 || dist < minDists[n])) {
+					minDists[n] = dist;
+				}
+			}
+			if (!isUndirected) {
+				AlgoDijkstra.shortestPathTree(transposed, next, workspace);
+				fill(workspace, toDists, i, k, nodeNr);
+			}
+			next = farthest(minDists);
+		}
+
+		return new GkaLandmarks(csr, landmarks, fromDists, toDists);
+	}
+
+	/**
+	 * Load landmark tables of a CSR snapshot.
+	 *
+	 * @param path
+	 *            Path of the landmark file.
+	 * @param csr
+	 *            The snapshot the tables were built for.
+	 * @return The landmark tables.
+	 * @throws IOException
+	 *             if an I/O exception occurs, the file isn't a landmark file or
+	 *             was built for another snapshot
+	 */
+	public static GkaLandmarks load(Path path, GkaCsr csr) throws IOException {
+		try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+			long size = channel.size();
+			if (size > Integer.MAX_VALUE) {
+				throw new IOException("Landmark file too large for a single mapping: " + size + " bytes.");
+			}
+			return read(channel.map(FileChannel.MapMode.READ_ONLY, 0, size), csr);
+		}
+	}
+
+	private static GkaLandmarks read(ByteBuffer buffer, GkaCsr csr) throws IOException {
+		try {
+			// header
+			for (byte b : MAGIC) {
+				if (buffer.get() != b) {
+					throw new IOException("Not a GKA landmark file.");
+				}
+			}
+			int version = buffer.get() & 0xFF;
+			if (version != VERSION) {
+				throw new IOException("Unsupported GKA landmark version: " + version);
+			}
+			boolean isUndirected = buffer.get() != 0;
+			int nodeNr = buffer.getInt();
+			int arcNr = buffer.getInt();
+			int k = buffer.getInt();
+			long hash = buffer.getLong();
+			if (nodeNr != csr.getNodeCount() || arcNr != csr.getArcCount()
+					|| isUndirected != (csr.transpose() == csr) || hash != csr.getContentHash()) {
+				throw new IOException("Landmark file doesn't match graph.");
+			}
+			if (k < 1 || k > nodeNr || (long) nodeNr * k * (isUndirected ? 1 : 2) > buffer.remaining() / 4) {
+				throw new IOException("Invalid number of landmarks in GKA landmark file.");
+			}
+
+			IntBuffer ints = buffer.asIntBuffer();
+			int[] landmarks = new int[k];
+			ints.get(landmarks);
+			for (int landmark : landmarks) {
+				if (landmark < 0 || landmark >= nodeNr) {
+					throw new IOException("Invalid landmark in GKA landmark file.");
+				}
+			}
+			int[] fromDists = new int[nodeNr * k];
+			ints.get(fromDists);
+			int[] toDists = fromDists;
+			if (!isUndirected) {
+				toDists = new int[nodeNr * k];
+				ints.get(toDists);
+			}
+			return new GkaLandmarks(csr, landmarks, fromDists, toDists);
+		} catch (BufferUnderflowException e) {
+			throw new IOException("Truncated GKA landmark file.", e);
+		}
+	}
+
+	/**
+	 * Save the tables.
+	 *
+	 * @param path
+	 *            Path of the landmark file.
+	 * @throws IOException
+	 *             if an I/O exception occurs
+	 */
+	public void save(Path path) throws IOException {
+		try (OutputStream out = Files.newOutputStream(path)) {
+			DataOutputStream dos = new DataOutputStream(new BufferedOutputStream(out, BUFFER_SIZE));
+			boolean isUndirected = toDists == fromDists;
+
+			// header
+			dos.write(MAGIC);
+			dos.write(VERSION);
+			dos.write(isUndirected ? 1 : 0);
+			dos.writeInt(csr.getNodeCount());
+			dos.writeInt(csr.getArcCount());
+			dos.writeInt(landmarks.length);
+			dos.writeLong(csr.getContentHash());
+
+			for (int landmark : landmarks) {
+				dos.writeInt(landmark);
+			}
+			for (int dist : fromDists) {
+				dos.writeInt(dist);
+			}
+			if (!isUndirected) {
+				for (int dist : toDists) {
+					dos.writeInt(dist);
+				}
+			}
+			dos.flush();
+		}
+	}
+
+	/**
+	 * Get the snapshot the tables were built for.
+	 *
+	 * @return The CSR snapshot.
+	 */
+	public GkaCsr getCsr() {
+		return csr;
+	}
+
+	/**
+	 * Get the number of landmarks.
+	 *
+	 * @return Number of landmarks.
+	 */
+	public int getLandmarkCount() {
+		return landmarks.length;
+	}
+
+	/**
+	 * Get the node of a landmark.
+	 *
+	 * @param i
+	 *            Number of the landmark.
+	 * @return Index of the landmark node.
+	 */
+	public int getLandmark(int i) {
+		return landmarks[i];
+	}
+
+	/**
+	 * Get the cost from a landmark to a node.
+	 *
+	 * @param i
+	 *            Number of the landmark.
+	 * @param nodeIndex
+	 *            Index of the node.
+	 * @return Cost of the shortest path, {@link #UNREACHABLE} if there is none.
+	 */
+	public int getFromDistance(int i, int nodeIndex) {
+		return fromDists[nodeIndex * landmarks.length + i];
+	}
+
+	/**
+	 * Get the cost from a node to a landmark.
+	 *
+	 * @param i
+	 *            Number of the landmark.
+	 * @param nodeIndex
+	 *            Index of the node.
+	 * @return Cost of the shortest path, {@link #UNREACHABLE} if there is none.
+	 */
+	public int getToDistance(int i, int nodeIndex) {
+		return toDists[nodeIndex * landmarks.length + i];
+	}
+
+	/**
+	 * Get a lower bound of the cost between 2 nodes.
+	 *
+	 * @param nodeIndex
+	 *            Index of the node to start from.
+	 * @param endIndex
+	 *            Index of the end node.
+	 * @return Lower bound of the cost, infinity if end can't be reached.
+	 */
+	public double lowerBound(int nodeIndex, int endIndex) {
+		int k = landmarks.length;
+		int nodeBase = nodeIndex * k;
+		int endBase = endIndex * k;
+		int bound = 0;
+
+		for (int i = 0; i < k; i++) {
+			// d(L, t) - d(L, v)
+			int fromNode = fromDists[nodeBase + i];
+			int fromEnd = fromDists[endBase + i];
+			if (fromEnd == UNREACHABLE) {
+				if (fromNode != UNREACHABLE) {
+					return Double.POSITIVE_INFINITY;
+				}
+			} else if (fromNode != UNREACHABLE) {
+				bound = Math.max(bound, fromEnd - fromNode);
+			}
+
+			// d(v, L) - d(t, L)
+			int toNode = toDists[nodeBase + i];
+			int toEnd = toDists[endBase + i];
+			if (toNode == UNREACHABLE) {
+				if (toEnd != UNREACHABLE) {
+					return Double.POSITIVE_INFINITY;
+				}
+			} else if (toEnd != UNREACHABLE) {
+				bound = Math.max(bound, toNode - toEnd);
+			}
+		}
+		return bound;
+	}
+
+	/**
+	 * Copy the costs of a finished search into the column of landmark i.
+	 */
+	private static void fill(GkaDijkstraWorkspace workspace, int[] dists, int i, int k, int nodeNr) {
+		for (int n = 0; n < nodeNr; n++) {
+			double dist = workspace.getDistance(n);
+			if (dist >= UNREACHABLE && dist != Double.POSITIVE_INFINITY) {
+				throw new IllegalArgumentException("Distance too large for landmark table.");
+			}
+			dists[n * k + i] = dist == Double.POSITIVE_INFINITY ? UNREACHABLE : (int) dist;
+		}
+	}
+
+	/**
+	 * Get the node with the greatest cost of a finished search.
+	 */
+	private static int farthest(GkaDijkstraWorkspace workspace, int nodeNr) {
+		int best = 0;
+		double bestDist = -1;
+		for (int n = 0; n < nodeNr; n++) {
+			double dist = workspace.getDistance(n);
+			if (dist != Double.POSITIVE_INFINITY && dist > bestDist) {
+				bestDist = dist;
+				best = n;
+			}
+		}
+		return best;
+	}
+
+	/**
+	 * Get the node with the greatest cost from the picked landmarks, a node no
+	 * landmark reaches once all reached nodes are landmarks.
+	 */
+	private static int farthest(double[] minDists) {
+		int best = 0;
+		double bestDist = 0;
+		int unreached = -1;
+		for (int n = 0; n < minDists.length; n++) {
+			if (minDists[n] > bestDist) {
+				bestDist = minDists[n];
+				best = n;
+			} else if (minDists[n] < 0 && unreached < 0) {
+				unreached = n;
+			}
+		}
+		return bestDist == 0 && unreached >= 0 ? unreached : best;
+	}
+}
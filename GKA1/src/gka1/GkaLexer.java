@@ -0,0 +1,446 @@
+package gka1;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.Arrays;
+
+/**
+ * Single pass tokenizer for GKA files. It accepts exactly the lines matched by
+ * the GKA line regex (see {@link GkaUtils}) and silently skips all other
+ * lines, but it scans the characters only once and doesn't create a string per
+ * line. Node names are deduplicated, so every occurrence of a name after the
+ * first one is found without allocating.<br>
+ * Usage: call {@link #next()} until it returns false and read the properties of
+ * each line with the getters.
+ *
+ * @author Huy Tran PC
+ *
+ */
+public final class GkaLexer implements Closeable {
+	private static final int BUFFER_SIZE = 1 << 16;
+
+	private final Reader reader;
+	private char[] buf = new char[BUFFER_SIZE];
+	private int pos;
+	private int limit;
+	private boolean eof;
+	private boolean skipLineFeed;
+	private long lineNumber;
+
+	// properties of the current line
+	private String nodeName1;
+	private String nodeName2;
+	private boolean isDirected;
+	private String edgeName;
+	private boolean hasWeight;
+	private int edgeWeight;
+
+	// deduplicated node names, open addressing with linear probing
+	private String[] names = new String[1 << 10];
+	private int[] nameHashes = new int[1 << 10];
+	private int nameCount;
+
+	// scratch space for edge names
+	private final StringBuilder edgeNameBuilder = new StringBuilder();
+
+	/**
+	 * Constructor for a GkaLexer.
+	 *
+	 * @param reader
+	 *            Reader of the GKA content, it's read in large blocks so it doesn't
+	 *            need to be buffered.
+	 */
+	public GkaLexer(Reader reader) {
+		this.reader = reader;
+	}
+
+	/**
+	 * Advance to the next line in GKA format.
+	 *
+	 * @return true if a line was found, false at the end of the input.
+	 * @throws IOException
+	 *             if an I/O exception occurs
+	 */
+	public boolean next() throws IOException {
+		while (true) {
+			// skip the '\n' of a "\r\n" line terminator
+			if (skipLineFeed) {
+				if (pos == limit && !fill()) {
+					return false;
+				}
+				skipLineFeed = false;
+				if (buf[pos] == '\n') {
+					pos++;
+				}
+			}
+
+			// find the end of the next line, reading more input if necessary
+			int scan = pos;
+			while (true) {
+				while (scan < limit && buf[scan] != '\n' && buf[scan] != '\r') {
+					scan++;
+				}
+				if (scan < limit) {
+					break;
+				}
+				int scanned = scan - pos;
+				boolean filled = fill();
+				scan = pos + scanned;
+				if (!filled) {
+					break;
+				}
+			}
+
+			int lineStart = pos;
+			int lineEnd = scan;
+			if (lineEnd == limit) {
+				// last line without line terminator
+				if (lineStart == lineEnd) {
+					return false;
+				}
+				pos = lineEnd;
+			} else {
+				skipLineFeed = buf[lineEnd] == '\r';
+				pos = lineEnd + 1;
+			}
+			lineNumber++;
+
+			if (parseLine(lineStart, lineEnd)) {
+				return true;
+			}
+		}
+	}
+
+	/**
+	 * Parse a line and set the properties if it's in GKA format.
+	 */
+	private boolean parseLine(int start, int end) {
+		char[] b = buf;
+
+		// node 1
+		int i = skipWhitespaces(start, end);
+		int nameEnd = skipNameChars(i, end);
+		if (nameEnd == i) {
+			return false;
+		}
+		int name1Start = i;
+		i = skipWhitespaces(nameEnd, end);
+
+		// single node
+		if (i < end && b[i] == ';') {
+			if (skipWhitespaces(i + 1, end) != end) {
+				return false;
+			}
+			nodeName1 = name(name1Start, nameEnd);
+			nodeName2 = null;
+			isDirected = false;
+			edgeName = null;
+			hasWeight = false;
+			return true;
+		}
+
+		// direction
+		if (i + 1 >= end || b[i] != '-' || (b[i + 1] != '>' && b[i + 1] != '-')) {
+			return false;
+		}
+		boolean directed = b[i + 1] == '>';
+
+		// node 2
+		i = skipWhitespaces(i + 2, end);
+		int name2End = skipNameChars(i, end);
+		if (name2End == i) {
+			return false;
+		}
+		int name2Start = i;
+		i = skipWhitespaces(name2End, end);
+
+		// optional edge name, whitespaces inside are collapsed
+		int edgeNameStart = -1;
+		int edgeNameEnd = -1;
+		if (i < end && b[i] == '(') {
+			int j = i + 1;
+			while (j < end && (isNameChar(b[j]) || isWhitespace(b[j]))) {
+				j++;
+			}
+			if (j == i + 1 || j == end || b[j] != ')') {
+				return false;
+			}
+			edgeNameStart = i + 1;
+			edgeNameEnd = j;
+			i = skipWhitespaces(j + 1, end);
+		}
+
+		// optional edge weight
+		int weightStart = -1;
+		int weightEnd = -1;
+		if (i < end && b[i] == ':') {
+			i = skipWhitespaces(i + 1, end);
+			int j = i;
+			while (j < end && b[j] >= '0' && b[j] <= '9') {
+				j++;
+			}
+			if (j == i) {
+				return false;
+			}
+			weightStart = i;
+			weightEnd = j;
+			i = skipWhitespaces(j, end);
+		}
+
+		// terminator
+		if (i >= end || b[i] != ';' || skipWhitespaces(i + 1, end) != end) {
+			return false;
+		}
+
+		nodeName1 = name(name1Start, nameEnd);
+		nodeName2 = name(name2Start, name2End);
+		isDirected = directed;
+		edgeName = edgeNameStart >= 0 ? edgeName(edgeNameStart, edgeNameEnd) : null;
+		hasWeight = weightStart >= 0;
+		if (hasWeight) {
+			edgeWeight = parseWeight(weightStart, weightEnd);
+		}
+		return true;
+	}
+
+	private int skipWhitespaces(int i, int end) {
+		while (i < end && isWhitespace(buf[i])) {
+			i++;
+		}
+		return i;
+	}
+
+	private int skipNameChars(int i, int end) {
+		while (i < end && isNameChar(buf[i])) {
+			i++;
+		}
+		return i;
+	}
+
+	/**
+	 * Characters of \s in a Java regex.
+	 */
+	private static boolean isWhitespace(char c) {
+		return c == ' ' || c == '\t' || c == '\n' || c == '\u000B' || c == '\f' || c == '\r';
+	}
+
+	/**
+	 * Characters of [\wÄäÖöÜüß] in a Java regex.
+	 */
+	private static boolean isNameChar(char c) {
+		return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9') || c == '_' || c == 'Ä'
+				|| c == 'ä' || c == 'Ö' || c == 'ö' || c == 'Ü' || c == 'ü' || c == 'ß';
+	}
+
+	private int parseWeight(int start, int end) {
+		int value = 0;
+		for (int i = start; i < end; i++) {
+			int digit = buf[i] - '0';
+			if (value > (Integer.MAX_VALUE - digit) / 10) {
+				throw new NumberFormatException("For input string: \"" + new String(buf, start, end - start) + "\"");
+			}
+			value = value * 10 + digit;
+		}
+		return value;
+	}
+
+	private String edgeName(int start, int end) {
+		// trim and collapse whitespaces to single spaces
+		StringBuilder sb = edgeNameBuilder;
+		sb.setLength(0);
+		boolean pendingSpace = false;
+		for (int i = start; i < end; i++) {
+			char c = buf[i];
+			if (isWhitespace(c)) {
+				pendingSpace = sb.length() > 0;
+			} else {
+				if (pendingSpace) {
+					sb.append(' ');
+					pendingSpace = false;
+				}
+				sb.append(c);
+			}
+		}
+		return sb.toString();
+	}
+
+	/**
+	 * Get the deduplicated string of a node name.
+	 */
+	private String name(int start, int end) {
+		int length = end - start;
+		int hash = 0;
+		for (int i = start; i < end; i++) {
+			hash = 31 * hash + buf[i];
+		}
+
+		int mask = names.length - 1;
+		int slot = mix(hash) & mask;
+		String name;
+		while ((name = names[slot]) != null) {
+			if (nameHashes[slot] == hash && name.length() == length && equalsBuffer(name, start)) {
+				return name;
+			}
+			slot = (slot + 1) & mask;
+		}
+
+		name = new String(buf, start, length);
+		names[slot] = name;
+		nameHashes[slot] = hash;
+		if (++nameCount * 2 > names.length) {
+			growNames();
+		}
+		return name;
+	}
+
+	private boolean equalsBuffer(String name, int start) {
+		for (int i = 0; i < name.length(); i++) {
+			if (name.charAt(i) != buf[start + i]) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private static int mix(int hash) {
+		return hash ^ (hash >>> 16);
+	}
+
+	private void growNames() {
+		String[] oldNames = names;
+		int[] oldHashes = nameHashes;
+		names = new String[oldNames.length * 2];
+		nameHashes = new int[oldNames.length * 2];
+
+		int mask = names.length - 1;
+		for (int i = 0; i < oldNames.length; i++) {
+			if (oldNames[i] != null) {
+				int slot = mix(oldHashes[i]) & mask;
+				while (names[slot] != null) {
+					slot = (slot + 1) & mask;
+				}
+				names[slot] = oldNames[i];
+				nameHashes[slot] = oldHashes[i];
+			}
+		}
+	}
+
+	/**
+	 * Read more input, keeping the unprocessed characters from pos on. The buffer
+	 * grows if a single line doesn't fit into it.
+	 *
+	 * @return false if nothing more could be read.
+	 */
+	private boolean fill() throws IOException {
+		if (eof) {
+			return false;
+		}
+
+		int remaining = limit - pos;
+		if (pos > 0) {
+			System.arraycopy(buf, pos, buf, 0, remaining);
+		} else if (remaining == buf.length) {
+			buf = Arrays.copyOf(buf, buf.length * 2);
+		}
+		pos = 0;
+		limit = remaining;
+
+		int read;
+		while ((read = reader.read(buf, limit, buf.length - limit)) == 0) {
+			// a reader must block until at least one char is available
+		}
+		if (read < 0) {
+			eof = true;
+			return false;
+		}
+		limit += read;
+		return true;
+	}
+
+	/**
+	 * Get the name of node 1 of the current line.
+	 *
+	 * @return Name of node 1.
+	 */
+	public String getNodeName1() {
+		return nodeName1;
+	}
+
+	/**
+	 * Get the name of node 2 of the current line.
+	 *
+	 * @return Name of node 2, null if the line is a single node.
+	 */
+	public String getNodeName2() {
+		return nodeName2;
+	}
+
+	/**
+	 * Check if the current line is an edge.
+	 *
+	 * @return false if the line is a single node.
+	 */
+	public boolean hasEdge() {
+		return nodeName2 != null;
+	}
+
+	/**
+	 * Check if the edge of the current line is directed.
+	 *
+	 * @return true for "->", false for "--".
+	 */
+	public boolean isDirected() {
+		return isDirected;
+	}
+
+	/**
+	 * Get the direction of the edge of the current line as in the file.
+	 *
+	 * @return "->", "--" or null if the line is a single node.
+	 */
+	public String getDirection() {
+		return nodeName2 == null ? null : isDirected ? "->" : "--";
+	}
+
+	/**
+	 * Get the name of the edge of the current line.
+	 *
+	 * @return Name of the edge, null if it has none.
+	 */
+	public String getEdgeName() {
+		return edgeName;
+	}
+
+	/**
+	 * Check if the edge of the current line has a weight.
+	 *
+	 * @return true if there's a weight.
+	 */
+	public boolean hasWeight() {
+		return hasWeight;
+	}
+
+	/**
+	 * Get the weight of the edge of the current line.
+	 *
+	 * @return Weight of the edge, only valid if {@link #hasWeight()}.
+	 */
+	public int getWeight() {
+		return edgeWeight;
+	}
+
+	/**
+	 * Get the number of the current line, starting with 1.
+	 *
+	 * @return Line number.
+	 */
+	public long getLineNumber() {
+		return lineNumber;
+	}
+
+	@Override
+	public void close() throws IOException {
+		reader.close();
+	}
+}
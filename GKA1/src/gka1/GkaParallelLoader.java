@@ -0,0 +1,336 @@
+package gka1;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Parallel loader for large GKA files. The file is memory-mapped, split into
+ * chunks at line boundaries and every chunk is parsed by a {@link GkaLexer} on
+ * its own thread into a {@link GkaEdgeList}. The per-chunk node dictionaries
+ * are then merged in file order, so the result is the same as the one of
+ * {@link GkaUtils#read(String)}: nodes are indexed in order of their first
+ * appearance and edges keep the order of the file.<br>
+ * Only the merge of the dictionaries is sequential, it costs one hash lookup
+ * per distinct node name of each chunk. Remapping and copying the edges runs in
+ * parallel again. Gzip-compressed files can't be split and are read by a
+ * single parser with decompression on a second thread.
+ *
+ * @author Huy Tran PC
+ *
+ */
+public final class GkaParallelLoader {
+	// smallest chunk worth a task of its own
+	private static final long MIN_CHUNK_SIZE = 1 << 20;
+
+	// a single mapping is limited to 2 GB
+	private static final long MAX_CHUNK_SIZE = 1 << 30;
+
+	// chunks per thread, more chunks balance uneven lines
+	private static final int CHUNKS_PER_THREAD = 4;
+
+	private GkaParallelLoader() {
+	}
+
+	/**
+	 * Load a GKA file with one thread per available processor.
+	 *
+	 * @param path
+	 *            Path of the GKA file.
+	 * @return The edges and nodes of the file.
+	 * @throws IOException
+	 *             if an I/O exception occurs
+	 */
+	public static GkaEdgeList load(Path path) throws IOException {
+		return load(path, Runtime.getRuntime().availableProcessors());
+	}
+
+	/**
+	 * Load a GKA file with a given number of threads.
+	 *
+	 * @param path
+	 *            Path of the GKA file.
+	 * @param threadNr
+	 *            Number of threads.
+	 * @return The edges and nodes of the file.
+	 * @throws IOException
+	 *             if an I/O exception occurs
+	 */
+	public static GkaEdgeList load(Path path, int threadNr) throws IOException {
+		return load(path, threadNr, 0);
+	}
+
+	/**
+	 * Load a GKA file with a given number of threads and a given chunk size.
+	 *
+	 * @param path
+	 *            Path of the GKA file.
+	 * @param threadNr
+	 *            Number of threads.
+	 * @param chunkSize
+	 *            Size of the chunks in bytes, 0 to choose it from the file size
+	 *            and the number of threads.
+	 * @return The edges and nodes of the file.
+	 * @throws IOException
+	 *             if an I/O exception occurs
+	 */
+	public static GkaEdgeList load(Path path, int threadNr, long chunkSize) throws IOException {
+		if (threadNr < 1) {
+			throw new IllegalArgumentException("Number of threads must be positive.");
+		}
+
+		// compressed files can't be split, they are read by a single parser
+		if (GkaCompression.isGzip(path)) {
+			GkaEdgeList list = new GkaEdgeList();
+			GkaUtils.read(path, list);
+			return list;
+		}
+
+		try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+			long size = channel.size();
+			if (chunkSize <= 0) {
+				chunkSize = Math.max(MIN_CHUNK_SIZE, size / ((long) threadNr * CHUNKS_PER_THREAD));
+			}
+			chunkSize = Math.min(chunkSize, MAX_CHUNK_SIZE);
+
+			long[] bounds = split(channel, size, chunkSize);
+			int chunkNr = bounds.length - 1;
+
+			// a single chunk doesn't need any threads
+			if (chunkNr == 1) {
+				return parseChunk(channel, 0, size);
+			}
+
+			ExecutorService executor = Executors.newFixedThreadPool(Math.min(threadNr, chunkNr));
+			try {
+				// parse the chunks
+				List<Callable<GkaEdgeList>> tasks = new ArrayList<>(chunkNr);
+				for (int i = 0; i < chunkNr; i++) {
+					long start = bounds[i];
+					long end = bounds[i + 1];
+					tasks.add(() -> parseChunk(channel, start, end));
+				}
+				List<GkaEdgeList> parts = getAll(executor.invokeAll(tasks));
+
+				return merge(parts, executor);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new IOException("Loading interrupted.", e);
+			} finally {
+				executor.shutdownNow();
+			}
+		}
+	}
+
+	/**
+	 * Load a GKA file into a GkaGraph with one thread per available processor.
+	 *
+	 * @param path
+	 *            Path of the GKA file.
+	 * @return A GkaGraph object.
+	 * @throws IOException
+	 *             if an I/O exception occurs
+	 */
+	public static GkaGraph loadGraph(Path path) throws IOException {
+		return load(path).toGraph();
+	}
+
+	/**
+	 * Load a GKA file into a CSR snapshot with one thread per available
+	 * processor.
+	 *
+	 * @param path
+	 *            Path of the GKA file.
+	 * @return A CSR snapshot.
+	 * @throws IOException
+	 *             if an I/O exception occurs
+	 */
+	public static GkaCsr loadCsr(Path path) throws IOException {
+		return load(path).toCsr();
+	}
+
+	/**
+	 * Find the chunk bounds. Each bound except the first and the last one is
+	 * moved behind the next line terminator, so no line is split.
+	 */
+	private static long[] split(FileChannel channel, long size, long chunkSize) throws IOException {
+		int chunkNr = (int) Math.max(1, (size + chunkSize - 1) / chunkSize);
+		long[] bounds = new long[chunkNr + 1];
+		bounds[chunkNr] = size;
+
+		ByteBuffer buffer = ByteBuffer.allocate(1 << 12);
+		for (int i = 1; i < chunkNr; i++) {
+			long position = Math.max(i * chunkSize, bounds[i - 1]);
+			bounds[i] = size;
+
+			search: while (position < size) {
+				buffer.clear();
+				int read = channel.read(buffer, position);
+				if (read < 0) {
+					break;
+				}
+				for (int j = 0; j < read; j++) {
+					byte b = buffer.get(j);
+					// a '\n' of a "\r\n" at the start of a chunk is just an empty line
+					if (b == '\n' || b == '\r') {
+						bounds[i] = position + j + 1;
+						break search;
+					}
+				}
+				position += read;
+			}
+		}
+
+		return bounds;
+	}
+
+	/**
+	 * Parse the bytes from start (inclusive) to end (exclusive) of a file.
+	 */
+	private static GkaEdgeList parseChunk(FileChannel channel, long start, long end) throws IOException {
+		ByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, start, end - start);
+
+		// about 16 bytes per line is a lower bound for most files
+		int expectedLines = (int) Math.min(Integer.MAX_VALUE - 8, (end - start) / 16);
+		GkaEdgeList list = new GkaEdgeList(expectedLines / 4, expectedLines);
+
+		try (Reader reader = new InputStreamReader(new ByteBufferInputStream(buffer), StandardCharsets.UTF_8)) {
+			GkaUtils.read(reader, list);
+		}
+
+		return list;
+	}
+
+	/**
+	 * Merge the lists of all chunks in file order.
+	 */
+	private static GkaEdgeList merge(List<GkaEdgeList> parts, ExecutorService executor)
+			throws IOException, InterruptedException {
+		long edgeNr = 0;
+		int maxNodeNr = 0;
+		boolean hasEdgeNames = false;
+		for (GkaEdgeList part : parts) {
+			edgeNr += part.edgeCount;
+			maxNodeNr = Math.max(maxNodeNr, part.nodeCount);
+			hasEdgeNames |= part.edgeNames != null;
+		}
+		if (edgeNr > Integer.MAX_VALUE - 8) {
+			throw new IOException("Too many edges: " + edgeNr);
+		}
+
+		GkaEdgeList result = new GkaEdgeList(maxNodeNr, (int) edgeNr);
+		if (hasEdgeNames) {
+			result.edgeNames = new String[result.sources.length];
+		}
+
+		// merge the dictionaries in chunk order, keeps the order of first appearance
+		int[][] nodeMaps = new int[parts.size()][];
+		for (int k = 0; k < parts.size(); k++) {
+			GkaEdgeList part = parts.get(k);
+			int[] nodeMap = new int[part.nodeCount];
+			for (int i = 0; i < part.nodeCount; i++) {
+				nodeMap[i] = result.addNode(part.nodeNames[i]);
+			}
+			nodeMaps[k] = nodeMap;
+		}
+
+		// copy the edges with global node indices
+		List<Callable<Void>> tasks = new ArrayList<>(parts.size());
+		int offset = 0;
+		for (int k = 0; k < parts.size(); k++) {
+			GkaEdgeList part = parts.get(k);
+			int[] nodeMap = nodeMaps[k];
+			int partOffset = offset;
+			tasks.add(() -> {
+				int n = part.edgeCount;
+				for (int e = 0; e < n; e++) {
+					result.sources[partOffset + e] = nodeMap[part.sources[e]];
+					result.targets[partOffset + e] = nodeMap[part.targets[e]];
+				}
+				System.arraycopy(part.weights, 0, result.weights, partOffset, n);
+				System.arraycopy(part.flags, 0, result.flags, partOffset, n);
+				if (part.edgeNames != null) {
+					System.arraycopy(part.edgeNames, 0, result.edgeNames, partOffset, n);
+				}
+				return null;
+			});
+			offset += part.edgeCount;
+		}
+		getAll(executor.invokeAll(tasks));
+		result.edgeCount = offset;
+
+		return result;
+	}
+
+	/**
+	 * Get the results of finished tasks, rethrowing their exceptions.
+	 */
+	private static <T> List<T> getAll(List<Future<T>> futures) throws IOException, InterruptedException {
+		List<T> results = new ArrayList<>(futures.size());
+		for (Future<T> future : futures) {
+			try {
+				results.add(future.get());
+			} catch (ExecutionException e) {
+				Throwable cause = e.getCause();
+				if (cause instanceof IOException) {
+					throw (IOException) cause;
+				}
+				if (cause instanceof RuntimeException) {
+					throw (RuntimeException) cause;
+				}
+				if (cause instanceof Error) {
+					throw (Error) cause;
+				}
+				throw new IOException(cause);
+			}
+		}
+		return results;
+	}
+
+	/**
+	 * InputStream over the remaining bytes of a ByteBuffer.
+	 */
+	private static final class ByteBufferInputStream extends InputStream {
+		private final ByteBuffer buffer;
+
+		ByteBufferInputStream(ByteBuffer buffer) {
+			this.buffer = buffer;
+		}
+
+		@Override
+		public int read() {
+			return buffer.hasRemaining() ? buffer.get() & 0xFF : -1;
+		}
+
+		@Override
+		public int read(byte[] b, int off, int len) {
+			if (len == 0) {
+				return 0;
+			}
+			if (!buffer.hasRemaining()) {
+				return -1;
+			}
+			len = Math.min(len, buffer.remaining());
+			buffer.get(b, off, len);
+			return len;
+		}
+
+		@Override
+		public int available() {
+			return buffer.remaining();
+		}
+	}
+}
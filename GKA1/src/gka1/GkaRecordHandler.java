@@ -0,0 +1,43 @@
+package gka1;
+
+/**
+ * Receiver of the records of a GKA file, see
+ * {@link GkaUtils#read(java.io.Reader, GkaRecordHandler)}. Records are pushed
+ * one by one in file order while the file is read, so a handler can compute
+ * statistics or keep only a part of the graph without building the whole graph
+ * in memory. The reader waits for each call to return and stops as soon as a
+ * call returns false.
+ *
+ * @author Huy Tran PC
+ *
+ */
+public interface GkaRecordHandler {
+	/**
+	 * Handle a line with a single node.
+	 *
+	 * @param nodeName
+	 *            Name of the node.
+	 * @return true to continue reading, false to stop.
+	 */
+	boolean node(String nodeName);
+
+	/**
+	 * Handle a line with an edge.
+	 *
+	 * @param nodeName1
+	 *            Name of node 1.
+	 * @param nodeName2
+	 *            Name of node 2.
+	 * @param isDirected
+	 *            Whether the edge is directed.
+	 * @param edgeName
+	 *            Name of the edge, null if it has none.
+	 * @param hasWeight
+	 *            Whether the edge has a weight.
+	 * @param edgeWeight
+	 *            Weight of the edge, only valid if hasWeight is true.
+	 * @return true to continue reading, false to stop.
+	 */
+	boolean edge(String nodeName1, String nodeName2, boolean isDirected, String edgeName, boolean hasWeight,
+			int edgeWeight);
+}
@@ -1,21 +1,25 @@
 package gka1;
 
-import java.io.BufferedReader;
 import java.io.BufferedWriter;
-import java.io.File;
-import java.io.FileInputStream;
+import java.io.FilterInputStream;
 import java.io.FileNotFoundException;
-import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.InputStreamReader;
+import java.io.OutputStream;
 import java.io.OutputStreamWriter;
+import java.io.Reader;
 import java.io.UnsupportedEncodingException;
+import java.io.Writer;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.ArrayList;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Random;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
 
 import org.graphstream.graph.Edge;
 import org.graphstream.graph.Node;
@@ -33,6 +37,9 @@ import org.graphstream.graph.Node;
  *
  */
 public class GkaUtils {
+	// buffer size in chars of the writers used for saving
+	private static final int WRITE_BUFFER_SIZE = 1 << 16;
+
 	public static void main(String[] args) throws FileNotFoundException, IOException {
 		for (int i = 0; i < 5; i++) {
 			Random rand = new Random();
@@ -41,8 +48,8 @@ public class GkaUtils {
 			// n-1 <= edgeNum <= n(n-3)+3, n is nodeNum
 			int edgeNum = nodeNum - 1 + rand.nextInt(nodeNum * (nodeNum - 3) / 2 + 2);
 			GkaGraph bigNet = GkaUtils.generateNetwork(nodeNum, edgeNum, 1, 100);
-			bigNet.display();
-			bigNet.beautify();
+			GkaViewer.display(bigNet);
+			GkaViewer.markSpecial(bigNet, "0", String.valueOf(nodeNum - 1));
 		}
 	}
 
@@ -64,13 +71,17 @@ public class GkaUtils {
 		return res;
 	}
 
+	/**
+	 * Regex for GKA format of each line. {@link GkaLexer} accepts exactly the
+	 * lines it matches.
+	 */
+	public static final String GKA_LINE_REGEX = "^\\s*([\\wÄäÖöÜüß]+)\\s*((->|--)\\s*([\\wÄäÖöÜüß]+)\\s*(\\(\\s*([\\wÄäÖöÜüß\\s]+)\\s*\\)\\s*)?(:\\s*(\\d+)\\s*)?)?;\\s*$";
+
 	/**
 	 * Read a GKA file from the <em>gkaFiles</em> folder.
 	 * 
 	 * @param filename
 	 *            Name of the GKA file.
-	 * @param stylesheetName
-	 *            Name of the stylesheet.
 	 * @return A GkaGraph object.
 	 * @throws UnsupportedEncodingException
 	 *             if the encoding is not supported
@@ -81,47 +92,153 @@ public class GkaUtils {
 	 */
 	public static GkaGraph read(String filename)
 			throws UnsupportedEncodingException, FileNotFoundException, IOException {
-		// create empty graph
-		GkaGraph graph = new GkaGraph(GkaGraph.createStringId());
-
-		// regex for GKA format of each line
-		String regex = "^\\s*([\\wÄäÖöÜüß]+)\\s*((->|--)\\s*([\\wÄäÖöÜüß]+)\\s*(\\(\\s*([\\wÄäÖöÜüß\\s]+)\\s*\\)\\s*)?(:\\s*(\\d+)\\s*)?)?;\\s*$";
-		Pattern pattern = Pattern.compile(regex);
-
 		// set file path
 		String filePath = System.getProperty("user.dir") + "/gkaFiles/" + filename;
-		File file = new File(filePath);
-
-		// read file line by line
-		try (BufferedReader br = new BufferedReader(new InputStreamReader(new FileInputStream(file), "UTF-8"))) {
-			String line;
-			while ((line = br.readLine()) != null) {
-				Matcher matcher = pattern.matcher(line);
-
-				// find the properties of a line
-				if (matcher.matches()) {
-					String nodeName1 = matcher.group(1);
-					String isDirected = matcher.group(3);
-					String nodeName2 = matcher.group(4);
-					String edgeName = matcher.group(6);
-					// remove extra whitespaces
-					if (edgeName != null) {
-						edgeName = edgeName.trim().replaceAll("\\s+", " ");
-					}
-					String edgeWeight = matcher.group(8);
 
-					// create an edge or a single node
-					graph.createEdge(nodeName1, nodeName2, isDirected, edgeName, edgeWeight);
-				}
+		return read(Paths.get(filePath));
+	}
+
+	/**
+	 * Read a GKA file from any path. Gzip-compressed files are decompressed on the
+	 * fly, see {@link GkaCompression}.
+	 * 
+	 * @param path
+	 *            Path of the GKA file.
+	 * @return A GkaGraph object.
+	 * @throws IOException
+	 *             if an I/O exception occurs
+	 */
+	public static GkaGraph read(Path path) throws IOException {
+		try (Reader reader = new InputStreamReader(GkaCompression.openInput(path), StandardCharsets.UTF_8)) {
+			return read(reader);
+		}
+	}
+
+	/**
+	 * Read GKA content from a stream of UTF-8 bytes, gzip-compressed content is
+	 * decompressed on the fly. The stream is not closed.
+	 * 
+	 * @param in
+	 *            Stream of the GKA content.
+	 * @return A GkaGraph object.
+	 * @throws IOException
+	 *             if an I/O exception occurs
+	 */
+	public static GkaGraph read(InputStream in) throws IOException {
+		InputStream content = GkaCompression.decompress(new FilterInputStream(in) {
+			@Override
+			public void close() {
+				// the caller closes the stream
 			}
+		});
+		try (Reader reader = new InputStreamReader(content, StandardCharsets.UTF_8)) {
+			return read(reader);
 		}
+	}
 
-		// set viewer
-		System.setProperty("org.graphstream.ui.renderer", "org.graphstream.ui.j2dviewer.J2DGraphRenderer");
+	/**
+	 * Read a GKA file from the <em>gkaFiles</em> folder on all available
+	 * processors, see {@link GkaParallelLoader}. The result is the same as the one
+	 * of {@link #read(String)}.
+	 *
+	 * @param filename
+	 *            Name of the GKA file.
+	 * @return A GkaGraph object.
+	 * @throws IOException
+	 *             if an I/O exception occurs
+	 */
+	public static GkaGraph readParallel(String filename) throws IOException {
+		return GkaParallelLoader.loadGraph(Paths.get(System.getProperty("user.dir"), "gkaFiles", filename));
+	}
+
+	/**
+	 * Read GKA content from a reader. Lines not in GKA format are skipped.
+	 * 
+	 * @param reader
+	 *            Reader of the GKA content, it doesn't need to be buffered.
+	 * @return A GkaGraph object.
+	 * @throws IOException
+	 *             if an I/O exception occurs
+	 */
+	public static GkaGraph read(Reader reader) throws IOException {
+		// create empty graph
+		GkaGraph graph = new GkaGraph(GkaGraph.createStringId(), GkaGraph.IdMode.SEQUENTIAL);
+
+		// create an edge or a single node for each record
+		read(reader, new GkaRecordHandler() {
+			@Override
+			public boolean node(String nodeName) {
+				graph.createNodeIndex(nodeName);
+				return true;
+			}
+
+			@Override
+			public boolean edge(String nodeName1, String nodeName2, boolean isDirected, String edgeName,
+					boolean hasWeight, int edgeWeight) {
+				graph.createEdge(nodeName1, nodeName2, isDirected, edgeName,
+						hasWeight ? Integer.valueOf(edgeWeight) : null);
+				return true;
+			}
+		});
 
 		return graph;
 	}
 
+	/**
+	 * Read a GKA file and push its records to a handler, see
+	 * {@link GkaRecordHandler}. Lines aren't kept after they're parsed, but the
+	 * lexer keeps each distinct node name to share the strings, so memory grows
+	 * with the number of distinct names, not with the number of lines.
+	 * Gzip-compressed files are decompressed on the fly.
+	 * 
+	 * @param path
+	 *            Path of the GKA file.
+	 * @param handler
+	 *            Receiver of the records.
+	 * @return true if the whole file was read, false if the handler stopped.
+	 * @throws IOException
+	 *             if an I/O exception occurs
+	 */
+	public static boolean read(Path path, GkaRecordHandler handler) throws IOException {
+		try (Reader reader = new InputStreamReader(GkaCompression.openInput(path), StandardCharsets.UTF_8)) {
+			return read(reader, handler);
+		}
+	}
+
+	/**
+	 * Read GKA content from a reader and push its records to a handler, see
+	 * {@link GkaRecordHandler}. Lines not in GKA format are skipped. The reader is
+	 * not closed.
+	 * 
+	 * @param reader
+	 *            Reader of the GKA content, it doesn't need to be buffered.
+	 * @param handler
+	 *            Receiver of the records.
+	 * @return true if the whole content was read, false if the handler stopped.
+	 * @throws IOException
+	 *             if an I/O exception occurs
+	 */
+	public static boolean read(Reader reader, GkaRecordHandler handler) throws IOException {
+		GkaLexer lexer = new GkaLexer(reader);
+
+		// read line by line
+		while (lexer.next()) {
+			boolean proceed;
+			if (lexer.hasEdge()) {
+				proceed = handler.edge(lexer.getNodeName1(), lexer.getNodeName2(), lexer.isDirected(),
+						lexer.getEdgeName(), lexer.hasWeight(), lexer.getWeight());
+			} else {
+				proceed = handler.node(lexer.getNodeName1());
+			}
+
+			if (!proceed) {
+				return false;
+			}
+		}
+
+		return true;
+	}
+
 	/**
 	 * Save a GkaGraph object as a GKA file to the <em>gkaFiles</em> folder.
 	 * 
@@ -140,20 +257,80 @@ public class GkaUtils {
 			throws UnsupportedEncodingException, FileNotFoundException, IOException {
 		// set save path
 		String filePath = System.getProperty("user.dir") + "/gkaFiles/" + filename;
-		File file = new File(filePath);
 
-		// write GKA object to file
-		try (BufferedWriter writer = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(file), "UTF-8"))) {
-			String str = "";
+		save(graph, Paths.get(filePath));
+	}
+
+	/**
+	 * Save a GkaGraph object as a GKA file to any path. An existing file is
+	 * overwritten, the file is gzip-compressed if its name ends with ".gz".
+	 * 
+	 * @param graph
+	 *            A graph in GKA format.
+	 * @param path
+	 *            Path of the new GKA file.
+	 * @throws IOException
+	 *             if an I/O exception occurs
+	 */
+	public static void save(GkaGraph graph, Path path) throws IOException {
+		try (OutputStream out = GkaCompression.openOutput(path)) {
+			save(graph, out);
+		}
+	}
+
+	/**
+	 * Save a GkaGraph object in GKA format to an output stream. The stream is
+	 * flushed but not closed.
+	 * 
+	 * @param graph
+	 *            A graph in GKA format.
+	 * @param out
+	 *            Stream to write the UTF-8 encoded lines to.
+	 * @throws IOException
+	 *             if an I/O exception occurs
+	 */
+	public static void save(GkaGraph graph, OutputStream out) throws IOException {
+		Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), WRITE_BUFFER_SIZE);
+		write(graph, writer);
+		writer.flush();
+	}
 
-			// add string of all edges
-			str += graph.getEdgesString();
+	/**
+	 * Save a GkaGraph object in GKA format to a byte channel. The channel is not
+	 * closed.
+	 * 
+	 * @param graph
+	 *            A graph in GKA format.
+	 * @param channel
+	 *            Channel to write the UTF-8 encoded lines to.
+	 * @throws IOException
+	 *             if an I/O exception occurs
+	 */
+	public static void save(GkaGraph graph, WritableByteChannel channel) throws IOException {
+		Writer writer = new BufferedWriter(Channels.newWriter(channel, StandardCharsets.UTF_8.newEncoder(), -1),
+				WRITE_BUFFER_SIZE);
+		write(graph, writer);
+		writer.flush();
+	}
 
-			// add string of single nodes
-			str += graph.getSingleNodesString();
+	/**
+	 * Write a GkaGraph object in GKA format line by line: first all edges, then
+	 * all single nodes. Nothing is built up in memory, so the writer should be
+	 * buffered.
+	 * 
+	 * @param graph
+	 *            A graph in GKA format.
+	 * @param writer
+	 *            Writer to write the lines to, it's neither flushed nor closed.
+	 * @throws IOException
+	 *             if an I/O exception occurs
+	 */
+	public static void write(GkaGraph graph, Writer writer) throws IOException {
+		// write all edges
+		graph.writeEdges(writer);
 
-			writer.write(str);
-		}
+		// write single nodes
+		graph.writeSingleNodes(writer);
 	}
 
 	/**
@@ -211,7 +388,8 @@ public class GkaUtils {
 	/**
 	 * Generate a random simple graph with a fixed number of nodes and edges. Edge
 	 * names are optional. Edge weight is also optional and can be set within a
-	 * range.
+	 * range. Large or dense graphs are generated much faster by
+	 * {@link GkaGenerator}.
 	 * 
 	 * @param nodeNum
 	 *            Number of nodes.
@@ -232,7 +410,7 @@ public class GkaUtils {
 	public static GkaGraph generateRandom(int nodeNum, int edgeNum, boolean isDirected, boolean hasEdgeName,
 			int edgeWeightMin, int edgeWeightMax, Integer seed) {
 		// create empty graph
-		GkaGraph graph = new GkaGraph(GkaGraph.createStringId());
+		GkaGraph graph = new GkaGraph(GkaGraph.createStringId(), GkaGraph.IdMode.SEQUENTIAL);
 
 		// add nodes
 		for (int i = 0; i < nodeNum; i++) {
@@ -279,16 +457,14 @@ public class GkaUtils {
 			}
 		}
 
-		// set viewer
-		System.setProperty("org.graphstream.ui.renderer", "org.graphstream.ui.j2dviewer.J2DGraphRenderer");
-
 		return graph;
 	}
 
 	/**
 	 * Generate a random flow network with a fixed number of nodes and edges. Edge
 	 * weight can be set within a range. Source and sink of the network are nodes
-	 * with index 0 and (nodeNum - 1) respectively.
+	 * with index 0 and (nodeNum - 1) respectively. Large or dense networks are
+	 * generated much faster by {@link GkaGenerator}.
 	 * 
 	 * @param nodeNum
 	 *            Number of nodes.
@@ -329,7 +505,7 @@ public class GkaUtils {
 		}
 
 		// create empty graph
-		GkaGraph graph = new GkaGraph(GkaGraph.createStringId());
+		GkaGraph graph = new GkaGraph(GkaGraph.createStringId(), GkaGraph.IdMode.SEQUENTIAL);
 
 		// add nodes
 		for (int i = 0; i < nodeNum; i++) {
@@ -387,15 +563,6 @@ public class GkaUtils {
 			}
 		}
 
-		// mark source and sink in the visualized graph
-		Node source = graph.getNode(graph.createNode("0"));
-		Node sink = graph.getNode(graph.createNode(String.valueOf(nodeNum - 1)));
-		source.addAttribute("ui.class", "special");
-		sink.addAttribute("ui.class", "special");
-
-		// set viewer
-		System.setProperty("org.graphstream.ui.renderer", "org.graphstream.ui.j2dviewer.J2DGraphRenderer");
-
 		return graph;
 	}
 
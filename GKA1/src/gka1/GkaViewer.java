@@ -0,0 +1,192 @@
+package gka1;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.graphstream.graph.Edge;
+import org.graphstream.graph.Node;
+import org.graphstream.ui.view.Viewer;
+
+/**
+ * Optional visualization layer for GkaGraph objects and algorithm results. It's
+ * the only class that selects the GraphStream renderer, opens windows or sets
+ * <em>ui.*</em> attributes, so the rest of the package runs in a headless JVM
+ * without loading any UI classes.
+ *
+ * @author Huy Tran PC
+ *
+ */
+public class GkaViewer {
+	/**
+	 * Display a graph with the J2D renderer and the default stylesheet.
+	 *
+	 * @param graph
+	 *            The graph to display.
+	 * @return The viewer of the graph.
+	 */
+	public static Viewer display(GkaGraph graph) {
+		return display(graph, "defaultStylesheet");
+	}
+
+	/**
+	 * Display a graph with the J2D renderer and a custom stylesheet.
+	 *
+	 * @param graph
+	 *            The graph to display.
+	 * @param stylesheetName
+	 *            Name of the stylesheet.
+	 * @return The viewer of the graph.
+	 */
+	public static Viewer display(GkaGraph graph, String stylesheetName) {
+		// set viewer
+		System.setProperty("org.graphstream.ui.renderer", "org.graphstream.ui.j2dviewer.J2DGraphRenderer");
+
+		Viewer viewer = graph.display();
+		beautify(graph, stylesheetName);
+		return viewer;
+	}
+
+	/**
+	 * Beautify the graph with default stylesheet.
+	 *
+	 * @param graph
+	 *            The graph to work with.
+	 */
+	public static void beautify(GkaGraph graph) {
+		beautify(graph, "defaultStylesheet");
+	}
+
+	/**
+	 * Beautify the graph with custom stylesheet.
+	 *
+	 * @param graph
+	 *            The graph to work with.
+	 * @param stylesheetName
+	 *            Name of the stylesheet.
+	 */
+	public static void beautify(GkaGraph graph, String stylesheetName) {
+		// set stylesheet
+		String stylesheetPath = System.getProperty("user.dir") + "/stylesheet/" + stylesheetName;
+		graph.addAttribute("ui.stylesheet", "url('file:///" + stylesheetPath + "')");
+
+		// improve viewing quality
+		graph.addAttribute("ui.quality");
+		graph.addAttribute("ui.antialias");
+
+		// add labels to nodes and edges
+		addLabels(graph);
+	}
+
+	/**
+	 * Add labels to nodes and edges.
+	 *
+	 * @param graph
+	 *            The graph to work with.
+	 */
+	public static void addLabels(GkaGraph graph) {
+		// add labels to nodes
+		for (Node node : graph) {
+			node.addAttribute("label", node.getAttribute("name").toString());
+		}
+
+		// add labels to edges
+		for (Edge edge : graph.getEachEdge()) {
+			ArrayList<String> edgeProps = new ArrayList<>();
+
+			if (edge.hasAttribute("name")) {
+				edgeProps.add(edge.getAttribute("name"));
+			}
+
+			if (edge.hasAttribute("weight")) {
+				edgeProps.add(edge.getAttribute("weight").toString());
+			}
+
+			edge.addAttribute("label", String.join(" : ", edgeProps));
+		}
+	}
+
+	/**
+	 * Display a graph and mark the nodes of a traversal one after another.
+	 *
+	 * @param graph
+	 *            The graph to work with.
+	 * @param visited
+	 *            The sequence of visited nodes.
+	 */
+	public static void showTraversal(GkaGraph graph, List<Node> visited) {
+		display(graph);
+		clearMarks(graph);
+
+		for (Node node : visited) {
+			sleep();
+			node.setAttribute("ui.class", "marked");
+			sleep();
+		}
+	}
+
+	/**
+	 * Display a graph and mark a path on it, start and end node are marked as
+	 * special.
+	 *
+	 * @param graph
+	 *            The graph to work with.
+	 * @param path
+	 *            Sequence of nodes on the path.
+	 */
+	public static void showPath(GkaGraph graph, List<Node> path) {
+		display(graph);
+		clearMarks(graph);
+
+		if (path == null || path.isEmpty()) {
+			return;
+		}
+
+		path.get(0).addAttribute("ui.class", "special");
+
+		for (int i = 1; i < path.size(); i++) {
+			path.get(i).addAttribute("ui.class", "marked");
+			path.get(i - 1).getEdgeBetween(path.get(i)).addAttribute("ui.class", "marked");
+		}
+
+		path.get(path.size() - 1).addAttribute("ui.class", "special");
+	}
+
+	/**
+	 * Mark nodes as special, e.g. source and sink of a flow network.
+	 *
+	 * @param graph
+	 *            The graph to work with.
+	 * @param nodeNames
+	 *            Names of the nodes.
+	 */
+	public static void markSpecial(GkaGraph graph, String... nodeNames) {
+		for (String nodeName : nodeNames) {
+			graph.getNode(graph.createNodeIndex(nodeName)).addAttribute("ui.class", "special");
+		}
+	}
+
+	/**
+	 * Clear all previous marks on the graph made by visualized methods.
+	 *
+	 * @param graph
+	 *            A graph to work with.
+	 */
+	public static void clearMarks(GkaGraph graph) {
+		for (Node node : graph) {
+			node.setAttribute("ui.class", "unmarked");
+		}
+		for (Edge edge : graph.getEachEdge()) {
+			edge.setAttribute("ui.class", "unmarked");
+		}
+	}
+
+	/**
+	 * Pause during traversal between each node.
+	 */
+	protected static void sleep() {
+		try {
+			Thread.sleep(800);
+		} catch (Exception e) {
+		}
+	}
+}
@@ -0,0 +1,179 @@
+package gka1;
+
+import java.util.Arrays;
+
+/**
+ * Index of the lowest weight from one node to another, keyed by the node
+ * indices. It's an open addressing hash table with primitive keys and values,
+ * so lookups take constant time without boxing.
+ *
+ * @author Huy Tran PC
+ *
+ */
+public final class GkaWeightIndex {
+	// marks a free slot, no pair of non-negative indices is encoded as -1
+	private static final long FREE = -1L;
+
+	private long[] keys;
+	private int[] values;
+	private int size;
+
+	/**
+	 * Constructor for an empty GkaWeightIndex.
+	 *
+	 * @param expectedSize
+	 *            Expected number of node pairs.
+	 */
+	public GkaWeightIndex(int expectedSize) {
+		int capacity = 16;
+		while (capacity < expectedSize * 2) {
+			capacity <<= 1;
+		}
+		this.keys = new long[capacity];
+		this.values = new int[capacity];
+		Arrays.fill(keys, FREE);
+	}
+
+	/**
+	 * Build the index from all arcs of a CSR snapshot.
+	 *
+	 * @param csr
+	 *            A CSR snapshot to work with.
+	 * @return The index of the lowest arc weight between each pair of nodes.
+	 */
+	public static GkaWeightIndex of(GkaCsr csr) {
+		int[] offsets = csr.getOffsets();
+		int[] targets = csr.getTargets();
+		int[] weights = csr.getWeights();
+
+		GkaWeightIndex index = new GkaWeightIndex(csr.getArcCount());
+		for (int u = 0; u < csr.getNodeCount(); u++) {
+			for (int arc = offsets[u]; arc < offsets[u + 1]; arc++) {
+				index.add(u, targets[arc], weights[arc]);
+			}
+		}
+		return index;
+	}
+
+	/**
+	 * Add an arc to the index. The stored weight only changes if the new one is
+	 * lower.
+	 *
+	 * @param sourceIndex
+	 *            Index of the source node.
+	 * @param targetIndex
+	 *            Index of the target node.
+	 * @param weight
+	 *            Weight of the arc.
+	 */
+	public void add(int sourceIndex, int targetIndex, int weight) {
+		long key = key(sourceIndex, targetIndex);
+		int slot = slot(key);
+
+		if (keys[slot] == FREE) {
+			keys[slot] = key;
+			values[slot] = weight;
+			if (++size * 2 > keys.length) {
+				grow();
+			}
+		} else if (weight < values[slot]) {
+			values[slot] = weight;
+		}
+	}
+
+	/**
+	 * Check if there's an arc from one node to another.
+	 *
+	 * @param sourceIndex
+	 *            Index of the source node.
+	 * @param targetIndex
+	 *            Index of the target node.
+	 * @return true if there's an arc.
+	 */
+	public boolean contains(int sourceIndex, int targetIndex) {
+		return keys[slot(key(sourceIndex, targetIndex))] != FREE;
+	}
+
+	/**
+	 * Get the lowest weight of the arcs from one node to another.
+	 *
+	 * @param sourceIndex
+	 *            Index of the source node.
+	 * @param targetIndex
+	 *            Index of the target node.
+	 * @param defaultWeight
+	 *            Value to return if there's no arc.
+	 * @return The lowest weight or defaultWeight.
+	 */
+	public int getMinWeight(int sourceIndex, int targetIndex, int defaultWeight) {
+		int slot = slot(key(sourceIndex, targetIndex));
+		return keys[slot] != FREE ? values[slot] : defaultWeight;
+	}
+
+	/**
+	 * Get the lowest weight of the arcs from one node to another as distance.
+	 *
+	 * @param sourceIndex
+	 *            Index of the source node.
+	 * @param targetIndex
+	 *            Index of the target node.
+	 * @return The lowest weight or infinity if there's no arc.
+	 */
+	public double getDistance(int sourceIndex, int targetIndex) {
+		int slot = slot(key(sourceIndex, targetIndex));
+		return keys[slot] != FREE ? values[slot] : Double.POSITIVE_INFINITY;
+	}
+
+	/**
+	 * Get the number of node pairs with at least one arc.
+	 *
+	 * @return Number of pairs.
+	 */
+	public int size() {
+		return size;
+	}
+
+	private static long key(int sourceIndex, int targetIndex) {
+		return ((long) sourceIndex << 32) | (targetIndex & 0xFFFFFFFFL);
+	}
+
+	/**
+	 * Find the slot holding a key or the free slot where it belongs, with linear
+	 * probing.
+	 */
+	private int slot(long key) {
+		int mask = keys.length - 1;
+		int slot = hash(key) & mask;
+		while (keys[slot] != FREE && keys[slot] != key) {
+			slot = (slot + 1) & mask;
+		}
+		return slot;
+	}
+
+	private static int hash(long key) {
+		// finalizer of MurmurHash3 to spread neighboring indices
+		key ^= key >>> 33;
+		key *= 0xff51afd7ed558ccdL;
+		key ^= key >>> 33;
+		key *= 0xc4ceb9fe1a85ec53L;
+		key ^= key >>> 33;
+		return (int) key;
+	}
+
+	private void grow() {
+		long[] oldKeys = keys;
+		int[] oldValues = values;
+
+		keys = new long[oldKeys.length * 2];
+		values = new int[oldValues.length * 2];
+		Arrays.fill(keys, FREE);
+
+		for (int i = 0; i < oldKeys.length; i++) {
+			if (oldKeys[i] != FREE) {
+				int slot = slot(oldKeys[i]);
+				keys[slot] = oldKeys[i];
+				values[slot] = oldValues[i];
+			}
+		}
+	}
+}
@@ -0,0 +1,95 @@
+package gka1;
+
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.BitSet;
+
+/**
+ * Streaming GKA writer for generated graphs. Each edge is written as soon as it
+ * arrives, the single nodes follow at the end, so the output has the format of
+ * {@link GkaUtils#save(GkaGraph, Path)} and only a bit per node is kept in
+ * memory. As the methods of {@link GkaEdgeSink} can't throw checked exceptions,
+ * I/O errors are rethrown as {@link UncheckedIOException}.
+ *
+ * @author Huy Tran PC
+ *
+ */
+public final class GkaWriter implements GkaEdgeSink, Closeable {
+	private final Writer writer;
+	private BitSet connectedNodes;
+	private int nodeNum;
+
+	/**
+	 * Constructor for a GkaWriter to a file, gzip-compressed if its name ends with
+	 * ".gz".
+	 *
+	 * @param path
+	 *            Path of the new GKA file.
+	 * @throws IOException
+	 *             if an I/O exception occurs
+	 */
+	public GkaWriter(Path path) throws IOException {
+		this(new BufferedWriter(new OutputStreamWriter(GkaCompression.openOutput(path), StandardCharsets.UTF_8),
+				1 << 16));
+	}
+
+	/**
+	 * Constructor for a GkaWriter.
+	 *
+	 * @param writer
+	 *            Writer to write the lines to, it should be buffered.
+	 */
+	public GkaWriter(Writer writer) {
+		this.writer = writer;
+	}
+
+	@Override
+	public void begin(int nodeNum) {
+		this.nodeNum = nodeNum;
+		this.connectedNodes = new BitSet(nodeNum);
+	}
+
+	@Override
+	public void edge(int nodeIndex1, int nodeIndex2, boolean isDirected, boolean hasWeight, int edgeWeight) {
+		connectedNodes.set(nodeIndex1);
+		connectedNodes.set(nodeIndex2);
+
+		try {
+			writer.write(Integer.toString(nodeIndex1));
+			writer.write(isDirected ? " -> " : " -- ");
+			writer.write(Integer.toString(nodeIndex2));
+			if (hasWeight) {
+				writer.write(" : ");
+				writer.write(Integer.toString(edgeWeight));
+			}
+			writer.write(";\n");
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	@Override
+	public void end() {
+		// single nodes
+		try {
+			for (int i = connectedNodes.nextClearBit(0); i < nodeNum; i = connectedNodes.nextClearBit(i + 1)) {
+				writer.write(Integer.toString(i));
+				writer.write(";\n");
+			}
+			writer.flush();
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	@Override
+	public void close() throws IOException {
+		writer.close();
+	}
+}
@@ -0,0 +1,143 @@
+package test;
+
+import static org.junit.Assert.*;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.junit.Test;
+
+import gka1.AlgoALT;
+import gka1.AlgoDijkstra;
+import gka1.GkaCsr;
+import gka1.GkaDijkstraWorkspace;
+import gka1.GkaEdgeList;
+import gka1.GkaGenerator;
+import gka1.GkaLandmarks;
+
+/**
+ * Test for AlgoALT.
+ *
+ * @author Huy Tran PC
+ *
+ */
+public class AlgoALTTest {
+
+	/**
+	 * Test that ALT costs equal Dijkstra costs and paths are valid, on directed
+	 * and undirected graphs.
+	 */
+	@Test
+	public void shortestPathTest() {
+		GkaEdgeList grid = new GkaEdgeList();
+		GkaGenerator.grid(50, 50, 0.3, 1, 30, 3, grid);
+		GkaCsr[] csrs = { GkaGenerator.randomGraph(2000, 6000, true, false, 0, 50, 3).toCsr(), grid.toCsr() };
+		SplittableRandom rand = new SplittableRandom(3);
+
+		for (GkaCsr csr : csrs) {
+			AlgoALT alt = new AlgoALT(GkaLandmarks.build(csr, 8, 3));
+			GkaDijkstraWorkspace workspace = new GkaDijkstraWorkspace(csr.getNodeCount());
+			for (int q = 0; q < 300; q++) {
+				int start = rand.nextInt(csr.getNodeCount());
+				int end = q % 10 == 0 ? start : rand.nextInt(csr.getNodeCount());
+				double expected = AlgoDijkstra.shortestPath(csr, start, end, workspace);
+
+				assertEquals(expected, alt.distance(start, end), 0);
+				int[] nodes = alt.shortestPath(start, end);
+				if (expected < 0) {
+					assertNull(nodes);
+					continue;
+				}
+				assertEquals(start, nodes[0]);
+				assertEquals(end, nodes[nodes.length - 1]);
+				double cost = 0;
+				for (int i = 0; i + 1 < nodes.length; i++) {
+					cost += arcWeight(csr, nodes[i], nodes[i + 1]);
+				}
+				assertEquals(expected, cost, 0);
+			}
+		}
+	}
+
+	/**
+	 * Test that tables rebuilt in the background replace the old ones while
+	 * queries continue.
+	 *
+	 * @throws Exception
+	 *             - if the rebuild fails
+	 */
+	@Test
+	public void rebuildTest() throws Exception {
+		GkaCsr oldCsr = GkaGenerator.randomGraph(1000, 4000, false, false, 1, 20, 1).toCsr();
+		GkaCsr newCsr = GkaGenerator.randomGraph(1500, 6000, false, false, 1, 20, 2).toCsr();
+		AlgoALT alt = new AlgoALT(GkaLandmarks.build(oldCsr, 4, 1));
+		ExecutorService executor = Executors.newSingleThreadExecutor();
+
+		try {
+			GkaLandmarks rebuilt = alt.rebuild(newCsr, 4, 1, executor).get();
+			assertSame(rebuilt, alt.getLandmarks());
+			assertSame(newCsr, rebuilt.getCsr());
+
+			// queries use the new snapshot
+			GkaDijkstraWorkspace workspace = new GkaDijkstraWorkspace(newCsr.getNodeCount());
+			assertEquals(AlgoDijkstra.shortestPath(newCsr, 0, 1400, workspace), alt.distance(0, 1400), 0);
+			assertSame(rebuilt, alt.getLastLandmarks());
+		} finally {
+			executor.shutdown();
+		}
+	}
+
+	/**
+	 * Print the settled nodes and latency of ALT queries compared to Dijkstra,
+	 * and the preprocessing time.
+	 */
+	@Test
+	public void settledNodesTest() {
+		GkaEdgeList grid = new GkaEdgeList();
+		GkaGenerator.grid(1000, 1000, 0.1, 1, 300, 1, grid);
+		GkaCsr csr = grid.toCsr();
+
+		long start = System.nanoTime();
+		GkaLandmarks landmarks = GkaLandmarks.build(csr, 8, 1);
+		long buildTime = System.nanoTime() - start;
+
+		AlgoALT alt = new AlgoALT(landmarks);
+		GkaDijkstraWorkspace workspace = new GkaDijkstraWorkspace(csr.getNodeCount());
+		SplittableRandom rand = new SplittableRandom(1);
+		int queryNr = 50;
+
+		long dijkstraTime = 0;
+		long altTime = 0;
+		long dijkstraSettled = 0;
+		long altSettled = 0;
+		for (int q = 0; q < queryNr; q++) {
+			int startIndex = rand.nextInt(csr.getNodeCount());
+			int endIndex = rand.nextInt(csr.getNodeCount());
+
+			start = System.nanoTime();
+			double expected = AlgoDijkstra.shortestPath(csr, startIndex, endIndex, workspace, AlgoDijkstra.Queue.HEAP);
+			dijkstraTime += System.nanoTime() - start;
+			dijkstraSettled += workspace.getSettledCount();
+
+			start = System.nanoTime();
+			assertEquals(expected, alt.distance(startIndex, endIndex), 0);
+			altTime += System.nanoTime() - start;
+			altSettled += alt.getSettledCount();
+		}
+
+		System.out.printf("1000 x 1000 grid, weights 1-300, 8 landmarks built in %.0f ms: Dijkstra %.2f ms, %d settled; "
+				+ "ALT %.2f ms, %d settled per query%n%n", buildTime / 1e6, dijkstraTime / 1e6 / queryNr,
+				dijkstraSettled / queryNr, altTime / 1e6 / queryNr, altSettled / queryNr);
+	}
+
+	private static double arcWeight(GkaCsr csr, int u, int v) {
+		double weight = Double.POSITIVE_INFINITY;
+		for (int arc = csr.getOffsets()[u]; arc < csr.getOffsets()[u + 1]; arc++) {
+			if (csr.getTargets()[arc] == v) {
+				weight = Math.min(weight, csr.getWeights()[arc]);
+			}
+		}
+		return weight;
+	}
+}
@@ -4,12 +4,18 @@ import static org.junit.Assert.*;
 
 import java.io.IOException;
 import java.io.UnsupportedEncodingException;
+import java.util.Arrays;
 import java.util.List;
 
 import org.junit.Before;
 import org.junit.Test;
 
 import gka1.AlgoBFS;
+import gka1.AlgoFloydWarshall;
+import gka1.GkaBfsTree;
+import gka1.GkaCsr;
+import gka1.GkaEdgeList;
+import gka1.GkaGenerator;
 import gka1.GkaGraph;
 import gka1.GkaUtils;
 
@@ -82,4 +88,117 @@ public class AlgoBFSTest {
 		System.out.println(String.join(" -> ", noShortestPathTest));
 		System.out.println();
 	}
+
+	/**
+	 * Test shortest path from a node to itself: only the start node, where the
+	 * HashMap based BFS used to return null. Floyd-Warshall returns the same
+	 * path and no nodes before end.
+	 */
+	@Test
+	public void testShortestPathToItself() {
+		assertEquals(Arrays.asList(startNodeName),
+				GkaUtils.toNodesString(AlgoBFS.shortestPath(graph, startNodeName, startNodeName)));
+		assertEquals(Arrays.asList(singleNodeName),
+				GkaUtils.toNodesString(AlgoBFS.shortestPath(graph, singleNodeName, singleNodeName)));
+
+		assertEquals(Arrays.asList(startNodeName),
+				GkaUtils.toNodesString(AlgoFloydWarshall.shortestPath(graph, startNodeName, startNodeName)));
+		assertTrue(AlgoFloydWarshall.extractPath(graph, startNodeName, startNodeName).isEmpty());
+	}
+
+	/**
+	 * Test that the CSR entry points reject indices outside the snapshot.
+	 */
+	@Test
+	public void testNodeNotFound() {
+		GkaEdgeList list = new GkaEdgeList();
+		list.addEdge(list.addNode("a"), list.addNode("b"), true, null, false, 0);
+		GkaCsr csr = list.toCsr();
+		for (int index : new int[] { -1, 2, 5 }) {
+			try {
+				AlgoBFS.traverse(csr, index);
+				fail("Expected IllegalArgumentException");
+			} catch (IllegalArgumentException e) {
+				assertEquals("Node not found in graph.", e.getMessage());
+			}
+			try {
+				AlgoBFS.shortestPath(csr, 0, index);
+				fail("Expected IllegalArgumentException");
+			} catch (IllegalArgumentException e) {
+				assertEquals("Node not found in graph.", e.getMessage());
+			}
+			try {
+				AlgoBFS.shortestPath(csr, index, 1);
+				fail("Expected IllegalArgumentException");
+			} catch (IllegalArgumentException e) {
+				assertEquals("Node not found in graph.", e.getMessage());
+			}
+		}
+		assertArrayEquals(new int[] { 0, 1 }, AlgoBFS.shortestPath(csr, 0, 1));
+	}
+
+	/**
+	 * Test that the direction-optimizing BFS finds the same levels as a plain
+	 * BFS and a valid parent for each reached node.
+	 */
+	@Test
+	public void testSearch() {
+		GkaCsr fileCsr = GkaCsr.of(graph);
+		GkaBfsTree tree = AlgoBFS.search(fileCsr, fileCsr.getNodeIndex(startNodeName));
+		assertEquals(8, tree.getReachedCount());
+		assertEquals(3, tree.getPath(fileCsr.getNodeIndex(endNodeName)).length - 1);
+		assertNull(tree.getPath(fileCsr.getNodeIndex(singleNodeName)));
+
+		for (boolean isDirected : new boolean[] { true, false }) {
+			// sparse and dense enough for bottom-up steps
+			for (int edgeNum : new int[] { 3000, 20000, 200000 }) {
+				GkaCsr csr = GkaGenerator.randomGraph(5000, edgeNum, isDirected, false, 1, 1, edgeNum).toCsr();
+				assertTree(csr, 0);
+				assertTree(csr, 4999);
+			}
+		}
+
+		GkaEdgeList rmat = new GkaEdgeList();
+		GkaGenerator.rmat(14, 200000, true, 1, 1, 3, rmat);
+		assertTree(rmat.toCsr(), 0);
+		GkaEdgeList grid = new GkaEdgeList();
+		GkaGenerator.grid(100, 100, 0.2, 1, 1, 3, grid);
+		assertTree(grid.toCsr(), 5050);
+	}
+
+	private static void assertTree(GkaCsr csr, int startIndex) {
+		int[] offsets = csr.getOffsets();
+		int[] targets = csr.getTargets();
+
+		// plain BFS levels
+		int[] levels = new int[csr.getNodeCount()];
+		Arrays.fill(levels, -1);
+		levels[startIndex] = 0;
+		int[] order = AlgoBFS.traverse(csr, startIndex);
+		for (int curr : order) {
+			for (int arc = offsets[curr]; arc < offsets[curr + 1]; arc++) {
+				if (levels[targets[arc]] < 0) {
+					levels[targets[arc]] = levels[curr] + 1;
+				}
+			}
+		}
+
+		GkaBfsTree tree = AlgoBFS.search(csr, startIndex);
+		assertArrayEquals(levels, tree.getLevels());
+		assertEquals(order.length, tree.getReachedCount());
+		for (int n = 0; n < csr.getNodeCount(); n++) {
+			int parent = tree.getParent(n);
+			if (n == startIndex || levels[n] < 0) {
+				assertEquals(-1, parent);
+				continue;
+			}
+
+			boolean hasArc = false;
+			for (int arc = offsets[parent]; arc < offsets[parent + 1]; arc++) {
+				hasArc |= targets[arc] == n;
+			}
+			assertTrue(hasArc);
+			assertEquals(levels[n] - 1, levels[parent]);
+		}
+	}
 }
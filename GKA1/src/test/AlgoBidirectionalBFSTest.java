@@ -0,0 +1,82 @@
+package test;
+
+import static org.junit.Assert.*;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.SplittableRandom;
+
+import org.junit.Test;
+
+import gka1.AlgoBFS;
+import gka1.AlgoBidirectionalBFS;
+import gka1.GkaCsr;
+import gka1.GkaEdgeList;
+import gka1.GkaGenerator;
+import gka1.GkaGraph;
+import gka1.GkaUtils;
+
+/**
+ * Test for AlgoBidirectionalBFS.
+ *
+ * @author Huy Tran PC
+ *
+ */
+public class AlgoBidirectionalBFSTest {
+
+	/**
+	 * Test that bidirectional paths are valid and as short as BFS paths, on
+	 * directed and undirected graphs with one reused instance.
+	 *
+	 * @throws IOException
+	 *             - if an I/0 exception occurs
+	 */
+	@Test
+	public void shortestPathTest() throws IOException {
+		GkaGraph graph = GkaUtils.read("BFStest.gka");
+		List<String> path = GkaUtils.toNodesString(AlgoBidirectionalBFS.shortestPath(graph, "s", "t"));
+		assertEquals(4, path.size());
+		assertEquals("s", path.get(0));
+		assertEquals("t", path.get(3));
+		assertNull(AlgoBidirectionalBFS.shortestPath(graph, "s", "g"));
+
+		GkaEdgeList grid = new GkaEdgeList();
+		GkaGenerator.grid(50, 50, 0.3, 1, 1, 3, grid);
+		GkaEdgeList rmat = new GkaEdgeList();
+		GkaGenerator.rmat(12, 30000, false, 1, 1, 3, rmat);
+		GkaCsr[] csrs = { GkaGenerator.randomGraph(2000, 3000, true, false, 1, 1, 3).toCsr(), grid.toCsr(),
+				rmat.toCsr() };
+		SplittableRandom rand = new SplittableRandom(3);
+
+		for (GkaCsr csr : csrs) {
+			AlgoBidirectionalBFS bfs = new AlgoBidirectionalBFS(csr);
+			for (int q = 0; q < 300; q++) {
+				int start = rand.nextInt(csr.getNodeCount());
+				int end = q % 10 == 0 ? start : rand.nextInt(csr.getNodeCount());
+				int level = AlgoBFS.search(csr, start).getLevel(end);
+
+				assertEquals(level, bfs.distance(start, end));
+				int[] nodes = bfs.shortestPath(start, end);
+				if (level < 0) {
+					assertNull(nodes);
+					continue;
+				}
+				assertEquals(level + 1, nodes.length);
+				assertEquals(start, nodes[0]);
+				assertEquals(end, nodes[level]);
+				for (int i = 0; i < level; i++) {
+					assertTrue(hasArc(csr, nodes[i], nodes[i + 1]));
+				}
+			}
+		}
+	}
+
+	private static boolean hasArc(GkaCsr csr, int u, int v) {
+		for (int arc = csr.getOffsets()[u]; arc < csr.getOffsets()[u + 1]; arc++) {
+			if (csr.getTargets()[arc] == v) {
+				return true;
+			}
+		}
+		return false;
+	}
+}
@@ -0,0 +1,131 @@
+package test;
+
+import static org.junit.Assert.*;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.SplittableRandom;
+
+import org.junit.Test;
+
+import gka1.AlgoBidirectionalDijkstra;
+import gka1.AlgoDijkstra;
+import gka1.GkaCsr;
+import gka1.GkaDijkstraWorkspace;
+import gka1.GkaEdgeList;
+import gka1.GkaGenerator;
+import gka1.GkaGraph;
+import gka1.GkaUtils;
+
+/**
+ * Test for AlgoBidirectionalDijkstra.
+ *
+ * @author Huy Tran PC
+ *
+ */
+public class AlgoBidirectionalDijkstraTest {
+
+	/**
+	 * Test that bidirectional costs equal Dijkstra costs and paths are valid, on
+	 * directed and undirected graphs with one reused instance.
+	 *
+	 * @throws IOException
+	 *             - if an I/0 exception occurs
+	 */
+	@Test
+	public void shortestPathTest() throws IOException {
+		GkaGraph graph = GkaUtils.read("graph03.gka");
+		List<String> path = GkaUtils.toNodesString(AlgoBidirectionalDijkstra.shortestPath(graph, "Hamburg", "Hannover"));
+		assertEquals("Hamburg", path.get(0));
+		assertEquals("Hannover", path.get(path.size() - 1));
+		assertEquals(AlgoDijkstra.shortestPath(graph, "Hamburg", "Hannover"), pathCost(GkaCsr.of(graph), path), 0);
+
+		GkaEdgeList grid = new GkaEdgeList();
+		GkaGenerator.grid(50, 50, 0.3, 1, 30, 3, grid);
+		GkaCsr[] csrs = { GkaGenerator.randomGraph(2000, 6000, true, false, 0, 50, 3).toCsr(), grid.toCsr() };
+		SplittableRandom rand = new SplittableRandom(3);
+
+		for (GkaCsr csr : csrs) {
+			AlgoBidirectionalDijkstra dijkstra = new AlgoBidirectionalDijkstra(csr);
+			GkaDijkstraWorkspace workspace = new GkaDijkstraWorkspace(csr.getNodeCount());
+			for (int q = 0; q < 300; q++) {
+				int start = rand.nextInt(csr.getNodeCount());
+				int end = q % 10 == 0 ? start : rand.nextInt(csr.getNodeCount());
+				double expected = AlgoDijkstra.shortestPath(csr, start, end, workspace);
+
+				assertEquals(expected, dijkstra.distance(start, end), 0);
+				int[] nodes = dijkstra.shortestPath(start, end);
+				if (expected < 0) {
+					assertNull(nodes);
+					continue;
+				}
+				assertEquals(start, nodes[0]);
+				assertEquals(end, nodes[nodes.length - 1]);
+				double cost = 0;
+				for (int i = 0; i + 1 < nodes.length; i++) {
+					cost += arcWeight(csr, nodes[i], nodes[i + 1]);
+				}
+				assertEquals(expected, cost, 0);
+			}
+		}
+	}
+
+	/**
+	 * Print the settled nodes and latency of point-to-point queries compared to
+	 * Dijkstra from the start that stops at the end.
+	 */
+	@Test
+	public void settledNodesTest() {
+		GkaEdgeList grid = new GkaEdgeList();
+		GkaGenerator.grid(1000, 1000, 0.1, 1, 300, 1, grid);
+		GkaCsr csr = grid.toCsr();
+		AlgoBidirectionalDijkstra dijkstra = new AlgoBidirectionalDijkstra(csr);
+		GkaDijkstraWorkspace workspace = new GkaDijkstraWorkspace(csr.getNodeCount());
+		SplittableRandom rand = new SplittableRandom(1);
+		int queryNr = 50;
+
+		long dijkstraTime = 0;
+		long bidirectionalTime = 0;
+		long dijkstraSettled = 0;
+		long bidirectionalSettled = 0;
+		for (int q = 0; q < queryNr; q++) {
+			int startIndex = rand.nextInt(csr.getNodeCount());
+			int endIndex = rand.nextInt(csr.getNodeCount());
+
+			long start = System.nanoTime();
+			double expected = AlgoDijkstra.shortestPath(csr, startIndex, endIndex, workspace, AlgoDijkstra.Queue.HEAP);
+			dijkstraTime += System.nanoTime() - start;
+			dijkstraSettled += workspace.getSettledCount();
+
+			start = System.nanoTime();
+			assertEquals(expected, dijkstra.distance(startIndex, endIndex), 0);
+			bidirectionalTime += System.nanoTime() - start;
+			bidirectionalSettled += dijkstra.getSettledCount();
+		}
+
+		System.out.printf("1000 x 1000 grid, weights 1-300: Dijkstra %.2f ms, %d settled; "
+				+ "bidirectional Dijkstra %.2f ms, %d settled per query%n%n", dijkstraTime / 1e6 / queryNr,
+				dijkstraSettled / queryNr, bidirectionalTime / 1e6 / queryNr, bidirectionalSettled / queryNr);
+	}
+
+	private static double pathCost(GkaCsr csr, List<String> names) {
+		double cost = 0;
+		int prev = csr.getNodeIndex(names.get(0));
+		for (int i = 1; i < names.size(); i++) {
+			int curr = csr.getNodeIndex(names.get(i));
+			cost += arcWeight(csr, prev, curr);
+			prev = curr;
+		}
+		return cost;
+	}
+
+	private static double arcWeight(GkaCsr csr, int u, int v) {
+		double weight = Double.POSITIVE_INFINITY;
+		for (int arc = csr.getOffsets()[u]; arc < csr.getOffsets()[u + 1]; arc++) {
+			if (csr.getTargets()[arc] == v) {
+				weight = Math.min(weight, csr.getWeights()[arc]);
+			}
+		}
+		return weight;
+	}
+}
@@ -0,0 +1,181 @@
+package test;
+
+import static org.junit.Assert.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.SplittableRandom;
+
+import org.junit.Test;
+
+import gka1.AlgoCH;
+import gka1.AlgoDijkstra;
+import gka1.GkaContractionHierarchy;
+import gka1.GkaCsr;
+import gka1.GkaDijkstraWorkspace;
+import gka1.GkaEdgeList;
+import gka1.GkaGenerator;
+import gka1.GkaGraph;
+import gka1.GkaUtils;
+
+/**
+ * Test for AlgoCH and GkaContractionHierarchy.
+ *
+ * @author Huy Tran PC
+ *
+ */
+public class AlgoCHTest {
+
+	/**
+	 * Test that costs equal Dijkstra costs and unpacked paths are valid paths of
+	 * the snapshot, on directed and undirected graphs.
+	 *
+	 * @throws IOException
+	 *             - if an I/0 exception occurs
+	 */
+	@Test
+	public void shortestPathTest() throws IOException {
+		GkaGraph graph = GkaUtils.read("graph03.gka");
+		GkaCsr graphCsr = GkaCsr.of(graph);
+		AlgoCH graphCh = new AlgoCH(GkaContractionHierarchy.build(graphCsr));
+		List<String> path = GkaUtils.toNodesString(graphCh.shortestPath(graph, graphCsr, "Hamburg", "Hannover"));
+		assertEquals("Hamburg", path.get(0));
+		assertEquals("Hannover", path.get(path.size() - 1));
+
+		GkaEdgeList grid = new GkaEdgeList();
+		GkaGenerator.grid(50, 50, 0.3, 1, 30, 3, grid);
+		GkaCsr[] csrs = { GkaGenerator.randomGraph(2000, 6000, true, false, 0, 50, 3).toCsr(), grid.toCsr(),
+				GkaCsr.of(graph) };
+		SplittableRandom rand = new SplittableRandom(3);
+
+		for (GkaCsr csr : csrs) {
+			AlgoCH ch = new AlgoCH(GkaContractionHierarchy.build(csr));
+			GkaDijkstraWorkspace workspace = new GkaDijkstraWorkspace(csr.getNodeCount());
+			for (int q = 0; q < 300; q++) {
+				int start = rand.nextInt(csr.getNodeCount());
+				int end = q % 10 == 0 ? start : rand.nextInt(csr.getNodeCount());
+				double expected = AlgoDijkstra.shortestPath(csr, start, end, workspace);
+
+				assertEquals(expected, ch.distance(start, end), 0);
+				int[] nodes = ch.shortestPath(start, end);
+				if (expected < 0) {
+					assertNull(nodes);
+					continue;
+				}
+				assertEquals(start, nodes[0]);
+				assertEquals(end, nodes[nodes.length - 1]);
+				double cost = 0;
+				for (int i = 0; i + 1 < nodes.length; i++) {
+					cost += arcWeight(csr, nodes[i], nodes[i + 1]);
+				}
+				assertEquals(expected, cost, 0);
+			}
+		}
+	}
+
+	/**
+	 * Test that a saved index loads with the same queries and is rejected for
+	 * another graph, also one with the same number of nodes and arcs.
+	 *
+	 * @throws IOException
+	 *             - if an I/0 exception occurs
+	 */
+	@Test
+	public void saveLoadTest() throws IOException {
+		GkaCsr csr = GkaGenerator.randomGraph(1000, 4000, true, false, 1, 20, 3).toCsr();
+		GkaContractionHierarchy hierarchy = GkaContractionHierarchy.build(csr);
+		Path path = Files.createTempFile("chTest", ".bin");
+
+		try {
+			hierarchy.save(path);
+			GkaContractionHierarchy loaded = GkaContractionHierarchy.load(path, csr);
+			assertEquals(hierarchy.getArcCount(), loaded.getArcCount());
+			assertEquals(hierarchy.getShortcutCount(), loaded.getShortcutCount());
+			AlgoCH expected = new AlgoCH(hierarchy);
+			AlgoCH actual = new AlgoCH(loaded);
+			for (int n = 0; n < csr.getNodeCount(); n++) {
+				assertEquals(hierarchy.getRank(n), loaded.getRank(n));
+				assertArrayEquals(expected.shortestPath(0, n), actual.shortestPath(0, n));
+			}
+
+			try {
+				GkaContractionHierarchy.load(path, GkaGenerator.randomGraph(1000, 3000, true, false, 1, 20, 3).toCsr());
+				fail();
+			} catch (IOException e) {
+				// expected
+			}
+			// same counts but other weights
+			GkaCsr reweighted = GkaGenerator.randomGraph(1000, 4000, true, false, 1, 21, 3).toCsr();
+			assertEquals(csr.getArcCount(), reweighted.getArcCount());
+			try {
+				GkaContractionHierarchy.load(path, reweighted);
+				fail();
+			} catch (IOException e) {
+				assertEquals("Contraction hierarchy file doesn't match graph.", e.getMessage());
+			}
+			Files.write(path, new byte[] { 'G', 'K', 'A', 'C', 2, 0, 0 });
+			try {
+				GkaContractionHierarchy.load(path, csr);
+				fail();
+			} catch (IOException e) {
+				// expected
+			}
+		} finally {
+			Files.delete(path);
+		}
+	}
+
+	/**
+	 * Print the preprocessing time and the latency of queries compared to
+	 * Dijkstra.
+	 */
+	@Test
+	public void queryTimeTest() {
+		GkaEdgeList grid = new GkaEdgeList();
+		GkaGenerator.grid(300, 300, 0.1, 1, 300, 1, grid);
+		GkaCsr csr = grid.toCsr();
+
+		long start = System.nanoTime();
+		GkaContractionHierarchy hierarchy = GkaContractionHierarchy.build(csr);
+		long buildTime = System.nanoTime() - start;
+
+		AlgoCH ch = new AlgoCH(hierarchy);
+		GkaDijkstraWorkspace workspace = new GkaDijkstraWorkspace(csr.getNodeCount());
+		SplittableRandom rand = new SplittableRandom(1);
+		int queryNr = 200;
+
+		long dijkstraTime = 0;
+		long chTime = 0;
+		long chSettled = 0;
+		for (int q = 0; q < queryNr; q++) {
+			int startIndex = rand.nextInt(csr.getNodeCount());
+			int endIndex = rand.nextInt(csr.getNodeCount());
+
+			start = System.nanoTime();
+			double expected = AlgoDijkstra.shortestPath(csr, startIndex, endIndex, workspace);
+			dijkstraTime += System.nanoTime() - start;
+
+			start = System.nanoTime();
+			assertEquals(expected, ch.distance(startIndex, endIndex), 0);
+			chTime += System.nanoTime() - start;
+			chSettled += ch.getSettledCount();
+		}
+
+		System.out.printf("300 x 300 grid, weights 1-300: index built in %.0f ms with %d shortcuts; "
+				+ "Dijkstra %.3f ms, CH %.3f ms with %d settled per query%n%n", buildTime / 1e6,
+				hierarchy.getShortcutCount(), dijkstraTime / 1e6 / queryNr, chTime / 1e6 / queryNr,
+				chSettled / queryNr);
+	}
+
+	private static double arcWeight(GkaCsr csr, int u, int v) {
+		double weight = Double.POSITIVE_INFINITY;
+		for (int arc = csr.getOffsets()[u]; arc < csr.getOffsets()[u + 1]; arc++) {
+			if (csr.getTargets()[arc] == v) {
+				weight = Math.min(weight, csr.getWeights()[arc]);
+			}
+		}
+		return weight;
+	}
+}
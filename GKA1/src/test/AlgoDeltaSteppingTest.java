@@ -0,0 +1,135 @@
+package test;
+
+import static org.junit.Assert.*;
+
+import java.util.Arrays;
+import java.util.PriorityQueue;
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.Test;
+
+import gka1.AlgoDeltaStepping;
+import gka1.GkaCsr;
+import gka1.GkaEdgeList;
+import gka1.GkaGenerator;
+
+/**
+ * Test for AlgoDeltaStepping.
+ *
+ * @author Huy Tran PC
+ *
+ */
+public class AlgoDeltaSteppingTest {
+
+	/**
+	 * Test that costs equal Dijkstra costs for small, selected and large deltas
+	 * with 1 and 4 threads, on directed, grid and R-MAT graphs.
+	 */
+	@Test
+	public void distancesTest() {
+		GkaEdgeList grid = new GkaEdgeList();
+		GkaGenerator.grid(100, 100, 0.2, 1, 100, 5, grid);
+		GkaEdgeList rmat = new GkaEdgeList();
+		GkaGenerator.rmat(13, 60000, true, 0, 1000, 5, rmat);
+		GkaCsr[] csrs = { GkaGenerator.randomGraph(3000, 9000, true, false, 0, 50, 5).toCsr(), grid.toCsr(),
+				rmat.toCsr() };
+
+		for (int threadNr : new int[] { 1, 4 }) {
+			ForkJoinPool pool = new ForkJoinPool(threadNr);
+			try {
+				for (GkaCsr csr : csrs) {
+					for (int start : new int[] { 0, csr.getNodeCount() / 2 }) {
+						double[] expected = dijkstra(csr, start);
+						int[] deltas = { 1, AlgoDeltaStepping.selectDelta(csr), csr.getMaxWeight() + 1 };
+						for (int delta : deltas) {
+							assertArrayEquals(expected, AlgoDeltaStepping.distances(csr, start, delta, pool), 0);
+						}
+					}
+				}
+			} finally {
+				pool.shutdown();
+			}
+		}
+		assertArrayEquals(dijkstra(csrs[1], 7), AlgoDeltaStepping.distances(csrs[1], 7), 0);
+	}
+
+	/**
+	 * Test that a max weight of Integer.MAX_VALUE raises delta instead of
+	 * allocating a bucket per weight.
+	 */
+	@Test
+	public void maxWeightTest() {
+		GkaEdgeList list = new GkaEdgeList();
+		for (int n = 0; n < 2002; n++) {
+			list.addNode(Integer.toString(n));
+		}
+		for (int n = 0; n + 1 < 2000; n++) {
+			list.addEdge(n, n + 1, false, null, true, 1);
+		}
+		list.addEdge(0, 1999, true, null, true, Integer.MAX_VALUE);
+		list.addEdge(1500, 0, true, null, true, Integer.MAX_VALUE);
+		list.addEdge(5, 2000, true, null, true, Integer.MAX_VALUE);
+		list.addEdge(2000, 2001, true, null, true, Integer.MAX_VALUE);
+		GkaCsr csr = list.toCsr();
+		assertEquals(1, AlgoDeltaStepping.selectDelta(csr));
+
+		double[] expected = dijkstra(csr, 0);
+		assertEquals(5.0 + 2.0 * Integer.MAX_VALUE, expected[2001], 0);
+		assertArrayEquals(expected, AlgoDeltaStepping.distances(csr, 0), 0);
+		ForkJoinPool pool = new ForkJoinPool(4);
+		try {
+			assertArrayEquals(expected, AlgoDeltaStepping.distances(csr, 0, 1, pool), 0);
+			assertArrayEquals(dijkstra(csr, 1500), AlgoDeltaStepping.distances(csr, 1500, 1, pool), 0);
+		} finally {
+			pool.shutdown();
+		}
+	}
+
+	/**
+	 * Test that invalid arguments are rejected.
+	 */
+	@Test
+	public void argumentsTest() {
+		GkaCsr csr = GkaGenerator.randomGraph(10, 20, true, false, 1, 5, 1).toCsr();
+		try {
+			AlgoDeltaStepping.distances(csr, 10);
+			fail("Expected IllegalArgumentException");
+		} catch (IllegalArgumentException e) {
+			assertEquals("Node not found in graph.", e.getMessage());
+		}
+		try {
+			AlgoDeltaStepping.distances(csr, 0, 0, ForkJoinPool.commonPool());
+			fail("Expected IllegalArgumentException");
+		} catch (IllegalArgumentException e) {
+			assertEquals("Delta must be positive.", e.getMessage());
+		}
+	}
+
+	/**
+	 * Reference costs of a plain Dijkstra on a priority queue of (cost, node).
+	 */
+	private static double[] dijkstra(GkaCsr csr, int start) {
+		double[] dists = new double[csr.getNodeCount()];
+		Arrays.fill(dists, Double.POSITIVE_INFINITY);
+		dists[start] = 0;
+		PriorityQueue<double[]> queue = new PriorityQueue<>((a, b) -> Double.compare(a[0], b[0]));
+		queue.add(new double[] { 0, start });
+
+		while (!queue.isEmpty()) {
+			double[] entry = queue.poll();
+			int curr = (int) entry[1];
+			if (entry[0] > dists[curr]) {
+				continue;
+			}
+			for (int arc = csr.getOffsets()[curr]; arc < csr.getOffsets()[curr + 1]; arc++) {
+				int n = csr.getTargets()[arc];
+				double dist = dists[curr] + csr.getWeights()[arc];
+				if (dist < dists[n]) {
+					dists[n] = dist;
+					queue.add(new double[] { dist, n });
+				}
+			}
+		}
+		return dists;
+	}
+}
@@ -5,15 +5,22 @@ import static org.junit.Assert.*;
 import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.UnsupportedEncodingException;
+import java.lang.management.ManagementFactory;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.PriorityQueue;
+import java.util.SplittableRandom;
 
 import org.graphstream.algorithm.Dijkstra;
 import org.graphstream.algorithm.Dijkstra.Element;
 import org.junit.Test;
 
 import gka1.AlgoDijkstra;
+import gka1.GkaCsr;
+import gka1.GkaDijkstraWorkspace;
+import gka1.GkaEdgeList;
+import gka1.GkaGenerator;
 import gka1.GkaGraph;
 import gka1.GkaUtils;
 
@@ -90,4 +97,244 @@ public class AlgoDiijkstraTest {
 			assertEquals(result, shortestPathTest, 0.0000001);
 		}
 	}
+
+	/**
+	 * Test that one workspace gives the same costs and valid paths as a search
+	 * with a plain priority queue for many queries with each queue.
+	 */
+	@Test
+	public void testWorkspace() {
+		GkaEdgeList grid = new GkaEdgeList();
+		GkaGenerator.grid(40, 40, 0.2, 1, 30, 3, grid);
+		GkaCsr[] csrs = { GkaGenerator.randomGraph(1000, 5000, true, false, 0, 50, 3).toCsr(), grid.toCsr() };
+		SplittableRandom rand = new SplittableRandom(3);
+
+		for (GkaCsr csr : csrs) {
+			GkaDijkstraWorkspace workspace = new GkaDijkstraWorkspace(csr.getNodeCount());
+			for (int q = 0; q < 300; q++) {
+				int start = rand.nextInt(csr.getNodeCount());
+				int end = rand.nextInt(csr.getNodeCount());
+				AlgoDijkstra.Queue queue = AlgoDijkstra.Queue.values()[q % 3];
+				double expected = lazyShortestPath(csr, start, end);
+				double cost = AlgoDijkstra.shortestPath(csr, start, end, workspace, queue);
+				assertEquals(expected, cost, 0);
+
+				int[] path = workspace.getPath(end);
+				if (cost < 0) {
+					assertNull(path);
+					continue;
+				}
+				assertEquals(start, path[0]);
+				assertEquals(end, path[path.length - 1]);
+				double pathCost = 0;
+				for (int i = 0; i + 1 < path.length; i++) {
+					pathCost += arcWeight(csr, path[i], path[i + 1]);
+				}
+				assertEquals(cost, pathCost, 0);
+			}
+		}
+	}
+
+	/**
+	 * Test that buckets are refused for weights above their limit, which AUTO and
+	 * the heap still handle.
+	 */
+	@Test
+	public void testBucketWeightLimit() {
+		GkaCsr csr = GkaGenerator.randomGraph(20, 60, true, false, AlgoDijkstra.MAX_BUCKET_RANGE + 1,
+				Integer.MAX_VALUE - 1, 1).toCsr();
+		GkaDijkstraWorkspace workspace = new GkaDijkstraWorkspace(csr.getNodeCount());
+		try {
+			AlgoDijkstra.shortestPath(csr, 0, 1, workspace, AlgoDijkstra.Queue.BUCKETS);
+			fail("Expected IllegalArgumentException");
+		} catch (IllegalArgumentException e) {
+			assertTrue(e.getMessage().startsWith("Bucket queue needs"));
+		}
+		assertEquals(lazyShortestPath(csr, 0, 1), AlgoDijkstra.shortestPath(csr, 0, 1, workspace), 0);
+		assertEquals(lazyShortestPath(csr, 0, 1),
+				AlgoDijkstra.shortestPath(csr, 0, 1, workspace, AlgoDijkstra.Queue.HEAP), 0);
+	}
+
+	/**
+	 * Test that one-to-all and one-to-many searches on a reused workspace give
+	 * reference costs and a consistent shortest path tree.
+	 *
+	 * @throws IOException
+	 *             - if an I/0 exception occurs
+	 */
+	@Test
+	public void testShortestPathTree() throws IOException {
+		graph = GkaUtils.read("graph03.gka");
+		int[] prevNodes = new int[graph.getNodeCount()];
+		double[] costs = AlgoDijkstra.shortestPathTree(graph, "Hamburg", prevNodes);
+		int hannover = graph.getNodeIndex("Hannover");
+		assertEquals(AlgoDijkstra.shortestPath(graph, "Hamburg", "Hannover"), costs[hannover], 0);
+		assertEquals(-1, prevNodes[graph.getNodeIndex("Hamburg")]);
+
+		GkaEdgeList grid = new GkaEdgeList();
+		GkaGenerator.grid(40, 40, 0.2, 1, 30, 3, grid);
+		GkaCsr[] csrs = { GkaGenerator.randomGraph(1000, 3000, true, false, 0, 50, 3).toCsr(), grid.toCsr() };
+		SplittableRandom rand = new SplittableRandom(3);
+
+		for (GkaCsr csr : csrs) {
+			int nodeNr = csr.getNodeCount();
+			GkaDijkstraWorkspace workspace = new GkaDijkstraWorkspace(nodeNr);
+			double[] dists = new double[nodeNr];
+			prevNodes = new int[nodeNr];
+			for (int q = 0; q < 20; q++) {
+				int start = rand.nextInt(nodeNr);
+				AlgoDijkstra.shortestPathTree(csr, start, workspace);
+				workspace.copyDistances(dists);
+				workspace.copyPrevNodes(prevNodes);
+				assertEquals(nodeNr, workspace.getSettledCount() + count(dists, Double.POSITIVE_INFINITY));
+
+				for (int i = 0; i < 50; i++) {
+					int n = rand.nextInt(nodeNr);
+					double expected = lazyShortestPath(csr, start, n);
+					assertEquals(expected < 0 ? Double.POSITIVE_INFINITY : expected, dists[n], 0);
+				}
+				for (int n = 0; n < nodeNr; n++) {
+					if (n == start || dists[n] == Double.POSITIVE_INFINITY) {
+						assertEquals(-1, prevNodes[n]);
+					} else {
+						assertEquals(dists[n], dists[prevNodes[n]] + arcWeight(csr, prevNodes[n], n), 0);
+					}
+				}
+
+				// the search for some ends stops early with the same costs
+				int[] ends = { rand.nextInt(nodeNr), rand.nextInt(nodeNr), rand.nextInt(nodeNr), start };
+				int reachable = (int) Arrays.stream(ends).distinct().filter(n -> dists[n] != Double.POSITIVE_INFINITY)
+						.count();
+				assertEquals(reachable, AlgoDijkstra.shortestPathTree(csr, start, ends, workspace));
+				for (int end : ends) {
+					assertEquals(dists[end], workspace.getDistance(end), 0);
+					int[] path = workspace.getPath(end);
+					if (dists[end] == Double.POSITIVE_INFINITY) {
+						assertNull(path);
+					} else {
+						assertEquals(start, path[0]);
+						assertEquals(end, path[path.length - 1]);
+					}
+				}
+			}
+		}
+	}
+
+	/**
+	 * Test that an empty list of ends searches nothing and that arrays longer
+	 * than the graph are filled completely.
+	 */
+	@Test
+	public void testShortestPathTreeEdgeCases() {
+		GkaCsr csr = GkaGenerator.randomGraph(100, 300, true, false, 1, 10, 3).toCsr();
+		GkaDijkstraWorkspace workspace = new GkaDijkstraWorkspace(csr.getNodeCount());
+		AlgoDijkstra.shortestPathTree(csr, 0, workspace);
+		assertEquals(0, AlgoDijkstra.shortestPathTree(csr, 0, new int[0], workspace));
+		assertEquals(0, workspace.getSettledCount());
+		assertNull(workspace.getPath(0));
+
+		int[] prevNodes = new int[csr.getNodeCount() + 5];
+		Arrays.fill(prevNodes, 7);
+		int end = csr.getNodeCount() - 1;
+		double cost = AlgoDijkstra.shortestPath(csr, 0, end, prevNodes);
+		assertEquals(lazyShortestPath(csr, 0, end), cost, 0);
+		for (int n = csr.getNodeCount(); n < prevNodes.length; n++) {
+			assertEquals(-1, prevNodes[n]);
+		}
+
+		AlgoDijkstra.shortestPathTree(csr, 0, workspace);
+		double[] dists = workspace.copyDistances(new double[csr.getNodeCount() + 5]);
+		assertEquals(0, dists[0], 0);
+		assertEquals(Double.POSITIVE_INFINITY, dists[csr.getNodeCount()], 0);
+	}
+
+	/**
+	 * Test that searches on a reused workspace allocate nothing once it has
+	 * been used, and print the time of one-to-all searches.
+	 */
+	@Test
+	public void testShortestPathTreeAllocation() {
+		GkaEdgeList list = new GkaEdgeList();
+		GkaGenerator.grid(300, 300, 0.1, 1, 300, 1, list);
+		GkaCsr csr = list.toCsr();
+		GkaDijkstraWorkspace workspace = new GkaDijkstraWorkspace(csr.getNodeCount());
+		int[] ends = { 7, 4000, 50000, 80000 };
+		com.sun.management.ThreadMXBean bean = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+		int queryNr = 20;
+
+		// warm up, this allocates the bucket queue and the end stamps
+		for (int q = 0; q < queryNr; q++) {
+			AlgoDijkstra.shortestPathTree(csr, q, workspace);
+			AlgoDijkstra.shortestPathTree(csr, q, ends, workspace);
+			AlgoDijkstra.shortestPath(csr, q, ends[0], workspace, AlgoDijkstra.Queue.HEAP);
+		}
+
+		long bytes = bean.getThreadAllocatedBytes(Thread.currentThread().getId());
+		long start = System.nanoTime();
+		for (int q = 0; q < queryNr; q++) {
+			AlgoDijkstra.shortestPathTree(csr, q, workspace);
+		}
+		long time = System.nanoTime() - start;
+		for (int q = 0; q < queryNr; q++) {
+			AlgoDijkstra.shortestPathTree(csr, q, ends, workspace);
+			AlgoDijkstra.shortestPath(csr, q, ends[0], workspace, AlgoDijkstra.Queue.HEAP);
+		}
+		bytes = bean.getThreadAllocatedBytes(Thread.currentThread().getId()) - bytes;
+
+		System.out.printf("shortest path tree on 300 x 300 grid: %.2f ms, %d bytes allocated by %d searches%n%n",
+				time / 1e6 / queryNr, bytes, 3 * queryNr);
+		assertTrue(bytes < 3 * queryNr * 64);
+	}
+
+	private static int count(double[] values, double value) {
+		int out = 0;
+		for (double v : values) {
+			if (v == value) {
+				out++;
+			}
+		}
+		return out;
+	}
+
+	/**
+	 * Reference Dijkstra with a PriorityQueue of (cost, node) entries.
+	 */
+	static double lazyShortestPath(GkaCsr csr, int startIndex, int endIndex) {
+		double[] totalCosts = new double[csr.getNodeCount()];
+		Arrays.fill(totalCosts, Double.POSITIVE_INFINITY);
+		boolean[] visited = new boolean[csr.getNodeCount()];
+		PriorityQueue<double[]> minPQ = new PriorityQueue<>((e1, e2) -> Double.compare(e1[0], e2[0]));
+		totalCosts[startIndex] = 0;
+		minPQ.add(new double[] { 0, startIndex });
+
+		while (!minPQ.isEmpty()) {
+			int curr = (int) minPQ.remove()[1];
+			if (visited[curr]) {
+				continue;
+			}
+			if (curr == endIndex) {
+				return totalCosts[curr];
+			}
+			visited[curr] = true;
+			for (int arc = csr.getOffsets()[curr]; arc < csr.getOffsets()[curr + 1]; arc++) {
+				int n = csr.getTargets()[arc];
+				double totalCost = totalCosts[curr] + csr.getWeights()[arc];
+				if (!visited[n] && totalCost < totalCosts[n]) {
+					totalCosts[n] = totalCost;
+					minPQ.add(new double[] { totalCost, n });
+				}
+			}
+		}
+		return -1;
+	}
+
+	private static double arcWeight(GkaCsr csr, int u, int v) {
+		double weight = Double.POSITIVE_INFINITY;
+		for (int arc = csr.getOffsets()[u]; arc < csr.getOffsets()[u + 1]; arc++) {
+			if (csr.getTargets()[arc] == v) {
+				weight = Math.min(weight, csr.getWeights()[arc]);
+			}
+		}
+		return weight;
+	}
 }
@@ -0,0 +1,76 @@
+package test;
+
+import static org.junit.Assert.*;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+import org.junit.Test;
+
+import gka1.AlgoBFS;
+import gka1.AlgoMultiSourceBFS;
+import gka1.GkaBfsTree;
+import gka1.GkaCsr;
+import gka1.GkaEdgeList;
+import gka1.GkaGenerator;
+import gka1.GkaGraph;
+import gka1.GkaUtils;
+
+/**
+ * Test for AlgoMultiSourceBFS.
+ *
+ * @author Huy Tran PC
+ *
+ */
+public class AlgoMultiSourceBFSTest {
+
+	/**
+	 * Test that batched distances equal single BFS levels, for more sources than
+	 * a batch, repeated nodes and unreachable targets.
+	 *
+	 * @throws IOException
+	 *             - if an I/0 exception occurs
+	 */
+	@Test
+	public void distancesTest() throws IOException {
+		GkaGraph graph = GkaUtils.read("BFStest.gka");
+		int[][] fileDistances = AlgoMultiSourceBFS.distances(graph, Arrays.asList("s", "t"),
+				Arrays.asList("t", "g", "s"));
+		assertArrayEquals(new int[] { 3, -1, 0 }, fileDistances[0]);
+		assertEquals(0, fileDistances[1][0]);
+		try {
+			AlgoMultiSourceBFS.distances(graph, Arrays.asList("unknown"), Arrays.asList("s"));
+			fail();
+		} catch (IllegalArgumentException e) {
+			// expected
+		}
+
+		GkaEdgeList grid = new GkaEdgeList();
+		GkaGenerator.grid(60, 60, 0.3, 1, 1, 3, grid);
+		GkaCsr[] csrs = { GkaGenerator.randomGraph(3000, 6000, true, false, 1, 1, 3).toCsr(), grid.toCsr() };
+		SplittableRandom rand = new SplittableRandom(3);
+
+		for (GkaCsr csr : csrs) {
+			int[] sources = new int[150];
+			for (int i = 0; i < sources.length; i++) {
+				sources[i] = rand.nextInt(csr.getNodeCount());
+			}
+			sources[100] = sources[101];
+			int[] targets = new int[40];
+			for (int j = 0; j < targets.length; j++) {
+				targets[j] = rand.nextInt(csr.getNodeCount());
+			}
+			targets[0] = sources[0];
+			targets[1] = targets[2];
+
+			int[][] distances = AlgoMultiSourceBFS.distances(csr, sources, targets);
+			for (int i = 0; i < sources.length; i++) {
+				GkaBfsTree tree = AlgoBFS.search(csr, sources[i]);
+				for (int j = 0; j < targets.length; j++) {
+					assertEquals(tree.getLevel(targets[j]), distances[i][j]);
+				}
+			}
+		}
+	}
+}
@@ -0,0 +1,83 @@
+package test;
+
+import static org.junit.Assert.*;
+
+import java.io.IOException;
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.Test;
+
+import gka1.AlgoBFS;
+import gka1.AlgoParallelBFS;
+import gka1.GkaBfsTree;
+import gka1.GkaCsr;
+import gka1.GkaEdgeList;
+import gka1.GkaGenerator;
+import gka1.GkaUtils;
+
+/**
+ * Test for AlgoParallelBFS.
+ *
+ * @author Huy Tran PC
+ *
+ */
+public class AlgoParallelBFSTest {
+
+	/**
+	 * Test that the parallel BFS finds the same levels and paths as the
+	 * sequential one on pools of different sizes.
+	 *
+	 * @throws IOException
+	 *             - if an I/0 exception occurs
+	 */
+	@Test
+	public void searchTest() throws IOException {
+		GkaCsr fileCsr = GkaCsr.of(GkaUtils.read("BFStest.gka"));
+		int start = fileCsr.getNodeIndex("s");
+		int end = fileCsr.getNodeIndex("t");
+		assertEquals(AlgoBFS.shortestPath(fileCsr, start, end).length,
+				AlgoParallelBFS.search(fileCsr, start).getPath(end).length);
+
+		GkaEdgeList rmat = new GkaEdgeList();
+		GkaGenerator.rmat(14, 250000, true, 1, 1, 3, rmat);
+		GkaEdgeList grid = new GkaEdgeList();
+		GkaGenerator.grid(300, 300, 0.1, 1, 1, 3, grid);
+		GkaCsr[] csrs = { GkaGenerator.randomGraph(50000, 400000, false, false, 1, 1, 3).toCsr(), rmat.toCsr(),
+				grid.toCsr() };
+
+		for (int threadNr : new int[] { 1, 2, 4 }) {
+			ForkJoinPool pool = new ForkJoinPool(threadNr);
+			try {
+				for (GkaCsr csr : csrs) {
+					GkaBfsTree expected = AlgoBFS.search(csr, 0);
+					GkaBfsTree tree = AlgoParallelBFS.search(csr, 0, pool);
+					assertArrayEquals(expected.getLevels(), tree.getLevels());
+					assertEquals(expected.getReachedCount(), tree.getReachedCount());
+					assertEquals(expected.getDepth(), tree.getDepth());
+					assertParents(csr, tree);
+				}
+			} finally {
+				pool.shutdown();
+			}
+		}
+	}
+
+	private static void assertParents(GkaCsr csr, GkaBfsTree tree) {
+		int[] offsets = csr.getOffsets();
+		int[] targets = csr.getTargets();
+		for (int n = 0; n < csr.getNodeCount(); n++) {
+			int parent = tree.getParent(n);
+			if (n == tree.getStartIndex() || tree.getLevel(n) < 0) {
+				assertEquals(-1, parent);
+				continue;
+			}
+
+			boolean hasArc = false;
+			for (int arc = offsets[parent]; arc < offsets[parent + 1]; arc++) {
+				hasArc |= targets[arc] == n;
+			}
+			assertTrue(hasArc);
+			assertEquals(tree.getLevel(n) - 1, tree.getLevel(parent));
+		}
+	}
+}
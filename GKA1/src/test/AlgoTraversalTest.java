@@ -0,0 +1,132 @@
+package test;
+
+import static org.junit.Assert.*;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.PrimitiveIterator;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import org.graphstream.graph.Node;
+import org.junit.Test;
+
+import gka1.AlgoBFS;
+import gka1.AlgoTraversal;
+import gka1.GkaBfsTree;
+import gka1.GkaCsr;
+import gka1.GkaEdgeList;
+import gka1.GkaGenerator;
+import gka1.GkaGraph;
+import gka1.GkaUtils;
+
+/**
+ * Test for AlgoTraversal.
+ *
+ * @author Huy Tran PC
+ *
+ */
+public class AlgoTraversalTest {
+
+	/**
+	 * Test the order of lazy traversals and their depth bounds.
+	 *
+	 * @throws IOException
+	 *             - if an I/0 exception occurs
+	 */
+	@Test
+	public void orderTest() throws IOException {
+		GkaGraph fileGraph = GkaUtils.read("BFStest.gka");
+		assertEquals(GkaUtils.toNodesString(AlgoBFS.traverse(fileGraph, "s")), GkaUtils.toNodesString(
+				AlgoTraversal.bfs(fileGraph, "s", AlgoTraversal.UNBOUNDED).collect(Collectors.toList())));
+
+		GkaEdgeList list = GkaGenerator.randomGraph(2000, 5000, true, false, 1, 1, 3);
+		GkaCsr csr = list.toCsr();
+		GkaGraph graph = list.toGraph();
+
+		// BFS, the graph may keep the leaving edges of a node in another order
+		GkaBfsTree tree = AlgoBFS.search(csr, 0);
+		int[] expected = AlgoBFS.traverse(csr, 0);
+		assertArrayEquals(expected, AlgoTraversal.bfsStream(csr, 0).toArray());
+		int[] graphOrder = AlgoTraversal.bfs(graph, "0", AlgoTraversal.UNBOUNDED).mapToInt(Node::getIndex).toArray();
+		assertEquals(expected.length, graphOrder.length);
+		for (int i = 0; i < expected.length; i++) {
+			assertEquals(tree.getLevel(expected[i]), tree.getLevel(graphOrder[i]));
+		}
+
+		// DFS
+		expected = dfs(csr, 0, AlgoTraversal.UNBOUNDED);
+		assertArrayEquals(expected, AlgoTraversal.dfsStream(csr, 0).toArray());
+		assertArrayEquals(IntStream.of(expected).sorted().toArray(), AlgoTraversal.dfs(graph, "0", AlgoTraversal.UNBOUNDED)
+				.mapToInt(Node::getIndex).sorted().toArray());
+
+		// depth bounds
+		for (int maxDepth = 0; maxDepth <= 3; maxDepth++) {
+			int depth = maxDepth;
+			int[] bounded = toArray(AlgoTraversal.bfs(csr, 0, maxDepth));
+			assertEquals(IntStream.range(0, csr.getNodeCount())
+					.filter(n -> tree.getLevel(n) >= 0 && tree.getLevel(n) <= depth).count(), bounded.length);
+			assertArrayEquals(dfs(csr, 0, maxDepth), toArray(AlgoTraversal.dfs(csr, 0, maxDepth)));
+		}
+		assertArrayEquals(new int[] { 0 }, toArray(AlgoTraversal.dfs(csr, 0, 0)));
+		try {
+			AlgoTraversal.bfs(csr, 0, -1);
+			fail("Expected IllegalArgumentException");
+		} catch (IllegalArgumentException e) {
+			assertEquals("Depth must not be negative.", e.getMessage());
+		}
+	}
+
+	/**
+	 * Test that short-circuiting searches see the same nodes as a full traversal.
+	 */
+	@Test
+	public void earlyTerminationTest() {
+		GkaEdgeList list = new GkaEdgeList();
+		GkaGenerator.rmat(14, 200000, false, 1, 1, 1, list);
+		GkaCsr csr = list.toCsr();
+
+		int[] order = AlgoBFS.traverse(csr, 0);
+		int[] first = AlgoTraversal.bfsStream(csr, 0).limit(100).toArray();
+		assertEquals(Math.min(100, order.length), first.length);
+		for (int i = 0; i < first.length; i++) {
+			assertEquals(order[i], first[i]);
+		}
+
+		int wanted = order[order.length / 100];
+		assertTrue(AlgoTraversal.dfsStream(csr, 0).anyMatch(n -> n == wanted));
+		assertFalse(AlgoTraversal.dfsStream(csr, 0).anyMatch(n -> n == -1));
+	}
+
+	private static int[] toArray(PrimitiveIterator.OfInt iterator) {
+		List<Integer> out = new ArrayList<>();
+		iterator.forEachRemaining((int n) -> out.add(n));
+		return out.stream().mapToInt(Integer::intValue).toArray();
+	}
+
+	/**
+	 * Reference depth-limited DFS in preorder.
+	 */
+	private static int[] dfs(GkaCsr csr, int startIndex, int maxDepth) {
+		List<Integer> out = new ArrayList<>();
+		boolean[] visited = new boolean[csr.getNodeCount()];
+		visited[startIndex] = true;
+		dfs(csr, startIndex, 0, maxDepth, visited, out);
+		return out.stream().mapToInt(Integer::intValue).toArray();
+	}
+
+	private static void dfs(GkaCsr csr, int curr, int depth, int maxDepth, boolean[] visited, List<Integer> out) {
+		out.add(curr);
+		if (depth == maxDepth) {
+			return;
+		}
+		for (int arc = csr.getOffsets()[curr]; arc < csr.getOffsets()[curr + 1]; arc++) {
+			int n = csr.getTargets()[arc];
+			if (!visited[n]) {
+				visited[n] = true;
+				dfs(csr, n, depth + 1, maxDepth, visited, out);
+			}
+		}
+	}
+}
@@ -12,6 +12,8 @@ import org.junit.Test;
 
 import gka1.AlgoEdmondsKarp;
 import gka1.AlgoFordFulkerson;
+import gka1.GkaCsr;
+import gka1.GkaEdgeList;
 import gka1.GkaGraph;
 import gka1.GkaUtils;
 
@@ -133,4 +135,30 @@ public class CompareFordFulkersonEdmondsKarpTest {
 		System.out.printf("Edmonds-Karp runs faster than Ford-Fulkerson by average %.2f%% %n%n", (sumRelDiff / 100));
 
 	}
+
+	/**
+	 * Test that the CSR entry points reject indices outside the network.
+	 */
+	@Test
+	public void nodeNotFoundTest() {
+		GkaEdgeList list = new GkaEdgeList();
+		list.addEdge(list.addNode("q"), list.addNode("s"), true, null, true, 5);
+		GkaCsr csr = list.toCsr();
+		assertEquals(5, AlgoFordFulkerson.maxFlow(csr, 0, 1));
+		assertEquals(5, AlgoEdmondsKarp.maxFlow(csr, 0, 1));
+		for (int[] pair : new int[][] { { 0, 2 }, { 5, 1 }, { -1, 0 } }) {
+			try {
+				AlgoFordFulkerson.maxFlow(csr, pair[0], pair[1]);
+				fail("Expected IllegalArgumentException");
+			} catch (IllegalArgumentException e) {
+				assertEquals("Node not found in graph.", e.getMessage());
+			}
+			try {
+				AlgoEdmondsKarp.maxFlow(csr, pair[0], pair[1]);
+				fail("Expected IllegalArgumentException");
+			} catch (IllegalArgumentException e) {
+				assertEquals("Node not found in graph.", e.getMessage());
+			}
+		}
+	}
 }
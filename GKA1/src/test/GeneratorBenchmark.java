@@ -0,0 +1,78 @@
+package test;
+
+import gka1.AlgoDijkstra;
+import gka1.AlgoEdmondsKarp;
+import gka1.GkaCsr;
+import gka1.GkaEdgeList;
+import gka1.GkaGenerator;
+
+/**
+ * Timing of the generators and of searches on large generated graphs. Not
+ * part of the unit tests, as the graphs take seconds to build and a gigabyte
+ * of heap, run it with e.g. "java -Xmx4g test.GeneratorBenchmark".
+ *
+ * @author Huy Tran PC
+ *
+ */
+public class GeneratorBenchmark {
+
+	/**
+	 * Run all benchmarks.
+	 *
+	 * @param args
+	 *            Not used.
+	 */
+	public static void main(String[] args) {
+		generationTime();
+		familiesTime();
+	}
+
+	/**
+	 * Print the generation time of graphs with 4M edges for 1 thread up to the
+	 * number of processors.
+	 */
+	private static void generationTime() {
+		int maxThreadNr = Math.max(2, Runtime.getRuntime().availableProcessors());
+		for (int threadNr = 1; threadNr <= maxThreadNr; threadNr *= 2) {
+			long start = System.nanoTime();
+			GkaGenerator.randomGraph(100000, 4000000, true, false, 1, 100, 1, threadNr);
+			long graphTime = System.nanoTime() - start;
+
+			start = System.nanoTime();
+			GkaGenerator.randomNetwork(3000, 4000000, 1, 100, 1, threadNr);
+			long networkTime = System.nanoTime() - start;
+
+			System.out.printf("Threads = %d, 4M edges: sparse graph %.2f ms, dense network %.2f ms%n", threadNr,
+					graphTime / 1e6, networkTime / 1e6);
+		}
+		System.out.println();
+	}
+
+	/**
+	 * Print the times of shortest paths and maximum flows on large structured
+	 * graphs.
+	 */
+	private static void familiesTime() {
+		GkaEdgeList list = new GkaEdgeList();
+		GkaGenerator.grid(1000, 1000, 0.1, 1, 100, 1, list);
+		GkaCsr csr = list.toCsr();
+		long start = System.nanoTime();
+		AlgoDijkstra.shortestPath(csr, 0, csr.getNodeCount() - 1, new int[csr.getNodeCount()]);
+		System.out.printf("Dijkstra on 1000 x 1000 grid: %.2f ms%n", (System.nanoTime() - start) / 1e6);
+
+		list = new GkaEdgeList();
+		GkaGenerator.rmat(20, 8000000, true, 1, 100, 1, list);
+		csr = list.toCsr();
+		start = System.nanoTime();
+		AlgoDijkstra.shortestPath(csr, 0, csr.getNodeCount() - 1, new int[csr.getNodeCount()]);
+		System.out.printf("Dijkstra on R-MAT scale 20, 8M edges: %.2f ms%n", (System.nanoTime() - start) / 1e6);
+
+		list = new GkaEdgeList();
+		GkaGenerator.layeredNetwork(50, 200, 3, 1, 100, 1, list);
+		csr = list.toCsr();
+		start = System.nanoTime();
+		int flow = AlgoEdmondsKarp.maxFlow(csr, 0, csr.getNodeCount() - 1);
+		System.out.printf("Edmonds-Karp on 50 x 200 layered network: flow %d, %.2f ms%n%n", flow,
+				(System.nanoTime() - start) / 1e6);
+	}
+}
@@ -0,0 +1,84 @@
+package test;
+
+import static org.junit.Assert.*;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+import org.junit.Test;
+
+import gka1.GkaBinary;
+import gka1.GkaEdgeList;
+import gka1.GkaGraph;
+import gka1.GkaUtils;
+
+/**
+ * Test for GkaBinary.
+ *
+ * @author Huy Tran PC
+ *
+ */
+public class GkaBinaryTest {
+
+	/**
+	 * Test that all files of <em>gkaFiles</em> round-trip through the binary
+	 * format without loss.
+	 *
+	 * @throws IOException
+	 *             - if an I/0 exception occurs
+	 */
+	@Test
+	public void roundTripTest() throws IOException {
+		File[] files = new File(System.getProperty("user.dir") + "/gkaFiles").listFiles((dir, name) -> name.endsWith(".gka"));
+		Arrays.sort(files);
+
+		Path binaryPath = Files.createTempFile("binaryTest", ".gkab");
+		Path gkaPath = Files.createTempFile("binaryTest", ".gka");
+		try {
+			for (File file : files) {
+				GkaGraph graph = GkaUtils.read(file.getName());
+				ByteArrayOutputStream expected = new ByteArrayOutputStream();
+				GkaUtils.save(graph, expected);
+
+				// text to binary to text
+				GkaBinary.fromGka(file.toPath(), binaryPath);
+				GkaBinary.toGka(binaryPath, gkaPath);
+				assertArrayEquals(file.getName(), expected.toByteArray(), Files.readAllBytes(gkaPath));
+
+				// graph to binary to graph
+				GkaBinary.write(graph, binaryPath);
+				GkaGraph loaded = GkaBinary.readGraph(binaryPath);
+				assertEquals(file.getName(), graph.getNodeNames(), loaded.getNodeNames());
+				assertEquals(file.getName(), graph.getEdgeNames(), loaded.getEdgeNames());
+				ByteArrayOutputStream actual = new ByteArrayOutputStream();
+				GkaUtils.save(loaded, actual);
+				assertArrayEquals(file.getName(), expected.toByteArray(), actual.toByteArray());
+			}
+		} finally {
+			Files.delete(binaryPath);
+			Files.delete(gkaPath);
+		}
+	}
+
+	/**
+	 * Test that invalid content is rejected.
+	 */
+	@Test
+	public void invalidTest() {
+		for (String content : Arrays.asList("", "GKA", "GKAX\u0001\u0000", "GKAB\u0002\u0000\u0000\u0000",
+				"GKAB\u0001\u0000\u0002\u0000\u0001a")) {
+			try {
+				GkaBinary.read(ByteBuffer.wrap(content.getBytes(StandardCharsets.ISO_8859_1)));
+				fail("Accepted: " + content);
+			} catch (IOException e) {
+				// expected
+			}
+		}
+	}
+}
@@ -0,0 +1,109 @@
+package test;
+
+import static org.junit.Assert.*;
+
+import java.util.NoSuchElementException;
+import java.util.SplittableRandom;
+import java.util.TreeSet;
+
+import org.junit.Test;
+
+import gka1.GkaBucketQueue;
+
+/**
+ * Test for GkaBucketQueue.
+ *
+ * @author Huy Tran PC
+ *
+ */
+public class GkaBucketQueueTest {
+
+	/**
+	 * Test monotone inserts, decreases and polls against a sorted set.
+	 */
+	@Test
+	public void randomOperationsTest() {
+		int capacity = 1000;
+		int maxKeyRange = 50;
+		GkaBucketQueue queue = new GkaBucketQueue(capacity);
+		long[] keys = new long[capacity];
+		TreeSet<Integer> expected = new TreeSet<>(
+				(a, b) -> keys[a] != keys[b] ? Long.compare(keys[a], keys[b]) : Integer.compare(a, b));
+		SplittableRandom rand = new SplittableRandom(3);
+		queue.reset(maxKeyRange);
+
+		// keys stay between the last polled key and that plus the range
+		long lastKey = 0;
+		for (int op = 0; op < 200000; op++) {
+			int id = rand.nextInt(capacity);
+			int kind = rand.nextInt(3);
+			if (kind == 0 && !queue.contains(id)) {
+				keys[id] = lastKey + rand.nextInt(maxKeyRange + 1);
+				queue.insert(id, keys[id]);
+				expected.add(id);
+			} else if (kind == 1 && queue.contains(id)) {
+				expected.remove(id);
+				keys[id] = lastKey + rand.nextLong(keys[id] - lastKey + 1);
+				queue.decreaseKey(id, keys[id]);
+				expected.add(id);
+			} else if (kind == 2 && !queue.isEmpty()) {
+				// equal keys may come in any order
+				int polled = queue.poll();
+				assertEquals(keys[expected.first()], keys[polled]);
+				assertTrue(expected.remove(polled));
+				lastKey = keys[polled];
+			}
+			assertEquals(expected.size(), queue.size());
+		}
+
+		// reset with ids left in the queue
+		queue.reset(3);
+		assertTrue(queue.isEmpty());
+		for (int id = 0; id < capacity; id++) {
+			assertFalse(queue.contains(id));
+		}
+	}
+
+	/**
+	 * Test wrap-around of the buckets and invalid operations.
+	 */
+	@Test
+	public void keysTest() {
+		GkaBucketQueue queue = new GkaBucketQueue(4);
+		queue.reset(2);
+		queue.insert(0, 7);
+		queue.insert(1, 9);
+		queue.insert(2, 8);
+		queue.decreaseKey(1, 7);
+		assertEquals(7, queue.getKey(1));
+		assertEquals(1, queue.poll() + queue.poll());
+		assertEquals(2, queue.poll());
+		assertTrue(queue.isEmpty());
+
+		try {
+			queue.poll();
+			fail();
+		} catch (NoSuchElementException e) {
+			// expected
+		}
+		queue.insert(3, 10);
+		try {
+			queue.insert(0, 13);
+			fail();
+		} catch (IllegalArgumentException e) {
+			// expected
+		}
+		try {
+			queue.decreaseKey(3, 11);
+			fail();
+		} catch (IllegalArgumentException e) {
+			// expected
+		}
+		try {
+			queue.insert(3, 10);
+			fail();
+		} catch (IllegalArgumentException e) {
+			// expected
+		}
+	}
+}
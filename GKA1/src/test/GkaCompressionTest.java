@@ -0,0 +1,168 @@
+package test;
+
+import static org.junit.Assert.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.zip.GZIPOutputStream;
+
+import org.junit.Test;
+
+import gka1.GkaCompression;
+import gka1.GkaGraph;
+import gka1.GkaParallelLoader;
+import gka1.GkaRecordHandler;
+import gka1.GkaUtils;
+
+/**
+ * Test for reading and writing gzip-compressed GKA files.
+ *
+ * @author Huy Tran PC
+ *
+ */
+public class GkaCompressionTest {
+
+	/**
+	 * Test that a graph saved as .gz reads back the same, also when the
+	 * compression is only recognized by the magic bytes.
+	 *
+	 * @throws IOException
+	 *             - if an I/0 exception occurs
+	 */
+	@Test
+	public void roundTripTest() throws IOException {
+		GkaGraph graph = GkaUtils.read("graphTest1.gka");
+		String expected = graph.getEdgesString() + graph.getSingleNodesString();
+
+		Path dir = Files.createTempDirectory("compressionTest");
+		Path gzPath = dir.resolve("graph.gka.gz");
+		Path renamedPath = dir.resolve("graph.gka");
+		try {
+			GkaUtils.save(graph, gzPath);
+			assertTrue(GkaCompression.isGzip(gzPath));
+			assertTrue(Files.size(gzPath) < expected.length());
+
+			GkaGraph loaded = GkaUtils.read(gzPath);
+			assertEquals(expected, loaded.getEdgesString() + loaded.getSingleNodesString());
+
+			// detected by magic bytes
+			Files.copy(gzPath, renamedPath);
+			assertTrue(GkaCompression.isGzip(renamedPath));
+			loaded = GkaUtils.read(renamedPath);
+			assertEquals(expected, loaded.getEdgesString() + loaded.getSingleNodesString());
+			assertEquals(graph.getEdgeCount(), GkaParallelLoader.load(renamedPath).getEdgeCount());
+
+			// streams
+			loaded = GkaUtils.read(Files.newInputStream(gzPath));
+			assertEquals(expected, loaded.getEdgesString() + loaded.getSingleNodesString());
+			assertFalse(GkaCompression.isGzip(Paths.get(System.getProperty("user.dir"), "gkaFiles", "graphTest1.gka")));
+		} finally {
+			Files.deleteIfExists(gzPath);
+			Files.deleteIfExists(renamedPath);
+			Files.delete(dir);
+		}
+	}
+
+	/**
+	 * Test that stopping early closes the decompressing thread and that content
+	 * larger than the read-ahead queue arrives completely.
+	 *
+	 * @throws IOException
+	 *             - if an I/0 exception occurs
+	 */
+	@Test
+	public void readAheadTest() throws IOException {
+		ByteArrayOutputStream raw = new ByteArrayOutputStream();
+		for (int i = 0; i < 200000; i++) {
+			raw.write(("n" + i + " -> n" + (i + 1) + " : " + (i % 97) + ";\n").getBytes());
+		}
+		ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+		try (GZIPOutputStream out = new GZIPOutputStream(compressed)) {
+			raw.writeTo(out);
+		}
+
+		try (InputStream in = GkaCompression.decompress(new ByteArrayInputStream(compressed.toByteArray()))) {
+			ByteArrayOutputStream result = new ByteArrayOutputStream();
+			byte[] buffer = new byte[1000];
+			int read;
+			while ((read = in.read(buffer)) >= 0) {
+				result.write(buffer, 0, read);
+			}
+			assertArrayEquals(raw.toByteArray(), result.toByteArray());
+		}
+
+		int threadNr = Thread.activeCount();
+		Path path = Files.createTempFile("compressionTest", ".gka.gz");
+		try {
+			Files.write(path, compressed.toByteArray());
+			int[] edgeNum = { 0 };
+			assertFalse(GkaUtils.read(path, new GkaRecordHandler() {
+				@Override
+				public boolean node(String nodeName) {
+					return true;
+				}
+
+				@Override
+				public boolean edge(String nodeName1, String nodeName2, boolean isDirected, String edgeName,
+						boolean hasWeight, int edgeWeight) {
+					return ++edgeNum[0] < 10;
+				}
+			}));
+			assertEquals(10, edgeNum[0]);
+			assertEquals(threadNr, Thread.activeCount());
+
+			long start = System.nanoTime();
+			GkaGraph graph = GkaUtils.read(path);
+			long time = System.nanoTime() - start;
+			assertEquals(200000, graph.getEdgeCount());
+
+			System.out.printf("Reading %d compressed bytes (%d raw): %.2f ms%n%n", compressed.size(), raw.size(),
+					time / 1e6);
+		} finally {
+			Files.delete(path);
+		}
+	}
+
+	/**
+	 * Test that a runtime exception while decompressing reaches the consumer as
+	 * an IOException instead of leaving it waiting.
+	 *
+	 * @throws IOException
+	 *             - if an I/0 exception occurs
+	 */
+	@Test
+	public void readAheadFailureTest() throws IOException {
+		ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+		try (GZIPOutputStream out = new GZIPOutputStream(compressed)) {
+			for (int i = 0; i < 10000; i++) {
+				out.write(("n" + i + " -> n" + (i + 1) + ";\n").getBytes());
+			}
+		}
+
+		// the gzip header is read, the source fails in the reading thread
+		InputStream source = new ByteArrayInputStream(compressed.toByteArray()) {
+			@Override
+			public synchronized int read(byte[] b, int off, int len) {
+				if (pos >= 40) {
+					throw new IllegalStateException("broken source");
+				}
+				return super.read(b, off, Math.min(len, 20));
+			}
+		};
+
+		try (InputStream in = GkaCompression.decompress(source)) {
+			byte[] buffer = new byte[1000];
+			while (in.read(buffer) >= 0) {
+				// drain
+			}
+			fail("Expected IOException");
+		} catch (IOException e) {
+			assertTrue(e.getCause() instanceof IllegalStateException);
+		}
+	}
+}
@@ -0,0 +1,165 @@
+package test;
+
+import static org.junit.Assert.*;
+
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.UnsupportedEncodingException;
+
+import org.junit.Test;
+
+import gka1.AlgoBFS;
+import gka1.AlgoDijkstra;
+import gka1.AlgoEdmondsKarp;
+import gka1.AlgoFordFulkerson;
+import gka1.GkaCsr;
+import gka1.GkaGraph;
+import gka1.GkaUtils;
+
+/**
+ * Test for GkaCsr and the algorithms running on it.
+ *
+ * @author Huy Tran PC
+ *
+ */
+public class GkaCsrTest {
+
+	/**
+	 * Test the layout of the snapshot of BFStest.gka.
+	 *
+	 * @throws IOException
+	 * @throws FileNotFoundException
+	 * @throws UnsupportedEncodingException
+	 */
+	@Test
+	public void testSnapshot() throws UnsupportedEncodingException, FileNotFoundException, IOException {
+		GkaGraph graph = GkaUtils.read("BFStest.gka");
+		GkaCsr csr = GkaCsr.of(graph);
+
+		assertEquals(graph.getNodeCount(), csr.getNodeCount());
+		assertEquals(graph.getEdgeCount(), csr.getEdgeCount());
+
+		// "b -> a" is one arc, "s -- a" two
+		int s = csr.getNodeIndex("s");
+		int a = csr.getNodeIndex("a");
+		int b = csr.getNodeIndex("b");
+		assertTrue(hasArc(csr, s, a) && hasArc(csr, a, s));
+		assertTrue(hasArc(csr, b, a) && !hasArc(csr, a, b));
+		assertEquals(-1, csr.getNodeIndex("unknown"));
+	}
+
+	/**
+	 * Test that the transposed snapshot of BFStest.gka has the reversed arcs.
+	 *
+	 * @throws IOException
+	 * @throws FileNotFoundException
+	 * @throws UnsupportedEncodingException
+	 */
+	@Test
+	public void testTranspose() throws UnsupportedEncodingException, FileNotFoundException, IOException {
+		GkaCsr csr = GkaCsr.of(GkaUtils.read("BFStest.gka"));
+		GkaCsr transposed = csr.transpose();
+
+		assertSame(transposed, csr.transpose());
+		assertSame(csr, transposed.transpose());
+		assertEquals(csr.getArcCount(), transposed.getArcCount());
+		for (int u = 0; u < csr.getNodeCount(); u++) {
+			for (int v = 0; v < csr.getNodeCount(); v++) {
+				assertEquals(hasArc(csr, u, v), hasArc(transposed, v, u));
+			}
+		}
+
+		// undirected edges only
+		GkaCsr undirected = GkaCsr.of(GkaUtils.read("graph03.gka"));
+		assertSame(undirected, undirected.transpose());
+	}
+
+	/**
+	 * Test that the CSR entry points agree with the name based ones.
+	 *
+	 * @throws IOException
+	 * @throws FileNotFoundException
+	 * @throws UnsupportedEncodingException
+	 */
+	@Test
+	public void testEntryPoints() throws UnsupportedEncodingException, FileNotFoundException, IOException {
+		GkaGraph graph = GkaUtils.read("graph03.gka");
+		GkaCsr csr = GkaCsr.of(graph);
+		int hamburg = csr.getNodeIndex("Hamburg");
+		int husum = csr.getNodeIndex("Husum");
+
+		assertEquals(graph.getNodeCount(), AlgoBFS.traverse(csr, hamburg).length);
+		assertEquals(AlgoBFS.shortestPath(graph, "Hamburg", "Husum", false).size(),
+				AlgoBFS.shortestPath(csr, hamburg, husum).length);
+
+		int[] prevNodes = new int[csr.getNodeCount()];
+		assertEquals(AlgoDijkstra.shortestPath(graph, "Hamburg", "Husum", false),
+				AlgoDijkstra.shortestPath(csr, hamburg, husum, prevNodes), 0.0000001);
+		assertEquals(hamburg, firstNode(prevNodes, husum));
+
+		GkaGraph network = GkaUtils.read("graph04.gka");
+		GkaCsr networkCsr = GkaCsr.of(network);
+		int v1 = networkCsr.getNodeIndex("v1");
+		int v8 = networkCsr.getNodeIndex("v8");
+		assertEquals(20, AlgoFordFulkerson.maxFlow(networkCsr, v1, v8));
+		assertEquals(20, AlgoEdmondsKarp.maxFlow(networkCsr, v1, v8));
+	}
+
+	/**
+	 * Test the lowest weight lookup between parallel edges, its update on
+	 * createEdge and that it follows edges and nodes changed otherwise.
+	 *
+	 * @throws IOException
+	 * @throws FileNotFoundException
+	 * @throws UnsupportedEncodingException
+	 */
+	@Test
+	public void testShortestDist() throws UnsupportedEncodingException, FileNotFoundException, IOException {
+		GkaGraph graph = GkaUtils.read("graph04.gka");
+		int v1 = graph.getNodeIndex("v1");
+		int v2 = graph.getNodeIndex("v2");
+		int v8 = graph.getNodeIndex("v8");
+
+		// "v2 -- v1 : 4" and "v1 -- v2 : 3"
+		assertEquals(3.0, graph.getShortestDist(v1, v2), 0.0);
+		assertEquals(3.0, graph.getShortestDist(v2, v1), 0.0);
+		assertEquals(Double.POSITIVE_INFINITY, graph.getShortestDist(v1, v8), 0.0);
+
+		graph.createEdge("v1", "v2", "->", null, "1");
+		graph.createEdge("v1", "v8", "->", null, null);
+		assertEquals(1.0, graph.getShortestDist(v1, v2), 0.0);
+		assertEquals(3.0, graph.getShortestDist(v2, v1), 0.0);
+		assertEquals(GkaCsr.DEFAULT_WEIGHT, graph.getShortestDist(v1, v8), 0.0);
+		assertEquals(Double.POSITIVE_INFINITY, graph.getShortestDist(v8, v1), 0.0);
+
+		// edges and nodes removed or added by the inherited methods
+		graph.removeEdge(graph.getEdgeCount() - 2);
+		assertEquals(3.0, graph.getShortestDist(v1, v2), 0.0);
+		graph.addEdge("extra", v2, v8, true).addAttribute("weight", 2);
+		assertEquals(2.0, graph.getShortestDist(v2, v8), 0.0);
+		graph.removeNode(v1);
+		assertEquals(2.0, graph.getShortestDist(graph.getNodeIndex("v2"), graph.getNodeIndex("v8")), 0.0);
+		GkaCsr csr = GkaCsr.of(graph);
+		for (int u = 0; u < csr.getNodeCount(); u++) {
+			for (int arc = csr.getOffsets()[u]; arc < csr.getOffsets()[u + 1]; arc++) {
+				assertTrue(graph.getShortestDist(u, csr.getTargets()[arc]) <= csr.getWeights()[arc]);
+			}
+		}
+	}
+
+	private static boolean hasArc(GkaCsr csr, int u, int v) {
+		for (int arc = csr.getOffsets()[u]; arc < csr.getOffsets()[u + 1]; arc++) {
+			if (csr.getTargets()[arc] == v) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private static int firstNode(int[] prevNodes, int node) {
+		while (prevNodes[node] != -1) {
+			node = prevNodes[node];
+		}
+		return node;
+	}
+}
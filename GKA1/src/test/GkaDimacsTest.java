@@ -0,0 +1,159 @@
+package test;
+
+import static org.junit.Assert.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.junit.Test;
+
+import gka1.AlgoDijkstra;
+import gka1.AlgoEdmondsKarp;
+import gka1.AlgoFordFulkerson;
+import gka1.GkaCsr;
+import gka1.GkaDimacs;
+import gka1.GkaEdgeList;
+import gka1.GkaGenerator;
+import gka1.GkaGraph;
+
+/**
+ * Test for GkaDimacs.
+ *
+ * @author Huy Tran PC
+ *
+ */
+public class GkaDimacsTest {
+	// flow network of Cormen et al. with maximum flow 23
+	private static final String MAX_FLOW_INSTANCE = "c example network\r\n" + "p max 6 10\r\n" + "n 1 s\r\n"
+			+ "n 6 t\r\n" + "\r\n" + "a 1 2 16\r\n" + "a 1 3 13\r\n" + "a 2 3 10\r\n" + "a 3 2 4\r\n"
+			+ "a 2 4 12\r\n" + "a 4 3 9\r\n" + "a 3 5 14\r\n" + "a 5 4 7\r\n" + "c sink arcs\r\n"
+			+ "a 4 6 20\r\n" + "a 5 6 4";
+
+	/**
+	 * Test reading a maximum flow instance into a graph and a CSR snapshot.
+	 *
+	 * @throws IOException
+	 *             - if an I/0 exception occurs
+	 */
+	@Test
+	public void readTest() throws IOException {
+		GkaDimacs dimacs = read(MAX_FLOW_INSTANCE);
+		assertEquals(GkaDimacs.MAX_FLOW, dimacs.getProblem());
+		assertEquals(0, dimacs.getSourceIndex());
+		assertEquals(5, dimacs.getSinkIndex());
+
+		GkaEdgeList list = dimacs.getEdgeList();
+		assertEquals(6, list.getNodeCount());
+		assertEquals(10, list.getEdgeCount());
+		assertEquals("1", list.getNodeName(0));
+		assertEquals(4, list.getSource(9));
+		assertEquals(5, list.getTarget(9));
+		assertEquals(4, list.getWeight(9));
+		assertTrue(list.isDirected(9));
+
+		GkaCsr csr = list.toCsr();
+		assertEquals(23, AlgoEdmondsKarp.maxFlow(csr, dimacs.getSourceIndex(), dimacs.getSinkIndex()));
+		assertEquals(23, AlgoFordFulkerson.maxFlow(csr, dimacs.getSourceIndex(), dimacs.getSinkIndex()));
+		GkaGraph graph = list.toGraph();
+		assertEquals(23, AlgoEdmondsKarp.maxFlow(graph, "1", "6"));
+
+		dimacs = read("p sp 3 2\na 1 2 5\na 2 3 -1\n");
+		assertEquals(GkaDimacs.SHORTEST_PATH, dimacs.getProblem());
+		assertEquals(-1, dimacs.getSourceIndex());
+		assertEquals(-1, dimacs.getEdgeList().getWeight(1));
+	}
+
+	/**
+	 * Test that generated instances written as DIMACS files give the same
+	 * shortest paths and maximum flows after reading.
+	 *
+	 * @throws IOException
+	 *             - if an I/0 exception occurs
+	 */
+	@Test
+	public void roundTripTest() throws IOException {
+		Path grPath = Files.createTempFile("dimacsTest", ".gr.gz");
+		Path maxPath = Files.createTempFile("dimacsTest", ".max");
+		try {
+			// undirected edges become two arcs
+			GkaEdgeList grid = new GkaEdgeList();
+			GkaGenerator.grid(30, 30, 0.2, 1, 50, 5, grid);
+			GkaDimacs.writeShortestPath(grid, grPath);
+			GkaEdgeList loaded = GkaDimacs.read(grPath).getEdgeList();
+			assertEquals(grid.getNodeCount(), loaded.getNodeCount());
+			assertEquals(2 * grid.getEdgeCount(), loaded.getEdgeCount());
+
+			GkaCsr expectedCsr = grid.toCsr();
+			GkaCsr loadedCsr = loaded.toCsr();
+			int[] prevNodes = new int[grid.getNodeCount()];
+			for (int end = 1; end < grid.getNodeCount(); end += 37) {
+				assertEquals(AlgoDijkstra.shortestPath(expectedCsr, 0, end, prevNodes),
+						AlgoDijkstra.shortestPath(loadedCsr, 0, end, prevNodes), 0);
+			}
+
+			GkaEdgeList network = new GkaEdgeList();
+			GkaGenerator.layeredNetwork(5, 8, 3, 1, 20, 5, network);
+			int sinkIndex = network.getNodeCount() - 1;
+			GkaDimacs.writeMaxFlow(network, 0, sinkIndex, maxPath);
+			GkaDimacs dimacs = GkaDimacs.read(maxPath);
+			assertEquals(sinkIndex, dimacs.getSinkIndex());
+			assertEquals(AlgoEdmondsKarp.maxFlow(network.toCsr(), 0, sinkIndex),
+					AlgoEdmondsKarp.maxFlow(GkaDimacs.readCsr(maxPath), 0, sinkIndex));
+		} finally {
+			Files.delete(grPath);
+			Files.delete(maxPath);
+		}
+	}
+
+	/**
+	 * Test that invalid instances are rejected.
+	 */
+	@Test
+	public void invalidTest() {
+		String[] instances = { "", "a 1 2 3\n", "p sp 2 1\np sp 2 1\na 1 2 3\n", "p asn 2 0\n",
+				"p sp 2 2\na 1 2 3\n", "p sp 2 1\na 1 3 3\n", "p sp 2 1\na 0 1 3\n", "p sp 2 1\na 1 2\n",
+				"p sp 2 1\na 1 2 99999999999\n", "p sp 2 1\nx\na 1 2 3\n", "p max 2 1\nn 1 s\na 1 2 3\n",
+				"p max 2 1\nn 1 x\nn 2 t\na 1 2 3\n", "p sp 2 1\nn 1 s\na 1 2 3\n" };
+		for (String instance : instances) {
+			try {
+				read(instance);
+				fail(instance);
+			} catch (IOException e) {
+				// expected
+			}
+		}
+	}
+
+	/**
+	 * Print the throughput of reading a DIMACS file with millions of arcs.
+	 *
+	 * @throws IOException
+	 *             - if an I/0 exception occurs
+	 */
+	@Test
+	public void throughputTest() throws IOException {
+		GkaEdgeList list = new GkaEdgeList();
+		GkaGenerator.rmat(20, 4000000, true, 1, 1000, 7, list);
+		Path path = Files.createTempFile("dimacsTest", ".gr");
+		try {
+			GkaDimacs.writeShortestPath(list, path);
+
+			long start = System.nanoTime();
+			GkaEdgeList loaded = GkaDimacs.read(path).getEdgeList();
+			long time = System.nanoTime() - start;
+			assertEquals(4000000, loaded.getEdgeCount());
+
+			System.out.printf("Reading %d arcs (%d bytes) from DIMACS: %.2f ms, %.1f M arcs/s%n%n",
+					loaded.getEdgeCount(), Files.size(path), time / 1e6, loaded.getEdgeCount() / (time / 1e3));
+		} finally {
+			Files.delete(path);
+		}
+	}
+
+	private static GkaDimacs read(String instance) throws IOException {
+		return GkaDimacs.read(new ByteArrayInputStream(instance.getBytes(StandardCharsets.US_ASCII)));
+	}
+}
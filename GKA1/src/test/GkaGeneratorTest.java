@@ -0,0 +1,173 @@
+package test;
+
+import static org.junit.Assert.*;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.HashSet;
+import java.util.Set;
+
+import org.junit.Test;
+
+import gka1.AlgoBFS;
+import gka1.GkaEdgeList;
+import gka1.GkaGenerator;
+import gka1.GkaWriter;
+
+/**
+ * Test for GkaGenerator.
+ *
+ * @author Huy Tran PC
+ *
+ */
+public class GkaGeneratorTest {
+
+	/**
+	 * Test that random graphs are simple, have the requested size and don't
+	 * depend on the number of threads.
+	 */
+	@Test
+	public void randomGraphTest() {
+		for (boolean isDirected : new boolean[] { true, false }) {
+			// up to the complete graph
+			for (int edgeNum : new int[] { 0, 10, 100, isDirected ? 30 * 29 : 30 * 29 / 2 }) {
+				GkaEdgeList list = GkaGenerator.randomGraph(30, edgeNum, isDirected, true, -4, 1000, 7);
+				assertEquals(30, list.getNodeCount());
+				assertEquals(edgeNum, list.getEdgeCount());
+				assertSimple(list, isDirected);
+
+				for (int e = 0; e < edgeNum; e++) {
+					assertEquals(isDirected, list.isDirected(e));
+					assertEquals("e" + e, list.getEdgeName(e));
+					assertTrue(list.getWeight(e) >= -4 && list.getWeight(e) <= 1000);
+				}
+			}
+		}
+
+		// without weights
+		GkaEdgeList list = GkaGenerator.randomGraph(100, 200, false, false, 2, 1, 7);
+		assertFalse(list.hasWeight(0));
+		assertNull(list.getEdgeName(0));
+
+		// several strata give the same graph for any number of threads
+		int edgeNum = GkaGenerator.STRATUM_EDGES * 2 + 5;
+		GkaEdgeList single = GkaGenerator.randomGraph(3000, edgeNum, true, false, 1, 9, 42, 1);
+		GkaEdgeList parallel = GkaGenerator.randomGraph(3000, edgeNum, true, false, 1, 9, 42, 4);
+		assertSimple(single, true);
+		for (int e = 0; e < edgeNum; e++) {
+			assertEquals(single.getSource(e), parallel.getSource(e));
+			assertEquals(single.getTarget(e), parallel.getTarget(e));
+			assertEquals(single.getWeight(e), parallel.getWeight(e));
+		}
+
+		try {
+			GkaGenerator.randomGraph(10, 46, false, false, 1, 1, 7);
+			fail();
+		} catch (IllegalArgumentException e) {
+			// expected
+		}
+	}
+
+	/**
+	 * Test the rules of flow networks.
+	 */
+	@Test
+	public void randomNetworkTest() {
+		for (int nodeNum : new int[] { 2, 10, 50 }) {
+			for (int edgeNum : new int[] { nodeNum - 1, nodeNum * (nodeNum - 1) / 4 + 1, nodeNum * (nodeNum - 1) / 2 }) {
+				GkaEdgeList list = GkaGenerator.randomNetwork(nodeNum, edgeNum, 1, 50, edgeNum);
+				assertEquals(nodeNum, list.getNodeCount());
+				assertEquals(edgeNum, list.getEdgeCount());
+				assertSimple(list, false);
+
+				for (int e = 0; e < edgeNum; e++) {
+					assertTrue(list.isDirected(e));
+					assertTrue(list.getWeight(e) >= 1 && list.getWeight(e) <= 50);
+					assertNotEquals(0, list.getTarget(e));
+					assertNotEquals(nodeNum - 1, list.getSource(e));
+				}
+
+				// every node can be reached from the source
+				assertEquals(nodeNum, AlgoBFS.traverse(list.toCsr(), 0).length);
+			}
+		}
+	}
+
+	/**
+	 * Test the size and structure of the graph families and that a GkaWriter
+	 * writes the same file as the edge list.
+	 *
+	 * @throws IOException
+	 *             - if an I/0 exception occurs
+	 */
+	@Test
+	public void familiesTest() throws IOException {
+		// complete grid
+		GkaEdgeList grid = new GkaEdgeList();
+		GkaGenerator.grid(7, 5, 0, 1, 9, 3, grid);
+		assertEquals(35, grid.getNodeCount());
+		assertEquals(6 * 5 + 7 * 4, grid.getEdgeCount());
+		assertSimple(grid, false);
+		assertEquals(35, AlgoBFS.traverse(grid.toCsr(), 0).length);
+
+		GkaGenerator.grid(100, 100, 0.3, 1, 9, 3, grid = new GkaEdgeList());
+		assertTrue(grid.getEdgeCount() > 19800 * 0.6 && grid.getEdgeCount() < 19800 * 0.8);
+
+		GkaEdgeList rmat = new GkaEdgeList();
+		GkaGenerator.rmat(10, 5000, true, 2, 1, 3, rmat);
+		assertEquals(1024, rmat.getNodeCount());
+		assertEquals(5000, rmat.getEdgeCount());
+		assertFalse(rmat.hasWeight(0));
+
+		// skewed degrees, node 0 is in the densest quadrant
+		int[] degrees = new int[1024];
+		for (int e = 0; e < 5000; e++) {
+			degrees[rmat.getSource(e)]++;
+		}
+		assertTrue(degrees[0] > 5000 / 1024 * 10);
+
+		GkaEdgeList ba = new GkaEdgeList();
+		GkaGenerator.barabasiAlbert(1000, 3, 1, 1, 3, ba);
+		assertEquals(1000, ba.getNodeCount());
+		assertEquals(3 * 997, ba.getEdgeCount());
+		assertSimple(ba, false);
+		assertEquals(1000, AlgoBFS.traverse(ba.toCsr(), 0).length);
+
+		GkaEdgeList network = new GkaEdgeList();
+		GkaGenerator.layeredNetwork(4, 6, 3, 1, 10, 3, network);
+		assertEquals(2 + 4 * 6, network.getNodeCount());
+		assertEquals(6 + 3 * 6 * 3 + 6, network.getEdgeCount());
+		assertSimple(network, true);
+		for (int e = 0; e < network.getEdgeCount(); e++) {
+			assertTrue(network.isDirected(e));
+			// from a layer to the next one
+			assertEquals((network.getSource(e) + 5) / 6 + 1, (network.getTarget(e) + 5) / 6);
+		}
+
+		// streamed file is the same as the written list
+		StringWriter expected = new StringWriter();
+		network.write(expected);
+		StringWriter written = new StringWriter();
+		GkaGenerator.layeredNetwork(4, 6, 3, 1, 10, 3, new GkaWriter(written));
+		assertEquals(expected.toString(), written.toString());
+
+		expected = new StringWriter();
+		grid.write(expected);
+		written = new StringWriter();
+		GkaGenerator.grid(100, 100, 0.3, 1, 9, 3, new GkaWriter(written));
+		assertEquals(expected.toString(), written.toString());
+	}
+
+	private static void assertSimple(GkaEdgeList list, boolean isDirected) {
+		Set<Long> pairs = new HashSet<>();
+		long n = list.getNodeCount();
+		for (int e = 0; e < list.getEdgeCount(); e++) {
+			int u = list.getSource(e);
+			int v = list.getTarget(e);
+			assertNotEquals(u, v);
+			assertTrue(u >= 0 && u < n && v >= 0 && v < n);
+			long pair = isDirected ? u * n + v : Math.min(u, v) * n + Math.max(u, v);
+			assertTrue("duplicate edge " + u + " " + v, pairs.add(pair));
+		}
+	}
+}
@@ -0,0 +1,98 @@
+package test;
+
+import static org.junit.Assert.*;
+
+import java.util.NoSuchElementException;
+import java.util.SplittableRandom;
+import java.util.TreeSet;
+
+import org.junit.Test;
+
+import gka1.GkaIndexedHeap;
+
+/**
+ * Test for GkaIndexedHeap.
+ *
+ * @author Huy Tran PC
+ *
+ */
+public class GkaIndexedHeapTest {
+
+	/**
+	 * Test random inserts, decreases and polls against a sorted set.
+	 */
+	@Test
+	public void randomOperationsTest() {
+		int capacity = 1000;
+		GkaIndexedHeap heap = new GkaIndexedHeap(capacity);
+		double[] keys = new double[capacity];
+		TreeSet<Integer> expected = new TreeSet<>((a, b) -> keys[a] != keys[b] ? Double.compare(keys[a], keys[b])
+				: Integer.compare(a, b));
+		SplittableRandom rand = new SplittableRandom(3);
+
+		for (int op = 0; op < 200000; op++) {
+			int id = rand.nextInt(capacity);
+			int kind = rand.nextInt(3);
+			if (kind == 0 && !heap.contains(id)) {
+				keys[id] = rand.nextDouble() * 100;
+				heap.insert(id, keys[id]);
+				expected.add(id);
+			} else if (kind == 1 && heap.contains(id)) {
+				expected.remove(id);
+				keys[id] -= rand.nextDouble() * 10;
+				heap.decreaseKey(id, keys[id]);
+				expected.add(id);
+			} else if (kind == 2 && !heap.isEmpty()) {
+				// equal keys may come in any order
+				int polled = heap.poll();
+				assertEquals(keys[expected.first()], keys[polled], 0);
+				assertTrue(expected.remove(polled));
+			}
+			assertEquals(expected.size(), heap.size());
+		}
+
+		heap.clear();
+		assertTrue(heap.isEmpty());
+		for (int id = 0; id < capacity; id++) {
+			assertFalse(heap.contains(id));
+		}
+	}
+
+	/**
+	 * Test fractional keys, insertOrDecrease and invalid operations.
+	 */
+	@Test
+	public void keysTest() {
+		GkaIndexedHeap heap = new GkaIndexedHeap(4);
+		heap.insert(0, 0.5);
+		heap.insert(1, 0.25);
+		heap.insertOrDecrease(2, 0.75);
+		heap.insertOrDecrease(2, 0.1);
+		heap.insertOrDecrease(1, 0.9);
+		assertEquals(0.25, heap.getKey(1), 0);
+		assertEquals(2, heap.peek());
+		assertEquals(2, heap.poll());
+		assertEquals(1, heap.poll());
+		assertEquals(0, heap.poll());
+
+		try {
+			heap.poll();
+			fail();
+		} catch (NoSuchElementException e) {
+			// expected
+		}
+		heap.insert(3, 1);
+		try {
+			heap.decreaseKey(3, 2);
+			fail();
+		} catch (IllegalArgumentException e) {
+			// expected
+		}
+		try {
+			heap.insert(3, 0);
+			fail();
+		} catch (IllegalArgumentException e) {
+			// expected
+		}
+	}
+}
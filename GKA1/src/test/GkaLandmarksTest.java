@@ -0,0 +1,143 @@
+package test;
+
+import static org.junit.Assert.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.junit.Test;
+
+import gka1.AlgoDijkstra;
+import gka1.GkaCsr;
+import gka1.GkaDijkstraWorkspace;
+import gka1.GkaEdgeList;
+import gka1.GkaGenerator;
+import gka1.GkaLandmarks;
+
+/**
+ * Test for GkaLandmarks.
+ *
+ * @author Huy Tran PC
+ *
+ */
+public class GkaLandmarksTest {
+
+	/**
+	 * Test that the tables hold the Dijkstra costs and the lower bounds never
+	 * overestimate, on a directed and an undirected graph.
+	 */
+	@Test
+	public void boundsTest() {
+		GkaEdgeList grid = new GkaEdgeList();
+		GkaGenerator.grid(30, 30, 0.2, 1, 30, 3, grid);
+		GkaCsr[] csrs = { GkaGenerator.randomGraph(400, 1200, true, false, 0, 50, 3).toCsr(), grid.toCsr() };
+
+		for (GkaCsr csr : csrs) {
+			GkaLandmarks landmarks = GkaLandmarks.build(csr, 8, 3);
+			assertEquals(8, landmarks.getLandmarkCount());
+			GkaDijkstraWorkspace workspace = new GkaDijkstraWorkspace(csr.getNodeCount());
+			int nodeNr = csr.getNodeCount();
+
+			for (int i = 0; i < landmarks.getLandmarkCount(); i++) {
+				int landmark = landmarks.getLandmark(i);
+				for (int n = 0; n < nodeNr; n += 7) {
+					assertEquals(cost(csr, landmark, n, workspace), landmarks.getFromDistance(i, n));
+					assertEquals(cost(csr, n, landmark, workspace), landmarks.getToDistance(i, n));
+				}
+			}
+
+			for (int start = 0; start < nodeNr; start += 13) {
+				for (int end = 0; end < nodeNr; end += 11) {
+					double expected = AlgoDijkstra.shortestPath(csr, start, end, workspace);
+					double bound = landmarks.lowerBound(start, end);
+					if (expected < 0) {
+						assertTrue(bound >= 0);
+					} else {
+						assertTrue(bound <= expected);
+					}
+				}
+			}
+		}
+	}
+
+	/**
+	 * Test that saved tables load with the same content and are rejected for
+	 * another graph, also one with the same number of nodes and arcs.
+	 *
+	 * @throws IOException
+	 *             - if an I/0 exception occurs
+	 */
+	@Test
+	public void saveLoadTest() throws IOException {
+		GkaCsr directed = GkaGenerator.randomGraph(500, 2000, true, false, 1, 20, 3).toCsr();
+		GkaCsr undirected = GkaGenerator.randomGraph(500, 2000, false, false, 1, 20, 3).toCsr();
+		Path path = Files.createTempFile("landmarksTest", ".bin");
+
+		try {
+			for (GkaCsr csr : new GkaCsr[] { directed, undirected }) {
+				GkaLandmarks landmarks = GkaLandmarks.build(csr, 4, 1);
+				landmarks.save(path);
+				GkaLandmarks loaded = GkaLandmarks.load(path, csr);
+				for (int i = 0; i < 4; i++) {
+					assertEquals(landmarks.getLandmark(i), loaded.getLandmark(i));
+					for (int n = 0; n < csr.getNodeCount(); n++) {
+						assertEquals(landmarks.getFromDistance(i, n), loaded.getFromDistance(i, n));
+						assertEquals(landmarks.getToDistance(i, n), loaded.getToDistance(i, n));
+					}
+				}
+			}
+
+			try {
+				GkaLandmarks.load(path, directed);
+				fail();
+			} catch (IOException e) {
+				// expected
+			}
+
+			// same counts but other weights
+			GkaLandmarks.build(directed, 4, 1).save(path);
+			GkaCsr reweighted = GkaGenerator.randomGraph(500, 2000, true, false, 1, 21, 3).toCsr();
+			assertEquals(directed.getArcCount(), reweighted.getArcCount());
+			try {
+				GkaLandmarks.load(path, reweighted);
+				fail();
+			} catch (IOException e) {
+				assertEquals("Landmark file doesn't match graph.", e.getMessage());
+			}
+			Files.write(path, new byte[] { 'G', 'K', 'A', 'L', 2, 0, 0 });
+			try {
+				GkaLandmarks.load(path, directed);
+				fail();
+			} catch (IOException e) {
+				// expected
+			}
+		} finally {
+			Files.delete(path);
+		}
+	}
+
+	/**
+	 * Test that invalid arguments are rejected.
+	 */
+	@Test
+	public void argumentsTest() {
+		try {
+			GkaLandmarks.build(new GkaEdgeList().toCsr(), 4, 3);
+			fail("Expected IllegalArgumentException");
+		} catch (IllegalArgumentException e) {
+			assertEquals("Landmarks need a graph with nodes.", e.getMessage());
+		}
+		try {
+			GkaLandmarks.build(GkaGenerator.randomGraph(10, 20, true, false, 1, 5, 1).toCsr(), 0, 3);
+			fail("Expected IllegalArgumentException");
+		} catch (IllegalArgumentException e) {
+			assertEquals("At least one landmark needed.", e.getMessage());
+		}
+	}
+
+	private static int cost(GkaCsr csr, int start, int end, GkaDijkstraWorkspace workspace) {
+		double cost = AlgoDijkstra.shortestPath(csr, start, end, workspace);
+		return cost < 0 ? GkaLandmarks.UNREACHABLE : (int) cost;
+	}
+}
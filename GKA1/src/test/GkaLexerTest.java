@@ -0,0 +1,162 @@
+package test;
+
+import static org.junit.Assert.*;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.junit.Test;
+
+import gka1.GkaLexer;
+import gka1.GkaUtils;
+
+/**
+ * Test for GkaLexer. The lexer must accept exactly what the GKA line regex
+ * accepts.
+ *
+ * @author Huy Tran PC
+ *
+ */
+public class GkaLexerTest {
+
+	/**
+	 * Test that the lexer finds the same lines as the regex in all files of
+	 * <em>gkaFiles</em>.
+	 *
+	 * @throws IOException
+	 *             - if an I/0 exception occurs
+	 */
+	@Test
+	public void sameAsRegexTest() throws IOException {
+		for (File file : gkaFiles()) {
+			String content = new String(Files.readAllBytes(file.toPath()), StandardCharsets.UTF_8);
+			assertEquals(file.getName(), parseWithRegex(content), parseWithLexer(content));
+		}
+	}
+
+	/**
+	 * Test corner cases of the grammar and of line terminators.
+	 *
+	 * @throws IOException
+	 *             - if an I/0 exception occurs
+	 */
+	@Test
+	public void cornerCasesTest() throws IOException {
+		List<String> lines = Arrays.asList(" a ->  c  (1       23);", "a -- b ;", "Lübeck--Kiel:17;", "ß;",
+				"a -> b (   ) : 3;", "a -> b ();", "a -> b : ;", "a -> b : 1 2;", "a -- g b -- j;", "a -> ;",
+				"a -> b (x) (y);", "a -> b : 5 (x);", "a-->b;", "a->b;  ", "a\t->\u000Bb\f;", "é -> b;", "a -> b",
+				"-> b;", "a -> b : 0012;", ";", "");
+
+		// LF, CRLF, CR and no terminator at the end
+		for (String terminator : Arrays.asList("\n", "\r\n", "\r")) {
+			String content = String.join(terminator, lines);
+			assertEquals(parseWithRegex(content), parseWithLexer(content));
+			assertEquals(parseWithRegex(content + terminator), parseWithLexer(content + terminator));
+		}
+
+		// lines longer than the buffer of the lexer
+		char[] longName = new char[200000];
+		Arrays.fill(longName, 'x');
+		String content = "a -> b;\n" + new String(longName) + " -- y (" + new String(longName) + ") : 1;\nc;";
+		assertEquals(parseWithRegex(content), parseWithLexer(content));
+		assertEquals(3, parseWithLexer(content).size());
+	}
+
+	/**
+	 * Compare the throughput of the lexer with the regex on the files of
+	 * <em>gkaFiles</em>.
+	 *
+	 * @throws IOException
+	 *             - if an I/0 exception occurs
+	 */
+	@Test
+	public void throughputTest() throws IOException {
+		StringBuilder sb = new StringBuilder();
+		for (File file : gkaFiles()) {
+			sb.append(new String(Files.readAllBytes(file.toPath()), StandardCharsets.UTF_8)).append('\n');
+		}
+		String content = sb.toString();
+		double megabytes = content.getBytes(StandardCharsets.UTF_8).length / 1e6;
+		int rounds = 200;
+
+		// warm up
+		for (int i = 0; i < 20; i++) {
+			parseWithRegex(content);
+			parseWithLexer(content);
+		}
+
+		long start = System.nanoTime();
+		for (int i = 0; i < rounds; i++) {
+			parseWithRegex(content);
+		}
+		long regexTime = System.nanoTime() - start;
+
+		start = System.nanoTime();
+		for (int i = 0; i < rounds; i++) {
+			parseWithLexer(content);
+		}
+		long lexerTime = System.nanoTime() - start;
+
+		System.out.printf("Throughput regex = %.2f MB/s%n", megabytes * rounds / (regexTime / 1e9));
+		System.out.printf("Throughput lexer = %.2f MB/s%n%n", megabytes * rounds / (lexerTime / 1e9));
+	}
+
+	private static File[] gkaFiles() {
+		File[] files = new File(System.getProperty("user.dir") + "/gkaFiles").listFiles((dir, name) -> name.endsWith(".gka"));
+		Arrays.sort(files);
+		return files;
+	}
+
+	/**
+	 * The line by line parser GkaUtils.read used before the lexer.
+	 */
+	private static List<String> parseWithRegex(String content) throws IOException {
+		Pattern pattern = Pattern.compile(GkaUtils.GKA_LINE_REGEX);
+		List<String> records = new ArrayList<>();
+
+		try (BufferedReader br = new BufferedReader(new StringReader(content))) {
+			String line;
+			while ((line = br.readLine()) != null) {
+				Matcher matcher = pattern.matcher(line);
+				if (matcher.matches()) {
+					String edgeName = matcher.group(6);
+					if (edgeName != null) {
+						edgeName = edgeName.trim().replaceAll("\\s+", " ");
+					}
+					String edgeWeight = matcher.group(8);
+					records.add(record(matcher.group(1), matcher.group(3), matcher.group(4), edgeName,
+							edgeWeight != null ? Integer.valueOf(edgeWeight) : null));
+				}
+			}
+		}
+
+		return records;
+	}
+
+	private static List<String> parseWithLexer(String content) throws IOException {
+		List<String> records = new ArrayList<>();
+
+		try (GkaLexer lexer = new GkaLexer(new StringReader(content))) {
+			while (lexer.next()) {
+				records.add(record(lexer.getNodeName1(), lexer.getDirection(), lexer.getNodeName2(),
+						lexer.getEdgeName(), lexer.hasWeight() ? lexer.getWeight() : null));
+			}
+		}
+
+		return records;
+	}
+
+	private static String record(String nodeName1, String direction, String nodeName2, String edgeName,
+			Integer edgeWeight) {
+		return nodeName1 + "|" + direction + "|" + nodeName2 + "|" + edgeName + "|" + edgeWeight;
+	}
+}
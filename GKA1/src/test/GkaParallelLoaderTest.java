@@ -0,0 +1,101 @@
+package test;
+
+import static org.junit.Assert.*;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.Test;
+
+import gka1.GkaCsr;
+import gka1.GkaEdgeList;
+import gka1.GkaGraph;
+import gka1.GkaParallelLoader;
+import gka1.GkaUtils;
+
+/**
+ * Test for GkaParallelLoader.
+ *
+ * @author Huy Tran PC
+ *
+ */
+public class GkaParallelLoaderTest {
+
+	/**
+	 * Test that loading with tiny chunks gives the same graph as GkaUtils.read for
+	 * all files of <em>gkaFiles</em>.
+	 *
+	 * @throws IOException
+	 *             - if an I/0 exception occurs
+	 */
+	@Test
+	public void sameAsReadTest() throws IOException {
+		File[] files = new File(System.getProperty("user.dir") + "/gkaFiles").listFiles((dir, name) -> name.endsWith(".gka"));
+		Arrays.sort(files);
+
+		for (File file : files) {
+			GkaGraph expected = GkaUtils.read(file.getName());
+
+			for (long chunkSize : new long[] { 7, 64, 0 }) {
+				GkaEdgeList list = GkaParallelLoader.load(file.toPath(), 4, chunkSize);
+				GkaGraph actual = list.toGraph();
+
+				assertEquals(file.getName(), expected.getNodeNames(), actual.getNodeNames());
+				assertEquals(file.getName(), expected.getEdgesString(), actual.getEdgesString());
+				assertEquals(file.getName(), expected.getSingleNodesString(), actual.getSingleNodesString());
+
+				GkaCsr expectedCsr = GkaCsr.of(expected);
+				GkaCsr actualCsr = list.toCsr();
+				assertArrayEquals(expectedCsr.getOffsets(), actualCsr.getOffsets());
+				assertArrayEquals(expectedCsr.getTargets(), actualCsr.getTargets());
+				assertArrayEquals(expectedCsr.getWeights(), actualCsr.getWeights());
+			}
+		}
+	}
+
+	/**
+	 * Print the load time of a large generated file for growing numbers of
+	 * threads.
+	 *
+	 * @throws IOException
+	 *             - if an I/0 exception occurs
+	 */
+	@Test
+	public void scalingTest() throws IOException {
+		Path path = Files.createTempFile("parallelLoaderTest", ".gka");
+		try {
+			int lineNr = 2000000;
+			Random rand = new Random(42);
+			try (BufferedWriter writer = Files.newBufferedWriter(path, StandardCharsets.UTF_8)) {
+				for (int i = 0; i < lineNr; i++) {
+					writer.write("v" + rand.nextInt(200000) + " -> v" + rand.nextInt(200000) + " : "
+							+ rand.nextInt(100) + ";\n");
+				}
+			}
+			double megabytes = Files.size(path) / 1e6;
+
+			int edgeNr = GkaParallelLoader.load(path, 1).getEdgeCount();
+			assertEquals(lineNr, edgeNr);
+
+			int maxThreadNr = Math.max(2, Runtime.getRuntime().availableProcessors());
+			for (int threadNr = 1; threadNr <= maxThreadNr; threadNr *= 2) {
+				long start = System.nanoTime();
+				GkaEdgeList list = GkaParallelLoader.load(path, threadNr);
+				long time = System.nanoTime() - start;
+
+				assertEquals(edgeNr, list.getEdgeCount());
+				System.out.printf("Threads = %d, load time = %.2f ms (%.2f MB/s)%n", threadNr, time / 1e6,
+						megabytes / (time / 1e9));
+			}
+			System.out.println();
+		} finally {
+			Files.delete(path);
+		}
+	}
+}
@@ -2,18 +2,30 @@ package test;
 
 import static org.junit.Assert.*;
 
+import java.io.ByteArrayOutputStream;
 import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.UnsupportedEncodingException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 import org.graphstream.graph.Edge;
+import org.graphstream.graph.Node;
 import org.junit.Before;
 import org.junit.Test;
 
+import gka1.GkaEdgeList;
 import gka1.GkaGraph;
+import gka1.GkaRecordHandler;
 import gka1.GkaUtils;
 
 /**
@@ -82,6 +94,62 @@ public class GkaUtilsTest {
 
 	}
 
+	/**
+	 * Test that a read graph uses sequential ids and dense node indices.
+	 * 
+	 * @throws IOException
+	 *             - if an I/0 exception occurs
+	 */
+	@Test()
+	public void sequentialIdsTest() throws IOException {
+		graph = GkaUtils.read(filename);
+
+		assertEquals(GkaGraph.IdMode.SEQUENTIAL, graph.getIdMode());
+		for (int i = 0; i < graph.getNodeCount(); i++) {
+			assertEquals(String.valueOf(i), graph.getNode(i).getId());
+		}
+		for (int i = 0; i < graph.getEdgeCount(); i++) {
+			assertEquals(String.valueOf(i), graph.getEdge(i).getId());
+		}
+		for (String nodeName : nodeNames) {
+			assertTrue(graph.hasNodeName(nodeName));
+			assertEquals(nodeName, graph.getNode(graph.getNodeIndex(nodeName)).getAttribute("name"));
+			assertEquals(graph.getNodeIndex(nodeName), graph.createNodeIndex(nodeName));
+		}
+		assertEquals(-1, graph.getNodeIndex("unknown"));
+		assertEquals(nodesNum, graph.getNodeCount());
+	}
+
+	/**
+	 * Test that names still resolve to their nodes after nodes were removed,
+	 * which moves the last node into the freed index.
+	 * 
+	 * @throws IOException
+	 *             - if an I/0 exception occurs
+	 */
+	@Test()
+	public void removeNodeTest() throws IOException {
+		graph = GkaUtils.read(filename);
+		String removed = graph.getNode(0).getAttribute("name");
+		graph.removeNode(0);
+
+		assertFalse(graph.hasNodeName(removed));
+		assertEquals(-1, graph.getNodeIndex(removed));
+		for (Node node : graph) {
+			String nodeName = node.getAttribute("name");
+			assertEquals(node.getIndex(), graph.getNodeIndex(nodeName));
+			assertEquals(node.getId(), graph.createNode(nodeName));
+		}
+
+		int nodeNr = graph.getNodeCount();
+		int index = graph.createNodeIndex(removed);
+		assertEquals(nodeNr + 1, graph.getNodeCount());
+		assertEquals(removed, graph.getNode(index).getAttribute("name"));
+
+		graph.clear();
+		assertFalse(graph.hasNodeName(removed));
+	}
+
 	/**
 	 * Test GkaUtils.save(). Read the file graphTest1.gka and save the newly
 	 * created graph from graphTest1.gka and try to read it and check if all the
@@ -116,6 +184,124 @@ public class GkaUtilsTest {
 		System.out.println();
 	}
 
+	/**
+	 * Test that all save overloads write the same GKA content and print the time
+	 * of saving a graph with a million edges.
+	 *
+	 * @throws IOException
+	 *             - if an I/0 exception occurs
+	 */
+	@Test()
+	public void streamingSaveTest() throws IOException {
+		graph = GkaUtils.read(filename);
+		String expected = graph.getEdgesString() + graph.getSingleNodesString();
+
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		GkaUtils.save(graph, out);
+		assertEquals(expected, new String(out.toByteArray(), StandardCharsets.UTF_8));
+
+		Path path = Files.createTempFile("streamingSaveTest", ".gka");
+		try {
+			GkaUtils.save(graph, path);
+			assertEquals(expected, new String(Files.readAllBytes(path), StandardCharsets.UTF_8));
+
+			try (FileChannel channel = FileChannel.open(path, StandardOpenOption.WRITE,
+					StandardOpenOption.TRUNCATE_EXISTING)) {
+				GkaUtils.save(graph, channel);
+			}
+			assertEquals(expected, new String(Files.readAllBytes(path), StandardCharsets.UTF_8));
+
+			// a million edges
+			GkaGraph bigGraph = new GkaGraph(GkaGraph.createStringId(), GkaGraph.IdMode.SEQUENTIAL, 100000, 1000000);
+			for (int i = 0; i < 1000000; i++) {
+				bigGraph.createEdge(String.valueOf(i % 100000), String.valueOf((i * 7 + 1) % 100000), i % 2 == 0,
+						null, i);
+			}
+
+			long start = System.nanoTime();
+			GkaUtils.save(bigGraph, path);
+			long time = System.nanoTime() - start;
+
+			assertEquals(1000000, GkaUtils.read(Files.newBufferedReader(path, StandardCharsets.UTF_8)).getEdgeCount());
+			System.out.printf("Saving 1000000 edges: %.2f ms, %d bytes%n%n", time / 1e6, Files.size(path));
+		} finally {
+			Files.delete(path);
+		}
+	}
+
+	/**
+	 * Test GkaUtils.read() with a record handler: count degrees without building a
+	 * graph, keep a filtered subgraph and stop early.
+	 *
+	 * @throws IOException
+	 *             - if an I/0 exception occurs
+	 */
+	@Test()
+	public void recordHandlerTest() throws IOException {
+		graph = GkaUtils.read(filename);
+		Path path = Paths.get(System.getProperty("user.dir"), "gkaFiles", filename);
+
+		// degree of each node
+		Map<String, Integer> degrees = new HashMap<>();
+		assertTrue(GkaUtils.read(path, new GkaRecordHandler() {
+			@Override
+			public boolean node(String nodeName) {
+				degrees.putIfAbsent(nodeName, 0);
+				return true;
+			}
+
+			@Override
+			public boolean edge(String nodeName1, String nodeName2, boolean isDirected, String edgeName,
+					boolean hasWeight, int edgeWeight) {
+				// a loop counts once, like in GraphStream
+				degrees.merge(nodeName1, 1, Integer::sum);
+				if (!nodeName2.equals(nodeName1)) {
+					degrees.merge(nodeName2, 1, Integer::sum);
+				}
+				return true;
+			}
+		}));
+		for (Node node : graph) {
+			assertEquals((Integer) node.getDegree(), degrees.get(node.getAttribute("name")));
+		}
+
+		// directed edges only
+		GkaEdgeList directed = new GkaEdgeList();
+		assertTrue(GkaUtils.read(path, new GkaRecordHandler() {
+			@Override
+			public boolean node(String nodeName) {
+				return true;
+			}
+
+			@Override
+			public boolean edge(String nodeName1, String nodeName2, boolean isDirected, String edgeName,
+					boolean hasWeight, int edgeWeight) {
+				return !isDirected || directed.edge(nodeName1, nodeName2, isDirected, edgeName, hasWeight, edgeWeight);
+			}
+		}));
+		int directedNum = 0;
+		for (Edge edge : graph.getEachEdge()) {
+			directedNum += edge.isDirected() ? 1 : 0;
+		}
+		assertEquals(directedNum, directed.getEdgeCount());
+
+		// stop after 3 records
+		int[] recordNum = { 0 };
+		assertFalse(GkaUtils.read(path, new GkaRecordHandler() {
+			@Override
+			public boolean node(String nodeName) {
+				return ++recordNum[0] < 3;
+			}
+
+			@Override
+			public boolean edge(String nodeName1, String nodeName2, boolean isDirected, String edgeName,
+					boolean hasWeight, int edgeWeight) {
+				return ++recordNum[0] < 3;
+			}
+		}));
+		assertEquals(3, recordNum[0]);
+	}
+
 //	/**
 //	 * Test GkaUtils.generateRandom().
 //	 */
@@ -158,6 +344,29 @@ public class GkaUtilsTest {
 //		}
 //	}
 
+	/**
+	 * Test that reading and generating graphs neither selects a renderer nor adds
+	 * UI attributes.
+	 * 
+	 * @throws IOException
+	 *             - if an I/0 exception occurs
+	 */
+	@Test()
+	public void headlessTest() throws IOException {
+		graph = GkaUtils.read(filename);
+		GkaGraph bigNet = GkaUtils.generateNetwork(10, 20, 1, 50);
+
+		assertNull(System.getProperty("org.graphstream.ui.renderer"));
+		for (GkaGraph g : Arrays.asList(graph, bigNet)) {
+			for (Node node : g) {
+				assertFalse(node.hasAttribute("ui.class"));
+			}
+			for (Edge edge : g.getEachEdge()) {
+				assertFalse(edge.hasAttribute("ui.class"));
+			}
+		}
+	}
+
 	/**
 	 * Test GkaUtils.generateNetwork().
 	 */
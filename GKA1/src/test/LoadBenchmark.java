@@ -0,0 +1,76 @@
+package test;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import gka1.GkaBinary;
+import gka1.GkaEdgeList;
+import gka1.GkaUtils;
+
+/**
+ * Size and load time of graph files. Not part of the unit tests, as it writes
+ * tens of megabytes of temporary files, run it with e.g.
+ * "java -Xmx2g test.LoadBenchmark".
+ *
+ * @author Huy Tran PC
+ *
+ */
+public class LoadBenchmark {
+
+	/**
+	 * Run all benchmarks.
+	 *
+	 * @param args
+	 *            Not used.
+	 * @throws IOException
+	 *             - if an I/0 exception occurs
+	 */
+	public static void main(String[] args) throws IOException {
+		binaryLoadTime();
+	}
+
+	/**
+	 * Print size and load time of a graph with a million edges in GKA and binary
+	 * format.
+	 */
+	private static void binaryLoadTime() throws IOException {
+		GkaEdgeList list = new GkaEdgeList();
+		for (int i = 0; i < 100000; i++) {
+			list.addNode("node" + i);
+		}
+		for (int i = 0; i < 1000000; i++) {
+			int source = i % 100000;
+			list.addEdge(source, (source * 31 + i) % 100000, i % 3 != 0, i % 10 == 0 ? "e" + i : null, true, i % 1000);
+		}
+
+		Path binaryPath = Files.createTempFile("binaryTest", ".gkab");
+		Path gkaPath = Files.createTempFile("binaryTest", ".gka");
+		try {
+			try (Writer writer = Files.newBufferedWriter(gkaPath, StandardCharsets.UTF_8)) {
+				list.write(writer);
+			}
+			GkaBinary.write(list, binaryPath);
+
+			// warm up
+			GkaBinary.read(binaryPath);
+			GkaUtils.read(Files.newBufferedReader(gkaPath, StandardCharsets.UTF_8));
+
+			long start = System.nanoTime();
+			GkaBinary.read(binaryPath);
+			long binaryTime = System.nanoTime() - start;
+
+			start = System.nanoTime();
+			GkaUtils.read(Files.newBufferedReader(gkaPath, StandardCharsets.UTF_8));
+			long gkaTime = System.nanoTime() - start;
+
+			System.out.printf("GKA: %d bytes, read %.2f ms%n", Files.size(gkaPath), gkaTime / 1e6);
+			System.out.printf("Binary: %d bytes, read %.2f ms%n%n", Files.size(binaryPath), binaryTime / 1e6);
+		} finally {
+			Files.delete(binaryPath);
+			Files.delete(gkaPath);
+		}
+	}
+}
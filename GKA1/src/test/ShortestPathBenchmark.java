@@ -0,0 +1,137 @@
+package test;
+
+import java.util.concurrent.ForkJoinPool;
+
+import gka1.AlgoDeltaStepping;
+import gka1.AlgoDijkstra;
+import gka1.GkaCsr;
+import gka1.GkaDijkstraWorkspace;
+import gka1.GkaEdgeList;
+import gka1.GkaGenerator;
+
+/**
+ * Timing of the shortest path searches on a grid with a million nodes. Not part
+ * of the unit tests, as each run takes seconds, run it with e.g.
+ * "java -Xmx2g test.ShortestPathBenchmark".
+ *
+ * @author Huy Tran PC
+ *
+ */
+public class ShortestPathBenchmark {
+
+	/**
+	 * Run all benchmarks.
+	 *
+	 * @param args
+	 *            Not used.
+	 */
+	public static void main(String[] args) {
+		heapTime(grid(1000));
+		bucketTime();
+		deltaSteppingTime(grid(300));
+	}
+
+	/**
+	 * Print the time of Dijkstra with the indexed heap against a priority queue
+	 * with outdated entries.
+	 */
+	private static void heapTime(GkaCsr csr) {
+		GkaDijkstraWorkspace workspace = new GkaDijkstraWorkspace(csr.getNodeCount());
+		int end = csr.getNodeCount() - 1;
+
+		for (int i = 0; i < 3; i++) {
+			long start = System.nanoTime();
+			double expected = AlgoDiijkstraTest.lazyShortestPath(csr, 0, end);
+			long lazyTime = System.nanoTime() - start;
+
+			start = System.nanoTime();
+			check(expected == AlgoDijkstra.shortestPath(csr, 0, end, workspace, AlgoDijkstra.Queue.HEAP));
+			long heapTime = System.nanoTime() - start;
+
+			System.out.printf("Dijkstra on 1000 x 1000 grid: PriorityQueue %.2f ms, indexed 4-ary heap %.2f ms%n",
+					lazyTime / 1e6, heapTime / 1e6);
+		}
+		System.out.println();
+	}
+
+	/**
+	 * Print the time of Dijkstra with buckets against the indexed heap for small
+	 * and large max weights.
+	 */
+	private static void bucketTime() {
+		for (int maxWeight : new int[] { 300, 4096, 100000 }) {
+			GkaCsr csr = grid(maxWeight);
+			GkaDijkstraWorkspace workspace = new GkaDijkstraWorkspace(csr.getNodeCount());
+			int end = csr.getNodeCount() - 1;
+
+			for (int i = 0; i < 3; i++) {
+				long start = System.nanoTime();
+				double expected = AlgoDijkstra.shortestPath(csr, 0, end, workspace, AlgoDijkstra.Queue.HEAP);
+				long heapTime = System.nanoTime() - start;
+
+				start = System.nanoTime();
+				check(expected == AlgoDijkstra.shortestPath(csr, 0, end, workspace, AlgoDijkstra.Queue.BUCKETS));
+				long bucketTime = System.nanoTime() - start;
+
+				System.out.printf("Dijkstra on 1000 x 1000 grid, weights 1-%d: indexed heap %.2f ms, buckets %.2f ms%n",
+						maxWeight, heapTime / 1e6, bucketTime / 1e6);
+			}
+		}
+		System.out.println();
+	}
+
+	/**
+	 * Print the time of one-to-all costs with selected and other deltas compared
+	 * to Dijkstra from the start that stops at the farthest node.
+	 */
+	private static void deltaSteppingTime(GkaCsr csr) {
+		GkaDijkstraWorkspace workspace = new GkaDijkstraWorkspace(csr.getNodeCount());
+		ForkJoinPool pool = ForkJoinPool.commonPool();
+		int selected = AlgoDeltaStepping.selectDelta(csr);
+		int runNr = 5;
+
+		double[] dists = AlgoDeltaStepping.distances(csr, 0, selected, pool);
+		int farthest = 0;
+		for (int n = 0; n < dists.length; n++) {
+			if (dists[n] != Double.POSITIVE_INFINITY && dists[n] > dists[farthest]) {
+				farthest = n;
+			}
+		}
+
+		long dijkstraTime = 0;
+		for (int r = 0; r < runNr; r++) {
+			long start = System.nanoTime();
+			check(dists[farthest] == AlgoDijkstra.shortestPath(csr, 0, farthest, workspace, AlgoDijkstra.Queue.HEAP));
+			dijkstraTime += System.nanoTime() - start;
+		}
+		System.out.printf("1000 x 1000 grid, weights 1-%d, %d threads: Dijkstra %.2f ms%n", csr.getMaxWeight(),
+				pool.getParallelism(), dijkstraTime / 1e6 / runNr);
+
+		for (int delta : new int[] { 1, selected, 4 * selected, csr.getMaxWeight() + 1 }) {
+			long time = 0;
+			for (int r = 0; r < runNr; r++) {
+				long start = System.nanoTime();
+				AlgoDeltaStepping.distances(csr, 0, delta, pool);
+				time += System.nanoTime() - start;
+			}
+			System.out.printf("delta-stepping, delta %d%s: %.2f ms%n", delta, delta == selected ? " (selected)" : "",
+					time / 1e6 / runNr);
+		}
+		System.out.println();
+	}
+
+	/**
+	 * 1000 x 1000 grid with weights from 1 to maxWeight.
+	 */
+	private static GkaCsr grid(int maxWeight) {
+		GkaEdgeList list = new GkaEdgeList();
+		GkaGenerator.grid(1000, 1000, 0.1, 1, maxWeight, 1, list);
+		return list.toCsr();
+	}
+
+	private static void check(boolean condition) {
+		if (!condition) {
+			throw new IllegalStateException("Benchmark result differs from reference.");
+		}
+	}
+}
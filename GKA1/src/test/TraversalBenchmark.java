@@ -0,0 +1,199 @@
+package test;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+
+import gka1.AlgoBFS;
+import gka1.AlgoBidirectionalBFS;
+import gka1.AlgoMultiSourceBFS;
+import gka1.AlgoParallelBFS;
+import gka1.AlgoTraversal;
+import gka1.GkaBfsTree;
+import gka1.GkaCsr;
+import gka1.GkaEdgeList;
+import gka1.GkaGenerator;
+
+/**
+ * Timing of the traversals on large graphs. Not part of the unit tests, as the
+ * graphs take minutes to build and gigabytes of heap, run it with e.g.
+ * "java -Xmx8g test.TraversalBenchmark".
+ *
+ * @author Huy Tran PC
+ *
+ */
+public class TraversalBenchmark {
+
+	/**
+	 * Run all benchmarks.
+	 *
+	 * @param args
+	 *            Not used.
+	 */
+	public static void main(String[] args) {
+		GkaCsr rmat = rmat(20, 16000000);
+		bfsTime(rmat);
+		parallelBfsSpeedup(rmat);
+		earlyTermination(rmat);
+
+		GkaEdgeList grid = new GkaEdgeList();
+		GkaGenerator.grid(1000, 1000, 0.1, 1, 1, 1, grid);
+		bidirectionalBfsLatency("1000 x 1000 grid", grid.toCsr());
+		bidirectionalBfsLatency("R-MAT scale 20, 32M arcs", rmat);
+		System.out.println();
+
+		multiSourceBfsTime(rmat(18, 2000000));
+	}
+
+	/**
+	 * Print the time of a BFS on a low-diameter graph with a million nodes.
+	 */
+	private static void bfsTime(GkaCsr csr) {
+		for (int i = 0; i < 3; i++) {
+			long start = System.nanoTime();
+			int reached = AlgoBFS.traverse(csr, 0).length;
+			long traverseTime = System.nanoTime() - start;
+
+			start = System.nanoTime();
+			GkaBfsTree tree = AlgoBFS.search(csr, 0);
+			long searchTime = System.nanoTime() - start;
+			check(reached == tree.getReachedCount());
+
+			System.out.printf("BFS on R-MAT scale 20, 32M arcs, depth %d: top-down %.2f ms, direction-optimizing %.2f ms%n",
+					tree.getDepth(), traverseTime / 1e6, searchTime / 1e6);
+		}
+		System.out.println();
+	}
+
+	/**
+	 * Print the time of a BFS on a graph with a million nodes for 1 to 32
+	 * threads.
+	 */
+	private static void parallelBfsSpeedup(GkaCsr csr) {
+		long start = System.nanoTime();
+		GkaBfsTree expected = AlgoBFS.search(csr, 0);
+		double sequentialTime = (System.nanoTime() - start) / 1e6;
+		System.out.printf("BFS on R-MAT scale 20, 32M arcs: sequential %.2f ms%n", sequentialTime);
+
+		for (int threadNr = 1; threadNr <= 32; threadNr *= 2) {
+			ForkJoinPool pool = new ForkJoinPool(threadNr);
+			try {
+				// best of 3 runs
+				double time = Double.MAX_VALUE;
+				for (int i = 0; i < 3; i++) {
+					start = System.nanoTime();
+					GkaBfsTree tree = AlgoParallelBFS.search(csr, 0, pool);
+					time = Math.min(time, (System.nanoTime() - start) / 1e6);
+					check(tree.getReachedCount() == expected.getReachedCount());
+				}
+				System.out.printf("Threads = %d: %.2f ms, speedup %.2f%n", threadNr, time, sequentialTime / time);
+			} finally {
+				pool.shutdown();
+			}
+		}
+		System.out.printf("(%d processors available)%n%n", Runtime.getRuntime().availableProcessors());
+	}
+
+	/**
+	 * Print the time of short-circuiting searches against a full traversal.
+	 */
+	private static void earlyTermination(GkaCsr csr) {
+		long start = System.nanoTime();
+		int[] order = AlgoBFS.traverse(csr, 0);
+		long traverseTime = System.nanoTime() - start;
+
+		start = System.nanoTime();
+		int[] first = AlgoTraversal.bfsStream(csr, 0).limit(100).toArray();
+		long limitTime = System.nanoTime() - start;
+		for (int i = 0; i < first.length; i++) {
+			check(order[i] == first[i]);
+		}
+
+		int wanted = order[order.length / 100];
+		start = System.nanoTime();
+		check(AlgoTraversal.dfsStream(csr, 0).anyMatch(n -> n == wanted));
+		long anyMatchTime = System.nanoTime() - start;
+
+		System.out.printf("R-MAT scale 20, 32M arcs: full BFS %.2f ms, first 100 nodes %.3f ms, DFS anyMatch %.2f ms%n%n",
+				traverseTime / 1e6, limitTime / 1e6, anyMatchTime / 1e6);
+	}
+
+	/**
+	 * Print the average latency of point-to-point queries compared to a BFS from
+	 * the start that stops at the end.
+	 */
+	private static void bidirectionalBfsLatency(String name, GkaCsr csr) {
+		AlgoBidirectionalBFS bfs = new AlgoBidirectionalBFS(csr);
+		SplittableRandom rand = new SplittableRandom(1);
+		int queryNr = 100;
+
+		// only pairs of the component of node 0
+		GkaBfsTree tree = AlgoBFS.search(csr, 0);
+		int[] starts = new int[queryNr];
+		int[] ends = new int[queryNr];
+		for (int q = 0; q < queryNr; q++) {
+			do {
+				starts[q] = rand.nextInt(csr.getNodeCount());
+			} while (tree.getLevel(starts[q]) < 0);
+			do {
+				ends[q] = rand.nextInt(csr.getNodeCount());
+			} while (tree.getLevel(ends[q]) < 0);
+		}
+
+		long start = System.nanoTime();
+		for (int q = 0; q < queryNr; q++) {
+			AlgoBFS.shortestPath(csr, starts[q], ends[q]);
+		}
+		long bfsTime = System.nanoTime() - start;
+
+		start = System.nanoTime();
+		for (int q = 0; q < queryNr; q++) {
+			bfs.shortestPath(starts[q], ends[q]);
+		}
+		long bidirectionalTime = System.nanoTime() - start;
+
+		System.out.printf("%s: BFS %.3f ms, bidirectional BFS %.3f ms per query%n", name, bfsTime / 1e6 / queryNr,
+				bidirectionalTime / 1e6 / queryNr);
+	}
+
+	/**
+	 * Print the time of 256 x 256 batched distances against one BFS per source.
+	 */
+	private static void multiSourceBfsTime(GkaCsr csr) {
+		SplittableRandom rand = new SplittableRandom(1);
+		int[] sources = rand.ints(256, 0, csr.getNodeCount()).toArray();
+		int[] targets = rand.ints(256, 0, csr.getNodeCount()).toArray();
+
+		long start = System.nanoTime();
+		int[][] distances = AlgoMultiSourceBFS.distances(csr, sources, targets);
+		long batchTime = System.nanoTime() - start;
+
+		start = System.nanoTime();
+		for (int i = 0; i < sources.length; i++) {
+			int[] levels = AlgoBFS.search(csr, sources[i]).getLevels();
+			for (int j = 0; j < targets.length; j++) {
+				check(levels[targets[j]] == distances[i][j]);
+			}
+		}
+		long singleTime = System.nanoTime() - start;
+
+		System.out.printf("256 x 256 distances on R-MAT scale 18, 4M arcs: batched %.2f ms, one BFS per source %.2f ms%n%n",
+				batchTime / 1e6, singleTime / 1e6);
+	}
+
+	/**
+	 * Undirected R-MAT graph with unit weights and its transpose.
+	 */
+	private static GkaCsr rmat(int scale, int edgeNum) {
+		GkaEdgeList list = new GkaEdgeList();
+		GkaGenerator.rmat(scale, edgeNum, false, 1, 1, 1, list);
+		GkaCsr csr = list.toCsr();
+		csr.transpose();
+		return csr;
+	}
+
+	private static void check(boolean condition) {
+		if (!condition) {
+			throw new IllegalStateException("Benchmark result differs from reference.");
+		}
+	}
+}